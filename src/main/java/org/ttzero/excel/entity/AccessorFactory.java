@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 存取器工厂，将无参get方法、单参数set方法和无参构造器通过{@link LambdaMetafactory}编译为函数接口，
+ * 调用开销与直接调用方法相当，基本类型分别生成{@link ToIntFunction}、{@link ObjIntConsumer}等特化接口避免装箱。
+ *
+ * <p>只有公开类的公开方法且类对当前类加载器可见时才能编译，取值器在其余情况（包括字段）退化为反射取值，
+ * 反射异常统一包装为{@link ExcelWriteException}，设值器和构造器无法编译时返回{@code null}由调用方处理。
+ * 编译结果按类缓存，同一个类多次导入导出时只编译一次，缓存使用{@link ClassValue}不会阻止类卸载</p>
+ *
+ * <p>注意：此类为内部工具类，不保证API兼容性</p>
+ *
+ * @author guanquan.wang at 2024-12-03 10:18
+ */
+public final class AccessorFactory {
+    private AccessorFactory() { }
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    /**
+     * 编译结果缓存，key为{@code 函数接口名#方法签名}
+     */
+    private static final ClassValue<Map<String, Object>> CACHE = new ClassValue<Map<String, Object>>() {
+        @Override
+        protected Map<String, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * 创建返回对象的取值器
+     *
+     * @param method 无参get方法
+     * @return 取值器
+     */
+    static Function<Object, Object> getter(Method method) {
+        if (isGetter(method)) {
+            Class<?> rt = method.getReturnType();
+            Function<Object, Object> getter = compile(method, Function.class, "apply", MethodType.methodType(Object.class, Object.class)
+                , MethodType.methodType(rt.isPrimitive() ? MethodType.methodType(rt).wrap().returnType() : rt, method.getDeclaringClass()));
+            if (getter != null) return getter;
+        }
+        method.setAccessible(true);
+        return o -> {
+            try {
+                return method.invoke(o);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new ExcelWriteException(e);
+            }
+        };
+    }
+
+    /**
+     * 创建字段取值器
+     *
+     * @param field 字段
+     * @return 取值器
+     */
+    static Function<Object, Object> getter(Field field) {
+        field.setAccessible(true);
+        return o -> {
+            try {
+                return field.get(o);
+            } catch (IllegalAccessException e) {
+                throw new ExcelWriteException(e);
+            }
+        };
+    }
+
+    /**
+     * 创建{@code int}取值器，仅支持返回{@code int}、{@code short}和{@code byte}的方法
+     *
+     * @param method 无参get方法
+     * @return 取值器，无法编译时返回{@code null}
+     */
+    static ToIntFunction<Object> intGetter(Method method) {
+        Class<?> rt = method.getReturnType();
+        if (rt != int.class && rt != short.class && rt != byte.class || !isGetter(method)) return null;
+        return compile(method, ToIntFunction.class, "applyAsInt", MethodType.methodType(int.class, Object.class)
+            , MethodType.methodType(int.class, method.getDeclaringClass()));
+    }
+
+    /**
+     * 创建{@code long}取值器，仅支持返回{@code long}的方法
+     *
+     * @param method 无参get方法
+     * @return 取值器，无法编译时返回{@code null}
+     */
+    static ToLongFunction<Object> longGetter(Method method) {
+        if (method.getReturnType() != long.class || !isGetter(method)) return null;
+        return compile(method, ToLongFunction.class, "applyAsLong", MethodType.methodType(long.class, Object.class)
+            , MethodType.methodType(long.class, method.getDeclaringClass()));
+    }
+
+    /**
+     * 创建{@code double}取值器，仅支持返回{@code double}和{@code float}的方法
+     *
+     * @param method 无参get方法
+     * @return 取值器，无法编译时返回{@code null}
+     */
+    static ToDoubleFunction<Object> doubleGetter(Method method) {
+        Class<?> rt = method.getReturnType();
+        if (rt != double.class && rt != float.class || !isGetter(method)) return null;
+        return compile(method, ToDoubleFunction.class, "applyAsDouble", MethodType.methodType(double.class, Object.class)
+            , MethodType.methodType(double.class, method.getDeclaringClass()));
+    }
+
+    /**
+     * 创建设值器，基本类型参数由{@link LambdaMetafactory}自动拆箱
+     *
+     * @param method 单参数set方法，允许有返回值（链式set方法）
+     * @return 设值器，无法编译时返回{@code null}
+     */
+    public static BiConsumer<Object, Object> setter(Method method) {
+        if (!isSetter(method)) return null;
+        Class<?> pt = method.getParameterTypes()[0];
+        return compile(method, BiConsumer.class, "accept", MethodType.methodType(void.class, Object.class, Object.class)
+            , MethodType.methodType(void.class, method.getDeclaringClass(), pt.isPrimitive() ? MethodType.methodType(pt).wrap().returnType() : pt));
+    }
+
+    /**
+     * 创建{@code int}设值器，仅支持参数为{@code int}的方法
+     *
+     * @param method 单参数set方法
+     * @return 设值器，无法编译时返回{@code null}
+     */
+    public static ObjIntConsumer<Object> intSetter(Method method) {
+        if (!isSetter(method) || method.getParameterTypes()[0] != int.class) return null;
+        return compile(method, ObjIntConsumer.class, "accept", MethodType.methodType(void.class, Object.class, int.class)
+            , MethodType.methodType(void.class, method.getDeclaringClass(), int.class));
+    }
+
+    /**
+     * 创建{@code long}设值器，仅支持参数为{@code long}的方法
+     *
+     * @param method 单参数set方法
+     * @return 设值器，无法编译时返回{@code null}
+     */
+    public static ObjLongConsumer<Object> longSetter(Method method) {
+        if (!isSetter(method) || method.getParameterTypes()[0] != long.class) return null;
+        return compile(method, ObjLongConsumer.class, "accept", MethodType.methodType(void.class, Object.class, long.class)
+            , MethodType.methodType(void.class, method.getDeclaringClass(), long.class));
+    }
+
+    /**
+     * 创建{@code double}设值器，仅支持参数为{@code double}的方法
+     *
+     * @param method 单参数set方法
+     * @return 设值器，无法编译时返回{@code null}
+     */
+    public static ObjDoubleConsumer<Object> doubleSetter(Method method) {
+        if (!isSetter(method) || method.getParameterTypes()[0] != double.class) return null;
+        return compile(method, ObjDoubleConsumer.class, "accept", MethodType.methodType(void.class, Object.class, double.class)
+            , MethodType.methodType(void.class, method.getDeclaringClass(), double.class));
+    }
+
+    /**
+     * 创建无参构造器
+     *
+     * @param clazz 类型
+     * @return 构造器，类型不是公开类或没有公开的无参构造器时返回{@code null}
+     */
+    public static Supplier<Object> constructor(Class<?> clazz) {
+        if (!isVisible(clazz) || Modifier.isAbstract(clazz.getModifiers())) return null;
+        Constructor<?> constructor;
+        try {
+            constructor = clazz.getConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+        return compile(constructor, Supplier.class, "get", MethodType.methodType(Object.class), MethodType.methodType(clazz));
+    }
+
+    /**
+     * 判断方法是否可以编译，生成的类定义在当前类所在的包中，所以只能调用公开类的公开实例方法，
+     * 并且方法所在的类必须能被当前类加载器加载
+     *
+     * @param method 方法
+     * @return true: 可以编译
+     */
+    static boolean isCompilable(Method method) {
+        return Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()) && isVisible(method.getDeclaringClass());
+    }
+
+    static boolean isGetter(Method method) {
+        return method.getParameterCount() == 0 && method.getReturnType() != void.class && isCompilable(method);
+    }
+
+    static boolean isSetter(Method method) {
+        return method.getParameterCount() == 1 && isCompilable(method);
+    }
+
+    static boolean isVisible(Class<?> clazz) {
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) return false;
+        }
+        try {
+            return Class.forName(clazz.getName(), false, AccessorFactory.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T compile(Executable executable, Class<?> functionalInterface, String name, MethodType samType, MethodType instantiatedType) {
+        Map<String, Object> cache = CACHE.get(executable.getDeclaringClass());
+        String key = functionalInterface.getSimpleName() + '#' + executable;
+        Object f = cache.get(key);
+        if (f == null) {
+            f = spin(executable, functionalInterface, name, samType, instantiatedType);
+            // 无法编译时缓存失败标记
+            cache.put(key, f != null ? f : Boolean.FALSE);
+        }
+        return f != Boolean.FALSE ? (T) f : null;
+    }
+
+    private static Object spin(Executable executable, Class<?> functionalInterface, String name, MethodType samType, MethodType instantiatedType) {
+        try {
+            MethodHandle target = executable instanceof Method ? LOOKUP.unreflect((Method) executable) : LOOKUP.unreflectConstructor((Constructor<?>) executable);
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP, name, MethodType.methodType(functionalInterface)
+                , samType, target, instantiatedType);
+            return site.getTarget().invoke();
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.ttzero.excel.reader.Cell;
+
+/**
+ * 单元格写入策略，由{@link ICellValueAndStyle#getCellValueWriter}按列的数据类型解析，
+ * 解析结果缓存在列上，每个单元格只需一次调用即可完成写值，不再逐单元格判断数据类型
+ *
+ * @author guanquan.wang at 2024-12-04 10:32
+ */
+@FunctionalInterface
+public interface CellValueWriter {
+    /**
+     * 将值写入单元格
+     *
+     * @param row  行信息
+     * @param cell 单元格
+     * @param e    单元格的值，不为{@code null}
+     * @param hc   当前列的表头
+     */
+    void write(Row row, Cell cell, Object e, Column hc);
+}
@@ -104,6 +104,16 @@ public class Column {
      * 表格头的样式索引, -1表示未设置
      */
     protected int headerStyleIndex = -1;
+    /**
+     * 最近一次查询的样式值和样式索引，同一列相邻行的样式通常相同，命中时不需要查询全局样式库
+     */
+    private Styles lastStyles;
+    private int lastStyle, lastStyleIndex;
+    /**
+     * 已解析的单元格写入策略，按数据类型缓存，同一列出现多种数据类型时各类型只解析一次，
+     * 最多缓存{@link ResolvedValueWriter#LIMIT}种类型，超出后不再缓存
+     */
+    ResolvedValueWriter valueWriter;
     /**
      * 列宽，表头行高
      */
@@ -164,9 +174,14 @@ public class Column {
      * 25, 2 | 列类型, 0: 默认导出为文本 1: 导出为图片 2: 超链接
      * 23, 2 | 垂直对齐
      * 21, 3 | 水平对齐
+     * 18, 1 | 自适应共享字符串 1位
      * </pre></blockquote>
      */
     protected int option;
+    /**
+     * 自适应共享字符串的最大去重比例，抽样中不重复的值超过该比例时改为内嵌字符串
+     */
+    protected double maxDistinctRatio;
     /**
      * 图片效果，可以简单使用内置的{@link org.ttzero.excel.drawing.PresetPictureEffect} 28种效果
      */
@@ -398,6 +413,7 @@ public class Column {
         this.fill = other.fill;
         this.colIndex = other.colIndex;
         this.option = other.option;
+        this.maxDistinctRatio = other.maxDistinctRatio;
         this.realColIndex = other.realColIndex;
         if (other.cellStyle != null) setCellStyle(other.cellStyle);
         if (other.headerStyle != null) setHeaderStyle(other.headerStyle);
@@ -577,6 +593,21 @@ public class Column {
         return this;
     }
 
+    /**
+     * 查询样式值在全局样式库中的索引，优先从最近一次查询结果中获取
+     *
+     * @param style 样式值
+     * @return 样式索引
+     */
+    int styleIndexOf(int style) {
+        if (lastStyles != styles || lastStyle != style) {
+            lastStyleIndex = styles.of(style);
+            lastStyle = style;
+            lastStyles = styles;
+        }
+        return lastStyleIndex;
+    }
+
     /**
      * 获取单元格样式索引，不包含动态样式
      *
@@ -659,9 +690,56 @@ public class Column {
     public Column setShare(boolean share) {
         if (share) this.option |= 1 << 5;
         else this.option &= ~(1 << 5);
+        // 明确指定后不再自适应
+        this.option &= ~(1 << 13);
+        return this;
+    }
+
+    /**
+     * 设置自适应共享字符串，不重复值的比例超过{@code 0.5}时改为内嵌字符串，
+     * 参考{@link #adaptiveShare(double)}
+     *
+     * @return 当前列
+     */
+    public Column adaptiveShare() {
+        return adaptiveShare(0.5D);
+    }
+
+    /**
+     * 设置自适应共享字符串，输出协议对该列的前若干个字符串抽样统计不重复值的比例，
+     * 抽样期间使用共享字符串，不重复值超过{@code maxDistinctRatio}时该列后续的值改为内嵌字符串，
+     * 抽样结束仍未超过时保持共享。适用于无法预知基数的列，
+     * 编号、邮箱等高基数列不再频繁查询共享区，状态、地区等低基数列仍然可以完全去重
+     *
+     * @param maxDistinctRatio 最大去重比例，取值范围{@code (0, 1]}
+     * @return 当前列
+     */
+    public Column adaptiveShare(double maxDistinctRatio) {
+        if (maxDistinctRatio <= 0D || maxDistinctRatio > 1D)
+            throw new IllegalArgumentException("The distinct ratio must be in (0, 1], current is " + maxDistinctRatio);
+        this.option |= 1 << 5 | 1 << 13;
+        this.maxDistinctRatio = maxDistinctRatio;
         return this;
     }
 
+    /**
+     * 是否自适应共享字符串
+     *
+     * @return true: 根据抽样结果选择共享或内嵌
+     */
+    public boolean isAdaptiveShare() {
+        return (option >> 13 & 1) == 1;
+    }
+
+    /**
+     * 获取自适应共享字符串的最大去重比例
+     *
+     * @return 最大去重比例
+     */
+    public double getMaxDistinctRatio() {
+        return maxDistinctRatio;
+    }
+
     /**
      * 设置当前列统一“格式化”样式
      *
@@ -1000,4 +1078,59 @@ public class Column {
         this.option = this.option & ~(3 << 6) | (2 << 6);
         return this;
     }
+
+    /**
+     * 查找已解析的单元格写入策略
+     *
+     * @param owner 解析写入策略的{@link ICellValueAndStyle}
+     * @param clazz 单元格值的数据类型
+     * @return 写入策略，未解析时返回{@code null}
+     */
+    CellValueWriter getValueWriter(ICellValueAndStyle owner, Class<?> clazz) {
+        for (ResolvedValueWriter r = valueWriter; r != null; r = r.next) {
+            if (r.clazz == clazz && r.owner == owner) return r.writer;
+        }
+        return null;
+    }
+
+    /**
+     * 缓存单元格写入策略，{@code owner}变化时丢弃之前的缓存，已缓存的类型达到上限时不再缓存
+     *
+     * @param owner 解析写入策略的{@link ICellValueAndStyle}
+     * @param clazz 单元格值的数据类型
+     * @param writer 写入策略
+     * @return 写入策略
+     */
+    CellValueWriter putValueWriter(ICellValueAndStyle owner, Class<?> clazz, CellValueWriter writer) {
+        ResolvedValueWriter head = valueWriter;
+        if (head != null && head.owner != owner) head = null;
+        if (head == null || head.size < ResolvedValueWriter.LIMIT) valueWriter = new ResolvedValueWriter(owner, clazz, writer, head);
+        return writer;
+    }
+
+    /**
+     * 单元格写入策略及其解析条件，同一列的多个类型以链表保存，最近解析的在前
+     */
+    static final class ResolvedValueWriter {
+        /**
+         * 每列最多缓存的数据类型个数
+         */
+        static final int LIMIT = 8;
+        final ICellValueAndStyle owner;
+        final Class<?> clazz;
+        final CellValueWriter writer;
+        final ResolvedValueWriter next;
+        /**
+         * 包含当前节点在内的缓存个数
+         */
+        final int size;
+
+        ResolvedValueWriter(ICellValueAndStyle owner, Class<?> clazz, CellValueWriter writer, ResolvedValueWriter next) {
+            this.owner = owner;
+            this.clazz = clazz;
+            this.writer = writer;
+            this.next = next;
+            this.size = next != null ? next.size + 1 : 1;
+        }
+    }
 }
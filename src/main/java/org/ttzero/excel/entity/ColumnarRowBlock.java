@@ -0,0 +1,460 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.ttzero.excel.reader.Cell;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.ttzero.excel.manager.Const.ROW_BLOCK_SIZE;
+import static org.ttzero.excel.reader.Cell.BLANK;
+import static org.ttzero.excel.reader.Cell.BOOL;
+import static org.ttzero.excel.reader.Cell.CHARACTER;
+import static org.ttzero.excel.reader.Cell.DATE;
+import static org.ttzero.excel.reader.Cell.DATETIME;
+import static org.ttzero.excel.reader.Cell.DECIMAL;
+import static org.ttzero.excel.reader.Cell.DOUBLE;
+import static org.ttzero.excel.reader.Cell.EMPTY_TAG;
+import static org.ttzero.excel.reader.Cell.INLINESTR;
+import static org.ttzero.excel.reader.Cell.LONG;
+import static org.ttzero.excel.reader.Cell.NUMERIC;
+import static org.ttzero.excel.reader.Cell.SST;
+import static org.ttzero.excel.reader.Cell.TIME;
+import static org.ttzero.excel.reader.Cell.UNALLOCATED;
+
+/**
+ * 列式存储的行块，与{@link RowBlock}为每行每列创建{@link Cell}对象不同，
+ * 它将整个行块按列连续存放在基本类型数组中，单元格类型和样式各占一个数组，
+ * 整型、浮点、布尔和字符统一存放在{@code long[]}中，字符串和{@code BigDecimal}存放在{@code Object[]}中，
+ * 下标为{@code 列下标 * capacity + 行游标}。
+ *
+ * <p>{@link Row}和{@link Cell}仅作为兼容视图保留，整个行块共享同一个视图行，
+ * 装填时{@link #next}返回的视图行在下一次调用{@link #next}或{@link #flip}时提交到数组中，
+ * 读取时{@link #next}将数组中的值载入视图行，所以不能同时持有两个行对象。
+ * 输出协议可以通过{@link #getType}、{@link #getLong}等方法直接按下标取值而不经过视图行。</p>
+ *
+ * <p>包含公式、超链接和图片的单元格仍然复制一份完整的{@link Cell}，这类单元格不享受列式存储</p>
+ *
+ * @author guanquan.wang at 2024-12-12 10:30
+ */
+public class ColumnarRowBlock extends RowBlock {
+    /**
+     * 标记单元格使用完整的{@link Cell}存储
+     */
+    public static final char SPILL = '\uFFFF';
+    /**
+     * 单元格类型和样式
+     */
+    private char[] types;
+    private int[] styles;
+    /**
+     * 整型、长整型、浮点、布尔和字符值，浮点以{@link Double#doubleToRawLongBits}存放
+     */
+    private long[] values;
+    /**
+     * 字符串和{@code BigDecimal}
+     */
+    private Object[] refs;
+    /**
+     * 公式、超链接和图片单元格
+     */
+    private Cell[] spills;
+    /**
+     * 行属性
+     */
+    private final int[] indexes, fcs, lcs;
+    private final Double[] heights;
+    private final boolean[] hidden;
+    private final Integer[] outlineLevels;
+    /**
+     * 当前已分配的列数
+     */
+    private int columns;
+    /**
+     * 共享视图行
+     */
+    private final Row view = new ViewRow();
+    /**
+     * 是否为装填模式
+     */
+    private boolean writable = true;
+    /**
+     * 装填模式下未提交的行游标，{@code -1}表示无
+     */
+    private int pending = -1;
+
+    /**
+     * 以默认大小实例化列式行块，默认{@code 32}
+     */
+    public ColumnarRowBlock() {
+        this(ROW_BLOCK_SIZE);
+    }
+
+    /**
+     * 实例化列式行块并指定容量
+     *
+     * @param capacity 容量
+     */
+    public ColumnarRowBlock(int capacity) {
+        super(capacity, false);
+        indexes = new int[capacity];
+        fcs = new int[capacity];
+        lcs = new int[capacity];
+        heights = new Double[capacity];
+        hidden = new boolean[capacity];
+        outlineLevels = new Integer[capacity];
+        types = new char[0];
+        styles = new int[0];
+        values = new long[0];
+        refs = new Object[0];
+    }
+
+    /**
+     * 游标复原并切换为装填模式
+     *
+     * @return 当前行块
+     */
+    @Override
+    public RowBlock clear() {
+        writable = true;
+        pending = -1;
+        return super.clear();
+    }
+
+    /**
+     * 提交最后一行并切换为读模式
+     *
+     * @return 当前行块
+     */
+    @Override
+    public RowBlock flip() {
+        if (pending >= 0) {
+            commit(pending);
+            pending = -1;
+        }
+        writable = false;
+        return super.flip();
+    }
+
+    /**
+     * 获取指定游标的视图行，装填模式下先提交上一行再返回清空后的视图行，
+     * 读模式下将该行数据载入视图行，此方法不会修改游标位置
+     *
+     * @param position 游标
+     * @return 视图行
+     */
+    @Override
+    public Row get(int position) {
+        if (writable) {
+            if (pending >= 0) commit(pending);
+            pending = position;
+            view.height = null;
+            view.hidden = false;
+            view.outlineLevel = null;
+            view.fc = 0;
+            return view;
+        }
+        return load(position);
+    }
+
+    /**
+     * 获取本批次行块中最后一个数据
+     *
+     * @return Row
+     */
+    @Override
+    public Row lastRow() {
+        int limit = limit();
+        // 本批次无数据时上一批次必定装满
+        return limit >= 1 ? get(limit - 1) : getTotal() > 0 ? get(capacity() - 1) : null;
+    }
+
+    /**
+     * 游标后移一位并返回移动前的位置，输出协议使用此方法迭代可避免载入视图行
+     *
+     * @return 行游标
+     */
+    public int nextRow() {
+        return forward();
+    }
+
+    /**
+     * 获取行号（zero base）
+     *
+     * @param position 行游标
+     * @return 行号
+     */
+    public int getRowIndex(int position) {
+        return indexes[position];
+    }
+
+    /**
+     * 获取首列下标
+     *
+     * @param position 行游标
+     * @return 首列下标
+     */
+    public int getFirstColumn(int position) {
+        return fcs[position];
+    }
+
+    /**
+     * 获取末列下标（不包含）
+     *
+     * @param position 行游标
+     * @return 末列下标
+     */
+    public int getLastColumn(int position) {
+        return lcs[position];
+    }
+
+    /**
+     * 获取行高
+     *
+     * @param position 行游标
+     * @return 行高，{@code null}表示默认行高
+     */
+    public Double getHeight(int position) {
+        return heights[position];
+    }
+
+    /**
+     * 行是否隐藏
+     *
+     * @param position 行游标
+     * @return true: 隐藏
+     */
+    public boolean isHidden(int position) {
+        return hidden[position];
+    }
+
+    /**
+     * 获取行层级
+     *
+     * @param position 行游标
+     * @return 行层级
+     */
+    public Integer getOutlineLevel(int position) {
+        return outlineLevels[position];
+    }
+
+    /**
+     * 获取单元格类型，返回{@link #SPILL}时需通过{@link #getCell}获取完整单元格
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @return 单元格类型
+     */
+    public char getType(int position, int column) {
+        return types[column * capacity() + position];
+    }
+
+    /**
+     * 获取单元格样式
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @return 样式值
+     */
+    public int getStyle(int position, int column) {
+        return styles[column * capacity() + position];
+    }
+
+    /**
+     * 获取整型、长整型、布尔（1或0）和字符单元格的值
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @return 值
+     */
+    public long getLong(int position, int column) {
+        return values[column * capacity() + position];
+    }
+
+    /**
+     * 获取浮点和日期单元格的值
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @return 值
+     */
+    public double getDouble(int position, int column) {
+        return Double.longBitsToDouble(values[column * capacity() + position]);
+    }
+
+    /**
+     * 获取字符串单元格的值
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @return 值
+     */
+    public String getString(int position, int column) {
+        return (String) refs[column * capacity() + position];
+    }
+
+    /**
+     * 获取{@code BigDecimal}单元格的值
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @return 值
+     */
+    public BigDecimal getDecimal(int position, int column) {
+        return (BigDecimal) refs[column * capacity() + position];
+    }
+
+    /**
+     * 将单元格载入指定的{@link Cell}对象
+     *
+     * @param position 行游标
+     * @param column   列下标
+     * @param cell     目标单元格
+     * @return 目标单元格
+     */
+    public Cell getCell(int position, int column, Cell cell) {
+        int i = column * capacity() + position;
+        char t = types[i];
+        if (t == SPILL) return cell.from(spills[i]);
+        cell.clear();
+        cell.t = t;
+        cell.xf = styles[i];
+        switch (t) {
+            case NUMERIC  : cell.intVal = (int) values[i];                        break;
+            case LONG     : cell.longVal = values[i];                             break;
+            case DATE:
+            case DATETIME:
+            case DOUBLE:
+            case TIME     : cell.doubleVal = Double.longBitsToDouble(values[i]);  break;
+            case BOOL     : cell.boolVal = values[i] != 0L;                       break;
+            case CHARACTER: cell.charVal = (char) values[i];                      break;
+            case INLINESTR:
+            case SST      : cell.stringVal = (String) refs[i];                    break;
+            case DECIMAL  : cell.decimal = (BigDecimal) refs[i];                  break;
+        }
+        return cell;
+    }
+
+    /**
+     * 将视图行提交到指定游标
+     *
+     * @param position 行游标
+     */
+    protected void commit(int position) {
+        Row row = view;
+        int fc = row.fc, lc = Math.max(row.lc, fc), capacity = capacity();
+        indexes[position] = row.index;
+        fcs[position] = row.fc;
+        lcs[position] = row.lc;
+        heights[position] = row.height;
+        hidden[position] = row.hidden;
+        outlineLevels[position] = row.outlineLevel;
+
+        if (lc > columns) ensureColumns(lc);
+        Cell[] cells = row.cells;
+        for (int c = fc, i = fc * capacity + position; c < lc; c++, i += capacity) {
+            Cell cell = cells[c];
+            char t = cell.t;
+            styles[i] = cell.xf;
+            refs[i] = null;
+            if (cell.f || cell.h || cell.mediaType != UNALLOCATED) t = SPILL;
+            else {
+                switch (t) {
+                    case NUMERIC  : values[i] = cell.intVal;                           break;
+                    case LONG     : values[i] = cell.longVal;                          break;
+                    case DATE:
+                    case DATETIME:
+                    case DOUBLE:
+                    case TIME     : values[i] = Double.doubleToRawLongBits(cell.doubleVal); break;
+                    case BOOL     : values[i] = cell.boolVal ? 1L : 0L;                break;
+                    case CHARACTER: values[i] = cell.charVal;                          break;
+                    case INLINESTR:
+                    case SST      : refs[i] = cell.stringVal;                          break;
+                    case DECIMAL  : refs[i] = cell.decimal;                            break;
+                    case UNALLOCATED:
+                    case EMPTY_TAG:
+                    case BLANK    :                                                    break;
+                    default       : t = SPILL;
+                }
+            }
+            if (t == SPILL) {
+                if (spills == null) spills = new Cell[types.length];
+                Cell spill = spills[i];
+                if (spill == null) spills[i] = spill = new Cell();
+                spill.from(cell);
+            }
+            types[i] = t;
+        }
+    }
+
+    /**
+     * 将指定游标的数据载入视图行
+     *
+     * @param position 行游标
+     * @return 视图行
+     */
+    protected Row load(int position) {
+        Row row = view;
+        int fc = fcs[position], lc = lcs[position];
+        row.index = indexes[position];
+        row.height = heights[position];
+        row.hidden = hidden[position];
+        row.outlineLevel = outlineLevels[position];
+        Cell[] cells = row.realloc(Math.max(lc, 0));
+        row.lc = lc;
+        row.fc = fc;
+        for (int c = fc; c < lc; c++) getCell(position, c, cells[c]);
+        return row;
+    }
+
+    /**
+     * 扩容到指定列数，按列存放所以原有数据的下标保持不变
+     *
+     * @param n 列数
+     */
+    protected void ensureColumns(int n) {
+        int size = n * capacity();
+        types = Arrays.copyOf(types, size);
+        styles = Arrays.copyOf(styles, size);
+        values = Arrays.copyOf(values, size);
+        refs = Arrays.copyOf(refs, size);
+        if (spills != null) spills = Arrays.copyOf(spills, size);
+        columns = n;
+    }
+
+    /**
+     * 获取当前已分配的列数
+     *
+     * @return 列数
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * 共享视图行，每次分配都以参数为准重置末列下标，避免上一行的单元格残留
+     */
+    private static class ViewRow extends Row {
+        @Override
+        public Cell[] realloc(int n) {
+            if (cells == null || cells.length < n) calloc(n);
+            else lc = n;
+            return cells;
+        }
+    }
+}
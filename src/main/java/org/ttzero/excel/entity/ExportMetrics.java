@@ -0,0 +1,453 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出指标，一次导出完成后通过{@link Workbook#onMetrics}回调，包含各阶段耗时、吞吐量、
+ * 压缩前后字节数以及共享字符区的缓存命中情况，可用于生产环境的导出性能监控。
+ *
+ * <p>所有耗时均为纳秒，工作表并行输出时各工作表的取数和序列化耗时会有重叠，
+ * 所以它们的和可能大于总耗时</p>
+ *
+ * <pre>
+ * new Workbook().onMetrics(m -&gt; {
+ *     LOGGER.info("rows: {}, rows/s: {}, zip: {}ms", m.getRows(), m.getRowsPerSecond(), m.getZipNanos() / 1_000_000);
+ * })</pre>
+ *
+ * @author guanquan.wang at 2024-12-06 10:20
+ */
+public class ExportMetrics {
+    private final List<SheetMetrics> sheets = new ArrayList<>();
+    private long elapsedNanos, globalNanos, zipNanos, mediaNanos;
+    private long bytesIn, bytesOut, mediaBytes;
+    private int mediaCount;
+    private int sstCount, sstUnique, sstHot, sstIndexFind, sstCharCache, bloomResets;
+    private long sstTempBytes;
+
+    /**
+     * 添加工作表指标
+     *
+     * @param sheetMetrics 工作表指标
+     * @return 当前指标
+     */
+    public ExportMetrics addSheet(SheetMetrics sheetMetrics) {
+        sheets.add(sheetMetrics);
+        return this;
+    }
+
+    /**
+     * 获取所有工作表的指标
+     *
+     * @return 工作表指标，顺序与工作表一致
+     */
+    public List<SheetMetrics> getSheets() {
+        return Collections.unmodifiableList(sheets);
+    }
+
+    /**
+     * 获取导出总行数
+     *
+     * @return 所有工作表的行数和
+     */
+    public long getRows() {
+        long n = 0L;
+        for (SheetMetrics s : sheets) n += s.rows;
+        return n;
+    }
+
+    /**
+     * 获取导出总单元格数
+     *
+     * @return 所有工作表的单元格数和
+     */
+    public long getCells() {
+        long n = 0L;
+        for (SheetMetrics s : sheets) n += s.cells;
+        return n;
+    }
+
+    /**
+     * 获取取数耗时，即等待数据源返回行块的时间
+     *
+     * @return 所有工作表的取数耗时和（纳秒）
+     */
+    public long getFetchNanos() {
+        long n = 0L;
+        for (SheetMetrics s : sheets) n += s.fetchNanos;
+        return n;
+    }
+
+    /**
+     * 获取序列化耗时，即行块转为XML的时间
+     *
+     * @return 所有工作表的序列化耗时和（纳秒）
+     */
+    public long getSerializeNanos() {
+        long n = 0L;
+        for (SheetMetrics s : sheets) n += s.serializeNanos;
+        return n;
+    }
+
+    /**
+     * 每秒导出行数
+     *
+     * @return 按总耗时计算的每秒行数
+     */
+    public double getRowsPerSecond() {
+        return perSecond(getRows(), elapsedNanos);
+    }
+
+    /**
+     * 每秒导出单元格数
+     *
+     * @return 按总耗时计算的每秒单元格数
+     */
+    public double getCellsPerSecond() {
+        return perSecond(getCells(), elapsedNanos);
+    }
+
+    /**
+     * 共享字符区的缓存命中率，即热区和ASCII字符缓存命中次数占查找总数的比例
+     *
+     * @return {@code 0-1}之间的命中率，没有查找时返回0
+     */
+    public double getSstHitRatio() {
+        return sstCount > 0 ? (double) (sstHot + sstCharCache) / sstCount : 0D;
+    }
+
+    /**
+     * 压缩率
+     *
+     * @return 压缩后字节数与压缩前字节数的比值，未压缩时返回0
+     */
+    public double getCompressionRatio() {
+        return bytesIn > 0 ? (double) bytesOut / bytesIn : 0D;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public ExportMetrics setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+        return this;
+    }
+
+    /**
+     * 获取全局部件（共享字符区、样式、workbook.xml等）的输出耗时
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getGlobalNanos() {
+        return globalNanos;
+    }
+
+    public ExportMetrics setGlobalNanos(long globalNanos) {
+        this.globalNanos = globalNanos;
+        return this;
+    }
+
+    /**
+     * 获取打包压缩耗时，流式输出时工作表随写随压，这部分耗时计入序列化耗时
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getZipNanos() {
+        return zipNanos;
+    }
+
+    public ExportMetrics setZipNanos(long zipNanos) {
+        this.zipNanos = zipNanos;
+        return this;
+    }
+
+    /**
+     * 获取图片暂存和写入压缩包的耗时
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getMediaNanos() {
+        return mediaNanos;
+    }
+
+    public ExportMetrics setMediaNanos(long mediaNanos) {
+        this.mediaNanos = mediaNanos;
+        return this;
+    }
+
+    /**
+     * 获取压缩前字节数
+     *
+     * @return 所有条目的原始字节数
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public ExportMetrics setBytesIn(long bytesIn) {
+        this.bytesIn = bytesIn;
+        return this;
+    }
+
+    /**
+     * 获取压缩后字节数
+     *
+     * @return 压缩包字节数
+     */
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public ExportMetrics setBytesOut(long bytesOut) {
+        this.bytesOut = bytesOut;
+        return this;
+    }
+
+    /**
+     * 获取图片（去重后）的字节数
+     *
+     * @return 字节数
+     */
+    public long getMediaBytes() {
+        return mediaBytes;
+    }
+
+    public ExportMetrics setMediaBytes(long mediaBytes) {
+        this.mediaBytes = mediaBytes;
+        return this;
+    }
+
+    /**
+     * 获取图片（去重后）的个数
+     *
+     * @return 图片个数
+     */
+    public int getMediaCount() {
+        return mediaCount;
+    }
+
+    public ExportMetrics setMediaCount(int mediaCount) {
+        this.mediaCount = mediaCount;
+        return this;
+    }
+
+    /**
+     * 获取共享字符区的查找总数
+     *
+     * @return 查找次数
+     */
+    public int getSstCount() {
+        return sstCount;
+    }
+
+    public ExportMetrics setSstCount(int sstCount) {
+        this.sstCount = sstCount;
+        return this;
+    }
+
+    /**
+     * 获取共享字符区的唯一字符串个数
+     *
+     * @return 唯一字符串个数
+     */
+    public int getSstUnique() {
+        return sstUnique;
+    }
+
+    public ExportMetrics setSstUnique(int sstUnique) {
+        this.sstUnique = sstUnique;
+        return this;
+    }
+
+    /**
+     * 获取热区（LRU）命中次数
+     *
+     * @return 命中次数
+     */
+    public int getSstHot() {
+        return sstHot;
+    }
+
+    public ExportMetrics setSstHot(int sstHot) {
+        this.sstHot = sstHot;
+        return this;
+    }
+
+    /**
+     * 获取热区未命中后查找磁盘索引的次数
+     *
+     * @return 查找次数
+     */
+    public int getSstIndexFind() {
+        return sstIndexFind;
+    }
+
+    public ExportMetrics setSstIndexFind(int sstIndexFind) {
+        this.sstIndexFind = sstIndexFind;
+        return this;
+    }
+
+    /**
+     * 获取ASCII字符缓存命中次数
+     *
+     * @return 命中次数
+     */
+    public int getSstCharCache() {
+        return sstCharCache;
+    }
+
+    public ExportMetrics setSstCharCache(int sstCharCache) {
+        this.sstCharCache = sstCharCache;
+        return this;
+    }
+
+    /**
+     * 获取布隆过滤器因容量已满被丢弃的次数
+     *
+     * @return 丢弃次数
+     */
+    public int getBloomResets() {
+        return bloomResets;
+    }
+
+    public ExportMetrics setBloomResets(int bloomResets) {
+        this.bloomResets = bloomResets;
+        return this;
+    }
+
+    /**
+     * 获取共享字符区临时文件（字符串、数据表和索引）的字节数
+     *
+     * @return 字节数
+     */
+    public long getSstTempBytes() {
+        return sstTempBytes;
+    }
+
+    public ExportMetrics setSstTempBytes(long sstTempBytes) {
+        this.sstTempBytes = sstTempBytes;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "Rows: " + getRows() + ", Cells: " + getCells()
+            + ", Elapsed: " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+            + ", Fetch: " + TimeUnit.NANOSECONDS.toMillis(getFetchNanos()) + "ms"
+            + ", Serialize: " + TimeUnit.NANOSECONDS.toMillis(getSerializeNanos()) + "ms"
+            + ", Global: " + TimeUnit.NANOSECONDS.toMillis(globalNanos) + "ms"
+            + ", Zip: " + TimeUnit.NANOSECONDS.toMillis(zipNanos) + "ms"
+            + ", Media: " + TimeUnit.NANOSECONDS.toMillis(mediaNanos) + "ms"
+            + ", Bytes: " + bytesIn + " -> " + bytesOut
+            + ", SST: {Count: " + sstCount + ", Unique: " + sstUnique + ", Hot: " + sstHot
+            + ", Index: " + sstIndexFind + ", Char Cache: " + sstCharCache + ", Bloom Resets: " + bloomResets
+            + ", Temp: " + sstTempBytes + "}";
+    }
+
+    static double perSecond(long n, long nanos) {
+        return nanos > 0L ? n * 1_000_000_000D / nanos : 0D;
+    }
+
+    /**
+     * 工作表指标
+     */
+    public static class SheetMetrics {
+        private final String name;
+        private final long rows, cells, fetchNanos, serializeNanos;
+        private final double sampleError;
+
+        public SheetMetrics(String name, long rows, long cells, long fetchNanos, long serializeNanos) {
+            this(name, rows, cells, fetchNanos, serializeNanos, 0.0D);
+        }
+
+        public SheetMetrics(String name, long rows, long cells, long fetchNanos, long serializeNanos, double sampleError) {
+            this.name = name;
+            this.rows = rows;
+            this.cells = cells;
+            this.fetchNanos = fetchNanos;
+            this.serializeNanos = serializeNanos;
+            this.sampleError = sampleError;
+        }
+
+        /**
+         * 获取工作表名
+         *
+         * @return 工作表名
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 获取导出行数
+         *
+         * @return 行数
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * 获取导出单元格数，按行数乘以列数计算
+         *
+         * @return 单元格数
+         */
+        public long getCells() {
+            return cells;
+        }
+
+        /**
+         * 获取取数耗时
+         *
+         * @return 耗时（纳秒）
+         */
+        public long getFetchNanos() {
+            return fetchNanos;
+        }
+
+        /**
+         * 获取序列化耗时
+         *
+         * @return 耗时（纳秒）
+         */
+        public long getSerializeNanos() {
+            return serializeNanos;
+        }
+
+        /**
+         * 获取自适应列宽的抽样误差，参考{@link Sheet#autoSize(int, double)}
+         *
+         * @return 抽样列宽比全量数据列宽窄的最大值（字符宽度），未抽样时返回{@code 0}
+         */
+        public double getSampleError() {
+            return sampleError;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": {Rows: " + rows + ", Cells: " + cells
+                + ", Fetch: " + TimeUnit.NANOSECONDS.toMillis(fetchNanos) + "ms"
+                + ", Serialize: " + TimeUnit.NANOSECONDS.toMillis(serializeNanos) + "ms"
+                + (sampleError > 0.0D ? ", Sample Error: " + sampleError : "") + "}";
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于{@link HttpURLConnection}的远程资源下载器，仅支持HTTP和HTTPS协议
+ *
+ * <ul>
+ * <li>并发数受{@code maxConcurrency}限制，下载线程为守护线程且空闲30秒后自动退出</li>
+ * <li>正在下载的url会被合并，多个单元格引用同一url时只发起一次请求</li>
+ * <li>响应体读取完毕后关闭输入流而不是断开连接，由JDK的Keep-Alive缓存复用连接</li>
+ * <li>支持连接超时和读取超时，超时或响应码非2xx时返回{@code null}</li>
+ * <li>单个资源不超过{@code maxBytes}，声明的{@code Content-Length}或实际读取的字节数超出时放弃下载并返回{@code null}，
+ * 读取缓冲区按实际读取的内容增长，不会按{@code Content-Length}一次分配</li>
+ * </ul>
+ *
+ * @author guanquan.wang at 2024-12-04 14:18
+ */
+public class HttpRemoteMediaFetcher implements RemoteMediaFetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpRemoteMediaFetcher.class);
+    /**
+     * 正在下载的资源，下载完成后移除
+     */
+    protected final ConcurrentMap<String, CompletableFuture<byte[]>> inflight = new ConcurrentHashMap<>();
+    protected final ThreadPoolExecutor executor;
+    /**
+     * 连接超时和读取超时（毫秒）
+     */
+    protected int connectTimeout = 5000, readTimeout = 15000;
+    /**
+     * 单个资源的最大字节数，默认16MB
+     */
+    protected int maxBytes = 16 << 20;
+    /**
+     * 按{@code Content-Length}预分配读取缓冲区的上限
+     */
+    protected static final int INITIAL_BUFFER_LIMIT = 1 << 20;
+
+    public HttpRemoteMediaFetcher() {
+        this(8);
+    }
+
+    /**
+     * 创建下载器
+     *
+     * @param maxConcurrency 最大并发下载数
+     */
+    public HttpRemoteMediaFetcher(int maxConcurrency) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("maxConcurrency must be greater than 0");
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "eec-media-fetcher-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 获取进程共享的默认下载器
+     *
+     * @return 默认下载器
+     */
+    public static HttpRemoteMediaFetcher getDefault() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * 设置连接超时
+     *
+     * @param connectTimeout 连接超时（毫秒）
+     * @return 当前下载器
+     */
+    public HttpRemoteMediaFetcher setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    /**
+     * 设置读取超时
+     *
+     * @param readTimeout 读取超时（毫秒）
+     * @return 当前下载器
+     */
+    public HttpRemoteMediaFetcher setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * 设置单个资源的最大字节数
+     *
+     * @param maxBytes 最大字节数，必须大于0
+     * @return 当前下载器
+     */
+    public HttpRemoteMediaFetcher setMaxBytes(int maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("maxBytes must be greater than 0");
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    /**
+     * 获取单个资源的最大字节数
+     *
+     * @return 最大字节数
+     */
+    public int getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetch(String url) {
+        // Support http or https
+        if (url == null || !url.regionMatches(true, 0, "http", 0, 4)) return CompletableFuture.completedFuture(null);
+        CompletableFuture<byte[]> future = new CompletableFuture<>(), prev = inflight.putIfAbsent(url, future);
+        if (prev != null) return prev;
+        executor.execute(() -> {
+            byte[] body = null;
+            try {
+                body = download(url);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Download remote resource [{}] error", url, e);
+            } finally {
+                inflight.remove(url, future);
+                future.complete(body);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 同步下载，在下载线程中执行
+     *
+     * @param url 远程资源地址
+     * @return 资源内容，响应码非2xx或超过{@link #maxBytes}时返回{@code null}
+     * @throws IOException if I/O error occur.
+     */
+    protected byte[] download(String url) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
+        con.setConnectTimeout(connectTimeout);
+        con.setReadTimeout(readTimeout);
+        int code = con.getResponseCode();
+        if (code < 200 || code >= 300) {
+            LOGGER.warn("Download remote resource [{}] failed, response code: {}", url, code);
+            // 读完错误响应才能复用连接
+            try (InputStream es = con.getErrorStream()) {
+                if (es != null) drain(es, null);
+            }
+            return null;
+        }
+        long len = con.getContentLengthLong();
+        if (len > maxBytes) {
+            LOGGER.warn("Download remote resource [{}] skipped, content length {} exceeds the limit {}", url, len, maxBytes);
+            con.disconnect();
+            return null;
+        }
+        try (InputStream is = con.getInputStream()) {
+            // Content-Length只用于预分配，上限由实际读取的字节数保证
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(len > 0 ? (int) Math.min(len, INITIAL_BUFFER_LIMIT) : 1 << 14);
+            if (drain(is, bos, maxBytes)) return bos.toByteArray();
+        }
+        LOGGER.warn("Download remote resource [{}] skipped, body exceeds the limit {}", url, maxBytes);
+        con.disconnect();
+        return null;
+    }
+
+    private static void drain(InputStream is, ByteArrayOutputStream bos) throws IOException {
+        drain(is, bos, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 读取输入流，读取的字节数超过{@code limit}时停止
+     *
+     * @return false: 超过{@code limit}
+     */
+    private static boolean drain(InputStream is, ByteArrayOutputStream bos, int limit) throws IOException {
+        byte[] bytes = new byte[1 << 13];
+        long total = 0L;
+        for (int n; (n = is.read(bytes)) > 0; ) {
+            if ((total += n) > limit) return false;
+            if (bos != null) bos.write(bytes, 0, n);
+        }
+        return true;
+    }
+
+    private static class Holder {
+        private static final HttpRemoteMediaFetcher INSTANCE = new HttpRemoteMediaFetcher();
+    }
+}
@@ -66,6 +66,45 @@ public interface ICellValueAndStyle {
         cell.xf = getStyleIndex(row, hc, e);
     }
 
+    /**
+     * 写入{@code int}值，仅在列没有输出转换器和样式转换器时调用，不产生装箱对象
+     *
+     * @param row  行信息
+     * @param cell 单元格
+     * @param v    单元格的值
+     * @param hc   当前列的表头
+     */
+    default void reset(Row row, Cell cell, int v, Column hc) {
+        cell.setInt(v);
+        cell.xf = getStyleIndex(row, hc, null);
+    }
+
+    /**
+     * 写入{@code long}值，仅在列没有输出转换器和样式转换器时调用，不产生装箱对象
+     *
+     * @param row  行信息
+     * @param cell 单元格
+     * @param v    单元格的值
+     * @param hc   当前列的表头
+     */
+    default void reset(Row row, Cell cell, long v, Column hc) {
+        cell.setLong(v);
+        cell.xf = getStyleIndex(row, hc, null);
+    }
+
+    /**
+     * 写入{@code double}值，仅在列没有输出转换器和样式转换器时调用，不产生装箱对象
+     *
+     * @param row  行信息
+     * @param cell 单元格
+     * @param v    单元格的值
+     * @param hc   当前列的表头
+     */
+    default void reset(Row row, Cell cell, double v, Column hc) {
+        cell.setDouble(v);
+        cell.xf = getStyleIndex(row, hc, null);
+    }
+
     /**
      * 获取单元格样式值，先通过{@code Column}获取基础样式，如果有动态样式转换则将基础样式做为参数进行二次制作
      *
@@ -81,7 +120,7 @@ public interface ICellValueAndStyle {
         if (hc.styleProcessor != null) {
             style = hc.styleProcessor.build(o, style, hc.styles);
         }
-        return hc.styles.of(style);
+        return hc.styleIndexOf(style);
     }
 
     /**
@@ -95,7 +134,7 @@ public interface ICellValueAndStyle {
      */
     default <T> void setStyleDesign(T o, Cell cell, Column hc, StyleProcessor<T> styleProcessor) {
         if (styleProcessor != null && hc.styles != null) {
-            cell.xf = hc.styles.of(styleProcessor.build(o, hc.styles.getStyleByIndex(cell.xf), hc.styles));
+            cell.xf = hc.styleIndexOf(styleProcessor.build(o, hc.styles.getStyleByIndex(cell.xf), hc.styles));
         }
     }
 
@@ -122,63 +161,67 @@ public interface ICellValueAndStyle {
             clazz = e.getClass();
             hc.setClazz(clazz);
         }
+        // 写入策略按数据类型缓存在列上，每种类型只在首次出现时解析
+        CellValueWriter writer = hc.getValueWriter(this, clazz);
+        if (writer == null) writer = hc.putValueWriter(this, clazz, getCellValueWriter(hc, clazz));
+        writer.write(row, cell, e, hc);
+    }
+
+    /**
+     * 按数据类型解析单元格写入策略，解析结果缓存在列上，可覆写本方法以支持扩展类型
+     *
+     * @param hc    当前列的表头
+     * @param clazz 单元格值的数据类型
+     * @return 单元格写入策略
+     */
+    default CellValueWriter getCellValueWriter(Column hc, Class<?> clazz) {
         if (isString(clazz)) {
-            switch (hc.getColumnType()) {
-                // Default
-                case 0: cell.setString(e.toString()); break;
-                // Write as media (base64 image, remote url)
-                case 1: writeAsMedia(row, cell, e.toString(), hc, clazz); break;
-                // Write as Hyperlink
-                case 2: cell.setHyperlink(e.toString()); break;
-                default: cell.setString(e.toString());
-            }
-        } else if (isDate(clazz)) {
-            cell.setDateTime(DateUtil.toDateTimeValue((java.util.Date) e));
-        } else if (isDateTime(clazz)) {
-            cell.setDateTime(DateUtil.toDateTimeValue((Timestamp) e));
-        } else if (isChar(clazz)) {
-            cell.setChar((Character) e);
-        } else if (isShort(clazz)) {
-            cell.setInt((Short) e);
-        } else if (isInt(clazz)) {
-            cell.setInt((Integer) e);
-        } else if (isLong(clazz)) {
-            cell.setLong((Long) e);
-        } else if (isFloat(clazz)) {
-            cell.setDouble((Float) e);
-        } else if (isDouble(clazz)) {
-            cell.setDouble((Double) e);
-        } else if (isBool(clazz)) {
-            cell.setBool((Boolean) e);
-        } else if (isBigDecimal(clazz)) {
-            cell.setDecimal((BigDecimal) e);
-        } else if (isLocalDate(clazz)) {
-            cell.setDateTime(DateUtil.toDateValue((java.time.LocalDate) e));
-        } else if (isLocalDateTime(clazz)) {
-            cell.setDateTime(DateUtil.toDateTimeValue((java.time.LocalDateTime) e));
-        } else if (isTime(clazz)) {
-            cell.setTime(DateUtil.toTimeValue((java.sql.Time) e));
-        } else if (isLocalTime(clazz)) {
-            cell.setTime(DateUtil.toTimeValue((java.time.LocalTime) e));
+            return (row, cell, e, c) -> {
+                switch (c.getColumnType()) {
+                    // Default
+                    case 0: cell.setString(e.toString()); break;
+                    // Write as media (base64 image, remote url)
+                    case 1: writeAsMedia(row, cell, e.toString(), c, clazz); break;
+                    // Write as Hyperlink
+                    case 2: cell.setHyperlink(e.toString()); break;
+                    default: cell.setString(e.toString());
+                }
+            };
         }
-        // Write as media if column-type equals {@code 1}
-        else if (hc.getColumnType() == 1) {
-            if (Path.class.isAssignableFrom(clazz)) {
-                cell.setPath((Path) e);
-            } else if (File.class.isAssignableFrom(clazz)) {
-                cell.setPath(((File) e).toPath());
-            } else if (InputStream.class.isAssignableFrom(clazz)) {
-                cell.setInputStream((InputStream) e);
-            } else if (clazz == byte[].class) {
-                cell.setBinary((byte[]) e);
-            } else if (ByteBuffer.class.isAssignableFrom(clazz)) {
-                cell.setByteBuffer((ByteBuffer) e);
+        if (isDate(clazz)) return (row, cell, e, c) -> cell.setDateTime(DateUtil.toDateTimeValue((java.util.Date) e));
+        if (isDateTime(clazz)) return (row, cell, e, c) -> cell.setDateTime(DateUtil.toDateTimeValue((Timestamp) e));
+        if (isChar(clazz)) return (row, cell, e, c) -> cell.setChar((Character) e);
+        if (isShort(clazz)) return (row, cell, e, c) -> cell.setInt((Short) e);
+        if (isInt(clazz)) return (row, cell, e, c) -> cell.setInt((Integer) e);
+        if (isLong(clazz)) return (row, cell, e, c) -> cell.setLong((Long) e);
+        if (isFloat(clazz)) return (row, cell, e, c) -> cell.setDouble((Float) e);
+        if (isDouble(clazz)) return (row, cell, e, c) -> cell.setDouble((Double) e);
+        if (isBool(clazz)) return (row, cell, e, c) -> cell.setBool((Boolean) e);
+        if (isBigDecimal(clazz)) return (row, cell, e, c) -> cell.setDecimal((BigDecimal) e);
+        if (isLocalDate(clazz)) return (row, cell, e, c) -> cell.setDateTime(DateUtil.toDateValue((java.time.LocalDate) e));
+        if (isLocalDateTime(clazz)) return (row, cell, e, c) -> cell.setDateTime(DateUtil.toDateTimeValue((java.time.LocalDateTime) e));
+        if (isTime(clazz)) return (row, cell, e, c) -> cell.setTime(DateUtil.toTimeValue((java.sql.Time) e));
+        if (isLocalTime(clazz)) return (row, cell, e, c) -> cell.setTime(DateUtil.toTimeValue((java.time.LocalTime) e));
+        return (row, cell, e, c) -> {
+            // Write as media if column-type equals {@code 1}
+            if (c.getColumnType() == 1) {
+                if (Path.class.isAssignableFrom(clazz)) {
+                    cell.setPath((Path) e);
+                } else if (File.class.isAssignableFrom(clazz)) {
+                    cell.setPath(((File) e).toPath());
+                } else if (InputStream.class.isAssignableFrom(clazz)) {
+                    cell.setInputStream((InputStream) e);
+                } else if (clazz == byte[].class) {
+                    cell.setBinary((byte[]) e);
+                } else if (ByteBuffer.class.isAssignableFrom(clazz)) {
+                    cell.setByteBuffer((ByteBuffer) e);
+                }
             }
-        }
-        // Others
-        else {
-            unknownType(row, cell, e, hc, clazz);
-        }
+            // Others
+            else {
+                unknownType(row, cell, e, c, clazz);
+            }
+        };
     }
 
     /**
@@ -26,6 +26,9 @@ import org.ttzero.excel.annotation.IgnoreExport;
 import org.ttzero.excel.annotation.MediaColumn;
 import org.ttzero.excel.annotation.StyleDesign;
 import org.ttzero.excel.drawing.PresetPictureEffect;
+import org.ttzero.excel.entity.csv.CSVCellValueAndStyle;
+import org.ttzero.excel.entity.e7.XMLCellValueAndStyle;
+import org.ttzero.excel.entity.e7.XMLZebraLineCellValueAndStyle;
 import org.ttzero.excel.manager.Const;
 import org.ttzero.excel.processor.ConversionProcessor;
 import org.ttzero.excel.processor.Converter;
@@ -50,6 +53,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import static org.ttzero.excel.util.ReflectUtil.listDeclaredFieldsUntilJavaPackage;
 import static org.ttzero.excel.util.ReflectUtil.listReadMethods;
@@ -143,6 +150,14 @@ public class ListSheet<T> extends Sheet {
      * 数据产生者，简化分片查询
      */
     protected BiFunction<Integer, T, List<T>> dataSupplier;
+    /**
+     * 已提前分页，参考{@link #pagingAhead()}
+     */
+    protected boolean paged;
+    /**
+     * 各列取值方式已确定，参考{@link #prepareAccessors()}
+     */
+    protected boolean accessorReady;
 
     /**
      * 设置行级动态样式处理器，作用于整行优先级高于单元格动态样式处理器
@@ -381,46 +396,78 @@ public class ListSheet<T> extends Sheet {
         // Find the end index of row-block
         int end = getEndIndex(), len = columns.length;
         boolean hasGlobalStyleProcessor = (extPropMark & 2) == 2;
-        try {
-            for (; start < end; rows++, start++) {
-                Row row = rowBlock.next();
-                row.index = rows;
-                Cell[] cells = row.realloc(len);
-                T o = data.get(start);
-                boolean isNull = o == null;
-                for (int i = 0; i < len; i++) {
-                    // Clear cells
-                    Cell cell = cells[i];
-                    cell.clear();
-
-                    Object e;
-                    EntryColumn column = (EntryColumn) columns[i];
-                    /*
-                    The default processing of null values still retains the row style.
-                    If you don't want any style and value, you can change it to {@code continue}
-                     */
-                    if (column.isIgnoreValue() || isNull)
-                        e = null;
-                    else {
-                        if (column.getMethod() != null)
-                            e = column.getMethod().invoke(o);
-                        else if (column.getField() != null)
-                            e = column.getField().get(o);
-                        else e = o;
-                    }
-
-                    cellValueAndStyle.reset(row, cell, e, column);
-                    if (hasGlobalStyleProcessor) {
-                        cellValueAndStyle.setStyleDesign(o, cell, column, getStyleProcessor());
+        if (!accessorReady) {
+            prepareAccessors();
+            accessorReady = true;
+        }
+        for (; start < end; rows++, start++) {
+            Row row = rowBlock.next();
+            row.index = rows;
+            Cell[] cells = row.realloc(len);
+            T o = data.get(start);
+            boolean isNull = o == null;
+            for (int i = 0; i < len; i++) {
+                // Clear cells
+                Cell cell = cells[i];
+                cell.clear();
+
+                EntryColumn column = (EntryColumn) columns[i];
+                /*
+                The default processing of null values still retains the row style.
+                If you don't want any style and value, you can change it to {@code continue}
+                 */
+                if (column.isIgnoreValue() || isNull)
+                    cellValueAndStyle.reset(row, cell, null, column);
+                else {
+                    // 基本类型直接取值不装箱
+                    switch (column.fastGetter) {
+                        case 1: cellValueAndStyle.reset(row, cell, column.intGetter.applyAsInt(o), column); break;
+                        case 2: cellValueAndStyle.reset(row, cell, column.longGetter.applyAsLong(o), column); break;
+                        case 3: cellValueAndStyle.reset(row, cell, column.doubleGetter.applyAsDouble(o), column); break;
+                        default: cellValueAndStyle.reset(row, cell, column.getter.apply(o), column);
                     }
                 }
-                row.height = getRowHeight();
+                if (hasGlobalStyleProcessor) {
+                    cellValueAndStyle.setStyleDesign(o, cell, column, getStyleProcessor());
+                }
             }
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            throw new ExcelWriteException(e);
+            row.height = getRowHeight();
         }
     }
 
+    /**
+     * 确定各列的取值方式，在首次填充行块前调用一次，此时表头、输出转换器和样式转换器均已就绪。
+     *
+     * <p>基本类型的get方法在列没有输出转换器和样式转换器、列类型与返回值类型一致，
+     * 且{@link ICellValueAndStyle}为内置实现时直接取值写入单元格不装箱，
+     * 自定义的{@code ICellValueAndStyle}可能覆写了{@link ICellValueAndStyle#reset(Row, Cell, Object, Column)}
+     * 或{@code setCellValue}，此时统一按对象取值保证覆写的方法被调用</p>
+     */
+    protected void prepareAccessors() {
+        boolean allowFastGetter = isAllowFastGetter();
+        for (Column hc : columns) {
+            if (!(hc instanceof EntryColumn)) continue;
+            EntryColumn column = (EntryColumn) hc;
+            if (column.getter == null) column.compileAccessor();
+            column.fastGetter = 0;
+            if (allowFastGetter && column.primitive && column.getConversion() == null
+                && column.styleProcessor == null && column.clazz == column.method.getReturnType()) {
+                column.fastGetter = column.intGetter != null ? 1 : column.longGetter != null ? 2 : 3;
+            }
+        }
+    }
+
+    /**
+     * 当前{@link ICellValueAndStyle}是否允许基本类型直接写入单元格，仅内置实现返回{@code true}，
+     * 子类确认自定义实现的基本类型{@code reset}方法与对象取值的结果一致时可覆写本方法
+     *
+     * @return true: 允许基本类型直接写入
+     */
+    protected boolean isAllowFastGetter() {
+        Class<?> clazz = cellValueAndStyle.getClass();
+        return clazz == XMLCellValueAndStyle.class || clazz == XMLZebraLineCellValueAndStyle.class || clazz == CSVCellValueAndStyle.class;
+    }
+
     /**
      * 加载数据，内部调用{@link #more}获取数据并判断是否需要分页，超过工作表行上限则调用{@link #paging}分页
      */
@@ -452,16 +499,17 @@ public class ListSheet<T> extends Sheet {
         }
     }
 
+    /**
+     * 滑动窗口，将剩余未输出的数据（不超过一个行块）原地移到头部，
+     * {@code data}为内部持有的{@link ArrayList}，移除已输出部分只做一次数组拷贝不产生临时集合，
+     * 容量在首次扩容后保持不变
+     */
     private void compact() {
-        // Copy the remaining data to a temporary array
-        int size = left();
-        if (start > 0 && size > 0) {
-            // append and resize
-            List<T> last = new ArrayList<>(size);
-            last.addAll(data.subList(start, end));
-            data.clear();
-            data.addAll(last);
-        } else if (start > 0) data.clear();
+        if (start <= 0) return;
+        if (end < data.size()) data.subList(end, data.size()).clear();
+        data.subList(0, start).clear();
+        end -= start;
+        start = 0;
     }
 
     /**
@@ -665,6 +713,13 @@ public class ListSheet<T> extends Sheet {
             }
         }
 
+        // 编译取值器
+        for (Column hc : columns) {
+            for (Column c = hc; c != null; c = c.next) {
+                if (c instanceof EntryColumn) ((EntryColumn) c).compileAccessor();
+            }
+        }
+
         // Merge Header Style defined on Entry Class
         mergeGlobalSetting(clazz);
 
@@ -980,6 +1035,8 @@ public class ListSheet<T> extends Sheet {
      */
     @Override
     protected void paging() {
+        // 已提前分页
+        if (paged) return;
         int len = dataSize(), limit = getRowLimit();
         // paging
         if (len + rows > limit) {
@@ -1004,6 +1061,19 @@ public class ListSheet<T> extends Sheet {
         }
     }
 
+    /**
+     * 提前分页，多个工作表并行输出时由输出协议在提交工作表前按顺序调用，
+     * 复制工作表在输出前就插入工作薄，输出过程中不会再改变其它工作表的位置。
+     *
+     * <p>只处理实例化时已传入的数据，输出过程中通过{@link #more}获取的数据仍可能在关闭时分页</p>
+     */
+    public void pagingAhead() {
+        if (paged || copySheet || dataSize() <= 0) return;
+        if (!headerReady) getAndSortHeaderColumns();
+        paging();
+        paged = true;
+    }
+
     /**
      * 获取当前数组中有多少数据，数组中的数据是动态变化的，所以这是一个瞬时值
      *
@@ -1134,6 +1204,23 @@ public class ListSheet<T> extends Sheet {
          * 当前列对应的Bean字段
          */
         public Field field;
+        /**
+         * 预编译的取值器，get方法优先通过{@link java.lang.invoke.LambdaMetafactory}编译，
+         * 无法编译时退化为反射
+         */
+        protected Function<Object, Object> getter;
+        /**
+         * 基本类型返回值的取值器，不为{@code null}时{@link #primitive}为{@code true}
+         */
+        protected ToIntFunction<Object> intGetter;
+        protected ToLongFunction<Object> longGetter;
+        protected ToDoubleFunction<Object> doubleGetter;
+        protected boolean primitive;
+        /**
+         * 基本类型直接取值方式，0: 按对象取值 1: {@code int} 2: {@code long} 3: {@code double}，
+         * 由{@link ListSheet#prepareAccessors()}在首次填充行块前确定
+         */
+        protected int fastGetter;
 
         public EntryColumn() {
             super();
@@ -1206,6 +1293,11 @@ public class ListSheet<T> extends Sheet {
                 EntryColumn o = (EntryColumn) other;
                 this.method = o.method;
                 this.field = o.field;
+                this.getter = o.getter;
+                this.intGetter = o.intGetter;
+                this.longGetter = o.longGetter;
+                this.doubleGetter = o.doubleGetter;
+                this.primitive = o.primitive;
             }
             if (other.next != null) {
                 addSubColumn(new EntryColumn(other.next));
@@ -1229,5 +1321,20 @@ public class ListSheet<T> extends Sheet {
         public Field getField() {
             return field;
         }
+
+        /**
+         * 编译取值器，优先使用get方法其次使用字段，都没有时返回行对象本身
+         */
+        public void compileAccessor() {
+            if (method != null) {
+                intGetter = AccessorFactory.intGetter(method);
+                if (intGetter == null) longGetter = AccessorFactory.longGetter(method);
+                if (intGetter == null && longGetter == null) doubleGetter = AccessorFactory.doubleGetter(method);
+                primitive = intGetter != null || longGetter != null || doubleGetter != null;
+                getter = AccessorFactory.getter(method);
+            }
+            else if (field != null) getter = AccessorFactory.getter(field);
+            else getter = o -> o;
+        }
     }
 }
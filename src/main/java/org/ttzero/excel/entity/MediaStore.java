@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ttzero.excel.entity;
+
+import org.ttzero.excel.hash.ContentDigest;
+import org.ttzero.excel.manager.Const;
+import org.ttzero.excel.util.FileUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 多媒体暂存文件，工作薄中所有图片依次追加到同一个临时文件中并记录偏移量、长度和CRC，
+ * 打包时以{@code STORED}方式直接从暂存文件复制到压缩包，图片不再逐个落盘后重新读取和压缩。
+ *
+ * <p>{@code PNG}、{@code JPEG}等格式本身已经压缩，再次{@code DEFLATE}几乎没有收益，
+ * 所有追加方法都是线程安全的，异步下载的图片可以在任意线程写入</p>
+ *
+ * <p>暂存文件同时按内容摘要登记已保存的文件，内容相同的文件在整个工作薄中只保存一份，
+ * 摘要只在内容成功写入后才登记，写入失败不会留下指向不存在文件的摘要</p>
+ *
+ * @author guanquan.wang at 2024-12-05 16:20
+ */
+public final class MediaStore implements Closeable {
+    /**
+     * 输入流在内存中缓存的最大字节数，超过后转存到临时文件
+     */
+    public static final int SPOOL_THRESHOLD = 1 << 20;
+    /**
+     * 暂存文件，首次写入时创建
+     */
+    private Path path;
+    private FileChannel channel;
+    private final List<Entry> entries = new ArrayList<>();
+    /**
+     * 已保存的文件，key为内容摘要，value为文件名
+     */
+    private final Map<String, String> digests = new HashMap<>();
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    /**
+     * 暂存和写入压缩包的累计字节数与耗时（纳秒）
+     */
+    private long storedBytes, storedNanos;
+    /**
+     * 已关闭，关闭后不再接受新文件
+     */
+    private boolean closed;
+
+    /**
+     * 追加字节数组
+     *
+     * @param name 文件名
+     * @param bytes 字节数组
+     * @param off 起始位置
+     * @param len 长度
+     * @throws IOException if I/O error occur
+     */
+    public synchronized void put(String name, byte[] bytes, int off, int len) throws IOException {
+        put(name, ByteBuffer.wrap(bytes, off, len));
+    }
+
+    /**
+     * 追加{@code ByteBuffer}的剩余内容，不改变{@code position}
+     *
+     * @param name 文件名
+     * @param byteBuffer 图片内容
+     * @throws IOException if I/O error occur
+     */
+    public synchronized void put(String name, ByteBuffer byteBuffer) throws IOException {
+        long t = System.nanoTime();
+        FileChannel channel = channel();
+        Entry e = new Entry(name, channel.size());
+        ByteBuffer src = byteBuffer.duplicate();
+        crc.reset();
+        if (src.hasArray()) crc.update(src.array(), src.arrayOffset() + src.position(), src.remaining());
+        else crc.update(src.duplicate());
+        try {
+            for (long pos = e.offset; src.hasRemaining(); ) pos += channel.write(src, pos);
+        } catch (Throwable ex) {
+            discard(channel, e, ex);
+            throw ex;
+        }
+        complete(e, channel, crc.getValue());
+        storedNanos += System.nanoTime() - t;
+    }
+
+    /**
+     * 追加{@code ByteBuffer}的剩余内容并登记内容摘要，已保存相同内容的文件时不追加，
+     * 写入成功后才登记摘要
+     *
+     * @param name 文件名
+     * @param byteBuffer 图片内容
+     * @param digest 内容摘要，参考{@link ContentDigest}
+     * @return 内容相同的已保存文件名，不存在时返回{@code null}并保存当前文件
+     * @throws IOException if I/O error occur
+     */
+    public synchronized String putIfAbsent(String name, ByteBuffer byteBuffer, String digest) throws IOException {
+        String exists = digests.get(digest);
+        if (exists != null) return exists;
+        put(name, byteBuffer);
+        digests.put(digest, name);
+        return null;
+    }
+
+    /**
+     * 查找内容摘要对应的已保存文件名
+     *
+     * @param digest 内容摘要
+     * @return 已保存的文件名，不存在时返回{@code null}
+     */
+    public synchronized String get(String digest) {
+        return digests.get(digest);
+    }
+
+    /**
+     * 追加文件并登记内容摘要，已保存相同内容的文件时不复制，
+     * 摘要需提前通过{@link ContentDigest#of(Path)}计算
+     *
+     * @param name 文件名
+     * @param file 图片文件
+     * @param digest 内容摘要
+     * @return 内容相同的已保存文件名，不存在时返回{@code null}并保存当前文件
+     * @throws IOException if I/O error occur
+     */
+    public synchronized String putIfAbsent(String name, Path file, String digest) throws IOException {
+        String exists = digests.get(digest);
+        if (exists != null) return exists;
+        long t = System.nanoTime();
+        try (InputStream is = Files.newInputStream(file)) {
+            Entry e = append(name, is);
+            complete(e, channel, crc.getValue());
+        }
+        storedNanos += System.nanoTime() - t;
+        digests.put(digest, name);
+        return null;
+    }
+
+    /**
+     * 追加输入流并登记内容摘要，已读取的头部字节（用于识别文件类型）由{@code head}传入，输入流不会被关闭
+     *
+     * <p>输入流只能读取一次所以无法提前计算摘要，读取过程不持有锁，内容先缓存到内存中，
+     * 超过{@link #SPOOL_THRESHOLD}后转存到独立的临时文件，同时计算摘要和CRC，
+     * 读取完成后才加锁查找摘要，不存在时将缓存的内容追加到暂存文件，
+     * 下载缓慢的输入流不会阻塞其它线程追加文件</p>
+     *
+     * @param name 文件名
+     * @param head 已读取的头部字节，可以为{@code null}
+     * @param n 头部字节长度
+     * @param stream 剩余内容
+     * @return 内容相同的已保存文件名，不存在时返回{@code null}并保存当前文件
+     * @throws IOException if I/O error occur
+     */
+    public String putIfAbsent(String name, byte[] head, int n, InputStream stream) throws IOException {
+        return putIfAbsent(name, head, n, stream, "");
+    }
+
+    /**
+     * 追加输入流并登记内容摘要，与{@link #putIfAbsent(String, byte[], int, InputStream)}相同，
+     * 登记的摘要加上{@code scope}前缀，只与相同前缀的文件合并
+     *
+     * @param name 文件名
+     * @param head 已读取的头部字节，可以为{@code null}
+     * @param n 头部字节长度
+     * @param stream 剩余内容
+     * @param scope 摘要前缀，空字符串表示在整个工作薄内合并
+     * @return 内容相同的已保存文件名，不存在时返回{@code null}并保存当前文件
+     * @throws IOException if I/O error occur
+     */
+    public String putIfAbsent(String name, byte[] head, int n, InputStream stream, String scope) throws IOException {
+        long t = System.nanoTime();
+        try (Spool spool = new Spool()) {
+            if (head != null && n > 0) spool.write(head, n);
+            byte[] bytes = new byte[1 << 13];
+            while ((n = stream.read(bytes)) >= 0) {
+                if (n > 0) spool.write(bytes, n);
+            }
+            String key = scope + spool.digest.digest();
+            synchronized (this) {
+                String exists = digests.get(key);
+                if (exists == null) {
+                    FileChannel channel = channel();
+                    Entry e = new Entry(name, channel.size());
+                    try {
+                        spool.transferTo(channel, e.offset);
+                    } catch (Throwable ex) {
+                        discard(channel, e, ex);
+                        throw ex;
+                    }
+                    complete(e, channel, spool.crc.getValue());
+                    digests.put(key, name);
+                }
+                storedNanos += System.nanoTime() - t;
+                return exists;
+            }
+        }
+    }
+
+    /**
+     * 是否没有暂存任何文件
+     *
+     * @return true: 没有暂存文件
+     */
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * 以{@code STORED}方式将所有文件写入压缩包，压缩包输出流不会被关闭
+     *
+     * @param zos 压缩包输出流
+     * @param prefix 条目名前缀，如{@code xl/media/}
+     * @throws IOException if I/O error occur
+     */
+    public synchronized void writeTo(ZipOutputStream zos, String prefix) throws IOException {
+        if (entries.isEmpty()) return;
+        long t = System.nanoTime();
+        byte[] bytes = buffer.array();
+        for (Entry e : entries) {
+            ZipEntry entry = new ZipEntry(prefix + e.name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(e.size);
+            entry.setCompressedSize(e.size);
+            entry.setCrc(e.crc);
+            zos.putNextEntry(entry);
+            for (long pos = e.offset, end = e.offset + e.size; pos < end; ) {
+                buffer.clear();
+                if (end - pos < bytes.length) buffer.limit((int) (end - pos));
+                int n = channel.read(buffer, pos);
+                if (n < 0) throw new IOException("Unexpected end of media store: " + e.name);
+                zos.write(bytes, 0, n);
+                pos += n;
+            }
+            zos.closeEntry();
+        }
+        storedNanos += System.nanoTime() - t;
+    }
+
+    /**
+     * 暂存的文件个数
+     *
+     * @return 文件个数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 暂存文件的总字节数
+     *
+     * @return 字节数
+     */
+    public synchronized long bytes() {
+        return storedBytes;
+    }
+
+    /**
+     * 暂存和写入压缩包的累计耗时
+     *
+     * @return 耗时（纳秒）
+     */
+    public synchronized long nanos() {
+        return storedNanos;
+    }
+
+    /**
+     * 是否已关闭
+     *
+     * @return true: 已关闭
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 关闭并删除暂存文件，关闭后追加文件将抛出{@code IOException}，
+     * 防止超时后才完成的异步下载重新创建暂存文件
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        entries.clear();
+        digests.clear();
+        storedBytes = storedNanos = 0L;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (path != null) {
+            FileUtil.rm(path);
+            path = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (closed) throw new IOException("Media store is closed");
+        if (channel == null) {
+            path = Files.createTempFile(Const.EEC_PREFIX, ".media");
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return channel;
+    }
+
+    /**
+     * 将输入流追加到暂存文件末尾，异常时截断已写入的部分
+     */
+    private Entry append(String name, InputStream stream) throws IOException {
+        FileChannel channel = channel();
+        Entry e = new Entry(name, channel.size());
+        crc.reset();
+        try {
+            byte[] bytes = buffer.array();
+            for (int n; (n = stream.read(bytes)) >= 0; ) {
+                if (n <= 0) continue;
+                crc.update(bytes, 0, n);
+                ByteBuffer src = ByteBuffer.wrap(bytes, 0, n);
+                while (src.hasRemaining()) channel.write(src, channel.size());
+            }
+        } catch (Throwable ex) {
+            discard(channel, e, ex);
+            throw ex;
+        }
+        return e;
+    }
+
+    /**
+     * 丢弃写入失败的部分内容，截断失败时附加到原异常中
+     */
+    private static void discard(FileChannel channel, Entry e, Throwable cause) {
+        try {
+            channel.truncate(e.offset);
+        } catch (Throwable ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    private void complete(Entry e, FileChannel channel, long crc) throws IOException {
+        e.size = channel.size() - e.offset;
+        e.crc = crc;
+        entries.add(e);
+        storedBytes += e.size;
+    }
+
+    private static final class Entry {
+        private final String name;
+        private final long offset;
+        private long size, crc;
+
+        private Entry(String name, long offset) {
+            this.name = name;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 输入流缓存，边写入边计算摘要和CRC，不超过{@link #SPOOL_THRESHOLD}时保存在内存中，
+     * 超过后转存到临时文件，关闭时删除临时文件
+     */
+    private static final class Spool implements Closeable {
+        private final ContentDigest digest = new ContentDigest();
+        private final CRC32 crc = new CRC32();
+        private byte[] bytes = new byte[1 << 13];
+        private int count;
+        private Path path;
+        private FileChannel channel;
+
+        private void write(byte[] b, int n) throws IOException {
+            crc.update(b, 0, n);
+            digest.update(b, 0, n);
+            if (channel == null && count + n <= SPOOL_THRESHOLD) {
+                if (count + n > bytes.length)
+                    bytes = Arrays.copyOf(bytes, Math.min(Math.max(bytes.length << 1, count + n), SPOOL_THRESHOLD));
+                System.arraycopy(b, 0, bytes, count, n);
+                count += n;
+                return;
+            }
+            if (channel == null) {
+                path = Files.createTempFile(Const.EEC_PREFIX, ".spool");
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                write(channel, ByteBuffer.wrap(bytes, 0, count));
+                bytes = null;
+            }
+            write(channel, ByteBuffer.wrap(b, 0, n));
+        }
+
+        private static void write(FileChannel channel, ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) channel.write(src);
+        }
+
+        /**
+         * 将缓存的内容写入目标文件的指定位置
+         */
+        private void transferTo(FileChannel target, long pos) throws IOException {
+            if (channel == null) {
+                for (ByteBuffer src = ByteBuffer.wrap(bytes, 0, count); src.hasRemaining(); ) pos += target.write(src, pos);
+                return;
+            }
+            for (long i = 0, size = channel.size(); i < size; ) {
+                long n = channel.transferTo(i, size - i, target.position(pos + i));
+                if (n <= 0) throw new IOException("Unexpected end of media spool");
+                i += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            if (path != null) {
+                FileUtil.rm(path);
+                path = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 远程资源下载协议，导出图片时以{@code Media}类型写入的url由此接口异步下载，
+ * 默认实现为{@link HttpRemoteMediaFetcher}，需要认证、FTP等协议或其它HTTP客户端时可自行实现。
+ *
+ * <p>同一个url在一次导出中只会被请求一次，工作表输出协议会缓存下载结果</p>
+ *
+ * @author guanquan.wang at 2024-12-04 14:10
+ */
+@FunctionalInterface
+public interface RemoteMediaFetcher {
+    /**
+     * 异步下载远程资源
+     *
+     * @param url 远程资源地址
+     * @return 资源内容，下载失败或不支持的协议返回{@code null}
+     */
+    CompletableFuture<byte[]> fetch(String url);
+}
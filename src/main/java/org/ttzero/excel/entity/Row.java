@@ -81,16 +81,17 @@ public class Row {
     }
 
     /**
-     * 比较并重分配连续{@code n}个单元格，此方法会比较传入的参数{@code n}与当前单元格数量比较，
-     * 当{@code n}大于当前数量时才进行重分配
+     * 比较并重分配连续{@code n}个单元格，此方法会比较传入的参数{@code n}与当前单元格数组长度比较，
+     * 当{@code n}大于数组长度时才进行重分配，否则复用原数组并将单元格数量修改为{@code n}，
+     * 避免行块复用时输出上一次残留的单元格
      *
      * @param n 单元格数量
      * @return 单元格数组
      */
     public Cell[] realloc(int n) {
-        if (lc < n) {
+        if (cells == null || cells.length < n) {
             calloc(n);
-        }
+        } else lc = n;
         return cells;
     }
 
@@ -64,13 +64,25 @@ public class RowBlock implements Iterator<Row> {
      * @param capacity 容量
      */
     public RowBlock(int capacity) {
+        this(capacity, true);
+    }
+
+    /**
+     * 实例化行块并指定容量，子类使用其它存储结构时可不创建行对象
+     *
+     * @param capacity 容量
+     * @param allocate 是否创建连续的行对象
+     */
+    protected RowBlock(int capacity, boolean allocate) {
         this.capacity = capacity;
 
         // 创建连续行共享区并实例化行对象
-        rows = new Row[capacity];
-        for (int i = 0; i < capacity; i++) {
-            rows[i] = new Row();
-        }
+        if (allocate) {
+            rows = new Row[capacity];
+            for (int i = 0; i < capacity; i++) {
+                rows[i] = new Row();
+            }
+        } else rows = null;
     }
 
     /**
@@ -84,12 +96,24 @@ public class RowBlock implements Iterator<Row> {
         return clear();
     }
 
+    /**
+     * 重新打开行块并接续之前的装填记录，预取时多个行块轮流装填需要保持总数连续
+     *
+     * @param total 之前已装填的数据个数
+     * @return 当前行块
+     */
+    final RowBlock reopen(int total) {
+        reopen();
+        this.total = total;
+        return this;
+    }
+
     /**
      * 游标复原
      *
      * @return 当前行块
      */
-    public final RowBlock clear() {
+    public RowBlock clear() {
         position = 0;
         limit = capacity;
         return this;
@@ -125,7 +149,7 @@ public class RowBlock implements Iterator<Row> {
      *
      * @return 当前行块
      */
-    public final RowBlock flip() {
+    public RowBlock flip() {
         if (position < capacity) {
             markEOF();
         }
@@ -161,7 +185,16 @@ public class RowBlock implements Iterator<Row> {
      */
     @Override
     public Row next() {
-        return rows[position++];
+        return get(position++);
+    }
+
+    /**
+     * 游标后移一位并返回移动前的位置，与{@link #next}不同的是它不获取行数据
+     *
+     * @return 移动前的游标位置
+     */
+    protected int forward() {
+        return position++;
     }
 
     /**
@@ -170,7 +203,7 @@ public class RowBlock implements Iterator<Row> {
      * @return Row
      */
     public Row firstRow() {
-        return rows[0];
+        return get(0);
     }
 
     /**
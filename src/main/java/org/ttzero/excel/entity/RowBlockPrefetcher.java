@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * 行块预取，生产者线程循环调用{@link Sheet#nextBlock}装填行块并放入有界队列，
+ * 输出协议从队列中取出行块消费，消费完成的行块在下一次取数时归还给生产者重复使用。
+ * 共有{@code prefetch + 1}个行块轮流使用，内存开销固定。
+ *
+ * <p>生产者抛出的异常会在消费线程调用{@link #get}时重新抛出</p>
+ *
+ * @author guanquan.wang at 2024-11-27 10:18
+ */
+class RowBlockPrefetcher implements Supplier<RowBlock>, Closeable {
+    /**
+     * 生产者出现异常时放入此标记
+     */
+    private static final RowBlock POISON = new RowBlock(0);
+    private final Sheet sheet;
+    private final BlockingQueue<RowBlock> free, full;
+    private final Thread producer;
+    private volatile Throwable cause;
+    /**
+     * 当前正在消费的行块
+     */
+    private RowBlock current;
+
+    RowBlockPrefetcher(Sheet sheet, int prefetch) {
+        this.sheet = sheet;
+        int n = prefetch + 1;
+        free = new ArrayBlockingQueue<>(n);
+        // One more for the poison
+        full = new ArrayBlockingQueue<>(n + 1);
+        free.add(sheet.rowBlock);
+        for (int i = 1; i < n; i++) free.add(sheet.createRowBlock(sheet.rowBlock.capacity()));
+
+        producer = new Thread(this::produce, "eec-prefetch-" + sheet.getName());
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    private void produce() {
+        int total = sheet.rowBlock.getTotal();
+        try {
+            for (; ; ) {
+                RowBlock block = free.take().reopen(total);
+                sheet.rowBlock = block;
+                block = sheet.nextBlock();
+                total = block.getTotal();
+                full.put(block);
+                if (block.isEOF()) break;
+            }
+        } catch (InterruptedException e) {
+            // Cancelled by consumer
+        } catch (Throwable e) {
+            cause = e;
+            full.offer(POISON);
+        }
+    }
+
+    @Override
+    public RowBlock get() {
+        if (current != null) {
+            // The last block has been consumed
+            if (current.isEOF()) return null;
+            free.offer(current);
+        }
+        RowBlock block;
+        try {
+            block = full.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelWriteException(e);
+        }
+        if (block == POISON) {
+            Throwable e = cause;
+            if (e instanceof RuntimeException) throw (RuntimeException) e;
+            if (e instanceof Error) throw (Error) e;
+            throw new ExcelWriteException(e);
+        }
+        return current = block;
+    }
+
+    /**
+     * 停止生产者并将最后消费的行块还原到工作表，保证行数统计连续
+     */
+    @Override
+    public void close() {
+        if (producer.isAlive()) {
+            producer.interrupt();
+            try {
+                producer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (current != null) sheet.rowBlock = current;
+    }
+}
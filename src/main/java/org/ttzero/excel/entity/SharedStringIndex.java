@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.ttzero.excel.util.FileUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 共享字符串磁盘索引，开放寻址（线性探测）哈希表，保存在临时文件中不占用堆内存。
+ *
+ * <p>每个槽位16字节：{@code int hash | int index + 1 | long position}，
+ * index为0表示空槽，position为字符串在{@link SharedStringTable}中的位置，
+ * 哈希值相同时通过{@link SharedStringTable#matches}比较原始字符串。
+ * 装载因子超过{@code 0.5}时容量翻倍重建，单次查找和写入的I/O次数为常数</p>
+ *
+ * @author guanquan.wang at 2024-11-28 10:06
+ */
+class SharedStringIndex implements Closeable {
+    /**
+     * 槽位大小
+     */
+    static final int SLOT_SIZE = 16;
+    private final SharedStringTable sst;
+    private Path temp;
+    private FileChannel channel;
+    private final ByteBuffer slot;
+    private int capacity, mask, size;
+
+    SharedStringIndex(SharedStringTable sst) throws IOException {
+        this(sst, 1 << 16);
+    }
+
+    SharedStringIndex(SharedStringTable sst, int initialCapacity) throws IOException {
+        this.sst = sst;
+        slot = ByteBuffer.allocate(SLOT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        create(Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1);
+    }
+
+    /**
+     * 查找字符串在共享字符串表中的下标
+     *
+     * @param key 字符串
+     * @return 下标，不存在时返回-1
+     * @throws IOException if I/O error occur
+     */
+    int get(String key) throws IOException {
+        int h = hash(key);
+        for (int i = h & mask; ; i = (i + 1) & mask) {
+            readSlot(i);
+            int index = slot.getInt(4);
+            if (index == 0) return -1;
+            if (slot.getInt(0) == h && sst.matches(slot.getLong(8), key)) return index - 1;
+        }
+    }
+
+    /**
+     * 添加索引，调用方需保证字符串不存在
+     *
+     * @param key 字符串
+     * @param index 字符串在共享字符串表中的下标
+     * @param position 字符串在共享字符串表中的位置
+     * @throws IOException if I/O error occur
+     */
+    void put(String key, int index, long position) throws IOException {
+        if (size >= capacity >> 1) resize();
+        insert(hash(key), index + 1, position);
+        size++;
+    }
+
+    /**
+     * 索引数量
+     *
+     * @return 数量
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * 索引文件的逻辑大小
+     *
+     * @return 字节数
+     */
+    long bytes() {
+        return (long) capacity * SLOT_SIZE;
+    }
+
+    private void insert(int h, int index, long position) throws IOException {
+        int i = h & mask;
+        for (; ; i = (i + 1) & mask) {
+            readSlot(i);
+            if (slot.getInt(4) == 0) break;
+        }
+        slot.clear();
+        slot.putInt(h).putInt(index).putLong(position).flip();
+        channel.write(slot, (long) i * SLOT_SIZE);
+    }
+
+    private void readSlot(int i) throws IOException {
+        slot.clear();
+        long pos = (long) i * SLOT_SIZE;
+        while (slot.hasRemaining() && channel.read(slot, pos + slot.position()) > 0) ;
+        // Sparse file reads zero
+        while (slot.hasRemaining()) slot.put((byte) 0);
+    }
+
+    private void create(int capacity) throws IOException {
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        temp = Files.createTempFile("+", ".idx");
+        channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 容量翻倍并将旧索引顺序读出重新插入
+     */
+    private void resize() throws IOException {
+        Path oldTemp = temp;
+        FileChannel oldChannel = channel;
+        create(capacity << 1);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(SLOT_SIZE << 12).order(ByteOrder.LITTLE_ENDIAN);
+            for (long pos = 0, end = oldChannel.size(); pos < end; ) {
+                buffer.clear();
+                int n = oldChannel.read(buffer, pos);
+                if (n <= 0) break;
+                pos += n;
+                buffer.flip();
+                for (; buffer.remaining() >= SLOT_SIZE; ) {
+                    int h = buffer.getInt(), index = buffer.getInt();
+                    long position = buffer.getLong();
+                    if (index != 0) insert(h, index, position);
+                }
+                // Keep the incomplete slot
+                pos -= buffer.remaining();
+            }
+        } finally {
+            oldChannel.close();
+            FileUtil.rm(oldTemp);
+        }
+    }
+
+    static int hash(String key) {
+        int h = key != null ? key.hashCode() * 0x9E3779B9 : 0;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (temp != null) {
+            FileUtil.rm(temp);
+            temp = null;
+        }
+    }
+}
@@ -60,6 +60,11 @@ public class SharedStringTable implements Closeable, Iterable<String> {
      */
     private long mark = -1;
 
+    /**
+     * Buffer used to compare the flushed entry
+     */
+    private ByteBuffer probe;
+
     /**
      * Delete the temp file if close buffer
      */
@@ -335,6 +340,69 @@ public class SharedStringTable implements Closeable, Iterable<String> {
         return index;
     }
 
+    /**
+     * Test whether the entry starting at the specified position equals the key,
+     * the position is the value of {@link #position()} before the entry was pushed
+     *
+     * @param position the entry position
+     * @param key the key to compare
+     * @return true if the entry equals the key
+     * @throws IOException if I/O error occur
+     */
+    protected boolean matches(long position, String key) throws IOException {
+        long flushed = channel.position();
+        ByteBuffer buf;
+        int a;
+        // The entry is still in the write buffer
+        if (position >= flushed) {
+            buf = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            buf.limit(buffer.position()).position((int) (position - flushed));
+            a = buf.getInt();
+        } else {
+            if (probe == null) {
+                probe = ByteBuffer.allocate(1 << 8);
+                probe.order(ByteOrder.LITTLE_ENDIAN);
+            }
+            probe.clear().limit(4);
+            readFully(position, probe);
+            a = probe.getInt(0);
+            if (a > 0) {
+                if (a > probe.capacity()) {
+                    probe = ByteBuffer.allocate(tableSizeFor(a));
+                    probe.order(ByteOrder.LITTLE_ENDIAN);
+                }
+                probe.clear().limit(a);
+                readFully(position + 4, probe);
+                probe.flip();
+            }
+            buf = probe;
+        }
+        int len;
+        if (key == null || (len = key.length()) == 0) return a == ~(char) 0xFFFF;
+        if (len == 1) return a == ~key.charAt(0);
+        if (a < 0) return false;
+        byte[] bytes = key.getBytes(UTF_8);
+        if (a != bytes.length) return false;
+        for (int i = 0, p = buf.position(); i < a; i++) {
+            if (buf.get(p + i) != bytes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Read bytes from the specified position until the buffer is full,
+     * the channel position will be restored
+     */
+    private void readFully(long position, ByteBuffer dst) throws IOException {
+        long p = channel.position();
+        channel.position(position);
+        try {
+            while (dst.hasRemaining() && channel.read(dst) > 0) ;
+        } finally {
+            channel.position(p);
+        }
+    }
+
     /**
      * Returns the cache size
      *
@@ -23,6 +23,7 @@ import org.ttzero.excel.manager.TopNS;
 import org.ttzero.excel.manager.Const;
 import org.ttzero.excel.reader.Cache;
 import org.ttzero.excel.reader.FixSizeLRUCache;
+import org.ttzero.excel.util.ExtBufferedByteWriter;
 import org.ttzero.excel.util.ExtBufferedWriter;
 import org.ttzero.excel.util.FileUtil;
 import org.ttzero.excel.util.StringUtil;
@@ -52,12 +53,16 @@ import static org.ttzero.excel.util.FileUtil.exists;
  * Introduced Google BloomFilter to increase filtering speed, the
  * BloomFilter estimates the amount of data to be 1 million, and the false
  * positive rate is {@code 0.3%}. When the number exceeds {@code 2^17},
- * it will be converted to inline string.
+ * the BloomFilter is dropped and all lookups go to the index.
  * <p>
  * A hot zone is also designed internally to cache multiple occurrences,
  * the default size is {@code 512}, and the LRU elimination algorithm is used.
- * If the cache misses, it will be read from in temp file and flushed to the
- * cache.
+ * If the cache misses, it will be found by a hash index on disk
+ * ({@link SharedStringIndex}) and flushed to the cache.
+ * <p>
+ * Lookups are lock-free by default. When worksheets or row blocks are written
+ * in parallel the writer turns on {@link #setConcurrent(boolean)} and all
+ * lookups are synchronized while sharing one table.
  * <p>
  * Characters are handled differently. ASCII characters use the built-in array
  * cache subscript. The over {@code 0x7F} characters will be converted to strings and
@@ -68,6 +73,7 @@ import static org.ttzero.excel.util.FileUtil.exists;
 @TopNS(prefix = "", value = "sst", uri = Const.SCHEMA_MAIN)
 public class SharedStrings implements Storable, Closeable {
     private final Logger LOGGER = LoggerFactory.getLogger(getClass());
+    private static final byte[] SI_START = "<si><t>".getBytes(StandardCharsets.US_ASCII), SI_END = "</t></si>".getBytes(StandardCharsets.US_ASCII);
 
     /**
      * The total word in workbook.
@@ -97,21 +103,31 @@ public class SharedStrings implements Storable, Closeable {
      */
     private SharedStringTable sst;
 
+    /**
+     * Hash index of the SST, maps string to its index
+     */
+    private SharedStringIndex index;
+
     private int j;
     // For debug
-    private int total_char_cache, total_sst_find, total_hot, filter_constructor = 1;
+    private int total_char_cache, total_sst_find, total_hot, total_bloom_reset;
 
     /**
      * The number of expected insertions to the constructed bloom
      */
     private final long expectedInsertions = 1L << 17;
 
+    /**
+     * Synchronize all lookups, it's turned on only while writing in parallel
+     */
+    private volatile boolean concurrent;
+
     /**
      * Create a temp file to storage all text cells
      *
      * @return 当前共享字符区
      */
-    public SharedStrings init() {
+    public synchronized SharedStrings init() {
         if (sst == null) {
             hot = FixSizeLRUCache.create();
             ascii = new int[1 << 7];
@@ -122,9 +138,10 @@ public class SharedStrings implements Storable, Closeable {
 
             try {
                 temp = Files.createTempFile("~", "sst");
-                writer = new ExtBufferedWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8));
+                writer = ExtBufferedByteWriter.create(temp);
 
                 sst = new SharedStringTable();
+                index = new SharedStringIndex(sst);
             } catch (IOException e) {
                 throw new ExcelWriteException(e);
             }
@@ -140,6 +157,50 @@ public class SharedStrings implements Storable, Closeable {
      * @throws IOException if I/O error occur
      */
     public int get(char c) throws IOException {
+        if (!concurrent) return get0(c);
+        synchronized (this) {
+            return get0(c);
+        }
+    }
+
+    /**
+     * Getting the string value from cache (zero base)
+     *
+     * @param key the string value
+     * @return index of the string in the SST
+     * -1 if cache full, please write as 'inlineStr'
+     * @throws IOException if I/O error occur
+     */
+    public int get(String key) throws IOException {
+        if (!concurrent) return get0(key);
+        synchronized (this) {
+            return get0(key);
+        }
+    }
+
+    /**
+     * Turn on/off the concurrent mode. In concurrent mode all lookups are
+     * synchronized so that multiple threads can share one table, otherwise
+     * lookups take no lock and the table must be accessed by one thread.
+     *
+     * @param concurrent {@code true} if multiple threads write into this table
+     * @return current {@link SharedStrings}
+     */
+    public SharedStrings setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+        return this;
+    }
+
+    /**
+     * Returns whether all lookups are synchronized
+     *
+     * @return {@code true} if concurrent mode is on
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
+    private int get0(char c) throws IOException {
         // An ASCII keyword
         if (c < 128) {
             int n = ascii[c];
@@ -153,45 +214,29 @@ public class SharedStrings implements Storable, Closeable {
             return n;
         } else {
             char[] cs = { c };
-            return get(new String(cs));
+            return get0(new String(cs));
         }
     }
 
-    /**
-     * Getting the string value from cache (zero base)
-     *
-     * @param key the string value
-     * @return index of the string in the SST
-     * -1 if cache full, please write as 'inlineStr'
-     * @throws IOException if I/O error occur
-     */
-    public int get(String key) throws IOException {
+    private int get0(String key) throws IOException {
         count++;
         // The keyword not exists
-        if (!filter.mightContain(key)) {
-            // Reset the filter
-            if (j >= expectedInsertions) {
-                resetBloomFilter();
-            }
-            // Add to bloom if not full
-            filter.put(key);
-            j++;
+        if (filter != null && !filter.mightContain(key)) {
+            // The false positive rate grows when full, drop it and use the index only
+            if (++j >= expectedInsertions) {
+                filter = null;
+                total_bloom_reset++;
+            } else filter.put(key);
             return add(key);
         }
         // Check the keyword exists in cache
         Integer n = hot.get(key);
-        // TODO Create a B+ tree to store key and index
         if (n == null) {
-            if (sst.size() <= expectedInsertions) {
-                // Find in temp file
-                n = sst.find(key);
-                total_sst_find++;
-                // Append to last and cache it
-                if (n < 0) {
-                    n = add(key);
-                }
-            } else {
-                // @Mark: Convert to inline string
+            // Find in the index
+            n = index.get(key);
+            total_sst_find++;
+            // Append to last and cache it
+            if (n < 0) {
                 n = add(key);
             }
             hot.put(key, n);
@@ -206,27 +251,32 @@ public class SharedStrings implements Storable, Closeable {
 //        if (sst.size() > expectedInsertions) return -1;
 
         // Add to table
+        long position = sst.position();
         int n = sst.push(key);
         // Ignore write into SST
         if (n >= 0) {
-            writer.write("<si><t>");
+            index.put(key, n, position);
+            writer.writeBytes(SI_START);
             writer.escapeWrite(key);
-            writer.write("</t></si>");
+            writer.writeBytes(SI_END);
         }
         return n;
     }
 
     private int add(char c) throws IOException {
-        writer.write("<si><t>");
+        writer.writeBytes(SI_START);
         writer.escapeWrite(c);
-        writer.write("</t></si>");
+        writer.writeBytes(SI_END);
 
         // Add to table
-        return sst.push(c);
+        long position = sst.position();
+        int n = sst.push(c);
+        index.put(String.valueOf(c), n, position);
+        return n;
     }
 
     @Override
-    public void writeTo(Path root) throws IOException {
+    public synchronized void writeTo(Path root) throws IOException {
         // Close temp writer
         FileUtil.close(writer);
 
@@ -290,32 +340,40 @@ public class SharedStrings implements Storable, Closeable {
     }
 
     /**
-     * Reset the bloom filter
+     * 将查找次数、缓存命中次数和临时文件大小写入导出指标
+     *
+     * @param metrics 导出指标
+     * @throws IOException if I/O error occur
      */
-    private void resetBloomFilter() {
-        filter_constructor++;
-//        expectedInsertions <<= 1;
-        filter = StringBloomFilter.create(expectedInsertions, 0.0003);
-//        for (String key : hot) {
-//            filter.put(key);
-//        }
-        for (Cache.Entry<String, Integer> e : hot) {
-            filter.put(e.getKey());
-        }
-        j = hot.size();
+    public synchronized void collect(ExportMetrics metrics) throws IOException {
+        long tempBytes = 0L;
+        if (temp != null && Files.exists(temp)) tempBytes += Files.size(temp);
+        if (sst != null) tempBytes += sst.position();
+        if (index != null) tempBytes += index.bytes();
+        metrics.setSstCount(count)
+            .setSstUnique(sst != null ? sst.size() : 0)
+            .setSstHot(total_hot)
+            .setSstIndexFind(total_sst_find)
+            .setSstCharCache(total_char_cache)
+            .setBloomResets(total_bloom_reset)
+            .setSstTempBytes(tempBytes);
     }
 
     @Override
     public void close() throws IOException {
         // Already closed
         if (hot == null && sst == null && (temp == null || Files.notExists(temp))) return;
-        LOGGER.debug("Total: {}, Hot: {}, SST: {}, Char Cache: {}, Filter Constructor: {}"
-            , count, total_hot, total_sst_find, total_char_cache, filter_constructor);
+        LOGGER.debug("Total: {}, Hot: {}, SST: {}, Char Cache: {}, Bloom Reset: {}"
+            , count, total_hot, total_sst_find, total_char_cache, total_bloom_reset);
         filter = null;
         if (hot != null) {
             hot.clear();
             hot = null;
         }
+        if (index != null) {
+            index.close();
+            index = null;
+        }
         if (sst != null) {
             sst.close();
             sst = null;
@@ -229,6 +229,26 @@ public abstract class Sheet implements Cloneable, Storable {
      * 导出进度窗口，默认情况下RowBlock每刷新一次就会更新一次进度，也就是每32行通知一次
      */
     protected BiConsumer<Sheet, Integer> progressConsumer;
+    /**
+     * 预取行块数，大于0时由独立线程提前装填行块，数据拉取与输出同时进行
+     */
+    protected int prefetch;
+    /**
+     * 自适应列宽抽样行数，大于0时只根据前N行计算列宽
+     */
+    protected int autoSizeSampleRows;
+    /**
+     * 自适应列宽抽样误差容忍度（字符宽度），大于0时误差超过此值输出警告日志
+     */
+    protected double autoSizeSampleTolerance;
+    /**
+     * 是否使用列式存储的行块{@link ColumnarRowBlock}
+     */
+    protected boolean columnar;
+    /**
+     * 行块并行序列化线程数，大于1时多个行块同时序列化并按行号顺序合并
+     */
+    protected int parallelism;
     /**
      * 获取工作表ID，与当前工作表在工作薄中的下标一致，一般与其它资源关联使用
      *
@@ -392,6 +412,53 @@ public abstract class Sheet implements Cloneable, Storable {
         return this;
     }
 
+    /**
+     * 标记当前工作表自适应列宽并且只根据前{@code sampleRows}行（按行块取整）计算列宽，
+     * 抽样完成后直接输出列宽不再回写工作表头部，所以工作表可以直接输出到压缩包或网络流，
+     * 抽样之后的数据不参与计算，超出的内容可能显示不全
+     *
+     * @param sampleRows 抽样行数，{@code 0}表示扫描全部数据
+     * @return 当前工作表
+     */
+    public Sheet autoSize(int sampleRows) {
+        this.autoSize = 1;
+        this.autoSizeSampleRows = Math.max(sampleRows, 0);
+        return this;
+    }
+
+    /**
+     * 标记当前工作表自适应列宽并且只根据前{@code sampleRows}行计算列宽，同{@link #autoSize(int)}，
+     * 输出完成后抽样列宽比全量数据窄超过{@code tolerance}时输出警告日志，
+     * 抽样误差也可以通过导出指标{@link ExportMetrics.SheetMetrics#getSampleError()}获取
+     *
+     * @param sampleRows 抽样行数，{@code 0}表示扫描全部数据
+     * @param tolerance 误差容忍度（字符宽度），小于等于{@code 0}时只输出调试日志
+     * @return 当前工作表
+     */
+    public Sheet autoSize(int sampleRows, double tolerance) {
+        autoSize(sampleRows);
+        this.autoSizeSampleTolerance = Math.max(tolerance, 0.0D);
+        return this;
+    }
+
+    /**
+     * 获取自适应列宽抽样行数
+     *
+     * @return 抽样行数，{@code 0}表示扫描全部数据
+     */
+    public int getAutoSizeSampleRows() {
+        return autoSizeSampleRows;
+    }
+
+    /**
+     * 获取自适应列宽抽样误差容忍度
+     *
+     * @return 误差容忍度（字符宽度），{@code 0}表示不检查
+     */
+    public double getAutoSizeSampleTolerance() {
+        return autoSizeSampleTolerance;
+    }
+
     /**
      * 获取工作表的全局自适应列宽标记
      *
@@ -910,6 +977,15 @@ public abstract class Sheet implements Cloneable, Storable {
         return hidden;
     }
 
+    /**
+     * 是否为分页产生的复制工作表
+     *
+     * @return true: 复制工作表
+     */
+    public boolean isCopySheet() {
+        return copySheet;
+    }
+
     /**
      * 隐藏工作表
      *
@@ -955,7 +1031,7 @@ public abstract class Sheet implements Cloneable, Storable {
             getAndSortHeaderColumns();
         }
         if (rowBlock == null) {
-            rowBlock = new RowBlock(getRowBlockSize());
+            rowBlock = createRowBlock(getRowBlockSize());
         }
         // 自动分页的Sheet可复用RowBlock
         else rowBlock.reopen();
@@ -964,7 +1040,12 @@ public abstract class Sheet implements Cloneable, Storable {
             paging();
         }
 
-        sheetWriter.writeTo(path);
+        // 预取行块，并行序列化时由输出线程装填行块所以不再预取
+        if (prefetch > 0 && parallelism <= 1) {
+            try (RowBlockPrefetcher prefetcher = new RowBlockPrefetcher(this, prefetch)) {
+                sheetWriter.writeTo(path, prefetcher);
+            }
+        } else sheetWriter.writeTo(path);
     }
 
     /**
@@ -1177,6 +1258,18 @@ public abstract class Sheet implements Cloneable, Storable {
         return rowBlock.flip();
     }
 
+    /**
+     * 使用指定行块装填下一段数据，多个行块轮流装填时保持装填总数连续，
+     * 调用后该行块成为当前工作表的行块
+     *
+     * @param block 待装填的行块
+     * @return 行块
+     */
+    public RowBlock nextBlock(RowBlock block) {
+        if (block != rowBlock) rowBlock = block.reopen(rowBlock.getTotal());
+        return nextBlock();
+    }
+
     /**
      * 获取{@link RowBlock}行块的大小，创建行块时会调用此方法获取行块大小，
      * 子类可覆写该方法指定其它值
@@ -1187,6 +1280,89 @@ public abstract class Sheet implements Cloneable, Storable {
         return ROW_BLOCK_SIZE;
     }
 
+    /**
+     * 创建行块，开启列式存储时创建{@link ColumnarRowBlock}，子类可覆写该方法使用其它行块
+     *
+     * @param capacity 行块容量
+     * @return 行块
+     */
+    public RowBlock createRowBlock(int capacity) {
+        return columnar ? new ColumnarRowBlock(capacity) : new RowBlock(capacity);
+    }
+
+    /**
+     * 设置是否使用列式存储的行块{@link ColumnarRowBlock}，列式行块将单元格值按列存放在基本类型数组中，
+     * 列数较多时可减少行块的内存占用，输出协议按下标直接取值而不经过{@link Row}和{@link org.ttzero.excel.reader.Cell}对象。
+     *
+     * <p>注意：列式行块中所有行共享同一个视图行，覆写{@link #resetBlockData}时不能缓存{@link RowBlock#next}返回的行对象，
+     * 自定义输出协议覆写{@code writeRow}方法时也不会被列式快速通道调用</p>
+     *
+     * @param columnar true: 使用列式行块
+     * @return 当前工作表
+     */
+    public Sheet setColumnar(boolean columnar) {
+        this.columnar = columnar;
+        return this;
+    }
+
+    /**
+     * 是否使用列式存储的行块
+     *
+     * @return true: 使用列式行块
+     */
+    public boolean isColumnar() {
+        return columnar;
+    }
+
+    /**
+     * 设置行块并行序列化的线程数，大于1时输出线程只负责拉取数据和装填行块，
+     * 装填好的行块交给{@code parallelism}个工作线程各自序列化到独立的缓冲区，输出线程再按行号顺序合并，
+     * 适用于单个工作表数据量很大且CPU核数较多的场景。
+     *
+     * <p>注意：数据拉取和单元格转换仍在输出线程中顺序执行，开启后预取设置{@link #setPrefetch}无效，
+     * 抽样计算列宽{@link #autoSize(int)}时仍然顺序输出，目前仅xlsx格式支持</p>
+     *
+     * @param parallelism 序列化线程数，小于等于1时不并行
+     * @return 当前工作表
+     */
+    public Sheet setParallelism(int parallelism) {
+        this.parallelism = Math.max(parallelism, 0);
+        return this;
+    }
+
+    /**
+     * 获取行块并行序列化的线程数
+     *
+     * @return 序列化线程数，小于等于1表示不并行
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 设置预取行块数，设置后将由独立线程提前装填{@code prefetch}个行块（包括调用{@code more}拉取数据），
+     * 输出协议消费当前行块的同时生产者装填下一个行块，适用于数据拉取与输出耗时相当的场景。
+     * 生产者中的异常将在输出线程中重新抛出
+     *
+     * <p>注意：开启预取后{@link #nextBlock}将在生产者线程中执行</p>
+     *
+     * @param prefetch 预取行块数，{@code 0}表示不预取
+     * @return 当前工作表
+     */
+    public Sheet setPrefetch(int prefetch) {
+        this.prefetch = Math.max(prefetch, 0);
+        return this;
+    }
+
+    /**
+     * 获取预取行块数
+     *
+     * @return 预取行块数，{@code 0}表示不预取
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
     /**
      * 当输出协议写完sheetData时调用
      *
@@ -1319,40 +1495,28 @@ public abstract class Sheet implements Cloneable, Storable {
      * @return Excel列标识
      */
     public static char[] int2Col(int n) {
-        char[] c;
         char A = 'A';
-        if (n <= 26) {
-            c = cache[0];
-            c[0] = (char) (n - 1 + A);
-        } else if (n <= 702) {
+        if (n <= 26) return new char[] { (char) (n - 1 + A) };
+        if (n <= 702) {
             int t = n / 26, w = n % 26;
             if (w == 0) {
                 t--;
                 w = 26;
             }
-            c = cache[1];
-            c[0] = (char) (t - 1 + A);
-            c[1] = (char) (w - 1 + A);
-        } else {
-            int tt = n / 26, t = tt / 26, w = n % 26, m = tt % 26;
-            if (w == 0) {
-                m--;
-                w = 26;
-            }
-            if (m <= 0) {
-                t--;
-                m += 26;
-            }
-            c = cache[2];
-            c[0] = (char) (t - 1 + A);
-            c[1] = (char) (m - 1 + A);
-            c[2] = (char) (w - 1 + A);
+            return new char[] { (char) (t - 1 + A), (char) (w - 1 + A) };
         }
-        return c;
+        int tt = n / 26, t = tt / 26, w = n % 26, m = tt % 26;
+        if (w == 0) {
+            m--;
+            w = 26;
+        }
+        if (m <= 0) {
+            t--;
+            m += 26;
+        }
+        return new char[] { (char) (t - 1 + A), (char) (m - 1 + A), (char) (w - 1 + A) };
     }
 
-    private static final char[][] cache = new char[][]{ {65}, {65, 65}, {65, 65, 65} };
-
     /**
      * 忽略表头，调用此方法后表头将不会输出到Excel中，注意这里不是隐藏
      *
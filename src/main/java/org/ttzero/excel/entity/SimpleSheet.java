@@ -59,8 +59,15 @@ public class SimpleSheet<T> extends ListSheet<T> {
     protected boolean firstRowAsHeader;
     /**
      * 未实例化的列，可用于在写超出预知范围外的列
+     *
+     * @deprecated 所有工作表共享同一个实例，并行输出时会相互覆盖，使用{@link #unallocatedColumn}代替
      */
+    @Deprecated
     protected static final Column UNALLOCATED_COLUMN = new Column();
+    /**
+     * 当前工作表未实例化的列，用于写超出预知范围外的列
+     */
+    protected Column unallocatedColumn;
     /**
      * 实例化工作表，未指定工作表名称时默认以{@code 'Sheet'+id}命名
      */
@@ -244,8 +251,9 @@ public class SimpleSheet<T> extends ListSheet<T> {
             ignoreHeader();
             setHeaderRowHeight(-1D);
         }
-        UNALLOCATED_COLUMN.styles = workbook.getStyles();
-        UNALLOCATED_COLUMN.cellStyle = 0; // General Style
+        if (unallocatedColumn == null) unallocatedColumn = new Column();
+        unallocatedColumn.styles = workbook.getStyles();
+        unallocatedColumn.cellStyle = 0; // General Style
 
         return columns;
     }
@@ -279,7 +287,7 @@ public class SimpleSheet<T> extends ListSheet<T> {
                 cell.clear();
 
                 Object e = null;
-                Column column = i < columns.length ? columns[i] : UNALLOCATED_COLUMN;
+                Column column = i < columns.length ? columns[i] : unallocatedColumn;
                 // 根据下标取数
                 if (!column.isIgnoreValue()) {
                     if (type == 1) e = sub.get(i);
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.ttzero.excel.hash.ContentDigest;
+import org.ttzero.excel.reader.ExcelReader;
+import org.ttzero.excel.util.FileUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 编译模板缓存，缓存{@link TemplateSheet}解析后的布局、样式、图片和占位符，同一个模板多次导出时只解析一次。
+ *
+ * <p>本地文件模板以文件路径为Key并校验文件的修改时间和大小，模板文件被修改后自动重新编译；
+ * 流模板以内容摘要为Key，每次导出仍需读取流计算摘要但不再解析模板。除此之外源工作表、占位符前缀和后缀也是Key的一部分。</p>
+ *
+ * <p>缓存线程安全，可以在多个导出线程之间共享，超过容量上限时淘汰最久未使用的编译模板。
+ * 模板中的图片会被复制到缓存的临时目录，编译模板被淘汰且没有导出在使用时删除，
+ * 关闭缓存时删除整个临时目录，所以关闭缓存前需确保没有正在进行的导出。</p>
+ *
+ * @author guanquan.wang at 2024-12-17 10:20
+ */
+public class TemplateCache implements Closeable {
+    /**
+     * 编译模板，按访问顺序排序
+     */
+    protected final Map<String, TemplateSheet.CompiledTemplate> templates;
+    /**
+     * 容量上限
+     */
+    protected final int maxSize;
+    /**
+     * 图片临时目录
+     */
+    protected Path tempDir;
+    /**
+     * 临时目录计数器
+     */
+    protected final AtomicInteger counter = new AtomicInteger();
+
+    public TemplateCache() {
+        this(64);
+    }
+
+    /**
+     * 创建编译模板缓存并指定容量上限
+     *
+     * @param maxSize 容量上限，必须大于0
+     */
+    public TemplateCache(int maxSize) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Max size must be greater than 0");
+        this.maxSize = maxSize;
+        this.templates = new LinkedHashMap<>(16, 0.75F, true);
+    }
+
+    /**
+     * 获取模板工作表对应的编译模板，缓存未命中或模板文件已修改时重新编译，
+     * 返回的编译模板在导出结束后需调用{@link #release}释放
+     *
+     * @param sheet 模板工作表
+     * @return 编译模板
+     * @throws IOException 读取模板异常
+     */
+    public TemplateSheet.CompiledTemplate get(TemplateSheet sheet) throws IOException {
+        byte[] bytes = null;
+        long version = 0L;
+        String source;
+        if (sheet.templatePath != null) {
+            Path path = sheet.templatePath.toAbsolutePath().normalize();
+            source = path.toString();
+            version = Files.getLastModifiedTime(path).toMillis() * 31 + Files.size(path);
+        } else if (sheet.templateStream != null) {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            FileUtil.cp(sheet.templateStream, bos);
+            bytes = bos.toByteArray();
+            source = new ContentDigest().update(bytes, 0, bytes.length).digest();
+        } else throw new IOException("The template does not exist.");
+
+        String key = source + '\u0000' + (sheet.originalSheetName != null ? sheet.originalSheetName : "#" + sheet.originalSheetIndex)
+            + '\u0000' + sheet.prefix + '\u0000' + sheet.suffix;
+        TemplateSheet.CompiledTemplate template = acquire(key, version);
+        if (template != null) {
+            // 按名称查找的源工作表需要回填索引
+            if (sheet.originalSheetName != null) sheet.originalSheetIndex = template.originalSheetIndex;
+            return template;
+        }
+
+        // 缓存未命中，编译模板（编译过程不加锁，并发编译时保留先放入缓存的结果）
+        try (ExcelReader reader = bytes != null ? ExcelReader.read(new ByteArrayInputStream(bytes)) : ExcelReader.read(sheet.templatePath)) {
+            template = sheet.compile(sheet.findOriginalSheet(reader), true);
+            template.originalSheetIndex = sheet.originalSheetIndex;
+            // 图片在ExcelReader关闭时被删除，需要复制到缓存目录
+            detach(template);
+        }
+        template.version = version;
+        return put(key, template);
+    }
+
+    /**
+     * 释放编译模板，编译模板已被淘汰且没有导出在使用时删除图片临时目录。
+     * 与{@link #evict}在同一把锁下判断，最后一个导出结束和淘汰同时发生时由后执行的一方删除
+     *
+     * @param template 编译模板
+     */
+    public synchronized void release(TemplateSheet.CompiledTemplate template) {
+        template.refs.decrementAndGet();
+        removeIfUnused(template);
+    }
+
+    /**
+     * 删除指定模板文件的所有编译结果
+     *
+     * @param templatePath 模板路径
+     */
+    public synchronized void invalidate(Path templatePath) {
+        String prefix = templatePath.toAbsolutePath().normalize().toString() + '\u0000';
+        for (Iterator<Map.Entry<String, TemplateSheet.CompiledTemplate>> iter = templates.entrySet().iterator(); iter.hasNext(); ) {
+            Map.Entry<String, TemplateSheet.CompiledTemplate> entry = iter.next();
+            if (entry.getKey().startsWith(prefix)) {
+                iter.remove();
+                evict(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        List<TemplateSheet.CompiledTemplate> list = new ArrayList<>(templates.values());
+        templates.clear();
+        for (TemplateSheet.CompiledTemplate template : list) evict(template);
+    }
+
+    /**
+     * 获取缓存的编译模板数量
+     *
+     * @return 编译模板数量
+     */
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    /**
+     * 清空缓存并删除临时目录
+     */
+    @Override
+    public synchronized void close() {
+        templates.clear();
+        if (tempDir != null) {
+            FileUtil.rm_rf(tempDir);
+            tempDir = null;
+        }
+    }
+
+    /**
+     * 从缓存中获取编译模板并增加引用计数，模板版本不一致时淘汰旧的编译模板
+     *
+     * @param key     缓存Key
+     * @param version 模板版本
+     * @return 编译模板，未命中时返回{@code null}
+     */
+    protected synchronized TemplateSheet.CompiledTemplate acquire(String key, long version) {
+        TemplateSheet.CompiledTemplate template = templates.get(key);
+        if (template == null) return null;
+        if (template.version != version) {
+            templates.remove(key);
+            evict(template);
+            return null;
+        }
+        template.refs.incrementAndGet();
+        return template;
+    }
+
+    /**
+     * 放入编译模板并增加引用计数，如果缓存中已有相同版本的编译模板则丢弃当前编译模板
+     *
+     * @param key      缓存Key
+     * @param template 编译模板
+     * @return 缓存中的编译模板
+     */
+    protected synchronized TemplateSheet.CompiledTemplate put(String key, TemplateSheet.CompiledTemplate template) {
+        TemplateSheet.CompiledTemplate exists = templates.get(key);
+        if (exists != null && exists.version == template.version) {
+            evict(template);
+            template = exists;
+        } else {
+            if (exists != null) evict(exists);
+            templates.put(key, template);
+            // 淘汰最久未使用的编译模板
+            if (templates.size() > maxSize) {
+                Iterator<TemplateSheet.CompiledTemplate> iter = templates.values().iterator();
+                TemplateSheet.CompiledTemplate eldest = iter.next();
+                iter.remove();
+                evict(eldest);
+            }
+        }
+        template.refs.incrementAndGet();
+        return template;
+    }
+
+    /**
+     * 标记编译模板已淘汰，没有导出在使用时删除图片临时目录，调用方需持有缓存锁
+     *
+     * @param template 编译模板
+     */
+    protected void evict(TemplateSheet.CompiledTemplate template) {
+        template.evicted = true;
+        removeIfUnused(template);
+    }
+
+    /**
+     * 编译模板已淘汰且没有导出在使用时删除图片临时目录，只删除一次，调用方需持有缓存锁
+     *
+     * @param template 编译模板
+     */
+    protected void removeIfUnused(TemplateSheet.CompiledTemplate template) {
+        if (template.evicted && template.refs.get() <= 0 && template.tempDir != null) {
+            FileUtil.rm_rf(template.tempDir);
+            template.tempDir = null;
+        }
+    }
+
+    /**
+     * 复制图片到缓存目录，使编译模板不再依赖{@link ExcelReader}的临时目录
+     *
+     * @param template 编译模板
+     * @throws IOException 复制图片异常
+     */
+    protected void detach(TemplateSheet.CompiledTemplate template) throws IOException {
+        if ((template.pictures == null || template.pictures.isEmpty()) && template.waterMark == null) return;
+        Path dir;
+        synchronized (this) {
+            if (tempDir == null) tempDir = FileUtil.mktmp("eec-template-");
+            dir = template.tempDir = FileUtil.mkdir(tempDir.resolve(String.valueOf(counter.incrementAndGet())));
+        }
+        Map<Path, Path> copies = new HashMap<>();
+        if (template.pictures != null) {
+            for (Picture p : template.pictures) p.localPath = copy(p.localPath, dir, copies);
+        }
+        if (template.waterMark != null) template.waterMark = copy(template.waterMark, dir, copies);
+    }
+
+    private static Path copy(Path src, Path dir, Map<Path, Path> copies) throws IOException {
+        Path dst = copies.get(src);
+        if (dst == null) {
+            dst = dir.resolve(copies.size() + "-" + src.getFileName());
+            Files.copy(src, dst);
+            copies.put(src, dst);
+        }
+        return dst;
+    }
+}
@@ -18,6 +18,7 @@
 package org.ttzero.excel.entity;
 
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.ttzero.excel.entity.e7.XMLWorksheetWriter;
 import org.ttzero.excel.entity.style.Border;
 import org.ttzero.excel.entity.style.ColorIndex;
@@ -59,7 +60,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import static org.ttzero.excel.entity.style.Styles.INDEX_FONT;
 import static org.ttzero.excel.util.ReflectUtil.listDeclaredFieldsUntilJavaPackage;
@@ -127,6 +130,17 @@ import static org.ttzero.excel.util.ReflectUtil.readMethodsMap;
  *         .setData("@list:sex", Arrays.asList("未知", "男", "女")))
  *     .writeTo(Paths.get("/tmp/"));</pre>
  *
+ * <p>同一个模板需要反复导出时可以通过{@link #setTemplateCache}指定一个{@link TemplateCache}，模板的布局、样式、图片和占位符
+ * 只在首次导出时解析一次并编译为{@link CompiledTemplate}，后续导出直接复用编译结果，每次导出只需要绑定数据和输出。</p>
+ *
+ * <pre>
+ * // 全局共享，线程安全
+ * static final TemplateCache CACHE = new TemplateCache();
+ *
+ * new Workbook()
+ *     .addSheet(new TemplateSheet(Paths.get("./invoice.xlsx")).setTemplateCache(CACHE).setData(invoice))
+ *     .writeTo(Paths.get("/tmp/"));</pre>
+ *
  * <p>参考文档:</p>
  * <p><a href="https://github.com/wangguanquan/eec/wiki/3-%E6%A8%A1%E6%9D%BF%E5%AF%BC%E5%87%BA">模板导出</a></p>
  *
@@ -180,7 +194,7 @@ public class TemplateSheet extends Sheet {
     /**
      * 图片
      */
-    protected List<Drawings.Picture> pictures;
+    protected List<Picture> pictures;
     /**
      * 以Excel格式输出
      */
@@ -207,6 +221,32 @@ public class TemplateSheet extends Sheet {
      * 填充数据缓存
      */
     protected Map<String, ValueWrapper> namespaceMapper = new HashMap<>();
+    /**
+     * 编译模板缓存，为{@code null}时每次导出都重新解析模板
+     */
+    protected TemplateCache templateCache;
+    /**
+     * 当前使用的编译模板
+     */
+    protected CompiledTemplate template;
+    /**
+     * 对象取值器缓存，Key：类型 Value：字段名到取值器的映射
+     */
+    private static final ClassValue<Map<String, Function<Object, Object>>> ACCESSORS = new ClassValue<Map<String, Function<Object, Object>>>() {
+        @Override
+        protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+            return compileAccessors(type);
+        }
+    };
+    /**
+     * 对象的方法和字段缓存，仅用于兼容已废弃的{@link ValueWrapper#accessibleObjectMap}
+     */
+    private static final ClassValue<Map<String, AccessibleObject>> ACCESSIBLE_OBJECTS = new ClassValue<Map<String, AccessibleObject>>() {
+        @Override
+        protected Map<String, AccessibleObject> computeValue(Class<?> type) {
+            return parseAccessibleObjects(type);
+        }
+    };
     /**
      * 实例化模板工作表，默认以第一个工作表做为模板
      *
@@ -363,6 +403,17 @@ public class TemplateSheet extends Sheet {
         return this;
     }
 
+    /**
+     * 设置编译模板缓存，同一个模板多次导出时只在首次导出时解析模板，后续导出复用解析结果
+     *
+     * @param templateCache 编译模板缓存，为{@code null}时不使用缓存
+     * @return 当前工作表
+     */
+    public TemplateSheet setTemplateCache(TemplateCache templateCache) {
+        this.templateCache = templateCache;
+        return this;
+    }
+
     /**
      * 绑定数据到默认命名空间，默认命名空间为{@code null}
      *
@@ -402,7 +453,7 @@ public class TemplateSheet extends Sheet {
                 if (oo != null) {
                     vw.option = Map.class.isAssignableFrom(oo.getClass()) ? 3 : 4;
                     if (vw.list == null) vw.list = list; else vw.list.addAll(list);
-                    if (vw.option == 4) vw.accessibleObjectMap = parseClass(oo.getClass());
+                    if (vw.option == 4) bindAccessors(vw, oo.getClass());
                 } else vw.option = 0;
             }
             else if (clazz.isArray()) {
@@ -413,14 +464,14 @@ public class TemplateSheet extends Sheet {
                     vw.list.add(oo);
                     if (oo != null && vw.option == 0) {
                         vw.option = Map.class.isAssignableFrom(oo.getClass()) ? 3 : 4;
-                        if (vw.option == 4) vw.accessibleObjectMap = parseClass(oo.getClass());
+                        if (vw.option == 4) bindAccessors(vw, oo.getClass());
                     }
                 }
             }
             else {
                 vw.o = o;
                 vw.option = 1;
-                vw.accessibleObjectMap = parseClass(clazz);
+                bindAccessors(vw, clazz);
             }
         }
         return this;
@@ -463,7 +514,7 @@ public class TemplateSheet extends Sheet {
                 if (vw.list == null) vw.list = list;
                 else vw.list.addAll(list);
                 vw.option = Map.class.isAssignableFrom(oo.getClass()) ? 3 : 4;
-                if (vw.option == 4) vw.accessibleObjectMap = parseClass(oo.getClass());
+                if (vw.option == 4) bindAccessors(vw, oo.getClass());
             } else vw.option = 0;
         }
         return this;
@@ -511,11 +562,42 @@ public class TemplateSheet extends Sheet {
      * @throws IOException 读取模板异常
      */
     protected int init() throws IOException {
-        // 实例化ExcelReader
-        if (templatePath != null) reader = ExcelReader.read(templatePath);
-        else if (templateStream != null) reader = ExcelReader.read(templateStream);
+        writeAsExcel = sheetWriter != null && XMLWorksheetWriter.class.isAssignableFrom(sheetWriter.getClass());
+
+        FullSheet sheet = null;
+        // 从缓存中获取编译模板，缓存未命中时由缓存负责编译
+        if (templateCache != null) template = templateCache.get(this);
+        else {
+            // 实例化ExcelReader
+            if (templatePath != null) reader = ExcelReader.read(templatePath);
+            else if (templateStream != null) reader = ExcelReader.read(templateStream);
+
+            // 加载模板工作表，不使用缓存时模板行直接从源文件中流式读取
+            sheet = findOriginalSheet(reader);
+            template = compile(sheet, false);
+        }
+
+        // 复制公共信息
+        int n = prepareCommonData(template);
+        // 绑定样式和占位符
+        rowIterator = prepare(template, sheet);
+        pf = preCells == null ? -1 : preCells[0][0].row;
+
+        // 忽略表头输出
+        super.ignoreHeader();
+
+        // 解析公共信息
+        return n;
+    }
 
-        // 查找源工作表
+    /**
+     * 查找源工作表
+     *
+     * @param reader 模板读取器
+     * @return 源工作表
+     * @throws IOException 源工作表不存在
+     */
+    protected FullSheet findOriginalSheet(ExcelReader reader) throws IOException {
         org.ttzero.excel.reader.Sheet[] sheets = reader.all();
         if (StringUtil.isNotBlank(originalSheetName)) {
             int index = 0;
@@ -525,22 +607,22 @@ public class TemplateSheet extends Sheet {
             originalSheetIndex = index;
         } else if (originalSheetIndex < 0 || originalSheetIndex >= sheets.length)
             throw new IOException("The original worksheet index [" + originalSheetIndex + "] is out of range in template file[0-" + sheets.length + "].");
+        return reader.sheet(originalSheetIndex).asFullSheet();
+    }
 
-        // 加载模板工作表
-        FullSheet sheet = reader.sheet(originalSheetIndex).asFullSheet();
-        writeAsExcel = sheetWriter != null && XMLWorksheetWriter.class.isAssignableFrom(sheetWriter.getClass());
-
-        // 解析公共信息
-        int n = prepareCommonData(sheet);
-        // 预处理样式和占位符
-        rowIterator = prepare(sheet);
-        pf = preCells == null ? -1 : preCells[0][0].row;
-
-        // 忽略表头输出
-        super.ignoreHeader();
-
-        // 解析公共信息
-        return n;
+    /**
+     * 编译模板，解析列属性、冻结、合并、过滤、图片、样式和占位符，编译结果只与模板文件有关与导出的数据无关，
+     * 所以可以被多次导出共享
+     *
+     * @param originalSheet 源模板工作表
+     * @param detach        是否将模板行复制到内存中，复制后编译结果不再依赖{@link ExcelReader}
+     * @return 编译模板
+     */
+    protected CompiledTemplate compile(FullSheet originalSheet, boolean detach) {
+        CompiledTemplate template = new CompiledTemplate();
+        compileCommonData(originalSheet, template);
+        compileCells(originalSheet, template, detach);
+        return template;
     }
 
     @Override
@@ -665,20 +747,45 @@ public class TemplateSheet extends Sheet {
     protected Object getNodeValue(Node node) {
         // 纯文本
         if ((node.option & 1) == 0) return node.val;
-        ValueWrapper vw = namespaceMapper.get(node.namespace);
+        // 导出开始时已绑定命名空间
+        ValueWrapper vw = node.vw != null ? node.vw : namespaceMapper.get(node.namespace);
         Object e = null;
         if (vw != null) {
             switch (vw.option) {
-                case 1: e = getObjectValue(vw.accessibleObjectMap.get(node.val), vw.o, LOGGER, node.val);              break;
-                case 2: e = vw.map.get(node.val);                                                                      break;
-                case 3: e = ((Map<String, Object>) vw.list.get(vw.i)).get(node.val);                                   break;
-                case 4: e = getObjectValue(vw.accessibleObjectMap.get(node.val), vw.list.get(vw.i), LOGGER, node.val); break;
+                case 1: e = getObjectValue(node, vw, vw.o);                                  break;
+                case 2: e = vw.map.get(node.val);                                             break;
+                case 3: e = ((Map<String, Object>) vw.list.get(vw.i)).get(node.val);          break;
+                case 4: e = getObjectValue(node, vw, vw.list.get(vw.i));                      break;
                 default:
             }
         }
         return e;
     }
 
+    /**
+     * 使用取值器获取对象的值，取值器在首次使用时绑定到占位符节点上，找不到对应的字段时返回对象本身
+     *
+     * @param node 占位符节点信息
+     * @param vw   填充对象
+     * @param o    对象
+     * @return 值
+     */
+    protected Object getObjectValue(Node node, ValueWrapper vw, Object o) {
+        if (o == null) return null;
+        Function<Object, Object> accessor = node.accessor;
+        if (accessor == null) {
+            accessor = vw.accessors != null ? vw.accessors.get(node.val) : null;
+            node.accessor = accessor = accessor != null ? accessor : Function.identity();
+        }
+        Object e = null;
+        try {
+            e = accessor.apply(o);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Invoke " + node.val + " value error", ex);
+        }
+        return e;
+    }
+
     /**
      * 反射获取对象的值
      *
@@ -687,7 +794,9 @@ public class TemplateSheet extends Sheet {
      * @param logger 日志
      * @param key    占位符
      * @return 值
+     * @deprecated 使用{@link #getObjectValue(Node, ValueWrapper, Object)}通过编译后的取值器取值
      */
+    @Deprecated
     protected static Object getObjectValue(AccessibleObject ao, Object o, Logger logger, String key) {
         Object e = null;
         try {
@@ -743,10 +852,7 @@ public class TemplateSheet extends Sheet {
         // 添加图片
         if (pictures != null) {
             try {
-                for (Drawings.Picture p : pictures) {
-                    if (p == null || p.isBackground()) continue;
-                    sheetWriter.writePicture(toWritablePicture(p));
-                }
+                for (Picture p : pictures) sheetWriter.writePicture(p);
             } catch (IOException e) {
                 LOGGER.warn("Copy pictures failed.", e);
             }
@@ -773,6 +879,9 @@ public class TemplateSheet extends Sheet {
             templateStream.close();
             templateStream = null;
         }
+        // 释放编译模板
+        if (templateCache != null && template != null) templateCache.release(template);
+        template = null;
         rowIterator = null;
         namespaceMapper = null;
     }
@@ -798,47 +907,52 @@ public class TemplateSheet extends Sheet {
     }
 
     /**
-     * 预处理样式和占位符
+     * 复制图片，编译模板中的图片被多次导出共享，输出时会修改图片属性所以每次导出都需要复制一份
+     *
+     * @param pic 图片
+     * @return 图片副本
+     */
+    public static Picture copyPicture(Picture pic) {
+        Picture p = new Picture();
+        p.localPath = pic.localPath;
+        p.row = pic.row;
+        p.col = pic.col;
+        p.toRow = pic.toRow;
+        p.toCol = pic.toCol;
+        p.padding = pic.padding;
+        p.revolve = pic.revolve;
+        p.property = pic.property;
+        p.effect = pic.effect;
+        return p;
+    }
+
+    /**
+     * 编译样式和占位符
      *
      * @param originalSheet 模板工作表
-     * @return 模板工作表行迭代器
+     * @param template      编译模板
+     * @param detach        是否将模板行复制到内存中
      */
-    protected CommitRowSetIterator prepare(org.ttzero.excel.reader.Sheet originalSheet) {
-        // 模板文件样式
-        Styles styles0 = reader.getStyles(), styles = workbook.getStyles();
-        // 样式缓存
-        styleMap = writeAsExcel ? new HashMap<>() : Collections.emptyMap();
-        int prefixLen = prefix.length(), suffixLen = suffix.length(), pf = 0;
+    protected void compileCells(FullSheet originalSheet, CompiledTemplate template, boolean detach) {
+        // 模板中使用到的样式，保持出现顺序
+        Set<Integer> xfSet = new HashSet<>();
+        int[] xfs = new int[16];
+        int prefixLen = prefix.length(), suffixLen = suffix.length(), pf = 0, n = 0;
+        List<TemplateRow> rows = detach ? new ArrayList<>() : null;
+        PreCell[][] preCells = null;
+        // 检测单行合并单元格时使用
+        mergeCells0 = template.mergeCells0;
         for (Iterator<org.ttzero.excel.reader.Row> iter = originalSheet.iterator(); iter.hasNext(); ) {
             org.ttzero.excel.reader.Row row = iter.next();
+            if (template.styles == null) template.styles = row.getStyles();
             int index = 0;
             for (int i = row.getFirstColumnIndex(), end = row.getLastColumnIndex(); i < end; i++) {
                 Cell cell = row.getCell(i);
 
-                // 复制样式
-                if (writeAsExcel && !styleMap.containsKey(cell.xf)) {
-                    int style = row.getCellStyle(cell), xf = 0;
-                    // 字体
-                    Font font = styles0.getFont(style);
-                    if (font != null) xf |= styles.addFont(font.clone());
-                    // 填充
-                    Fill fill = styles0.getFill(style);
-                    if (fill != null) xf |= styles.addFill(fill.clone());
-                    // 边框
-                    Border border = styles0.getBorder(style);
-                    if (border != null) xf |= styles.addBorder(border.clone());
-                    // 格式化
-                    NumFmt numFmt = styles0.getNumFmt(style);
-                    if (numFmt != null) xf |= styles.addNumFmt(numFmt.clone());
-                    // 水平对齐
-                    xf |= styles0.getHorizontal(style);
-                    // 垂直对齐
-                    xf |= styles0.getVertical(style);
-                    // 自动折行
-                    xf |= styles0.getWrapText(style);
-
-                    // 添加进样式表
-                    styleMap.put(cell.xf, styles.of(xf));
+                // 记录样式
+                if (xfSet.add(cell.xf)) {
+                    if (n >= xfs.length) xfs = Arrays.copyOf(xfs, n + 16);
+                    xfs[n++] = cell.xf;
                 }
 
                 // 判断字符串是否包含占位符，可以是一个或多个
@@ -859,23 +973,130 @@ public class TemplateSheet extends Sheet {
                 }
             }
             if (index > 0 && preCells[pf - 1].length > index) preCells[pf - 1] = Arrays.copyOf(preCells[pf - 1], index);
+            if (detach) rows.add(new TemplateRow(row));
         }
 
-        return new CommitRowSetIterator((RowSetIterator) originalSheet.reset().iterator());
+        template.xfs = Arrays.copyOf(xfs, n);
+        template.preCells = preCells;
+        if (detach) template.rows = rows.toArray(new TemplateRow[0]);
     }
 
     /**
-     * 解析公共数据
+     * 编译公共数据
      *
      * @param originalSheet 源模板工作表
-     * @return 列数
+     * @param template      编译模板
      */
-    protected int prepareCommonData(org.ttzero.excel.reader.FullSheet originalSheet) {
+    protected void compileCommonData(FullSheet originalSheet, CompiledTemplate template) {
         // 获取列属性
-        int len = 0;
         List<Col> cols = originalSheet.getCols();
         if (cols != null && !cols.isEmpty()) {
-            cols.sort(Comparator.comparingInt(a -> a.max));
+            template.cols = new ArrayList<>(cols);
+            template.cols.sort(Comparator.comparingInt(a -> a.max));
+        }
+
+        // 冻结,直接复制不需要计算移动
+        template.panes = originalSheet.getFreezePanes();
+
+        // 合并
+        List<Dimension> mergeCells0 = originalSheet.getMergeCells();
+        if (mergeCells0 != null) {
+            template.mergeCells0 = new HashMap<>(mergeCells0.size());
+            // 这里将坐标切换到 base 0，方便后续取值
+            for (Dimension dim : mergeCells0) template.mergeCells0.put(dimensionKey(dim.firstRow - 1, dim.firstColumn - 1), dim);
+        }
+
+        // 过滤
+        template.autoFilter = originalSheet.getFilter();
+        // 是否显示网格线
+        template.showGridLines = originalSheet.isShowGridLines();
+        // 预置列宽
+        template.defaultColWidth = originalSheet.getDefaultColWidth();
+        template.defaultRowHeight = originalSheet.getDefaultRowHeight();
+        // 是否有缩放
+        template.zoomScale = originalSheet.getZoomScale();
+
+        // FIXME 图片（较为复杂不能简单复制，需要计算中间插入或扣除的行）
+        try {
+            List<Drawings.Picture> pictures = originalSheet.listPictures();
+            if (pictures != null && !pictures.isEmpty()) {
+                template.pictures = new ArrayList<>(pictures.size());
+                for (Drawings.Picture p : pictures) {
+                    if (FileUtil.exists(p.getLocalPath())) {
+                        if (p.isBackground()) template.waterMark = p.getLocalPath();
+                        else template.pictures.add(toWritablePicture(p));
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            // Ignore
+        }
+    }
+
+    /**
+     * 绑定样式和占位符，将编译模板中的样式添加到当前工作簿并复制占位符绑定数据
+     *
+     * @param template      编译模板
+     * @param originalSheet 源模板工作表，编译模板未复制模板行时从此工作表中读取模板行
+     * @return 模板工作表行迭代器
+     */
+    protected CommitRowSetIterator prepare(CompiledTemplate template, FullSheet originalSheet) {
+        // 样式缓存
+        styleMap = writeAsExcel ? new HashMap<>() : Collections.emptyMap();
+        if (writeAsExcel && template.xfs != null) {
+            // 模板文件样式
+            Styles styles0 = template.styles, styles = workbook.getStyles();
+            for (int xf0 : template.xfs) {
+                int style = styles0.getStyleByIndex(xf0), xf = 0;
+                // 字体
+                Font font = styles0.getFont(style);
+                if (font != null) xf |= styles.addFont(font.clone());
+                // 填充
+                Fill fill = styles0.getFill(style);
+                if (fill != null) xf |= styles.addFill(fill.clone());
+                // 边框
+                Border border = styles0.getBorder(style);
+                if (border != null) xf |= styles.addBorder(border.clone());
+                // 格式化
+                NumFmt numFmt = styles0.getNumFmt(style);
+                if (numFmt != null) xf |= styles.addNumFmt(numFmt.clone());
+                // 水平对齐
+                xf |= styles0.getHorizontal(style);
+                // 垂直对齐
+                xf |= styles0.getVertical(style);
+                // 自动折行
+                xf |= styles0.getWrapText(style);
+
+                // 添加进样式表
+                styleMap.put(xf0, styles.of(xf));
+            }
+        }
+
+        // 复制占位符并绑定数据
+        if (template.preCells != null) {
+            preCells = new PreCell[template.preCells.length][];
+            for (int i = 0; i < preCells.length; i++) {
+                PreCell[] pns = template.preCells[i];
+                if (pns == null) continue;
+                preCells[i] = new PreCell[pns.length];
+                for (int j = 0; j < pns.length; j++) preCells[i][j] = bindPreCell(pns[j]);
+            }
+        }
+
+        return new CommitRowSetIterator(template.rows != null ? template.iterator() : (RowSetIterator) originalSheet.reset().iterator());
+    }
+
+    /**
+     * 复制公共信息到当前工作表
+     *
+     * @param template 编译模板
+     * @return 列数
+     */
+    protected int prepareCommonData(CompiledTemplate template) {
+        // 获取列属性
+        int len = 0;
+        List<Col> cols = template.cols;
+        if (cols != null) {
             len = cols.get(cols.size() - 1).max;
             int i = 0;
             columns = new Column[len];
@@ -901,56 +1122,83 @@ public class TemplateSheet extends Sheet {
         if (!writeAsExcel) return len;
 
         // 冻结,直接复制不需要计算移动
-        Panes panes = originalSheet.getFreezePanes();
-        if (panes != null) putExtProp(Const.ExtendPropertyKey.FREEZE, panes);
+        if (template.panes != null) putExtProp(Const.ExtendPropertyKey.FREEZE, template.panes);
 
         // 合并
-        List<Dimension> mergeCells0 = originalSheet.getMergeCells();
-        if (mergeCells0 != null) {
-            mergeCells = new ArrayList<>(mergeCells0.size());
-            this.mergeCells0 = new HashMap<>(mergeCells0.size());
-            // 这里将坐标切换到 base 0，方便后续取值
-            for (Dimension dim : mergeCells0) this.mergeCells0.put(dimensionKey(dim.firstRow - 1, dim.firstColumn - 1), dim);
-        }
+        if ((mergeCells0 = template.mergeCells0) != null) mergeCells = new ArrayList<>(mergeCells0.size());
 
         // 过滤
-        Dimension autoFilter = originalSheet.getFilter();
+        Dimension autoFilter = template.autoFilter;
         if (autoFilter != null) {
             afr = autoFilter.getFirstRow();
             putExtProp(Const.ExtendPropertyKey.AUTO_FILTER, autoFilter);
         }
 
         // 是否显示网格线
-        this.showGridLines = originalSheet.isShowGridLines();
+        this.showGridLines = template.showGridLines;
 
         // 预置列宽
-        double defaultColWidth = originalSheet.getDefaultColWidth(), defaultRowHeight = originalSheet.getDefaultRowHeight();
-        if (defaultColWidth >= 0) putExtProp("defaultColWidth", defaultColWidth);
-        if (defaultRowHeight >= 0) putExtProp("defaultRowHeight", defaultRowHeight);
+        if (template.defaultColWidth >= 0) putExtProp("defaultColWidth", template.defaultColWidth);
+        if (template.defaultRowHeight >= 0) putExtProp("defaultRowHeight", template.defaultRowHeight);
 
         // 是否有缩放
-        Integer zoomScale = originalSheet.getZoomScale();
-        if (zoomScale != null) putExtProp(Const.ExtendPropertyKey.ZOOM_SCALE, zoomScale);
+        if (template.zoomScale != null) putExtProp(Const.ExtendPropertyKey.ZOOM_SCALE, template.zoomScale);
 
-        // FIXME 图片（较为复杂不能简单复制，需要计算中间插入或扣除的行）
-        try {
-            List<Drawings.Picture> pictures = originalSheet.listPictures();
-            if (pictures != null && !pictures.isEmpty()) {
-                this.pictures = pictures.size() > 1 || !pictures.get(0).isBackground() ? new ArrayList<>(pictures) : null;
-                for (Drawings.Picture p : pictures) {
-                    if (FileUtil.exists(p.getLocalPath())) {
-                        if (p.isBackground()) setWaterMark(WaterMark.of(p.getLocalPath()));
-                        else this.pictures.add(p);
-                    }
-                }
-            }
-        } catch (Exception ex) {
-            // Ignore
+        // 图片
+        if (template.pictures != null && !template.pictures.isEmpty()) {
+            pictures = new ArrayList<>(template.pictures.size());
+            for (Picture p : template.pictures) pictures.add(copyPicture(p));
         }
+        if (template.waterMark != null) setWaterMark(WaterMark.of(template.waterMark));
 
         return len;
     }
 
+    /**
+     * 复制编译模板中的占位符并绑定命名空间，数据验证与绑定的数据有关所以在这里创建
+     *
+     * @param prototype 编译模板中的占位符
+     * @return 当前导出使用的占位符
+     */
+    protected PreCell bindPreCell(PreCell prototype) {
+        PreCell pn = new PreCell();
+        pn.row = prototype.row;
+        pn.col = prototype.col;
+        pn.v = prototype.v;
+        // 非xlsx格式不处理合并单元格
+        pn.m = writeAsExcel ? prototype.m : null;
+        if (prototype.cb != null) pn.cb = new char[prototype.cb.length];
+        pn.nodes = new Node[prototype.nodes.length];
+        for (int i = 0; i < pn.nodes.length; i++) {
+            Node node = new Node(), node0 = prototype.nodes[i];
+            node.option = node0.option;
+            node.namespace = node0.namespace;
+            node.val = node0.val;
+            if ((node.option & 1) == 1) node.vw = namespaceMapper.get(node.namespace);
+            pn.nodes[i] = node;
+        }
+
+        // 内置函数绑定序列时添加数据验证
+        int type;
+        if (pn.nodes.length == 1 && (type = pn.nodes[0].getType()) > 0) {
+            Node node = pn.nodes[0];
+            String[] keys = {HYPERLINK_KEY, MEDIA_KEY, LIST_KEY};
+            String innerFormulaStr = keys[type - 1] + (StringUtil.isNotEmpty(node.namespace) ? node.namespace + '.' + node.val : node.val);
+            ValueWrapper vw = namespaceMapper.get(innerFormulaStr);
+            if (vw != null && vw.option == 4) {
+                // TODO 读取源文件中的数据验证
+                pn.validation = new ListValidation<>().in(vw.list).dimension(new Dimension(pn.row, (short) (pn.col + 1)));
+                Object o = getExtPropValue(Const.ExtendPropertyKey.DATA_VALIDATION);
+                List<Validation> validations;
+                if (o instanceof List) validations = (List) o;
+                else putExtProp(Const.ExtendPropertyKey.DATA_VALIDATION, validations = new ArrayList<>());
+                // 数据校验
+                validations.add(pn.validation);
+            }
+        }
+        return pn;
+    }
+
     /**
      * 单元格字符串预处理，检测是否包含占位符以及占位符预处理
      *
@@ -1043,21 +1291,9 @@ public class TemplateSheet extends Sheet {
             if (p >= 0) {
                 node.option |= (p + 1) << 1;
                 pn.v = 0;
-                String innerFormulaStr = useNamespace ? node.namespace + '.' + node.val : node.val;
                 int pLen = keys[p].length();
                 if (useNamespace) node.namespace = node.namespace.substring(pLen);
                 else node.val = node.val.substring(pLen);
-                ValueWrapper vw = namespaceMapper.get(innerFormulaStr);
-                if (vw != null && vw.option == 4) {
-                    // TODO 读取源文件中的数据验证
-                    pn.validation = new ListValidation<>().in(vw.list).dimension(new Dimension(pn.row, (short) (pn.col + 1)));
-                    Object o = getExtPropValue(Const.ExtendPropertyKey.DATA_VALIDATION);
-                    List<Validation> validations;
-                    if (o instanceof List) validations = (List) o;
-                    else putExtProp(Const.ExtendPropertyKey.DATA_VALIDATION, validations = new ArrayList<>());
-                    // 数据校验
-                    validations.add(pn.validation);
-                }
             }
         }
         return pn;
@@ -1081,13 +1317,68 @@ public class TemplateSheet extends Sheet {
         return workbook.getStyles().of(Styles.clearFont(style) | fi);
     }
 
+    /**
+     * 获取对象的取值器，取值器按类型编译并全局缓存，同一个类型多次导出时只解析一次
+     *
+     * @param clazz 待解析的对象
+     * @return Key：字段名 Value: 取值器
+     */
+    protected Map<String, Function<Object, Object>> parseAccessors(Class<?> clazz) {
+        return ACCESSORS.get(clazz);
+    }
+
     /**
      * 解析对象的方法和字段，方便后续取数
      *
      * @param clazz 待解析的对象
      * @return Key：字段名 Value: Method/Field
+     * @deprecated 使用{@link #parseAccessors(Class)}获取编译后的取值器
      */
+    @Deprecated
     protected Map<String, AccessibleObject> parseClass(Class<?> clazz) {
+        return ACCESSIBLE_OBJECTS.get(clazz);
+    }
+
+    /**
+     * 绑定对象的取值器，同时保留已废弃的{@link ValueWrapper#accessibleObjectMap}兼容自定义取值
+     *
+     * @param vw    填充对象
+     * @param clazz 对象类型
+     */
+    @SuppressWarnings("deprecation")
+    protected void bindAccessors(ValueWrapper vw, Class<?> clazz) {
+        vw.accessors = parseAccessors(clazz);
+        vw.accessibleObjectMap = parseClass(clazz);
+    }
+
+    /**
+     * 解析对象的方法和字段并编译为取值器，优先使用get方法
+     *
+     * @param clazz 待解析的对象
+     * @return Key：字段名 Value: 取值器
+     */
+    protected static Map<String, Function<Object, Object>> compileAccessors(Class<?> clazz) {
+        Map<String, Function<Object, Object>> tmp = new HashMap<>();
+        try {
+            for (Map.Entry<String, Method> entry : readMethodsMap(clazz, Object.class).entrySet())
+                tmp.put(entry.getKey(), AccessorFactory.getter(entry.getValue()));
+        } catch (IntrospectionException e) {
+            LoggerFactory.getLogger(TemplateSheet.class).warn("Get class {} methods failed.", clazz);
+        }
+        Field[] declaredFields = listDeclaredFieldsUntilJavaPackage(clazz);
+        for (Field f : declaredFields) {
+            if (!tmp.containsKey(f.getName())) tmp.put(f.getName(), AccessorFactory.getter(f));
+        }
+        return tmp;
+    }
+
+    /**
+     * 解析对象的方法和字段，优先使用get方法
+     *
+     * @param clazz 待解析的对象
+     * @return Key：字段名 Value: Method/Field
+     */
+    private static Map<String, AccessibleObject> parseAccessibleObjects(Class<?> clazz) {
         Map<String, AccessibleObject> tmp = new HashMap<>();
         try {
             tmp.putAll(readMethodsMap(clazz, Object.class));
@@ -1100,9 +1391,9 @@ public class TemplateSheet extends Sheet {
                 }
             }
         } catch (IntrospectionException e) {
-            LOGGER.warn("Get class {} methods failed.", clazz);
+            LoggerFactory.getLogger(TemplateSheet.class).warn("Get class {} methods failed.", clazz);
         }
-        return tmp;
+        return Collections.unmodifiableMap(tmp);
     }
 
     /**
@@ -1251,6 +1542,14 @@ public class TemplateSheet extends Sheet {
          * 原始文本或占位符
          */
         public String val;
+        /**
+         * 绑定的填充对象，导出开始时绑定
+         */
+        public ValueWrapper vw;
+        /**
+         * 绑定的取值器，首次取值时绑定
+         */
+        public Function<Object, Object> accessor;
 
         /**
          * 返回单元格的值类型
@@ -1304,9 +1603,145 @@ public class TemplateSheet extends Sheet {
          * 当{@code option}为3/4的时候，填充的数据保存到{@code list}中
          */
         public List<Object> list;
+        /**
+         * 当{@code option}为1/4时，缓存对象的取值器方便后续取值
+         */
+        public Map<String, Function<Object, Object>> accessors;
         /**
          * 当{@code option}为1/4时，缓存对象的Field和Method方便后续取值
+         *
+         * @deprecated 使用{@link #accessors}取值，该属性仅为兼容自定义取值保留，内容只读
          */
+        @Deprecated
         public Map<String, AccessibleObject> accessibleObjectMap;
     }
+
+    /**
+     * 编译模板，保存模板的布局、样式、图片和占位符解析结果，编译完成后只读可以被多个导出线程共享
+     */
+    public static class CompiledTemplate {
+        /**
+         * 模板版本，模板为本地文件时由修改时间和文件大小计算，模板为流时为{@code 0}
+         */
+        public long version;
+        /**
+         * 源工作表索引
+         */
+        public int originalSheetIndex;
+        /**
+         * 列属性，按{@code max}排序
+         */
+        public List<Col> cols;
+        /**
+         * 冻结
+         */
+        public Panes panes;
+        /**
+         * 合并单元格
+         * Key: 首坐标 Value：单元格范围
+         */
+        public Map<Long, Dimension> mergeCells0;
+        /**
+         * 过滤
+         */
+        public Dimension autoFilter;
+        /**
+         * 是否显示网格线
+         */
+        public boolean showGridLines;
+        /**
+         * 默认列宽和行高
+         */
+        public double defaultColWidth, defaultRowHeight;
+        /**
+         * 缩放
+         */
+        public Integer zoomScale;
+        /**
+         * 图片，导出时需要复制
+         */
+        public List<Picture> pictures;
+        /**
+         * 背景图片（水印）
+         */
+        public Path waterMark;
+        /**
+         * 模板样式
+         */
+        public Styles styles;
+        /**
+         * 模板中使用到的样式索引
+         */
+        public int[] xfs;
+        /**
+         * 占位符预处理结果，导出时需要复制
+         */
+        public PreCell[][] preCells;
+        /**
+         * 复制到内存中的模板行，为{@code null}时从源文件中读取
+         */
+        public TemplateRow[] rows;
+        /**
+         * 图片临时目录，由{@link TemplateCache}管理
+         */
+        public Path tempDir;
+        /**
+         * 引用计数，由{@link TemplateCache}管理
+         */
+        public final AtomicInteger refs = new AtomicInteger();
+        /**
+         * 是否已从缓存中淘汰
+         */
+        public volatile boolean evicted;
+
+        /**
+         * 创建模板行迭代器
+         *
+         * @return 模板行迭代器
+         */
+        public RowSetIterator iterator() {
+            int[] i = { 0 };
+            return new RowSetIterator(() -> i[0] < rows.length ? rows[i[0]++] : null);
+        }
+    }
+
+    /**
+     * 复制到内存中的模板行，共享字符串已转为内联字符串，复制后不再依赖{@link ExcelReader}
+     */
+    public static class TemplateRow extends org.ttzero.excel.reader.Row {
+        /**
+         * 行高
+         */
+        protected Double height;
+        /**
+         * 是否隐藏
+         */
+        protected boolean hidden;
+
+        public TemplateRow(org.ttzero.excel.reader.Row row) {
+            index = row.getRowNum();
+            fc = row.getFirstColumnIndex();
+            lc = row.getLastColumnIndex();
+            styles = row.getStyles();
+            height = row.getHeight();
+            hidden = row.isHidden();
+            cells = new Cell[Math.max(lc, 0)];
+            for (int i = 0; i < cells.length; i++) {
+                Cell cell = row.getCell(i);
+                // 共享字符串转为内联字符串
+                if (cell.t == Cell.SST) row.getString(cell);
+                cells[i] = new Cell((short) (i + 1)).from(cell);
+            }
+        }
+
+        @Override
+        public Double getHeight() {
+            return height;
+        }
+
+        @Override
+        public boolean isHidden() {
+            return hidden;
+        }
+    }
 }
@@ -37,6 +37,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import static org.ttzero.excel.util.FileUtil.exists;
 
@@ -131,6 +132,10 @@ public class Workbook implements Storable {
      * 导出进度监控器
      */
     private BiConsumer<Sheet, Integer> progressConsumer;
+    /**
+     * 导出指标监听器
+     */
+    private Consumer<ExportMetrics> metricsConsumer;
     /**
      * 全局字符串共享区
      */
@@ -159,6 +164,10 @@ public class Workbook implements Storable {
      * 全局多媒体记数器（当前仅支持图片）
      */
     private int mediaCounter;
+    /**
+     * 多媒体暂存文件
+     */
+    private MediaStore mediaStore;
     /**
      * 自定义属性
      */
@@ -478,7 +487,7 @@ public class Workbook implements Storable {
      * @param sheet 待插入的工作表
      * @return 当前工作薄
      */
-    public Workbook insertSheet(int index, Sheet sheet) {
+    public synchronized Workbook insertSheet(int index, Sheet sheet) {
         ensureCapacityInternal();
         int _size = size;
         if (sheets[index] != null) {
@@ -575,6 +584,32 @@ public class Workbook implements Storable {
         return progressConsumer;
     }
 
+    /**
+     * 添加一个导出指标监听器，导出完成后回调各阶段耗时、吞吐量、压缩前后字节数和共享字符区命中率，
+     * 设置监听器后打包统一使用{@link org.ttzero.excel.util.ParallelZipOutputStream}以便统计字节数
+     *
+     * <pre>
+     * new Workbook().onMetrics(metrics -&gt; {
+     *     System.out.println(metrics.getRowsPerSecond() + " rows/s");
+     * })</pre>
+     *
+     * @param metricsConsumer 指标监听器
+     * @return 当前工作薄
+     */
+    public Workbook onMetrics(Consumer<ExportMetrics> metricsConsumer) {
+        this.metricsConsumer = metricsConsumer;
+        return this;
+    }
+
+    /**
+     * 获取导出指标监听器
+     *
+     * @return 如果设置了监听器就返回，未设置时返回null
+     */
+    public Consumer<ExportMetrics> getMetricsConsumer() {
+        return metricsConsumer;
+    }
+
 //    /**
 //     * Save as excel97~2003
 //     * <p>
@@ -809,7 +844,7 @@ public class Workbook implements Storable {
      *
      * @return 图片记数器
      */
-    public int incrementDrawingCounter() {
+    public synchronized int incrementDrawingCounter() {
         return ++drawingCounter;
     }
 
@@ -827,10 +862,20 @@ public class Workbook implements Storable {
      *
      * @return 媒体记数器
      */
-    public int incrementMediaCounter() {
+    public synchronized int incrementMediaCounter() {
         return ++mediaCounter;
     }
 
+    /**
+     * 获取多媒体暂存文件，图片统一暂存后在打包时直接写入压缩包
+     *
+     * @return 多媒体暂存文件
+     */
+    public synchronized MediaStore getMediaStore() {
+        if (mediaStore == null) mediaStore = new MediaStore();
+        return mediaStore;
+    }
+
     /**
      * 获取当前工作薄含有多媒体的工作表个数
      *
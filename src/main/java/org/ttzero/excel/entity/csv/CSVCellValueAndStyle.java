@@ -16,6 +16,7 @@
 
 package org.ttzero.excel.entity.csv;
 
+import org.ttzero.excel.entity.CellValueWriter;
 import org.ttzero.excel.entity.Column;
 import org.ttzero.excel.entity.ICellValueAndStyle;
 import org.ttzero.excel.entity.Row;
@@ -40,7 +41,6 @@ import static org.ttzero.excel.entity.IWorksheetWriter.isLocalDateTime;
 import static org.ttzero.excel.entity.IWorksheetWriter.isLocalTime;
 import static org.ttzero.excel.entity.IWorksheetWriter.isLong;
 import static org.ttzero.excel.entity.IWorksheetWriter.isShort;
-import static org.ttzero.excel.entity.IWorksheetWriter.isString;
 import static org.ttzero.excel.entity.IWorksheetWriter.isTime;
 
 /**
@@ -61,58 +61,31 @@ public class CSVCellValueAndStyle implements ICellValueAndStyle {
     public <T> void setStyleDesign(T o, Cell cell, Column hc, StyleProcessor<T> styleProcessor) { }
 
     /**
-     * Setting cell value
+     * Returns the cell value writer, dates and times are written as text
      *
-     * @param cell  the cell
-     * @param e     the cell value
      * @param hc    the header column
      * @param clazz the cell value type
-     * @param hasConversion 是否有输出转换器
+     * @return the cell value writer
      */
     @Override
-    public void setCellValue(Row row, Cell cell, Object e, Column hc, Class<?> clazz, boolean hasConversion) {
-        if (hasConversion) {
-            conversion(row, cell, e, hc);
-            return;
-        }
-        if (e == null) {
-            setNullValue(row, cell, hc);
-            return;
-        }
-        if (isString(clazz)) {
-            cell.setString(e.toString());
-        } else if (isDate(clazz)) {
-            // TODO hc.numFmt
-            cell.setString(DateUtil.toDateString((java.util.Date) e));
-        } else if (isDateTime(clazz)) {
-            cell.setString(DateUtil.toString((Timestamp) e));
-        } else if (isChar(clazz)) {
-            cell.setChar((Character) e);
-        } else if (isShort(clazz)) {
-            cell.setInt((Short) e);
-        } else if (isInt(clazz)) {
-            cell.setInt((Integer) e);
-        } else if (isLong(clazz)) {
-            cell.setLong((Long) e);
-        } else if (isFloat(clazz)) {
-            cell.setDouble((Float) e);
-        } else if (isDouble(clazz)) {
-            cell.setDouble((Double) e);
-        } else if (isBool(clazz)) {
-            cell.setBool((Boolean) e);
-        } else if (isBigDecimal(clazz)) {
-            cell.setDecimal((BigDecimal) e);
-        } else if (isLocalDate(clazz)) {
-            cell.setString(((java.time.LocalDate) e).toString());
-        } else if (isLocalDateTime(clazz)) {
-            cell.setString(DateUtil.LOCAL_DATE_TIME.format((java.time.LocalDateTime) e));
-        } else if (isTime(clazz)) {
-            cell.setString(DateTimeFormatter.ISO_TIME.format(((java.sql.Time) e).toLocalTime()));
-        } else if (isLocalTime(clazz)) {
-            cell.setString(DateTimeFormatter.ISO_TIME.format((java.time.LocalTime) e));
-        } else {
-            cell.setString(e.toString());
-        }
+    public CellValueWriter getCellValueWriter(Column hc, Class<?> clazz) {
+        // TODO hc.numFmt
+        if (isDate(clazz)) return (row, cell, e, c) -> cell.setString(DateUtil.toDateString((java.util.Date) e));
+        if (isDateTime(clazz)) return (row, cell, e, c) -> cell.setString(DateUtil.toString((Timestamp) e));
+        if (isChar(clazz)) return (row, cell, e, c) -> cell.setChar((Character) e);
+        if (isShort(clazz)) return (row, cell, e, c) -> cell.setInt((Short) e);
+        if (isInt(clazz)) return (row, cell, e, c) -> cell.setInt((Integer) e);
+        if (isLong(clazz)) return (row, cell, e, c) -> cell.setLong((Long) e);
+        if (isFloat(clazz)) return (row, cell, e, c) -> cell.setDouble((Float) e);
+        if (isDouble(clazz)) return (row, cell, e, c) -> cell.setDouble((Double) e);
+        if (isBool(clazz)) return (row, cell, e, c) -> cell.setBool((Boolean) e);
+        if (isBigDecimal(clazz)) return (row, cell, e, c) -> cell.setDecimal((BigDecimal) e);
+        if (isLocalDate(clazz)) return (row, cell, e, c) -> cell.setString(e.toString());
+        if (isLocalDateTime(clazz)) return (row, cell, e, c) -> cell.setString(DateUtil.LOCAL_DATE_TIME.format((java.time.LocalDateTime) e));
+        if (isTime(clazz)) return (row, cell, e, c) -> cell.setString(DateTimeFormatter.ISO_TIME.format(((java.sql.Time) e).toLocalTime()));
+        if (isLocalTime(clazz)) return (row, cell, e, c) -> cell.setString(DateTimeFormatter.ISO_TIME.format((java.time.LocalTime) e));
+        // String and others
+        return (row, cell, e, c) -> cell.setString(e.toString());
     }
 
     /**
@@ -274,7 +274,7 @@ public class CSVWorksheetWriter implements IWorksheetWriter {
                 case LONG     : writer.write(cell.longVal);                                        break;
                 case DOUBLE   : writer.write(cell.doubleVal);                                      break;
                 case BOOL     : writer.write(cell.boolVal);                                        break;
-                case DECIMAL  : writer.write(cell.decimal.toString());                             break;
+                case DECIMAL  : writer.write(cell.decimal);                                        break;
                 case CHARACTER: writer.writeChar(cell.charVal);                                    break;
                 case DATE     : writer.write(DateUtil.toDateString(DateUtil.toDate(cell.intVal))); break;
                 case DATETIME : writer.write(DateUtil.toString(DateUtil.toDate(cell.doubleVal)));  break;
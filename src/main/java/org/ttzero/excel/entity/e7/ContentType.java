@@ -48,7 +48,7 @@ public class ContentType implements Storable {
         relManager = new RelManager();
     }
 
-    public void addRel(Relationship rel) {
+    public synchronized void addRel(Relationship rel) {
         relManager.add(rel);
     }
 
@@ -132,16 +132,16 @@ public class ContentType implements Storable {
         }
     }
 
-    public void add(Type type) {
+    public synchronized void add(Type type) {
         set.add(type);
     }
 
-    public boolean hasDrawings() {
+    public synchronized boolean hasDrawings() {
         return set.stream().anyMatch(t -> Const.ContentType.DRAWINGS.equals(((Type) t).contentType) || ((Type) t).contentType.startsWith("image/"));
     }
 
     @java.lang.Override
-    public void writeTo(Path root) throws IOException {
+    public synchronized void writeTo(Path root) throws IOException {
         // relationship
         relManager.write(root, null);
         // write self
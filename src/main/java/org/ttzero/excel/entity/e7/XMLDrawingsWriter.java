@@ -17,6 +17,8 @@
 
 package org.ttzero.excel.entity.e7;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.ttzero.excel.drawing.Bevel;
 import org.ttzero.excel.drawing.Camera;
 import org.ttzero.excel.drawing.Enums.Angle;
@@ -50,7 +52,11 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.ttzero.excel.util.FileUtil.exists;
 
@@ -64,21 +70,31 @@ import static org.ttzero.excel.util.FileUtil.exists;
     , "http://schemas.openxmlformats.org/drawingml/2006/main"
     , Const.Relationship.RELATIONSHIP})
 public class XMLDrawingsWriter implements IDrawingsWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(XMLDrawingsWriter.class);
     protected Path path;
     protected ExtBufferedWriter bw;
     protected int size;
     protected RelManager relManager;
     /**
-     * Store async pictures
+     * 等待中的异步图片，按添加顺序输出
      */
-    protected Picture[] pictures;
+    protected ArrayDeque<Picture> pending;
     /**
-     * Mark complete status
-     * 0: free or complete
-     * 1: wait
+     * 已完成的异步图片，由下载线程放入，输出线程取出
      */
-    protected long[] bits;
-    protected int countDown;
+    protected BlockingQueue<Picture> completed;
+    /**
+     * 已完成但未输出的异步图片，下标为{@code Picture.idx}
+     */
+    protected BitSet done;
+    /**
+     * 异步图片序号
+     */
+    protected int asyncIndex;
+    /**
+     * 关闭时等待异步图片完成的最长时间（毫秒）
+     */
+    protected long asyncTimeout = 60_000L;
 
     public XMLDrawingsWriter(Path path) {
         this.path = path;
@@ -97,19 +113,8 @@ public class XMLDrawingsWriter implements IDrawingsWriter {
     @Override
     public void close() throws IOException {
         if (bw == null) return;
-        if (countDown > 0) {
-            int counter = 30; // Loop 30 times (1 minutes)
-            do {
-                // Check status
-                if (checkComplete() == 0) break;
-
-                try {
-                    Thread.sleep(2000);
-                } catch (InterruptedException e) {
-                    break;
-                }
-            } while (--counter >= 0);
-        }
+        // 等待异步图片
+        if (pending != null && !pending.isEmpty()) awaitCompleted();
         // End tag
         bw.write("</xdr:wsDr>");
         relManager.write(path.getParent(), path.getFileName().toString());
@@ -117,6 +122,17 @@ public class XMLDrawingsWriter implements IDrawingsWriter {
         bw = null;
     }
 
+    /**
+     * 设置关闭时等待异步图片完成的最长时间，超时后未完成的图片将被忽略
+     *
+     * @param asyncTimeout 超时时间（毫秒）
+     * @return 当前输出协议
+     */
+    public XMLDrawingsWriter setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+        return this;
+    }
+
     @Override
     public void writeTo(Path root) throws IOException { }
 
@@ -191,50 +207,62 @@ public class XMLDrawingsWriter implements IDrawingsWriter {
 
     @Override
     public void asyncDrawing(Picture picture) throws IOException {
-        if (pictures == null) {
-            bits = new long[2];
-            pictures = new Picture[bits.length << 6];
-        }
-        int freeIndex = getFreeIndex(bits);
-        // Grow and copy
-        if (freeIndex < 0) {
-            freeIndex = bits.length << 6;
-            bits = Arrays.copyOf(bits, bits.length + 2);
-            pictures = Arrays.copyOf(pictures, bits.length << 6);
+        if (pending == null) {
+            pending = new ArrayDeque<>();
+            completed = new LinkedBlockingQueue<>();
+            done = new BitSet();
         }
-        // Write file if current location is completed
-        else if (pictures[freeIndex] != null) {
-            drawing(pictures[freeIndex]);
-            countDown--;
-        }
-
-        picture.idx = freeIndex;
-        pictures[freeIndex] = picture;
-        markIndex(bits, freeIndex);
-        countDown++;
+        picture.idx = asyncIndex++;
+        pending.add(picture);
+        // 顺便输出已完成的图片
+        drainCompleted();
     }
 
+    /**
+     * 通知图片已准备好，可在任意线程调用
+     *
+     * @param picture 已完成的图片{@link Picture}
+     */
     @Override
     public void complete(Picture picture) {
-        if (bits == null) return;
-        freeIndex(bits, picture.idx);
+        if (completed != null) completed.offer(picture);
     }
 
-    protected int checkComplete() throws IOException {
-        while (countDown > 0) {
-            int i = getFreeIndex(bits);
-            // None complete picture
-            if (i < 0) break;
-            Picture p = pictures[i];
-            // Overflow
-            if (p == null) break;
-            // Write picture
+    /**
+     * 按添加顺序输出已完成的异步图片，遇到未完成的图片时停止
+     *
+     * @return 剩余未输出的图片数
+     * @throws IOException if I/O error occur.
+     */
+    protected int drainCompleted() throws IOException {
+        for (Picture p; (p = completed.poll()) != null; ) done.set(p.idx);
+        for (Picture p; (p = pending.peek()) != null && done.get(p.idx); ) {
+            pending.poll();
+            done.clear(p.idx);
             drawing(p);
-            // The completed position is marked as 1 to prevent further acquisition
-            markIndex(bits, i);
-            countDown--;
         }
-        return countDown;
+        return pending.size();
+    }
+
+    /**
+     * 阻塞等待所有异步图片完成，最长等待{@link #asyncTimeout}毫秒
+     *
+     * @throws IOException if I/O error occur.
+     */
+    protected void awaitCompleted() throws IOException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(asyncTimeout);
+        try {
+            while (drainCompleted() > 0) {
+                Picture p = completed.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (p == null) {
+                    LOGGER.warn("Timeout waiting for {} remote pictures, ignore them.", pending.size());
+                    break;
+                }
+                done.set(p.idx);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     public static int getFreeIndex(long[] bits) {
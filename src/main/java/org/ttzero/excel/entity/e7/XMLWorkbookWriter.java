@@ -25,22 +25,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.ttzero.excel.entity.ListSheet;
 import org.ttzero.excel.manager.TopNS;
+import org.ttzero.excel.entity.Column;
 import org.ttzero.excel.entity.Comments;
 import org.ttzero.excel.entity.ExcelWriteException;
+import org.ttzero.excel.entity.ExportMetrics;
 import org.ttzero.excel.entity.ICellValueAndStyle;
 import org.ttzero.excel.entity.IWorkbookWriter;
+import org.ttzero.excel.entity.MediaStore;
 import org.ttzero.excel.entity.IWorksheetWriter;
 import org.ttzero.excel.entity.Relationship;
 import org.ttzero.excel.entity.SharedStrings;
 import org.ttzero.excel.entity.Sheet;
 import org.ttzero.excel.entity.WaterMark;
 import org.ttzero.excel.entity.Workbook;
+import org.ttzero.excel.entity.style.Styles;
 import org.ttzero.excel.manager.Const;
 import org.ttzero.excel.manager.RelManager;
 import org.ttzero.excel.manager.docProps.App;
 import org.ttzero.excel.manager.docProps.Core;
 import org.ttzero.excel.manager.docProps.CustomProperties;
+import org.ttzero.excel.util.CountingZipOutputStream;
 import org.ttzero.excel.util.FileUtil;
+import org.ttzero.excel.util.ParallelZipOutputStream;
 import org.ttzero.excel.util.StringUtil;
 import org.ttzero.excel.util.ZipUtil;
 
@@ -50,10 +56,17 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.ttzero.excel.util.FileUtil.exists;
 
@@ -69,6 +82,30 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
     protected final Logger LOGGER = LoggerFactory.getLogger(getClass());
     protected Workbook workbook;
     protected final RelManager relManager;
+    /**
+     * 流式输出，开启后工作表直接写入压缩包不再生成临时目录
+     */
+    protected boolean streaming;
+    /**
+     * 流式输出时的压缩包输出流
+     */
+    protected ZipOutputStream zos;
+    /**
+     * 本次导出的指标，未设置指标监听器时为{@code null}
+     */
+    protected ExportMetrics metrics;
+    /**
+     * 并行输出工作表的线程池，为{@code null}时逐个输出
+     */
+    protected Executor executor;
+    /**
+     * 分块并行压缩的线程池
+     */
+    protected Executor compressionExecutor;
+    /**
+     * 条目压缩策略
+     */
+    protected ParallelZipOutputStream.CompressionPolicy compressionPolicy;
 
     public XMLWorkbookWriter() {
         relManager = new RelManager();
@@ -87,6 +124,86 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
         return relManager;
     }
 
+    /**
+     * 开启/关闭流式输出，开启后每个工作表将直接写入目标压缩包，只在最后输出共享字符串、样式、workbook.xml等全局部件，
+     * 输出到{@link OutputStream}时目标流将在第一个工作表开始时就收到数据，不再等待整个文件生成完成。
+     *
+     * <p>注意：包含自适应列宽或自定义输出协议需要回写文件的工作表仍会先写临时文件然后再复制到压缩包</p>
+     *
+     * <p>通过{@link #setExecutor}并行输出工作表时流式输出不能减少临时文件，压缩包条目必须逐个写入，
+     * 同时输出的工作表只能先写到各自的临时文件，整批完成后再按顺序复制到压缩包，所以磁盘IO与非流式输出相同，
+     * 仅省去生成完整压缩包临时文件再复制的步骤。{@link org.ttzero.excel.entity.Sheet#setParallelism}并行序列化行块不受影响，
+     * 行块按顺序合并后直接写入压缩包</p>
+     *
+     * @param streaming true: 流式输出
+     * @return 当前工作薄输出协议
+     */
+    public XMLWorkbookWriter setStreaming(boolean streaming) {
+        this.streaming = streaming;
+        return this;
+    }
+
+    /**
+     * 是否为流式输出
+     *
+     * @return true: 流式输出
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * 设置并行输出工作表的线程池，设置后相互独立的工作表将同时输出，共享字符串和样式为线程安全可共用，
+     * 资源类型和压缩包条目仍按工作表顺序添加。线程池由调用方管理，输出完成后不会关闭
+     *
+     * <p>注意：工作表之间不能共享列对象，分页产生的复制工作表仍按顺序输出，
+     * 开启{@link #setStreaming 流式输出}时并行输出的工作表仍需先写临时文件</p>
+     *
+     * @param executor 线程池，为{@code null}时逐个输出
+     * @return 当前工作薄输出协议
+     */
+    public XMLWorkbookWriter setExecutor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * 获取并行输出工作表的线程池
+     *
+     * @return 线程池，未设置时返回{@code null}
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 设置分块并行压缩的线程池，设置后较大的条目将切分为多个块并行压缩，线程池由调用方管理
+     *
+     * @param compressionExecutor 压缩线程池，为{@code null}时在当前线程压缩
+     * @return 当前工作薄输出协议
+     * @see ParallelZipOutputStream
+     */
+    public XMLWorkbookWriter setCompressionExecutor(Executor compressionExecutor) {
+        this.compressionExecutor = compressionExecutor;
+        return this;
+    }
+
+    /**
+     * 设置条目压缩策略，可按条目名指定不同的压缩级别，返回{@link ParallelZipOutputStream#STORED}时不压缩
+     *
+     * <blockquote><pre>
+     * // 工作表不压缩，其余使用默认压缩级别
+     * writer.setCompressionPolicy(name -&gt; name.startsWith("xl/worksheets/") ? ParallelZipOutputStream.STORED : ZipUtil.MIDDLE_COMPRESSION);
+     * </pre></blockquote>
+     *
+     * @param compressionPolicy 压缩策略
+     * @return 当前工作薄输出协议
+     */
+    public XMLWorkbookWriter setCompressionPolicy(ParallelZipOutputStream.CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+        return this;
+    }
+
     /**
      * Setting workbook
      *
@@ -121,6 +238,10 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
 
     @Override
     public void writeTo(OutputStream os) throws IOException {
+        if (streaming) {
+            writeZipStream(os);
+            return;
+        }
         Path zip = createTemp();
         Files.copy(zip, os);
         FileUtil.rm(zip);
@@ -128,6 +249,12 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
 
     @Override
     public void writeTo(File file) throws IOException {
+        if (streaming) {
+            try (OutputStream os = Files.newOutputStream(file.toPath())) {
+                writeZipStream(os);
+            }
+            return;
+        }
         Path zip = createTemp();
         FileUtil.cp(zip, file);
         FileUtil.rm(zip);
@@ -186,6 +313,8 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
         // share string
         try (SharedStrings sst = workbook.getSharedStrings()) {
             sst.writeTo(root);
+            // Collect before the temp files are removed
+            if (metrics != null) sst.collect(metrics);
         }
         relManager.add(new Relationship("sharedStrings.xml", Const.Relationship.SHARED_STRING));
         contentType.add(new ContentType.Override(Const.ContentType.SHAREDSTRING, "/xl/sharedStrings.xml"));
@@ -340,39 +469,30 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
     }
 
     protected void writeWorksheets(Path root) throws IOException {
+        // 并行输出
+        if (executor != null) {
+            // 并行输出期间共享字符串和样式需要加锁
+            SharedStrings sst = workbook.getSharedStrings().setConcurrent(true);
+            Styles styles = workbook.getStyles().setConcurrent(true);
+            try {
+                writeWorksheetsParallel(root);
+            } finally {
+                sst.setConcurrent(false);
+                styles.setConcurrent(false);
+            }
+            return;
+        }
         LOGGER.debug("Start to write Sheet.");
-        ContentType contentType = workbook.getContentType();
         for (int i = 0; i < workbook.getSize(); i++) {
             Sheet sheet = workbook.getSheetAt(i);
-            sheet.setId(i + 1);
-            // default worksheet name
-            if (StringUtil.isEmpty(sheet.getName())) {
-                sheet.setName("Sheet" + sheet.getId());
-            }
-            if (sheet.getSheetWriter() == null) {
-                sheet.setSheetWriter(getWorksheetWriter(sheet));
-            }
-            if (workbook.isAutoSize() && sheet.getAutoSize() == 0) {
-                sheet.autoSize();
-            }
-            if (workbook.getZebraFill() != null && sheet.getZebraFillStyle() < 0) {
-                sheet.setZebraLine(workbook.getZebraFill());
-            }
-            // Set cell value and style processor
-            if (sheet.getCellValueAndStyle() == null) {
-                int zebraFillStyle = sheet.getZebraFillStyle();
-                ICellValueAndStyle cvas = zebraFillStyle > 0 ? new XMLZebraLineCellValueAndStyle(zebraFillStyle) : new XMLCellValueAndStyle();
-                sheet.setCellValueAndStyle(cvas);
-            }
+            prepareWorksheet(i, sheet);
 
-            // Force export all fields
-            if (workbook.getForceExport() > sheet.getForceExport() && ListSheet.class.isAssignableFrom(sheet.getClass())) {
-                ((ListSheet<?>) sheet).forceExport();
-            }
-
-            // Merge Progress window
-            if (workbook.getProgressConsumer() != null && sheet.getProgressConsumer() == null) {
-                sheet.onProgress(workbook.getProgressConsumer());
+            // 流式输出时工作表直接写入压缩包
+            if (zos != null) {
+                zos.putNextEntry(new ZipEntry("xl/worksheets/" + sheet.getFileName()));
+                if (sheet.getSheetWriter() instanceof XMLWorksheetWriter) {
+                    ((XMLWorksheetWriter) sheet.getSheetWriter()).setOutputStream(zos);
+                }
             }
 
             try {
@@ -382,27 +502,209 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
                 sheet.close();
             }
 
-            // Add content-type
-            contentType.add(new ContentType.Override(Const.ContentType.SHEET, "/xl/worksheets/sheet" + sheet.getId() + Const.Suffix.XML));
+            // 未直接输出到流的工作表需要将临时文件复制到压缩包
+            if (zos != null) {
+                copyWorksheetEntry(root, sheet);
+                zos.closeEntry();
+            }
 
-            // Add comments
-            Comments comments = sheet.getComments();
-            if (comments != null) {
-                comments.writeTo(root);
-                contentType.add(new ContentType.Override(Const.ContentType.COMMENTS, "/xl/comments" + sheet.getId() + Const.Suffix.XML));
-                contentType.add(new ContentType.Default(Const.ContentType.VMLDRAWING, "vml"));
+            afterWorksheet(root, sheet);
+        }
+    }
+
+    /**
+     * 并行输出工作表，连续的非复制工作表为一批同时提交到{@link #executor}，批次内全部完成后再按工作表顺序收尾，
+     * 分页产生的复制工作表共享原工作表的数据所以单独成批按顺序输出
+     *
+     * <p>分页会插入新的工作表并改变后续工作表的ID，所以提交前按顺序调用{@link ListSheet#pagingAhead()}提前分页，
+     * 提前分页的工作表作为当前批次的最后一个工作表。输出过程中通过{@code more}等方法获取的数据仍可能在关闭时分页，
+     * 这种情况只允许发生在批次的最后一个工作表，其它工作表分页时抛出{@link ExcelWriteException}</p>
+     *
+     * <p>各工作表使用私有的图片和Drawing记数器，参考{@link XMLWorksheetWriter#setSheetScopedCounters(boolean)}</p>
+     *
+     * @param root xl目录
+     * @throws IOException if I/O error occur
+     */
+    protected void writeWorksheetsParallel(Path root) throws IOException {
+        LOGGER.debug("Start to write Sheet in parallel.");
+        // 提前初始化全局共享部件
+        workbook.getSharedStrings();
+        workbook.getStyles();
+        for (int i = 0; i < workbook.getSize(); ) {
+            int from = i, to = i;
+            // 按顺序准备并提前分页，遇到复制工作表时结束当前批次
+            do {
+                Sheet sheet = workbook.getSheetAt(to);
+                prepareWorksheet(to++, sheet);
+                if (sheet.getSheetWriter() instanceof XMLWorksheetWriter) {
+                    ((XMLWorksheetWriter) sheet.getSheetWriter()).setSheetScopedCounters(true);
+                }
+                if (sheet.isCopySheet()) break;
+                if (sheet instanceof ListSheet) ((ListSheet<?>) sheet).pagingAhead();
+            } while (to < workbook.getSize() && !workbook.getSheetAt(to).isCopySheet());
+            Sheet[] sheets = new Sheet[to - from];
+            for (; i < to; i++) sheets[i - from] = workbook.getSheetAt(i);
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>(sheets.length);
+            Throwable cause = null;
+            try {
+                for (Sheet sheet : sheets) {
+                    futures.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            try {
+                                sheet.writeTo(root);
+                            } finally {
+                                sheet.close();
+                            }
+                        } catch (IOException e) {
+                            throw new ExcelWriteException(e);
+                        }
+                    }, executor));
+                }
+            } catch (RuntimeException | Error e) {
+                cause = e;
+            }
+            // 等待已提交的工作表全部完成，即使提交失败也不能提前返回，否则关闭并发模式时仍有工作线程在输出
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException | CancellationException e) {
+                    if (cause == null) cause = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+            if (cause != null) {
+                if (cause instanceof ExcelWriteException && cause.getCause() instanceof IOException)
+                    throw (IOException) cause.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new ExcelWriteException(cause);
             }
 
-            // Add water marker
-            WaterMark wm = sheet.getWaterMark();
-            if (wm != null && wm.canWrite()) {
-                contentType.add(new ContentType.Default(wm.getContentType(), wm.getSuffix().substring(1)));
+            // 批次内的工作表位置不能发生改变
+            for (int k = 0; k < sheets.length; k++) {
+                if (workbook.getSheetAt(from + k) != sheets[k]) {
+                    throw new ExcelWriteException("Worksheet [" + sheets[k].getName() + "] was moved by paging while writing in parallel, " +
+                        "only the last worksheet of a batch can be paged, please write it sequentially.");
+                }
+            }
+
+            // 按顺序收尾，保证ContentType和压缩包内顺序稳定
+            for (Sheet sheet : sheets) {
+                if (zos != null) {
+                    zos.putNextEntry(new ZipEntry("xl/worksheets/" + sheet.getFileName()));
+                    copyWorksheetEntry(root, sheet);
+                    zos.closeEntry();
+                }
+                afterWorksheet(root, sheet);
             }
         }
     }
 
+    /**
+     * 输出工作表前的准备工作，设置ID、表名、输出协议以及合并工作薄的全局设置
+     *
+     * @param index 工作表下标（从0开始）
+     * @param sheet 工作表
+     */
+    protected void prepareWorksheet(int index, Sheet sheet) {
+        sheet.setId(index + 1);
+        // default worksheet name
+        if (StringUtil.isEmpty(sheet.getName())) {
+            sheet.setName("Sheet" + sheet.getId());
+        }
+        if (sheet.getSheetWriter() == null) {
+            sheet.setSheetWriter(getWorksheetWriter(sheet));
+        }
+        if (workbook.isAutoSize() && sheet.getAutoSize() == 0) {
+            sheet.autoSize();
+        }
+        if (workbook.getZebraFill() != null && sheet.getZebraFillStyle() < 0) {
+            sheet.setZebraLine(workbook.getZebraFill());
+        }
+        // Set cell value and style processor
+        if (sheet.getCellValueAndStyle() == null) {
+            int zebraFillStyle = sheet.getZebraFillStyle();
+            ICellValueAndStyle cvas = zebraFillStyle > 0 ? new XMLZebraLineCellValueAndStyle(zebraFillStyle) : new XMLCellValueAndStyle();
+            sheet.setCellValueAndStyle(cvas);
+        }
+
+        // Force export all fields
+        if (workbook.getForceExport() > sheet.getForceExport() && ListSheet.class.isAssignableFrom(sheet.getClass())) {
+            ((ListSheet<?>) sheet).forceExport();
+        }
+
+        // Merge Progress window
+        if (workbook.getProgressConsumer() != null && sheet.getProgressConsumer() == null) {
+            sheet.onProgress(workbook.getProgressConsumer());
+        }
+    }
+
+    /**
+     * 将临时目录中的工作表复制到当前压缩包条目并删除临时文件
+     *
+     * @param root xl目录
+     * @param sheet 工作表
+     * @throws IOException if I/O error occur
+     */
+    protected void copyWorksheetEntry(Path root, Sheet sheet) throws IOException {
+        Path sheetPath = root.resolve("worksheets").resolve(sheet.getFileName());
+        if (exists(sheetPath)) {
+            Files.copy(sheetPath, zos);
+            FileUtil.rm(sheetPath);
+        }
+    }
+
+    /**
+     * 工作表输出完成后添加资源类型、批注和水印
+     *
+     * @param root xl目录
+     * @param sheet 工作表
+     * @throws IOException if I/O error occur
+     */
+    protected void afterWorksheet(Path root, Sheet sheet) throws IOException {
+        ContentType contentType = workbook.getContentType();
+        // Add content-type
+        contentType.add(new ContentType.Override(Const.ContentType.SHEET, "/xl/worksheets/sheet" + sheet.getId() + Const.Suffix.XML));
+
+        // Add comments
+        Comments comments = sheet.getComments();
+        if (comments != null) {
+            comments.writeTo(root);
+            contentType.add(new ContentType.Override(Const.ContentType.COMMENTS, "/xl/comments" + sheet.getId() + Const.Suffix.XML));
+            contentType.add(new ContentType.Default(Const.ContentType.VMLDRAWING, "vml"));
+        }
+
+        // Add water marker
+        WaterMark wm = sheet.getWaterMark();
+        if (wm != null && wm.canWrite()) {
+            contentType.add(new ContentType.Default(wm.getContentType(), wm.getSuffix().substring(1)));
+        }
+
+        // Collect worksheet metrics
+        if (metrics != null && sheet.getSheetWriter() instanceof XMLWorksheetWriter) {
+            XMLWorksheetWriter writer = (XMLWorksheetWriter) sheet.getSheetWriter();
+            Column[] columns = sheet.getColumns();
+            int rows = writer.getTotalRows();
+            metrics.addSheet(new ExportMetrics.SheetMetrics(sheet.getName(), rows, (long) rows * (columns != null ? columns.length : 0)
+                , writer.getFetchNanos(), writer.getSerializeNanos(), writer.getSampleError()));
+        }
+    }
+
     protected Path createTemp() throws IOException, ExcelWriteException {
+        // 流式输出时直接生成压缩包
+        if (streaming) {
+            Path zipFile = Files.createTempFile(Const.EEC_PREFIX, Const.Suffix.ZIP);
+            try (OutputStream os = Files.newOutputStream(zipFile)) {
+                writeZipStream(os);
+            } catch (IOException | RuntimeException e) {
+                FileUtil.rm(zipFile);
+                throw e;
+            }
+            return zipFile;
+        }
         Path root = null;
+        long start = System.nanoTime();
+        metrics = workbook.getMetricsConsumer() != null ? new ExportMetrics() : null;
         try {
             root = FileUtil.mktmp(Const.EEC_PREFIX);
             LOGGER.debug("Create temporary folder {}", root);
@@ -413,18 +715,135 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
             writeWorksheets(xl);
 
             // Write SharedString, Styles and workbook.xml
+            long t = System.nanoTime();
             writeGlobalAttribute(xl);
+            if (metrics != null) metrics.setGlobalNanos(System.nanoTime() - t);
             LOGGER.debug("All sheets have completed writing, starting to compression ...");
 
             // Zip compress
-            Path zipFile = ZipUtil.zipExcludeRoot(root, root);
+            Path zipFile;
+            MediaStore mediaStore = workbook.getMediaStore();
+            t = System.nanoTime();
+            if (compressionExecutor != null || compressionPolicy != null || metrics != null || !mediaStore.isEmpty()) {
+                zipFile = Paths.get(root.toString() + Const.Suffix.ZIP);
+                try (ZipOutputStream out = createZipOutputStream(Files.newOutputStream(zipFile))) {
+                    ZipUtil.zipExcludeRoot(out, root);
+                    // Pictures are copied from the media store without compression
+                    mediaStore.writeTo(out, "xl/media/");
+                    out.finish();
+                    if (metrics != null) {
+                        metrics.setZipNanos(System.nanoTime() - t);
+                        fireMetrics(start, out);
+                    }
+                }
+            } else zipFile = ZipUtil.zipExcludeRoot(root, root);
             LOGGER.debug("Compression completed. {}", zipFile);
 
             return zipFile;
         } finally {
+            metrics = null;
             // Remove temp path
             if (root != null) FileUtil.rm_rf(root);
+            workbook.getMediaStore().close();
+        }
+    }
+
+    /**
+     * 流式输出，工作表逐个写入压缩包，全局部件先写入临时目录最后再追加到压缩包
+     *
+     * @param os 目标输出流，输出完成后不会关闭该流
+     * @throws IOException if I/O error occur
+     */
+    protected void writeZipStream(OutputStream os) throws IOException {
+        Path root = null;
+        long start = System.nanoTime();
+        metrics = workbook.getMetricsConsumer() != null ? new ExportMetrics() : null;
+        XMLWorksheetWriter.UnclosableOutputStream target = new XMLWorksheetWriter.UnclosableOutputStream(os);
+        boolean completed = false;
+        try {
+            root = FileUtil.mktmp(Const.EEC_PREFIX);
+            LOGGER.debug("Create temporary folder {}", root);
+
+            Path xl = Files.createDirectory(root.resolve("xl"));
+
+            zos = createZipOutputStream(target);
+
+            // Write worksheet data into zip stream one by one
+            writeWorksheets(xl);
+
+            // Write SharedString, Styles and workbook.xml
+            long t = System.nanoTime();
+            writeGlobalAttribute(xl);
+            if (metrics != null) metrics.setGlobalNanos(System.nanoTime() - t);
+            LOGGER.debug("All sheets have completed writing, starting to append global parts ...");
+
+            t = System.nanoTime();
+            ZipUtil.zipExcludeRoot(zos, root);
+            workbook.getMediaStore().writeTo(zos, "xl/media/");
+            zos.finish();
+            if (metrics != null) {
+                metrics.setZipNanos(System.nanoTime() - t);
+                fireMetrics(start, zos);
+            }
+            // The target stream will not be closed
+            zos.close();
+            completed = true;
+            LOGGER.debug("Compression completed.");
+        } finally {
+            metrics = null;
+            // 异常时同样关闭压缩流释放Deflater等资源，先断开目标流，不向其追加目录区
+            if (!completed && zos != null) {
+                target.detach();
+                try {
+                    zos.close();
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.debug("Abort zip stream.", e);
+                }
+            }
+            zos = null;
+            // Remove temp path
+            if (root != null) FileUtil.rm_rf(root);
+            workbook.getMediaStore().close();
+        }
+    }
+
+    /**
+     * 创建压缩包输出流，设置了压缩线程池或压缩策略时使用{@link ParallelZipOutputStream}分块并行压缩，
+     * 否则使用普通的{@link ZipOutputStream}，设置了指标监听器时使用{@link CountingZipOutputStream}统计压缩前后的字节数
+     *
+     * @param os 目标输出流
+     * @return 压缩包输出流
+     */
+    protected ZipOutputStream createZipOutputStream(OutputStream os) {
+        ZipOutputStream zos;
+        if (compressionExecutor != null || compressionPolicy != null) {
+            zos = new ParallelZipOutputStream(os, compressionExecutor, Runtime.getRuntime().availableProcessors())
+                .setCompressionPolicy(compressionPolicy);
+        } else zos = metrics != null ? new CountingZipOutputStream(os) : new ZipOutputStream(os);
+        zos.setLevel(ZipUtil.MIDDLE_COMPRESSION);
+        return zos;
+    }
+
+    /**
+     * 汇总图片和压缩包字节数并回调导出指标监听器
+     *
+     * @param start 导出开始时间（纳秒）
+     * @param zos 已完成的压缩包输出流
+     */
+    protected void fireMetrics(long start, ZipOutputStream zos) {
+        if (zos instanceof ParallelZipOutputStream) {
+            ParallelZipOutputStream pzos = (ParallelZipOutputStream) zos;
+            metrics.setBytesIn(pzos.getBytesIn()).setBytesOut(pzos.getBytesOut());
+        } else if (zos instanceof CountingZipOutputStream) {
+            CountingZipOutputStream czos = (CountingZipOutputStream) zos;
+            metrics.setBytesIn(czos.getBytesIn()).setBytesOut(czos.getBytesOut());
         }
+        MediaStore mediaStore = workbook.getMediaStore();
+        metrics.setMediaCount(mediaStore.size())
+            .setMediaBytes(mediaStore.bytes())
+            .setMediaNanos(mediaStore.nanos())
+            .setElapsedNanos(System.nanoTime() - start);
+        workbook.getMetricsConsumer().accept(metrics);
     }
 
     protected void reMarkPath(Path zip, Path path) throws IOException {
@@ -445,6 +864,7 @@ public class XMLWorkbookWriter implements IWorkbookWriter {
         }
         if (workbook.getWaterMark() != null) workbook.getWaterMark().delete() ; // Delete template image
         workbook.getSharedStrings().close();
+        workbook.getMediaStore().close();
     }
 
     // --- Customize worksheet writer
@@ -24,26 +24,34 @@ import org.ttzero.excel.entity.WaterMark;
 import org.ttzero.excel.entity.style.Border;
 import org.ttzero.excel.entity.style.Fill;
 import org.ttzero.excel.entity.style.Font;
+import org.ttzero.excel.entity.style.FontWidthTable;
 import org.ttzero.excel.entity.style.PatternType;
 import org.ttzero.excel.entity.style.Styles;
 import org.ttzero.excel.manager.RelManager;
 import org.ttzero.excel.manager.TopNS;
 import org.ttzero.excel.entity.Column;
+import org.ttzero.excel.entity.ColumnarRowBlock;
 import org.ttzero.excel.entity.Comments;
 import org.ttzero.excel.entity.ExcelWriteException;
+import org.ttzero.excel.entity.HttpRemoteMediaFetcher;
 import org.ttzero.excel.entity.IWorksheetWriter;
+import org.ttzero.excel.entity.MediaStore;
 import org.ttzero.excel.entity.Panes;
 import org.ttzero.excel.entity.Relationship;
+import org.ttzero.excel.entity.RemoteMediaFetcher;
 import org.ttzero.excel.entity.Row;
 import org.ttzero.excel.entity.RowBlock;
 import org.ttzero.excel.entity.SharedStrings;
 import org.ttzero.excel.entity.Sheet;
+import org.ttzero.excel.hash.ContentDigest;
 import org.ttzero.excel.manager.Const;
 import org.ttzero.excel.validation.Validation;
 import org.ttzero.excel.reader.Cell;
 import org.ttzero.excel.reader.Dimension;
 import org.ttzero.excel.reader.Grid;
 import org.ttzero.excel.reader.GridFactory;
+import org.ttzero.excel.util.DoubleToDecimal;
+import org.ttzero.excel.util.ExtBufferedByteWriter;
 import org.ttzero.excel.util.ExtBufferedWriter;
 import org.ttzero.excel.util.FileSignatures;
 import org.ttzero.excel.util.FileUtil;
@@ -52,29 +60,40 @@ import org.ttzero.excel.util.StringUtil;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigDecimal;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
@@ -113,6 +132,22 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected final Logger LOGGER = LoggerFactory.getLogger(getClass());
 
+    /**
+     * 预编码的行和单元格标签，通过{@link ExtBufferedWriter#writeBytes}写入
+     */
+    protected static final byte[] CELL_START = "<c r=\"".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] CELL_STYLE = "\" s=\"".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] VALUE_CELL_END = "</v></c>".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] TAG_CLOSE = "\">".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] EMPTY_TAG_CLOSE = "\"/>".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] ROW_START = "<row r=\"".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] ROW_END = "</row>".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] ROW_SPANS = "\" spans=\"".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] SST_VALUE_START = "\" t=\"s\"><v>".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] INLINE_STR_START = "\" t=\"inlineStr\"><is><t>".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] INLINE_STR_END = "</t></is></c>".getBytes(StandardCharsets.US_ASCII);
+    protected static final byte[] VALUE_START = "<v>".getBytes(StandardCharsets.US_ASCII);
+
     // the storage path
     protected Path workSheetPath, mediaPath;
     protected ExtBufferedWriter bw;
@@ -137,10 +172,22 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * Picture and Chart Support
      */
     protected IDrawingsWriter drawingsWriter;
+    /**
+     * 远程资源下载器，为{@code null}时使用{@link HttpRemoteMediaFetcher#getDefault()}
+     */
+    protected RemoteMediaFetcher remoteMediaFetcher;
+    /**
+     * 远程图片下载结果，key为url，同一url只下载和保存一次
+     */
+    protected Map<String, CompletableFuture<Picture>> remoteMedia;
     /**
      * A progress window
      */
     protected BiConsumer<Sheet, Integer> progressConsumer;
+    /**
+     * 取数耗时和序列化耗时（纳秒）
+     */
+    protected long fetchNanos, serializeNanos;
 
     // 自适应列宽专用
     protected double[] columnWidths;
@@ -152,6 +199,78 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * 超链接管理
      */
     protected Map<String, List<String>> hyperlinkMap;
+    /**
+     * 工作表直接输出流，不为{@code null}时工作表内容将直接写入该流（一般为压缩包当前Entry）而不再落盘
+     */
+    protected OutputStream outputStream;
+    /**
+     * 标记当前{@code bw}是否直接输出到{@link #outputStream}
+     */
+    protected boolean directOutput;
+    /**
+     * 预先编码的单元格引用前缀{@code <c r="XX}，按列下标保存，在{@link #writeBefore}中创建
+     */
+    protected byte[][] cellRefs = {};
+    /**
+     * 计算数字宽度时使用的字符缓冲区
+     */
+    protected char[] numChars = new char[DoubleToDecimal.MAX_CHARS];
+    /**
+     * 浮点数和小数转字节的缓冲区
+     */
+    protected byte[] numBytes = new byte[DoubleToDecimal.MAX_CHARS];
+    /**
+     * 列式行块快速通道中载入复杂单元格的临时单元格
+     */
+    protected Cell columnarCell;
+    /**
+     * 当前行号的ASCII编码（右对齐），同一行的所有单元格共用
+     */
+    protected byte[] rowRef;
+    protected int rowRefNum, rowRefOffset;
+    /**
+     * 抽样计算列宽时暂存已输出的内容，抽样结束后输出到{@link #sampleTarget}
+     */
+    protected ByteArrayOutputStream sampleBuffer;
+    protected ExtBufferedWriter sampleTarget;
+    /**
+     * 抽样行数、已抽样行数以及{@code <cols>}在暂存内容中的位置
+     */
+    protected int sampleRows, sampledRows, colsStart, colsEnd, colsFillSpace;
+    protected String defaultColWidth;
+    /**
+     * 抽样前各列设置的最大宽度，用于计算抽样误差
+     */
+    protected double[] sampleWidthLimits;
+    /**
+     * 抽样列宽与全量数据列宽的最大差值（字符宽度），未抽样或没有误差时为{@code 0}
+     */
+    protected double sampleError;
+    /**
+     * 并行序列化时工作线程所属的输出协议，超链接和图片等共享资源交由它统一处理，输出协议本身为{@code null}
+     */
+    protected XMLWorksheetWriter parent;
+    /**
+     * 并行序列化时工作线程的输出目标
+     */
+    protected BlockOutputStream blockOutput;
+    /**
+     * 并行序列化时工作线程暂存的超链接和图片，合并行块时按顺序交由所属的输出协议处理
+     */
+    protected List<DeferredCell> deferredCells;
+    /**
+     * 自适应共享字符串列的抽样器，按列下标保存，非自适应列为{@code null}
+     */
+    protected ShareSampler[] shareSamplers;
+    /**
+     * 使用工作表私有的图片和Drawing记数器，多个工作表并行输出时开启，
+     * 文件名以工作表ID区分，避免各工作表抢占全局记数器导致文件名依赖线程调度
+     */
+    protected boolean sheetScopedCounters;
+    /**
+     * 工作表私有的图片记数器
+     */
+    protected int mediaCounter;
 
     public XMLWorksheetWriter() { }
 
@@ -171,7 +290,9 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         Path sheetPath = initWriter(path);
 
         // Get the first block
+        long t = System.nanoTime();
         RowBlock rowBlock = supplier.get();
+        fetchNanos += System.nanoTime() - t;
 
         // write before
         writeBefore();
@@ -181,19 +302,31 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
 
         if (rowBlock != null && rowBlock.hasNext()) {
             if (progressConsumer == null) {
-                do {
+                for (; ; ) {
                     // write row-block data
+                    t = System.nanoTime();
                     writeRowBlock(rowBlock);
+                    serializeNanos += System.nanoTime() - t;
                     // end of row
                     if (rowBlock.isEOF()) break;
-                } while ((rowBlock = supplier.get()) != null);
+                    t = System.nanoTime();
+                    rowBlock = supplier.get();
+                    fetchNanos += System.nanoTime() - t;
+                    if (rowBlock == null) break;
+                }
             } else {
-                do {
+                for (; ; ) {
                     // write row-block data and fire progress event
+                    t = System.nanoTime();
                     writeRowBlockFireProgress(rowBlock);
+                    serializeNanos += System.nanoTime() - t;
                     // end of row
                     if (rowBlock.isEOF()) break;
-                } while ((rowBlock = supplier.get()) != null);
+                    t = System.nanoTime();
+                    rowBlock = supplier.get();
+                    fetchNanos += System.nanoTime() - t;
+                    if (rowBlock == null) break;
+                }
                 if (rowBlock != null && rowBlock.lastRow() != null) progressConsumer.accept(sheet, rowBlock.lastRow().getIndex());
             }
         }
@@ -208,7 +341,8 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
 
         // Resize if include auto-width column
         if (includeAutoWidth) {
-            resizeColumnWidth(sheetPath.toFile(), totalRows);
+            if (sampleRows > 0) checkSampleError();
+            else resizeColumnWidth(sheetPath.toFile(), totalRows);
         }
     }
 
@@ -223,7 +357,9 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         Path sheetPath = initWriter(path);
 
         // Get the first block
+        long t = System.nanoTime();
         RowBlock rowBlock = sheet.nextBlock();
+        fetchNanos += System.nanoTime() - t;
 
         // write before
         writeBefore();
@@ -232,23 +368,35 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         beforeSheetData(sheet.getNonHeader() == 1);
 
         if (rowBlock.hasNext()) {
-            if (progressConsumer == null) {
+            // 多线程序列化行块
+            if (sheet.getParallelism() > 1 && sampleBuffer == null) {
+                rowBlock = writeRowBlocksParallel(rowBlock, sheet.getParallelism());
+            }
+            else if (progressConsumer == null) {
                 for (; ; ) {
                     // write row-block data
+                    t = System.nanoTime();
                     writeRowBlock(rowBlock);
+                    serializeNanos += System.nanoTime() - t;
                     // end of row
                     if (rowBlock.isEOF()) break;
                     // Get the next block
+                    t = System.nanoTime();
                     rowBlock = sheet.nextBlock();
+                    fetchNanos += System.nanoTime() - t;
                 }
             } else {
                 for (; ; ) {
                     // write row-block data and fire progress event
+                    t = System.nanoTime();
                     writeRowBlockFireProgress(rowBlock);
+                    serializeNanos += System.nanoTime() - t;
                     // end of row
                     if (rowBlock.isEOF()) break;
                     // Get the next block
+                    t = System.nanoTime();
                     rowBlock = sheet.nextBlock();
+                    fetchNanos += System.nanoTime() - t;
                 }
                 if (rowBlock.lastRow() != null) progressConsumer.accept(sheet, rowBlock.lastRow().getIndex());
             }
@@ -264,7 +412,167 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
 
         // Resize if include auto-width column
         if (includeAutoWidth) {
-            resizeColumnWidth(sheetPath.toFile(), totalRows);
+            if (sampleRows > 0) checkSampleError();
+            else resizeColumnWidth(sheetPath.toFile(), totalRows);
+        }
+    }
+
+    /**
+     * 并行序列化行块，输出线程顺序装填行块后提交给{@code parallelism}个工作线程，
+     * 每个工作线程使用当前输出协议的副本将行块序列化到独立的缓冲区，输出线程再按行号顺序合并到工作表。
+     * 共有{@code parallelism * 2}个行块和缓冲区轮流使用，内存开销固定
+     *
+     * @param rowBlock    第一个已装填的行块
+     * @param parallelism 工作线程数
+     * @return 最后一个装填的行块
+     * @throws IOException if I/O error occur
+     */
+    protected RowBlock writeRowBlocksParallel(RowBlock rowBlock, int parallelism) throws IOException {
+        BlockingQueue<XMLWorksheetWriter> workers = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) workers.add(createSerializeWorker());
+        String prefix = "eec-serialize-" + sheet.getName() + "-";
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, prefix + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int capacity = rowBlock.capacity(), slots = parallelism << 1, created = 1;
+        Deque<SerializeSlot> pending = new ArrayDeque<>(slots);
+        // 工作线程共享字符串和样式，未开启并发模式时临时开启
+        boolean sstLock = !sst.isConcurrent(), stylesLock = !styles.isConcurrent();
+        if (sstLock) sst.setConcurrent(true);
+        if (stylesLock) styles.setConcurrent(true);
+        try {
+            SerializeSlot slot = new SerializeSlot(rowBlock);
+            for (; ; ) {
+                SerializeSlot submitted = slot;
+                submitted.future = executor.submit(() -> {
+                    XMLWorksheetWriter worker = workers.take();
+                    try {
+                        worker.serializeRowBlock(submitted);
+                    } finally {
+                        workers.put(worker);
+                    }
+                    return null;
+                });
+                pending.add(submitted);
+                if (submitted.block.isEOF()) break;
+
+                // 行块未全部使用时创建新行块，否则等待最早提交的行块完成后复用
+                if (created < slots) {
+                    slot = new SerializeSlot(sheet.createRowBlock(capacity));
+                    created++;
+                } else slot = appendSerialized(pending.poll());
+                long t = System.nanoTime();
+                rowBlock = slot.block = sheet.nextBlock(slot.block);
+                fetchNanos += System.nanoTime() - t;
+                if (!rowBlock.hasNext()) break;
+            }
+            // 按顺序合并剩余行块
+            for (SerializeSlot s; (s = pending.poll()) != null; appendSerialized(s));
+        } finally {
+            executor.shutdownNow();
+            // 等待工作线程全部退出后再恢复单线程模式
+            boolean interrupted = false;
+            for (; ; ) {
+                try {
+                    if (executor.awaitTermination(1L, TimeUnit.SECONDS)) break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (sstLock) sst.setConcurrent(false);
+            if (stylesLock) styles.setConcurrent(false);
+        }
+
+        // 合并各工作线程计算的列宽
+        if (columnWidths != null) {
+            for (XMLWorksheetWriter worker : workers) {
+                for (int i = 0; i < columnWidths.length; i++) {
+                    if (columnWidths[i] < worker.columnWidths[i]) columnWidths[i] = worker.columnWidths[i];
+                }
+            }
+        }
+        return rowBlock;
+    }
+
+    /**
+     * 等待行块序列化完成并将缓冲区追加到工作表
+     *
+     * @param slot 序列化单元
+     * @return 已释放的序列化单元
+     * @throws IOException if I/O error occur
+     */
+    protected SerializeSlot appendSerialized(SerializeSlot slot) throws IOException {
+        long t = System.nanoTime();
+        try {
+            slot.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExcelWriteException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new ExcelWriteException(cause);
+        }
+        bw.writeBytes(slot.buffer.buf(), 0, slot.buffer.size());
+        slot.buffer.reset();
+        // 按单元格顺序处理超链接和图片，与单线程输出的顺序一致
+        for (DeferredCell d : slot.deferred) {
+            if (d.cell != null) writeMedia(d.cell, d.row, d.col);
+            else addHyperlink(d.url, d.row, d.col);
+        }
+        slot.deferred.clear();
+        serializeNanos += System.nanoTime() - t;
+
+        // Fire progress
+        if (progressConsumer != null) {
+            Row row = slot.block.lastRow();
+            if (row != null) progressConsumer.accept(sheet, row.getIndex());
+        }
+        return slot;
+    }
+
+    /**
+     * 创建并行序列化的工作副本，与当前输出协议共享共享字符串和样式，
+     * 行号编码、列宽等可变状态各自独立
+     *
+     * @return 工作副本
+     */
+    protected XMLWorksheetWriter createSerializeWorker() {
+        XMLWorksheetWriter worker = (XMLWorksheetWriter) clone();
+        worker.parent = this;
+        worker.bw = new ExtBufferedByteWriter(worker.blockOutput = new BlockOutputStream());
+        worker.sst = sst;
+        worker.styles = styles;
+        worker.rowRef = null;
+        worker.cellRefs = cellRefs.clone();
+        if (fws != null) worker.fws = fws.clone();
+        if (columnWidths != null) worker.columnWidths = columnWidths.clone();
+        worker.progressConsumer = null;
+        worker.sampleBuffer = null;
+        return worker;
+    }
+
+    /**
+     * 工作线程将行块序列化到序列化单元的缓冲区，超链接和图片暂存到序列化单元
+     *
+     * @param slot 序列化单元
+     * @throws IOException if I/O error occur
+     */
+    protected void serializeRowBlock(SerializeSlot slot) throws IOException {
+        blockOutput.target = slot.buffer;
+        deferredCells = slot.deferred;
+        try {
+            writeRowBlock(slot.block);
+            bw.flush();
+        } finally {
+            blockOutput.target = null;
+            deferredCells = null;
         }
     }
 
@@ -276,7 +584,10 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
 
         Path sheetPath = workSheetPath.resolve(sheet.getFileName());
 
-        this.bw = new ExtBufferedWriter(Files.newBufferedWriter(sheetPath, StandardCharsets.UTF_8));
+        // 直接输出到流或落盘
+        directOutput = outputStream != null;
+        this.bw = directOutput ? new ExtBufferedByteWriter(new UnclosableOutputStream(outputStream))
+            : ExtBufferedByteWriter.create(sheetPath);
 
         if (sst == null) this.sst = sheet.getWorkbook().getSharedStrings();
         if (styles == null) this.styles = sheet.getWorkbook().getStyles();
@@ -314,6 +625,21 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
     public IWorksheetWriter setWorksheet(Sheet sheet) {
         this.sheet = sheet;
         this.relManager = sheet != null ? sheet.getRelManager() : null;
+        // 副本不共用引用缓存
+        this.cellRefs = new byte[0][];
+        this.rowRef = null;
+        return this;
+    }
+
+    /**
+     * 设置工作表直接输出流，设置后工作表内容将直接写入该流而不再生成临时文件，
+     * 包含自适应列宽的工作表因为需要回写表头所以仍会落盘
+     *
+     * @param outputStream 输出流，一般为压缩包的当前Entry，关闭工作表时不会关闭该流
+     * @return 当前输出协议
+     */
+    public XMLWorksheetWriter setOutputStream(OutputStream outputStream) {
+        this.outputStream = outputStream;
         return this;
     }
 
@@ -347,11 +673,44 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         XMLWorksheetWriter e = (XMLWorksheetWriter) copy;
         e.sheetDataReady = 0;
         e.totalRows = 0;
+        e.fetchNanos = e.serializeNanos = 0L;
+        e.numChars = new char[DoubleToDecimal.MAX_CHARS];
+        e.columnarCell = null;
+        e.numBytes = new byte[DoubleToDecimal.MAX_CHARS];
         e.drawingsWriter = null;
+        e.remoteMedia = null;
         e.comments = null;
+        e.directOutput = false;
         return copy;
     }
 
+    /**
+     * 获取取数耗时，即等待数据源返回行块的时间
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    /**
+     * 获取序列化耗时，即行块转为XML的时间
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getSerializeNanos() {
+        return serializeNanos;
+    }
+
+    /**
+     * 获取已输出的行数
+     *
+     * @return 行数
+     */
+    public int getTotalRows() {
+        return totalRows;
+    }
+
     /**
      * Returns the worksheet name
      *
@@ -386,6 +745,104 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         return Const.Limit.MAX_COLUMNS_ON_SHEET;
     }
 
+    /**
+     * 根据已收集的文本宽度计算每列列宽并保存到{@link Column#width}
+     */
+    protected void calcColumnWidths() {
+        for (int i = 0; i < columns.length; i++) {
+            Column hc = columns[i];
+            int k = hc.getAutoSize();
+            // If fixed width or media cell
+            if (k == 2 || hc.getColumnType() == 1) {
+                double width = hc.width >= 0.0D ? hc.width: sheet.getDefaultWidth();
+                hc.width = BigDecimal.valueOf(Math.min(width + 0.65D, Const.Limit.COLUMN_WIDTH)).setScale(2, RoundingMode.HALF_UP).doubleValue();
+                continue;
+            }
+            hc.width = autoWidth(i, hc.width);
+        }
+    }
+
+    /**
+     * 计算自适应列宽
+     *
+     * @param i 列下标
+     * @param limit 设置的最大宽度，小于等于{@code 0}时不限制
+     * @return 列宽
+     */
+    protected double autoWidth(int i, double limit) {
+        Column hc = columns[i];
+        double len = columnWidths[i] > 0 ? columnWidths[i] : sheet.getDefaultWidth();
+        double width = (sheet.getNonHeader() == 1 ? len : Math.max(stringWidth(hc.name, hc.getHeaderStyleIndex() == -1 ? sheet.defaultHeadStyleIndex() : hc.getHeaderStyleIndex()), len)) + 1.86D;
+        if (limit > 0.000001D) width = Math.min(width, limit + 0.65D);
+        if (width > Const.Limit.COLUMN_WIDTH) width = Const.Limit.COLUMN_WIDTH;
+        return BigDecimal.valueOf(width).setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * 结束抽样，根据抽样数据计算列宽后将暂存的内容和新的{@code <cols>}写入实际输出流，
+     * 此后的数据直接输出
+     *
+     * @throws IOException if I/O error occur
+     */
+    protected void endSample() throws IOException {
+        bw.flush();
+        byte[] bytes = sampleBuffer.toByteArray();
+        bw = sampleTarget;
+        sampleBuffer = null;
+        sampleTarget = null;
+
+        if (columns.length > 0 && sampledRows > 0) {
+            sampleWidthLimits = new double[columns.length];
+            for (int i = 0; i < columns.length; i++) sampleWidthLimits[i] = columns[i].width;
+            calcColumnWidths();
+        }
+        writeSampleBytes(bytes, 0, colsStart);
+        writeCols(colsFillSpace, defaultColWidth);
+        writeSampleBytes(bytes, colsEnd, bytes.length - colsEnd);
+    }
+
+    private void writeSampleBytes(byte[] bytes, int off, int len) throws IOException {
+        if (bw instanceof ExtBufferedByteWriter) bw.writeBytes(bytes, off, len);
+        else bw.write(new String(bytes, off, len, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 比较抽样列宽与全量数据的列宽，记录抽样误差，误差通过{@link #getSampleError()}和导出指标获取，
+     * 超过{@link Sheet#getAutoSizeSampleTolerance()}时输出警告日志
+     */
+    protected void checkSampleError() {
+        sampleError = 0.0D;
+        if (sampleWidthLimits == null || sampledRows >= totalRows) return;
+        int col = 0;
+        for (int i = 0; i < columns.length; i++) {
+            Column hc = columns[i];
+            if (hc.getAutoSize() != 1 || hc.getColumnType() == 1) continue;
+            double d = autoWidth(i, sampleWidthLimits[i]) - hc.width;
+            if (d > sampleError) {
+                sampleError = d;
+                col = hc.getRealColIndex();
+            }
+        }
+        if (sampleError <= 0.0D) return;
+        double tolerance = sheet.getAutoSizeSampleTolerance();
+        if (tolerance > 0.0D && sampleError > tolerance) {
+            LOGGER.warn("Sheet [{}] auto-width sampled {} of {} rows, column {} is {} narrower than the full scan, exceeds the tolerance {}"
+                , sheet.getName(), sampledRows, totalRows, new String(int2Col(col)), BigDecimal.valueOf(sampleError).setScale(2, RoundingMode.HALF_UP), tolerance);
+        } else {
+            LOGGER.debug("Sheet [{}] auto-width sampled {} of {} rows, column {} is {} narrower than the full scan"
+                , sheet.getName(), sampledRows, totalRows, new String(int2Col(col)), BigDecimal.valueOf(sampleError).setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * 获取自适应列宽的抽样误差，即抽样列宽比全量数据列宽窄的最大值，工作表输出完成后有效
+     *
+     * @return 误差（字符宽度），未抽样或没有误差时返回{@code 0}
+     */
+    public double getSampleError() {
+        return sampleError;
+    }
+
     /**
      * Write worksheet header data
      *
@@ -399,6 +856,27 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         // 收集表头信息
         collectHeaderColumns();
 
+        // 预先编码单元格引用前缀
+        cellRefs = new byte[columns.length][];
+        for (int i = 0; i < columns.length; i++) cellRefs[i] = cellRefPrefix(columns[i].getRealColIndex());
+        rowRef = new byte[10];
+        rowRefNum = 0;
+
+        // 抽样计算列宽，抽样结束前的内容暂存在内存中
+        sampleRows = includeAutoWidth ? sheet.getAutoSizeSampleRows() : 0;
+        if (sampleRows > 0) {
+            sampledRows = 0;
+            sampleTarget = bw;
+            sampleBuffer = new ByteArrayOutputStream();
+            bw = new ExtBufferedByteWriter(sampleBuffer);
+        }
+        // 自适应列宽需要在写完数据后回写表头，此时不能直接输出到流，改为落盘
+        else if (includeAutoWidth && directOutput) {
+            bw.close();
+            bw = ExtBufferedByteWriter.create(workSheetPath.resolve(sheet.getFileName()));
+            directOutput = false;
+        }
+
         bw.write(Const.EXCEL_XML_DECLARATION);
         // Declaration
         bw.newLine();
@@ -418,13 +896,23 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         if (width.compareTo(new BigDecimal(Const.Limit.COLUMN_WIDTH)) > 0) {
             width = new BigDecimal(Const.Limit.COLUMN_WIDTH);
         }
-        String defaultWidth = width.setScale(2, BigDecimal.ROUND_HALF_UP).toString();
+        String defaultWidth = width.setScale(2, RoundingMode.HALF_UP).toString();
 
         // SheetFormatPr
         writeSheetFormat();
 
         // cols
+        if (sampleBuffer != null) {
+            bw.flush();
+            colsStart = sampleBuffer.size();
+            colsFillSpace = fillSpace;
+            defaultColWidth = defaultWidth;
+        }
         writeCols(fillSpace, defaultWidth);
+        if (sampleBuffer != null) {
+            bw.flush();
+            colsEnd = sampleBuffer.size();
+        }
 
         // Initialization DrawingsWriter
         initDrawingsWriter();
@@ -481,6 +969,9 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * @throws IOException if I/O error occur
      */
     protected void writeAfter(int total) throws IOException {
+        // 数据行数少于抽样行数
+        if (sampleBuffer != null) endSample();
+
         // End target --sheetData
         bw.write("</sheetData>");
 
@@ -520,7 +1011,9 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * @throws IOException if I/O error occur.
      */
     protected void writeRowBlock(RowBlock rowBlock) throws IOException {
-        for (; rowBlock.hasNext(); writeRow(rowBlock.next())) ;
+        if (rowBlock instanceof ColumnarRowBlock) writeColumnarRowBlock((ColumnarRowBlock) rowBlock, false);
+        else for (; rowBlock.hasNext(); writeRow(rowBlock.next())) ;
+        if (sampleBuffer != null && (sampledRows += rowBlock.limit()) >= sampleRows) endSample();
     }
 
     /**
@@ -531,12 +1024,119 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected void writeRowBlockFireProgress(RowBlock rowBlock) throws IOException {
         Row row;
-        while (rowBlock.hasNext()) {
+        if (rowBlock instanceof ColumnarRowBlock) writeColumnarRowBlock((ColumnarRowBlock) rowBlock, true);
+        else while (rowBlock.hasNext()) {
             row = rowBlock.next();
             writeRow(row);
             // Fire progress
             if (row.getIndex() % 1_000 == 0) progressConsumer.accept(sheet, row.getIndex());
         }
+        if (sampleBuffer != null && (sampledRows += rowBlock.limit()) >= sampleRows) endSample();
+    }
+
+    /**
+     * 列式行块快速通道，按下标直接从{@link ColumnarRowBlock}的基本类型数组中取值输出，
+     * 不载入视图行，数字、布尔和字符串单元格直接输出，自适应列宽的列以及字符、公式、超链接、图片等单元格
+     * 载入临时单元格后交由{@link #writeCell}处理
+     *
+     * @param rowBlock 列式行块
+     * @param fireProgress 是否通知导出进度
+     * @throws IOException if I/O error occur
+     */
+    protected void writeColumnarRowBlock(ColumnarRowBlock rowBlock, boolean fireProgress) throws IOException {
+        Cell cell = columnarCell != null ? columnarCell : (columnarCell = new Cell());
+        while (rowBlock.hasNext()) {
+            int p = rowBlock.nextRow(), index = rowBlock.getRowIndex(p), fc = rowBlock.getFirstColumn(p), lc = rowBlock.getLastColumn(p);
+            int r = startRow(index, fc, lc, rowBlock.getHeight(p), rowBlock.isHidden(p), rowBlock.getOutlineLevel(p));
+            if (lc > fc) {
+                bw.writeBytes(TAG_CLOSE);
+                for (int c = fc; c < lc; c++) {
+                    Column hc = getColumn(c);
+                    char t = rowBlock.getType(p, c);
+                    if (hc.getAutoSize() == 1) {
+                        writeCell(rowBlock.getCell(p, c, cell), r, c);
+                        continue;
+                    }
+                    int xf = rowBlock.getStyle(p, c);
+                    switch (t) {
+                        case NUMERIC:
+                        case LONG:
+                            startValue(c, r, xf);
+                            bw.write(rowBlock.getLong(p, c));
+                            bw.writeBytes(VALUE_CELL_END);
+                            break;
+                        case DATE:
+                        case DATETIME:
+                        case DOUBLE:
+                        case TIME:
+                            startValue(c, r, xf);
+                            bw.write(rowBlock.getDouble(p, c));
+                            bw.writeBytes(VALUE_CELL_END);
+                            break;
+                        case DECIMAL:
+                            startValue(c, r, xf);
+                            bw.write(rowBlock.getDecimal(p, c));
+                            bw.writeBytes(VALUE_CELL_END);
+                            break;
+                        case BOOL:
+                            writeCellRef(c, r);
+                            bw.write("\" t=\"b");
+                            if (xf > 0) {
+                                bw.writeBytes(CELL_STYLE);
+                                bw.writeInt(xf);
+                            }
+                            bw.writeBytes(TAG_CLOSE);
+                            bw.writeBytes(VALUE_START);
+                            bw.writeInt((int) rowBlock.getLong(p, c));
+                            bw.writeBytes(VALUE_CELL_END);
+                            break;
+                        case INLINESTR:
+                        case SST:
+                            writeCellRef(c, r);
+                            if (xf > 0) {
+                                bw.writeBytes(CELL_STYLE);
+                                bw.writeInt(xf);
+                            }
+                            String s = rowBlock.getString(p, c);
+                            int i;
+                            if (s == null || s.isEmpty()) bw.writeBytes(EMPTY_TAG_CLOSE);
+                            else if (isShare(hc, c, s) && (i = sst.get(s)) >= 0) {
+                                bw.writeBytes(SST_VALUE_START);
+                                bw.writeInt(i);
+                                bw.writeBytes(VALUE_CELL_END);
+                            } else {
+                                bw.writeBytes(INLINE_STR_START);
+                                bw.escapeWrite(s);
+                                bw.writeBytes(INLINE_STR_END);
+                            }
+                            break;
+                        default: writeCell(rowBlock.getCell(p, c, cell), r, c);
+                    }
+                }
+                bw.writeBytes(ROW_END);
+            } else bw.writeBytes(EMPTY_TAG_CLOSE);
+
+            // Fire progress
+            if (fireProgress && index % 1_000 == 0) progressConsumer.accept(sheet, index);
+        }
+    }
+
+    /**
+     * 写数值单元格的起始部分{@code <c r="A1" s="1"><v>}
+     *
+     * @param col 列下标
+     * @param row 行号
+     * @param xf  样式值
+     * @throws IOException if I/O error occur
+     */
+    protected void startValue(int col, int row, int xf) throws IOException {
+        writeCellRef(col, row);
+        if (xf > 0) {
+            bw.writeBytes(CELL_STYLE);
+            bw.writeInt(xf);
+        }
+        bw.writeBytes(TAG_CLOSE);
+        bw.writeBytes(VALUE_START);
     }
 
     /**
@@ -552,15 +1152,15 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         // Row number
         int r = rows + startRow;
 
-        bw.write("<row r=\"");
-        bw.writeInt(r);
+        bw.writeBytes(ROW_START);
+        writeRowRef(r);
         // default data row height 16.5
         if (rowHeight != null && rowHeight >= 0D) {
             bw.write("\" customHeight=\"1\" ht=\"");
             bw.write(rowHeight);
         }
         if (this.columns.length > 0) {
-            bw.write("\" spans=\"");
+            bw.writeBytes(ROW_SPANS);
             bw.writeInt(this.columns[0].realColIndex);
             bw.write(':');
             bw.writeInt(this.columns[this.columns.length - 1].realColIndex);
@@ -568,7 +1168,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             bw.write("\" spans=\"1:");
             bw.writeInt(columns);
         }
-        bw.write("\">");
+        bw.writeBytes(TAG_CLOSE);
         return r;
     }
 
@@ -580,35 +1180,50 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * @throws IOException 出现输出异常
      */
     protected int startRow(Row row) throws IOException {
+        return startRow(row.getIndex(), row.fc, row.lc, row.getHeight(), row.isHidden(), row.getOutlineLevel());
+    }
+
+    /**
+     * 写行的起始属性
+     *
+     * @param index        行下标（zero base）
+     * @param fc           首列下标
+     * @param lc           末列下标（不包含）
+     * @param rowHeight    行高
+     * @param hidden       是否隐藏
+     * @param outlineLevel 层级
+     * @return 行号
+     * @throws IOException 出现输出异常
+     */
+    protected int startRow(int index, int fc, int lc, Double rowHeight, boolean hidden, Integer outlineLevel) throws IOException {
         // Row number
-        int r = row.getIndex() + startRow;
+        int r = index + startRow;
 
-        bw.write("<row r=\"");
-        bw.writeInt(r);
-        Double rowHeight = row.getHeight();
+        bw.writeBytes(ROW_START);
+        writeRowRef(r);
         // default data row height 16.5
         if (rowHeight != null && rowHeight >= 0D) {
             bw.write("\" customHeight=\"1\" ht=\"");
             bw.write(rowHeight);
         }
-        if (row.lc - row.fc >= 1) {
-            bw.write("\" spans=\"");
-            bw.writeInt(row.fc + 1);
+        if (lc - fc >= 1) {
+            bw.writeBytes(ROW_SPANS);
+            bw.writeInt(fc + 1);
             bw.write(':');
-            bw.writeInt(row.lc);
+            bw.writeInt(lc);
         }
         else if (this.columns.length > 0) {
-            bw.write("\" spans=\"");
+            bw.writeBytes(ROW_SPANS);
             bw.writeInt(this.columns[0].realColIndex);
             bw.write(':');
             bw.writeInt(this.columns[this.columns.length - 1].realColIndex);
         }
         // 隐藏行
-        if (row.isHidden()) bw.write("\" hidden=\"1");
+        if (hidden) bw.write("\" hidden=\"1");
         // 层级
-        if (row.getOutlineLevel() != null && row.getOutlineLevel().compareTo(0) > 0) {
+        if (outlineLevel != null && outlineLevel.compareTo(0) > 0) {
             bw.write("\" outlineLevel=\"");
-            bw.writeInt(row.getOutlineLevel());
+            bw.writeInt(outlineLevel);
         }
         return r;
     }
@@ -623,13 +1238,13 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         Cell[] cells = row.getCells();
         int r = startRow(row);
         if (row.lc > row.fc) {
-            bw.write("\">");
+            bw.writeBytes(TAG_CLOSE);
 
             // 循环写单元格
             for (int i = row.fc; i < row.lc; i++) writeCell(cells[i], r, i);
 
-            bw.write("</row>");
-        } else bw.write("\"/>");
+            bw.writeBytes(ROW_END);
+        } else bw.writeBytes(EMPTY_TAG_CLOSE);
     }
 
     /**
@@ -661,14 +1276,28 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         }
 
         // 图片
-        if (!valueOnly) {
-            switch (cell.mediaType) {
-                case REMOTE_URL  : writeRemoteMedia(cell.stringVal, row, col); break;
-                case FILE        : writeFile(cell.path, row, col);             break;
-                case INPUT_STREAM: writeStream(cell.isv, row, col);            break;
-                case BINARY      : writeBinary(cell.binary, row, col);         break;
-                case BYTE_BUFFER : writeBinary(cell.byteBuffer, row, col);     break;
-            }
+        if (!valueOnly) writeMedia(cell, row, col);
+    }
+
+    /**
+     * 写图片，并行序列化时暂存单元格，合并行块时交由所属的输出协议处理
+     *
+     * @param cell 单元格
+     * @param row 行号
+     * @param col 列下标
+     * @throws IOException 出现输出异常
+     */
+    protected void writeMedia(Cell cell, int row, int col) throws IOException {
+        if (parent != null) {
+            if (cell.mediaType > 0) deferredCells.add(new DeferredCell(new Cell().from(cell), null, row, col));
+            return;
+        }
+        switch (cell.mediaType) {
+            case REMOTE_URL  : writeRemoteMedia(cell.stringVal, row, col); break;
+            case FILE        : writeFile(cell.path, row, col);             break;
+            case INPUT_STREAM: writeStream(cell.isv, row, col);            break;
+            case BINARY      : writeBinary(cell.binary, row, col);         break;
+            case BYTE_BUFFER : writeBinary(cell.byteBuffer, row, col);     break;
         }
     }
 
@@ -682,22 +1311,16 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected void writeString(Cell cell, int row, int col) throws IOException {
         Column hc = getColumn(col);
-        bw.write("<c r=\"");
-        bw.write(int2Col(hc.getRealColIndex()));
-        bw.writeInt(row);
+        writeCellRef(col, row);
 
         String s = cell.stringVal;
         boolean notEmpty = s != null && s.length() > 0;
 
         // 超链接
-        if (cell.h && notEmpty) {
-            Relationship rel = relManager.add(new Relationship(s, Const.Relationship.HYPERLINK).setTargetMode("External"));
-            List<String> dim = hyperlinkMap.computeIfAbsent(rel.getId(), k -> new ArrayList<>());
-            dim.add(new String(int2Col(col + 1)) + row);
-        }
+        if (cell.h && notEmpty) addHyperlink(s, row, col);
 
         if (cell.xf > 0) {
-            bw.write("\" s=\"");
+            bw.writeBytes(CELL_STYLE);
             bw.writeInt(cell.xf);
         }
 
@@ -706,23 +1329,23 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             bw.escapeWrite(cell.formula);
             bw.write("</f>");
             if (notEmpty) {
-                bw.write("<v>");
+                bw.writeBytes(VALUE_START);
                 bw.escapeWrite(s);
                 bw.write("</v>");
             }
             bw.write("</c>");
         } else if (notEmpty) {
             int i;
-            if (hc.isShare() && (i = sst.get(s)) >= 0) {
-                bw.write("\" t=\"s\"><v>");
+            if (isShare(hc, col, s) && (i = sst.get(s)) >= 0) {
+                bw.writeBytes(SST_VALUE_START);
                 bw.writeInt(i);
-                bw.write("</v></c>");
+                bw.writeBytes(VALUE_CELL_END);
             } else {
-                bw.write("\" t=\"inlineStr\"><is><t>");
+                bw.writeBytes(INLINE_STR_START);
                 bw.escapeWrite(s); // escape text
-                bw.write("</t></is></c>");
+                bw.writeBytes(INLINE_STR_END);
             }
-        } else bw.write("\"/>");
+        } else bw.writeBytes(EMPTY_TAG_CLOSE);
 
         // TODO optimize If auto-width
         if (hc.getAutoSize() == 1) {
@@ -731,6 +1354,37 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         }
     }
 
+    /**
+     * 判断字符串是否放入共享区，自适应共享的列根据抽样结果决定
+     *
+     * @param hc  列属性
+     * @param col 列下标
+     * @param s   字符串
+     * @return true: 共享，false: 内嵌
+     */
+    protected boolean isShare(Column hc, int col, String s) {
+        if (!hc.isShare()) return false;
+        ShareSampler sampler;
+        return shareSamplers == null || col >= shareSamplers.length || (sampler = shareSamplers[col]) == null || sampler.test(s);
+    }
+
+    /**
+     * 添加超链接，并行序列化时暂存链接，合并行块时交由所属的输出协议处理
+     *
+     * @param url 链接地址
+     * @param row 行号
+     * @param col 列下标
+     */
+    protected void addHyperlink(String url, int row, int col) {
+        if (parent != null) {
+            deferredCells.add(new DeferredCell(null, url, row, col));
+            return;
+        }
+        Relationship rel = relManager.add(new Relationship(url, Const.Relationship.HYPERLINK).setTargetMode("External"));
+        List<String> dim = hyperlinkMap.computeIfAbsent(rel.getId(), k -> new ArrayList<>());
+        dim.add(new String(int2Col(col + 1)) + row);
+    }
+
     /**
      * 写数字
      *
@@ -741,51 +1395,79 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected void writeNumeric(Cell cell, int row, int col) throws IOException {
         Column hc = getColumn(col);
-        bw.write("<c r=\"");
-        bw.write(int2Col(hc.getRealColIndex()));
-        bw.writeInt(row);
+        writeCellRef(col, row);
         if (cell.xf > 0) {
-            bw.write("\" s=\"");
+            bw.writeBytes(CELL_STYLE);
             bw.writeInt(cell.xf);
         }
-        bw.write("\">");
+        bw.writeBytes(TAG_CLOSE);
         if (cell.f) {
             bw.write("<f>");
             bw.escapeWrite(cell.formula);
             bw.write("</f>");
         }
-        bw.write("<v>");
-        boolean autoSize = hc.getAutoSize() == 1;
-        String s = null;
+        bw.writeBytes(VALUE_START);
+        switch (cell.t) {
+            case NUMERIC : bw.writeInt(cell.intVal);  break;
+            case LONG    : bw.write(cell.longVal);    break;
+            case DATE:
+            case DATETIME:
+            case DOUBLE:
+            case TIME    : bw.write(cell.doubleVal);  break;
+            case DECIMAL : bw.write(cell.decimal);    break;
+        }
+        bw.writeBytes(VALUE_CELL_END);
+
+        if (hc.getAutoSize() == 1) {
+            int len = numericChars(cell);
+            if (len > 0) {
+                double n;
+                if (hc.getNumFmt() != null) {
+                    if (columnWidths[col] < (n = hc.getNumFmt().calcNumWidth(len, getFont(cell.xf)))) columnWidths[col] = n;
+                }
+                else if (columnWidths[col] < (n = stringWidth(numChars, 0, len, cell.xf))) columnWidths[col] = n;
+            }
+        }
+    }
+
+    /**
+     * 将数字单元格的值转为字符并放入{@link #numChars}中，用于计算自适应列宽，
+     * 与{@code Integer.toString}等方法相比它不会为每个单元格创建临时字符串
+     *
+     * @param cell 单元格信息
+     * @return 字符个数，非数字单元格返回0
+     */
+    protected int numericChars(Cell cell) {
+        int n;
         switch (cell.t) {
             case NUMERIC:
-                bw.writeInt(cell.intVal);
-                if (autoSize) s = Integer.toString(cell.intVal);
-                break;
+                char[] cs = ExtBufferedWriter.toChars(cell.intVal);
+                System.arraycopy(cs, 0, numChars, 0, n = cs.length);
+                return n;
             case LONG:
-                bw.write(cell.longVal);
-                if (autoSize) s = Long.toString(cell.longVal);
-                break;
+                cs = ExtBufferedWriter.toChars(cell.longVal);
+                System.arraycopy(cs, 0, numChars, 0, n = cs.length);
+                return n;
             case DATE:
             case DATETIME:
             case DOUBLE:
             case TIME:
-                bw.write(cell.doubleVal);
-                if (autoSize) s = Double.toString(cell.doubleVal);
+                n = DoubleToDecimal.toBytes(cell.doubleVal, numBytes, 0);
                 break;
             case DECIMAL:
-                bw.write(s = cell.decimal.toString());
+                n = DoubleToDecimal.toBytes(cell.decimal, numBytes, 0);
+                // 超出快速转换范围
+                if (n < 0) {
+                    String s = cell.decimal.toString();
+                    if ((n = s.length()) > numChars.length) numChars = new char[n];
+                    s.getChars(0, n, numChars, 0);
+                    return n;
+                }
                 break;
+            default: return 0;
         }
-        bw.write("</v></c>");
-
-        if (autoSize && s != null) {
-            double n;
-            if (hc.getNumFmt() != null) {
-                if (columnWidths[col] < (n = hc.getNumFmt().calcNumWidth(s.length(), getFont(cell.xf)))) columnWidths[col] = n;
-            }
-            else if (columnWidths[col] < (n = stringWidth(s, cell.xf))) columnWidths[col] = n;
-        }
+        for (int i = 0; i < n; i++) numChars[i] = (char) numBytes[i];
+        return n;
     }
 
     /**
@@ -798,23 +1480,21 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected void writeBool(Cell cell, int row, int col) throws IOException {
         Column hc = getColumn(col);
-        bw.write("<c r=\"");
-        bw.write(int2Col(hc.getRealColIndex()));
-        bw.writeInt(row);
+        writeCellRef(col, row);
         bw.write("\" t=\"b");
         if (cell.xf > 0) {
-            bw.write("\" s=\"");
+            bw.writeBytes(CELL_STYLE);
             bw.writeInt(cell.xf);
         }
-        bw.write("\">");
+        bw.writeBytes(TAG_CLOSE);
         if (cell.f) {
             bw.write("<f>");
             bw.escapeWrite(cell.formula);
             bw.write("</f>");
         }
-        bw.write("<v>");
+        bw.writeBytes(VALUE_START);
         bw.writeInt(cell.boolVal ? 1 : 0);
-        bw.write("</v></c>");
+        bw.writeBytes(VALUE_CELL_END);
 
         // TODO optimize If auto-width
         if (hc.getAutoSize() == 1) {
@@ -833,11 +1513,9 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected void writeChar(Cell cell, int row, int col) throws IOException {
         Column hc = getColumn(col);
-        bw.write("<c r=\"");
-        bw.write(int2Col(hc.getRealColIndex()));
-        bw.writeInt(row);
+        writeCellRef(col, row);
         if (cell.xf > 0) {
-            bw.write("\" s=\"");
+            bw.writeBytes(CELL_STYLE);
             bw.writeInt(cell.xf);
         }
         char c = cell.charVal;
@@ -846,20 +1524,19 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             bw.escapeWrite(cell.formula);
             bw.write("</f><v>");
             bw.escapeWrite(c);
-            bw.write("</v></c>");
+            bw.writeBytes(VALUE_CELL_END);
         } else if (hc.isShare()) {
-            bw.write("\" t=\"s\"><v>");
+            bw.writeBytes(SST_VALUE_START);
             bw.writeInt(sst.get(c));
-            bw.write("</v></c>");
+            bw.writeBytes(VALUE_CELL_END);
         } else {
-            bw.write("\" t=\"inlineStr\"><is><t>");
+            bw.writeBytes(INLINE_STR_START);
             bw.escapeWrite(c);
-            bw.write("</t></is></c>");
+            bw.writeBytes(INLINE_STR_END);
         }
         // TODO optimize If auto-width
         if (hc.getAutoSize() == 1) {
-            Font font = getFont(cell.xf);
-            double n = (c > 0x4E00 ? font.getSize() : font.getFontMetrics().charWidth(c)) / 6.0D * 1.02D;
+            double n = getFontWidthTable(cell.xf).charWidth(c) / 6.0D * 1.02D;
             if (columnWidths[col] < n) columnWidths[col] = n;
         }
     }
@@ -879,17 +1556,76 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         Fill fill = styles.getFill(style);
         Border border = styles.getBorder(style);
         if (fill != null && fill.getPatternType() != PatternType.none || border != null && border.isEffectiveBorder() || cell.f) {
-            bw.write("<c r=\"");
-            bw.write(int2Col(getColumn(col).getRealColIndex()));
-            bw.writeInt(row);
-            bw.write("\" s=\"");
+            writeCellRef(col, row);
+            bw.writeBytes(CELL_STYLE);
             bw.writeInt(cell.xf);
             if (cell.f) {
                 bw.write("\"><f>");
                 bw.escapeWrite(cell.formula);
                 bw.write("</f></c>");
-            } else bw.write("\"/>");
+            } else bw.writeBytes(EMPTY_TAG_CLOSE);
+        }
+    }
+
+    /**
+     * 写单元格引用{@code <c r="A1}，列前缀和行号均为预先编码的字节
+     *
+     * @param col 列下标
+     * @param row 行号
+     * @throws IOException if I/O error occur
+     */
+    protected void writeCellRef(int col, int row) throws IOException {
+        byte[] prefix;
+        if (col >= cellRefs.length || (prefix = cellRefs[col]) == null) prefix = cellRef(col);
+        bw.writeBytes(prefix);
+        writeRowRef(row);
+    }
+
+    /**
+     * 写行号，行号变化时重新编码
+     *
+     * @param row 行号
+     * @throws IOException if I/O error occur
+     */
+    protected void writeRowRef(int row) throws IOException {
+        if (row != rowRefNum || rowRef == null) {
+            if (rowRef == null) rowRef = new byte[10];
+            int i = rowRef.length;
+            for (int n = row; ; ) {
+                int q = n / 10;
+                rowRef[--i] = (byte) ('0' + n - q * 10);
+                if ((n = q) == 0) break;
+            }
+            rowRefOffset = i;
+            rowRefNum = row;
         }
+        bw.writeBytes(rowRef, rowRefOffset, rowRef.length - rowRefOffset);
+    }
+
+    /**
+     * 获取表头以外的列的引用前缀，不存在时创建
+     *
+     * @param col 列下标
+     * @return 引用前缀
+     */
+    protected byte[] cellRef(int col) {
+        if (col >= cellRefs.length) cellRefs = Arrays.copyOf(cellRefs, Math.max(col + 1, cellRefs.length << 1));
+        byte[] prefix = cellRefs[col];
+        if (prefix == null) cellRefs[col] = prefix = cellRefPrefix(col < columns.length && columns[col] != null ? columns[col].getRealColIndex() : col + 1);
+        return prefix;
+    }
+
+    /**
+     * 编码单元格引用前缀{@code <c r="XX}
+     *
+     * @param realColIndex 列号（从1开始）
+     * @return 引用前缀
+     */
+    protected static byte[] cellRefPrefix(int realColIndex) {
+        char[] col = int2Col(realColIndex);
+        byte[] prefix = Arrays.copyOf(CELL_START, CELL_START.length + col.length);
+        for (int i = 0; i < col.length; i++) prefix[CELL_START.length + i] = (byte) col[i];
+        return prefix;
     }
 
     /**
@@ -907,10 +1643,11 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             LOGGER.warn("File types that are not allowed");
             return;
         }
-        int id = sheet.getWorkbook().incrementMediaCounter();
-        String name = "image" + id + "." + signature.extension;
-        // Store in disk
-        Files.write(mediaPath.resolve(name), bytes, StandardOpenOption.CREATE_NEW);
+        int id = nextMediaId();
+        String name = mediaName(id) + "." + signature.extension;
+        // Store
+        String exists = sheet.getWorkbook().getMediaStore().putIfAbsent(name, ByteBuffer.wrap(bytes), scopedDigest(ContentDigest.of(bytes)));
+        if (exists != null) name = exists;
 
         // Write picture
         writePictureDirect(id, name, column, row, signature);
@@ -932,14 +1669,13 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             LOGGER.warn("File types that are not allowed");
             return;
         }
-        int id = sheet.getWorkbook().incrementMediaCounter();
-        String name = "image" + id + "." + signature.extension;
+        int id = nextMediaId();
         // Reset buffer position
         byteBuffer.position(position);
-        // Store in disk
-        SeekableByteChannel channel = Files.newByteChannel(mediaPath.resolve(name), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
-        channel.write(byteBuffer);
-        channel.close();
+        String name = mediaName(id) + "." + signature.extension;
+        // Store
+        String exists = sheet.getWorkbook().getMediaStore().putIfAbsent(name, byteBuffer, scopedDigest(ContentDigest.of(byteBuffer)));
+        if (exists != null) name = exists;
 
         // Write picture
         writePictureDirect(id, name, column, row, signature);
@@ -960,15 +1696,26 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             LOGGER.warn("File types that are not allowed");
             return;
         }
-        int id = sheet.getWorkbook().incrementMediaCounter();
-        String name = "image" + id + "." + signature.extension;
-        // Store
-        Files.copy(path, mediaPath.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        int id = nextMediaId();
+        String name = storeFile(path, mediaName(id) + "." + signature.extension);
 
         // Write picture
         writePictureDirect(id, name, column, row, signature);
     }
 
+    /**
+     * 将图片文件追加到暂存文件，先计算内容摘要，与已保存的图片相同时不再复制
+     *
+     * @param path 图片文件
+     * @param name 文件名
+     * @return 实际使用的文件名
+     * @throws IOException if I/O error occur
+     */
+    protected String storeFile(Path path, String name) throws IOException {
+        String exists = sheet.getWorkbook().getMediaStore().putIfAbsent(name, path, scopedDigest(ContentDigest.of(path)));
+        return exists != null ? exists : name;
+    }
+
     /**
      * Write stream value
      *
@@ -981,7 +1728,6 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         byte[] bytes = new byte[1 << 13];
         int n;
 
-        OutputStream os = null;
         try {
             n = stream.read(bytes);
             // Empty stream
@@ -991,15 +1737,11 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
                 LOGGER.warn("File types that are not allowed");
                 return;
             }
-            int id = sheet.getWorkbook().incrementMediaCounter();
-            String name = "image" + id + "." + signature.extension;
-            os = Files.newOutputStream(mediaPath.resolve(name));
-            os.write(bytes, 0, n);
-
-            if (n == bytes.length) {
-                while ((n = stream.read(bytes)) > 0)
-                    os.write(bytes, 0, n);
-            }
+            int id = nextMediaId();
+            String name = mediaName(id) + "." + signature.extension;
+            // 内容相同时丢弃刚写入的内容
+            String exists = sheet.getWorkbook().getMediaStore().putIfAbsent(name, bytes, n, stream, scopedDigest(""));
+            if (exists != null) name = exists;
 
             // Write picture
             writePictureDirect(id, name, column, row, signature);
@@ -1009,11 +1751,6 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             try {
                 stream.close();
             } catch (IOException e) { } // Ignore
-            if (os != null) {
-                try {
-                    os.close();
-                } catch (IOException e) { } // Ignore
-            }
         }
     }
 
@@ -1027,7 +1764,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected void writeRemoteMedia(String url, int row, int column) throws IOException {
         Picture picture = createPicture(column, row);
-        picture.id = sheet.getWorkbook().incrementMediaCounter();
+        picture.id = nextMediaId();
 
         // 实例化drawingsWriter
         if (drawingsWriter == null) createDrawingsWriter();
@@ -1055,13 +1792,11 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         }
         // 实例化drawingsWriter
         if (drawingsWriter == null) createDrawingsWriter();
-        int id = sheet.getWorkbook().incrementMediaCounter();
+        int id = nextMediaId();
         picture.id = id;
-        String name = "image" + id + "." + signature.extension;
+        String name = storeFile(picture.localPath, mediaName(id) + "." + signature.extension);
         picture.picName = name;
         picture.size = signature.width << 16 | signature.height;
-        // Store
-        Files.copy(picture.localPath, mediaPath.resolve(name), StandardCopyOption.REPLACE_EXISTING);
 
         // Write picture
         // Drawing
@@ -1082,21 +1817,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         // There has no column to reset width
         if (columns.length <= 0 || rows <= 0) return;
         // Collect column width
-        for (int i = 0; i < columns.length; i++) {
-            Column hc = columns[i];
-            int k = hc.getAutoSize();
-            // If fixed width or media cell
-            if (k == 2 || hc.getColumnType() == 1) {
-                double width = hc.width >= 0.0D ? hc.width: sheet.getDefaultWidth();
-                hc.width = BigDecimal.valueOf(Math.min(width + 0.65D, Const.Limit.COLUMN_WIDTH)).setScale(2, BigDecimal.ROUND_HALF_UP).doubleValue();
-                continue;
-            }
-            double len = columnWidths[i] > 0 ? columnWidths[i] : sheet.getDefaultWidth();
-            double width = (sheet.getNonHeader() == 1 ? len : Math.max(stringWidth(hc.name, hc.getHeaderStyleIndex() == -1 ? sheet.defaultHeadStyleIndex() : hc.getHeaderStyleIndex()), len)) + 1.86D;
-            if (hc.width > 0.000001D) width = Math.min(width, hc.width + 0.65D);
-            if (width > Const.Limit.COLUMN_WIDTH) width = Const.Limit.COLUMN_WIDTH;
-            hc.width = BigDecimal.valueOf(width).setScale(2, BigDecimal.ROUND_HALF_UP).doubleValue();
-        }
+        calcColumnWidths();
 
         if (bw != null) {
             try {
@@ -1117,7 +1838,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         _writer.includeAutoWidth = includeAutoWidth;
         _writer.styles = styles;
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        _writer.bw = new ExtBufferedWriter(new OutputStreamWriter(baos, StandardCharsets.UTF_8));
+        _writer.bw = new ExtBufferedByteWriter(baos);
         _writer.writeBefore();
         _writer.bw.close();
 
@@ -1137,6 +1858,17 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         FileUtil.close(bw);
         // Close drawing writer
         FileUtil.close(drawingsWriter);
+        // 超时未完成的远程图片不再保存
+        cancelRemoteMedia();
+    }
+
+    /**
+     * 取消未完成的远程图片，取消后下载完成也不会再调用{@link #downloadCompleted}
+     */
+    protected void cancelRemoteMedia() {
+        if (remoteMedia == null) return;
+        for (CompletableFuture<Picture> future : remoteMedia.values()) future.cancel(true);
+        remoteMedia = null;
     }
 
     /**
@@ -1323,12 +2055,12 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         if (columns.length > 0) {
             bw.write("<cols>");
             Column fCol = columns[0];
-            String fWidth = fCol.width >= 0.0000001D ? new BigDecimal(fCol.width).setScale(2, BigDecimal.ROUND_HALF_UP).toString() : defaultWidth;
+            String fWidth = fCol.width >= 0.0000001D ? new BigDecimal(fCol.width).setScale(2, RoundingMode.HALF_UP).toString() : defaultWidth;
             // 多个col时将相同属性的col进行压缩
             if (columns.length > 1) {
                 for (int i = 1; i < columns.length; i++) {
                     Column col = columns[i], pCol = columns[i - 1];
-                    String width = col.width >= 0.0000001D ? new BigDecimal(col.width).setScale(2, BigDecimal.ROUND_HALF_UP).toString() : defaultWidth;
+                    String width = col.width >= 0.0000001D ? new BigDecimal(col.width).setScale(2, RoundingMode.HALF_UP).toString() : defaultWidth;
                     boolean lastColumn = i == columns.length - 1;
                     if (fCol.getAutoSize() == 1 || col.getAutoSize() == 1 || !width.equals(fWidth) || col.isHide() != fCol.isHide() || col.getRealColIndex() - pCol.getRealColIndex() > 1) {
                         writeCol(fWidth, fCol.getRealColIndex(), pCol.realColIndex, fillSpace, fCol.isHide());
@@ -1459,7 +2191,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         if (waterMark != null && waterMark.canWrite()) {
             Path media = workSheetPath.getParent().resolve("media");
             if (!exists(media)) Files.createDirectory(media);
-            Path image = media.resolve("image" + sheet.getWorkbook().incrementMediaCounter() + waterMark.getSuffix());
+            Path image = media.resolve(mediaName(nextMediaId()) + waterMark.getSuffix());
 
             Files.copy(waterMark.get(), image);
             Relationship r = new Relationship("../media/" + image.getFileName(), Const.Relationship.IMAGE);
@@ -1499,7 +2231,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * <p>Java的{@link java.awt.FontMetrics}计算中文字符有个问题，对于绝大多数英文字体计算出来的中文字符宽度都不准，
      * 在英文字体中显示的中文字体可能会默认显示"宋体"，默认字体与地区和操作系统相关这里只取简体中文的临近值约为字体大小，
      * 英文字符计算比较复杂每种字体显示的宽度差异很大，有较窄的字符{@code 'i','l',':'}也有较宽的字符{@code 'X','E','G'，’%'，‘@’}，
-     * 对于英文字符统一使用{@code FontMetrics}计算。</p>
+     * 对于英文字符统一通过{@link FontWidthTable}查表计算。</p>
      *
      * <p>对于自动折行且自适应列宽的单元格则分别计算每一段文本宽度取最大值，这也是为什么不直接调用{@link java.awt.FontMetrics#stringWidth}
      * 的原因因为它并不会分段计算</p>
@@ -1512,12 +2244,10 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected double stringWidth(String s, int xf) {
         if (StringUtil.isEmpty(s)) return 0.0D;
-        Font font = getFont(xf);
-        int fs = font.getSize(), w = 0;
-        java.awt.FontMetrics fm = font.getFontMetrics();
-        int len = s.length(), i = 0;
+        FontWidthTable fw = getFontWidthTable(xf);
+        int len = s.length(), i = 0, w = 0;
         char c;
-        for (; i < len && w < 1500 && (c = s.charAt(i++)) != '\n'; w += c > 0x4E00 ? fs : fm.charWidth(c));
+        for (; i < len && w < 1500 && (c = s.charAt(i++)) != '\n'; w += fw.charWidth(c));
         // 如果包含回车则特殊处理
         if (i < len && w < 1500 && s.charAt(i - 1) == '\n') {
             int style = styles.getStyleByIndex(xf);
@@ -1525,16 +2255,32 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             if (Styles.hasWrapText(style)) {
                 do {
                     int sectionWidth = 0;
-                    for (; i < len && sectionWidth < 1500 && (c = s.charAt(i++)) != '\n'; sectionWidth += c > 0x4E00 ? fs : fm.charWidth(c));
+                    for (; i < len && sectionWidth < 1500 && (c = s.charAt(i++)) != '\n'; sectionWidth += fw.charWidth(c));
                     if (sectionWidth > w) w = sectionWidth;
                 } while (i < len && w < 1500);
             }
             // 非“自动折行”将显示为一行，宽度直接相加
-            else for (; i < len && w < 1500; w += (c = s.charAt(i++)) > 0x4E00 ? fs : fm.charWidth(c));
+            else for (; i < len && w < 1500; w += fw.charWidth(s.charAt(i++)));
         }
         return w / 6.0D * 1.02D;
     }
 
+    /**
+     * 计算单行字符在单元格的宽度，用于数字等不包含换行符的文本
+     *
+     * @param cb     字符数组
+     * @param off    起始位置
+     * @param len    字符个数
+     * @param xf     单元格样式索引
+     * @return 文本在excel的宽度
+     */
+    protected double stringWidth(char[] cb, int off, int len, int xf) {
+        FontWidthTable fw = getFontWidthTable(xf);
+        int w = 0;
+        for (int i = off, end = off + len; i < end && w < 1500; w += fw.charWidth(cb[i++]));
+        return w / 6.0D * 1.02D;
+    }
+
     /**
      * Test whether the coordinate is the first cell of the merged cell,
      * and use {@link Grid#test} to determine yes before calling this method
@@ -1589,6 +2335,57 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         }
     }
 
+    /**
+     * 设置是否使用工作表私有的图片和Drawing记数器，多个工作表并行输出时由{@link XMLWorkbookWriter}开启。
+     * 开启后图片文件名为{@code image<工作表ID>_<序号>}、Drawing的序号与工作表ID相同，
+     * 内容相同的图片只在当前工作表内合并，文件名不再依赖各工作表的完成顺序
+     *
+     * @param sheetScopedCounters true: 使用工作表私有记数器
+     * @return 当前输出协议
+     */
+    public XMLWorksheetWriter setSheetScopedCounters(boolean sheetScopedCounters) {
+        this.sheetScopedCounters = sheetScopedCounters;
+        return this;
+    }
+
+    /**
+     * 获取下一个图片序号
+     *
+     * @return 图片序号
+     */
+    protected int nextMediaId() {
+        return sheetScopedCounters ? ++mediaCounter : sheet.getWorkbook().incrementMediaCounter();
+    }
+
+    /**
+     * 获取下一个Drawing序号，每个工作表最多一个Drawing，私有记数时直接使用工作表ID
+     *
+     * @return Drawing序号
+     */
+    protected int nextDrawingId() {
+        return sheetScopedCounters ? sheet.getId() : sheet.getWorkbook().incrementDrawingCounter();
+    }
+
+    /**
+     * 获取图片文件名（不含扩展名）
+     *
+     * @param id 图片序号
+     * @return 文件名
+     */
+    protected String mediaName(int id) {
+        return sheetScopedCounters ? "image" + sheet.getId() + "_" + id : "image" + id;
+    }
+
+    /**
+     * 获取用于合并相同图片的摘要，私有记数时加上工作表ID只在当前工作表内合并
+     *
+     * @param digest 内容摘要
+     * @return 合并使用的摘要
+     */
+    protected String scopedDigest(String digest) {
+        return sheetScopedCounters ? sheet.getId() + ":" + digest : digest;
+    }
+
     /**
      * Create drawing writer and add relationship
      *
@@ -1598,7 +2395,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
     protected IDrawingsWriter createDrawingsWriter() throws IOException {
         if (mediaPath == null) mediaPath = Files.createDirectories(workSheetPath.getParent().resolve("media"));
         if (drawingsWriter == null) {
-            int id = sheet.getWorkbook().incrementDrawingCounter();
+            int id = nextDrawingId();
             sheet.getWorkbook().addContentType(new ContentType.Override(Const.ContentType.DRAWINGS, "/xl/drawings/drawing" + id + ".xml"));
             sheet.addRel(new Relationship("../drawings/drawing" + id + ".xml", Const.Relationship.DRAWINGS));
             drawingsWriter = new XMLDrawingsWriter(workSheetPath.getParent().resolve("drawings").resolve("drawing" + id + ".xml"));
@@ -1606,39 +2403,59 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         return drawingsWriter;
     }
 
+    /**
+     * 设置远程资源下载器
+     *
+     * @param remoteMediaFetcher 远程资源下载器
+     * @return 当前输出协议
+     */
+    public XMLWorksheetWriter setRemoteMediaFetcher(RemoteMediaFetcher remoteMediaFetcher) {
+        this.remoteMediaFetcher = remoteMediaFetcher;
+        return this;
+    }
+
+    /**
+     * 获取远程资源下载器
+     *
+     * @return 远程资源下载器
+     */
+    public RemoteMediaFetcher getRemoteMediaFetcher() {
+        return remoteMediaFetcher != null ? remoteMediaFetcher : HttpRemoteMediaFetcher.getDefault();
+    }
+
     /**
      * Download remote resources
      *
-     * By default, only HTTP or HTTPS protocols are supported.
-     * Use {@code HttpURLConnection} to synchronously download remote resources.
-     * For more complex scenarios (asynchronous download, Connection pool, authentication, FTP, etc.), please override this method
+     * <p>By default, resources are downloaded asynchronously by {@link #getRemoteMediaFetcher()}.
+     * The same url is downloaded and stored only once, other pictures share the stored file.
+     * For more complex scenarios (authentication, FTP, etc.), please implement {@link RemoteMediaFetcher}
+     * or override this method and call {@link #downloadCompleted} when finished</p>
      *
      * @param picture {@link Picture} info
      * @param url remote url
      * @throws IOException if I/O error occur.
      */
     public void downloadRemoteResource(Picture picture, String url) throws IOException {
-        try {
-            // Support http or https
-            if (url.charAt(0) == 'h') {
-                HttpURLConnection con = (HttpURLConnection) new URL(url).openConnection();
-                con.connect();
-                InputStream is = con.getInputStream();
-                if (is != null) {
-                    ByteArrayOutputStream bos = new ByteArrayOutputStream(1 << 18);
-                    int i;
-                    byte[] bytes = new byte[1 << 18];
-                    while ((i = is.read(bytes)) > 0) bos.write(bytes, 0, i);
-                    downloadCompleted(picture, bos.toByteArray());
-                    return;
+        if (remoteMedia == null) remoteMedia = new HashMap<>();
+        CompletableFuture<Picture> future = remoteMedia.get(url);
+        if (future == null) {
+            future = getRemoteMediaFetcher().fetch(url).handle((body, e) -> {
+                try {
+                    downloadCompleted(picture, body);
+                } catch (IOException | RuntimeException ex) {
+                    LOGGER.error("Save remote resource [{}] error", url, ex);
+                    picture.picName = null;
+                    drawingsWriter.complete(picture);
                 }
-                con.disconnect();
-            }
-            // Ignore others
-            downloadCompleted(picture, null);
-        } catch (IOException e) {
-            LOGGER.error("Download remote resource [{}] error", url, e);
-            downloadCompleted(picture, null);
+                return picture;
+            });
+            remoteMedia.put(url, future);
+        } else {
+            future.thenAccept(p -> {
+                picture.picName = p.picName;
+                picture.size = p.size;
+                drawingsWriter.complete(picture);
+            });
         }
     }
 
@@ -1655,12 +2472,19 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
             drawingsWriter.complete(picture);
             return;
         }
+        MediaStore mediaStore = sheet.getWorkbook().getMediaStore();
+        // 工作薄已输出完成（等待超时）
+        if (mediaStore.isClosed()) {
+            LOGGER.warn("Remote picture completed after the workbook was closed, ignore it.");
+            return;
+        }
         // Test file signatures
         FileSignatures.Signature signature = FileSignatures.test(ByteBuffer.wrap(body));
         if (signature != null && signature.isTrusted()) {
-            String name = "image" + picture.id + "." + signature.extension;
-            // Store onto disk
-            Files.write(mediaPath.resolve(name), body, StandardOpenOption.CREATE_NEW);
+            String name = mediaName(picture.id) + "." + signature.extension;
+            // Store
+            String exists = mediaStore.putIfAbsent(name, ByteBuffer.wrap(body), scopedDigest(ContentDigest.of(body)));
+            if (exists != null) name = exists;
             picture.picName = name;
             picture.size = signature.width << 16 | signature.height;
             // Add global contentType
@@ -1715,10 +2539,16 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
     protected void collectHeaderColumns() {
         // 判断是否有共享设置，有共享需要对SharedStrings进行初始化
         boolean hasSharedString = false;
-        for (Column col : columns) {
+        for (int i = 0; i < columns.length; i++) {
+            Column col = columns[i];
             // 自适应列宽标识
             includeAutoWidth |= col.getAutoSize() == 1;
             hasSharedString |= col.isShare();
+            // 自适应共享字符串
+            if (col.isAdaptiveShare()) {
+                if (shareSamplers == null) shareSamplers = new ShareSampler[columns.length];
+                shareSamplers[i] = new ShareSampler(col.getMaxDistinctRatio());
+            }
         }
         // 初始化SharedStringsTable
         if (hasSharedString && sst != null) sst.init();
@@ -1739,7 +2569,7 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      * @return 字体度量对象
      */
     protected Font getFont(int xf) {
-        if (xf >= fs.length) fs = Arrays.copyOf(fs, Math.max(xf, fs.length + 100));
+        if (xf >= fs.length) fs = Arrays.copyOf(fs, Math.max(xf + 1, fs.length + 100));
         Font f = fs[xf];
         if (f == null) {
             // 通过xf获取当前文本对应的字体
@@ -1749,6 +2579,23 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
         return f;
     }
 
+    /**
+     * 按cellXfs下标缓存字体宽度表，避免每次计算宽度时都拼接字体关键字查找全局缓存
+     */
+    protected FontWidthTable[] fws = new FontWidthTable[100];
+    /**
+     * 通过单元格样式索引获取字体宽度表
+     *
+     * @param xf 单元格样式索引
+     * @return 字体宽度表
+     */
+    protected FontWidthTable getFontWidthTable(int xf) {
+        if (xf >= fws.length) fws = Arrays.copyOf(fws, Math.max(xf + 1, fws.length + 100));
+        FontWidthTable fw = fws[xf];
+        if (fw == null) fws[xf] = fw = FontWidthTable.of(getFont(xf));
+        return fw;
+    }
+
     /**
      * 获取列属性
      *
@@ -1757,10 +2604,150 @@ public class XMLWorksheetWriter implements IWorksheetWriter {
      */
     protected Column getColumn(int index) {
         Column hc = index < columns.length ? columns[index] : null;
-        if (hc == null) {
-            hc = Column.UNALLOCATED_COLUMN;
-            hc.realColIndex = index + 1;
+        // 共享的静态列对象只读，并行输出时不能修改
+        return hc != null ? hc : Column.UNALLOCATED_COLUMN;
+    }
+
+    /**
+     * 自适应共享字符串抽样器，统计前{@link #SAMPLES}个字符串的不重复值，
+     * 不重复值超过上限时立即改为内嵌，抽样结束仍未超过时保持共享，决定后不再统计。
+     * 并行序列化时多个工作线程共用同一个抽样器
+     */
+    protected static class ShareSampler {
+        /**
+         * 抽样个数
+         */
+        protected static final int SAMPLES = 1 << 10;
+        /**
+         * 最多允许的不重复值个数
+         */
+        protected final int maxDistinct;
+        protected int sampled;
+        protected Set<String> distinct = new HashSet<>();
+        /**
+         * 0: 抽样中 1: 共享 2: 内嵌
+         */
+        protected volatile int state;
+
+        protected ShareSampler(double maxDistinctRatio) {
+            this.maxDistinct = (int) (SAMPLES * maxDistinctRatio);
+        }
+
+        /**
+         * 抽样并返回当前字符串是否共享
+         *
+         * @param s 字符串
+         * @return true: 共享，false: 内嵌
+         */
+        protected boolean test(String s) {
+            int state = this.state;
+            if (state != 0) return state == 1;
+            synchronized (this) {
+                if ((state = this.state) != 0) return state == 1;
+                distinct.add(s);
+                if (distinct.size() > maxDistinct) {
+                    this.state = 2;
+                    distinct = null;
+                    return false;
+                }
+                if (++sampled >= SAMPLES) {
+                    this.state = 1;
+                    distinct = null;
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 并行序列化单元，包含一个行块、它的序列化缓冲区以及序列化任务
+     */
+    protected static class SerializeSlot {
+        protected RowBlock block;
+        protected final SerializeBuffer buffer = new SerializeBuffer();
+        protected final List<DeferredCell> deferred = new ArrayList<>();
+        protected Future<?> future;
+
+        protected SerializeSlot(RowBlock block) {
+            this.block = block;
+        }
+    }
+
+    /**
+     * 工作线程暂存的图片单元格或超链接
+     */
+    protected static class DeferredCell {
+        protected final Cell cell;
+        protected final String url;
+        protected final int row, col;
+
+        protected DeferredCell(Cell cell, String url, int row, int col) {
+            this.cell = cell;
+            this.url = url;
+            this.row = row;
+            this.col = col;
+        }
+    }
+
+    /**
+     * 可直接获取内部数组的字节缓冲区，合并时避免复制
+     */
+    protected static class SerializeBuffer extends ByteArrayOutputStream {
+        protected SerializeBuffer() {
+            super(1 << 14);
+        }
+
+        protected byte[] buf() {
+            return buf;
+        }
+    }
+
+    /**
+     * 工作线程的输出流，每个行块序列化前切换到该行块的缓冲区
+     */
+    protected static class BlockOutputStream extends OutputStream {
+        protected OutputStream target;
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+    }
+
+    /**
+     * 关闭时只刷新不关闭的输出流，避免关闭工作表时关闭了压缩包
+     */
+    protected static class UnclosableOutputStream extends FilterOutputStream {
+        public UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        /**
+         * 断开目标流，之后写入的内容全部丢弃，异常时用于关闭压缩流而不再向目标流追加内容
+         */
+        public void detach() {
+            out = new OutputStream() {
+                @Override
+                public void write(int b) { }
+
+                @Override
+                public void write(byte[] b, int off, int len) { }
+            };
         }
-        return hc;
     }
 }
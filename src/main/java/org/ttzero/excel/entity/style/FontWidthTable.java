@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity.style;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 字符宽度表，用于自适应列宽时计算文本宽度，按字体名、字号和粗体/斜体缓存在进程级的{@link ConcurrentMap}中，
+ * 计算宽度只需查表不再逐字符调用{@link java.awt.FontMetrics#charWidth}。
+ *
+ * <p>内置{@code Arial}、{@code Calibri}和{@code 宋体}的ASCII字符宽度，使用这些字体时完全不会初始化AWT；
+ * 其它字体在首次用到某一页（256个字符）时通过AWT计算整页宽度，此后不再访问AWT，
+ * AWT不可用时（如无头容器缺少字体库）按{@code Arial}估算。
+ * 与原有计算方式保持一致，{@code 0x4E00}之后的字符宽度均按字号计算</p>
+ *
+ * @author guanquan.wang at 2024-12-02 14:26
+ */
+public final class FontWidthTable {
+    /**
+     * 进程级缓存，key为{@code 字体名|字号|粗体斜体}
+     */
+    private static final ConcurrentMap<String, FontWidthTable> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 内置字符宽度，从空格{@code 0x20}到{@code 0x7E}共95个字符，单位为{@code 1/unitsPerEm}
+     */
+    private static final short[] ARIAL = {
+        278, 278, 355, 556, 556, 889, 667, 191, 333, 333, 389, 584, 278, 333, 278, 278,
+        556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 278, 278, 584, 584, 584, 556,
+        1015, 667, 667, 722, 722, 667, 611, 778, 722, 278, 500, 667, 556, 833, 722, 778,
+        667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 278, 278, 278, 469, 556,
+        333, 556, 556, 500, 556, 556, 278, 556, 556, 222, 222, 500, 222, 833, 556, 556,
+        556, 556, 333, 500, 278, 556, 500, 722, 500, 500, 500, 334, 260, 334, 584
+    };
+    private static final short[] ARIAL_BOLD = {
+        278, 333, 474, 556, 556, 889, 722, 238, 333, 333, 389, 584, 278, 333, 278, 278,
+        556, 556, 556, 556, 556, 556, 556, 556, 556, 556, 333, 333, 584, 584, 584, 611,
+        975, 722, 722, 722, 722, 667, 611, 778, 722, 278, 556, 722, 611, 833, 722, 778,
+        667, 778, 722, 667, 611, 722, 667, 944, 667, 667, 611, 333, 278, 333, 584, 556,
+        333, 556, 611, 556, 611, 556, 333, 611, 611, 278, 278, 556, 278, 889, 611, 611,
+        611, 611, 389, 556, 333, 611, 556, 778, 556, 556, 500, 389, 280, 389, 584
+    };
+    private static final short[] CALIBRI = {
+        463, 548, 821, 1020, 1038, 1464, 1401, 452, 621, 621, 1020, 1020, 511, 627, 517, 791,
+        1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 1038, 548, 548, 1020, 1020, 1020, 949,
+        1831, 1185, 1114, 1092, 1260, 1000, 941, 1292, 1276, 516, 653, 1064, 861, 1751, 1322, 1356,
+        1058, 1378, 1112, 941, 998, 1314, 1162, 1822, 1063, 998, 959, 621, 791, 621, 1020, 1020,
+        589, 981, 1076, 866, 1076, 1019, 625, 964, 1076, 470, 490, 931, 470, 1636, 1076, 1080,
+        1076, 1076, 714, 801, 686, 1076, 925, 1464, 887, 927, 809, 640, 941, 640, 1020
+    };
+    /**
+     * 宋体为等宽字体，ASCII均为半角
+     */
+    private static final short[] SIMSUN = new short[95];
+
+    static {
+        Arrays.fill(SIMSUN, (short) 500);
+    }
+
+    private final String name;
+    private final int style;
+    /**
+     * 字号，{@code 0x4E00}之后的字符宽度
+     */
+    private final int size;
+    /**
+     * 内置宽度表，为{@code null}时通过AWT计算
+     */
+    private final short[] builtin;
+    private final int unitsPerEm;
+    private final double size2;
+    /**
+     * 按页（256个字符）缓存宽度，第0页在创建时计算
+     */
+    private final short[] page0;
+    private final AtomicReferenceArray<short[]> pages = new AtomicReferenceArray<>(0x4F);
+    /**
+     * AWT字体度量，只在计算新页时使用
+     */
+    private java.awt.FontMetrics fm;
+    private boolean awtUnavailable;
+
+    private FontWidthTable(Font font) {
+        this.name = font.getName();
+        this.style = (font.getStyle() >> 1) & 3;
+        this.size = font.getSize();
+        this.size2 = font.getSize2();
+        String key = name != null ? name.toLowerCase(Locale.ROOT) : "";
+        switch (key) {
+            case "arial":
+                builtin = (style & 1) == 1 ? ARIAL_BOLD : ARIAL;
+                unitsPerEm = 1000;
+                break;
+            case "calibri":
+                builtin = CALIBRI;
+                unitsPerEm = 2048;
+                break;
+            case "宋体":
+            case "新宋体":
+            case "simsun":
+            case "nsimsun":
+                builtin = SIMSUN;
+                unitsPerEm = 1000;
+                break;
+            default:
+                builtin = null;
+                unitsPerEm = 1000;
+        }
+        page0 = loadPage(0);
+    }
+
+    /**
+     * 获取字体对应的宽度表
+     *
+     * @param font 字体
+     * @return 宽度表
+     */
+    public static FontWidthTable of(Font font) {
+        String key = font.getName() + '|' + font.getSize2() + '|' + ((font.getStyle() >> 1) & 3);
+        FontWidthTable table = CACHE.get(key);
+        return table != null ? table : CACHE.computeIfAbsent(key, k -> new FontWidthTable(font));
+    }
+
+    /**
+     * 获取单个字符宽度
+     *
+     * @param c 字符
+     * @return 宽度（像素）
+     */
+    public int charWidth(char c) {
+        if (c > 0x4E00) return size;
+        if (c < 0x100) return page0[c];
+        int i = c >>> 8;
+        short[] page = pages.get(i);
+        if (page == null) {
+            page = loadPage(i);
+            // 并发时允许重复计算，结果相同
+            pages.compareAndSet(i, null, page);
+        }
+        return page[c & 0xFF];
+    }
+
+    /**
+     * 计算字符串宽度
+     *
+     * @param s 字符串
+     * @return 宽度（像素）
+     */
+    public int stringWidth(String s) {
+        int w = 0;
+        for (int i = 0, len = s.length(); i < len; i++) w += charWidth(s.charAt(i));
+        return w;
+    }
+
+    private short[] loadPage(int index) {
+        short[] page = new short[256];
+        int base = index << 8;
+        if (builtin == null && !awtUnavailable) {
+            try {
+                synchronized (this) {
+                    if (fm == null) fm = Font.getFontMetrics(new java.awt.Font(name, style, size));
+                    for (int i = 0; i < 256; i++) page[i] = (short) fm.charWidth((char) (base + i));
+                }
+                return page;
+            } catch (Throwable e) {
+                // Headless environment without font libraries
+                awtUnavailable = true;
+            }
+        }
+        short[] table = builtin != null ? builtin : (style & 1) == 1 ? ARIAL_BOLD : ARIAL;
+        int upem = builtin != null ? unitsPerEm : 1000;
+        // 非ASCII字符按字母n估算，CJK符号按字号
+        int other = width(table['n' - 0x20], upem);
+        for (int i = 0; i < 256; i++) {
+            int c = base + i;
+            page[i] = (short) (c >= 0x20 && c < 0x7F ? width(table[c - 0x20], upem) : c >= 0x2E80 ? size : c < 0x20 ? 0 : other);
+        }
+        return page;
+    }
+
+    private int width(int units, int upem) {
+        return (int) Math.round(units * size2 / upem);
+    }
+}
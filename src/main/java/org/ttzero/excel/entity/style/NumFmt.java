@@ -22,10 +22,10 @@ import org.ttzero.excel.util.StringUtil;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.ttzero.excel.entity.style.Styles.getAttr;
 
@@ -156,12 +156,17 @@ public class NumFmt implements Cloneable, Comparable<NumFmt> {
     }
 
     /**
-     * 缓存code的宽度
+     * 缓存code的宽度，内置的日期格式化被所有工作表共享，并行输出时会被多个线程同时访问，
+     * 克隆的格式化共用缓存所以key中包含格式化串
      *
-     * key: 字号+字体
+     * key: 字号+字体+格式化串
      * value: 预计算的结果
      */
-    protected transient Map<String, Integer> codeWidthCache;
+    protected final transient Map<String, Integer> codeWidthCache = new ConcurrentHashMap<>();
+    /**
+     * 最近一次使用的字体、格式化串及其预计算结果，连续使用相同字体时无需拼接缓存key
+     */
+    protected transient volatile CodeWidth lastCodeWidth;
 
     /**
      * 粗略计算单元格长度，优先从缓存中获取预处理结果，缓存key由字号+字体名组成这样就保存能计算出相近的宽度，
@@ -195,21 +200,22 @@ public class NumFmt implements Cloneable, Comparable<NumFmt> {
      * 当第0位为0时第2-9位表示小数点后面的位数，10-31位表示单字节单个字符宽度
      */
     protected int getCodeWidthFromCache(Font font) {
-        if (codeWidthCache == null) codeWidthCache = new HashMap<>();
-        return codeWidthCache.computeIfAbsent(font.getSize() + font.getName(), key -> {
+        String fmt = code;
+        CodeWidth last = lastCodeWidth;
+        if (last != null && last.font == font && last.code == fmt) return last.width;
+        int width = codeWidthCache.computeIfAbsent(font.getSize() + font.getName() + '\u0000' + fmt, key -> {
             int wc = 0;
-            boolean isDate = Styles.testCodeIsDate(code);
+            boolean isDate = Styles.testCodeIsDate(fmt);
             // 计算每一段的宽度取最大值
-            String[] codes = code.split(";");
+            String[] codes = fmt.split(";");
             int[] ks = new int[codes.length];
-            java.awt.FontMetrics fm = font.getFontMetrics();
             /*
              粗略估算单／双字节宽度，与实际计算出来的结果可能有很大区别，输出到Excel的宽度需要除{@code 6}，
              中文的宽度相对简单几乎都是一样的宽度，英文却很复杂较窄的有{@code 'i','l',':'}和部分符号而像
              {@code 'X','E','G'，’%'，‘@’}这类又比较宽，本方法取20个字符平均宽度为单字节宽度，format大多数是数字或数字相关的符号
              所以这里只计算数字和数字相关符号的平均宽度
              */
-            double s = fm.stringWidth("1234567890.,: %*-+<>") / 120.0D, d = font.getSize2() / 6.0D;
+            double s = FontWidthTable.of(font).stringWidth("1234567890.,: %*-+<>") / 120.0D, d = font.getSize2() / 6.0D;
             for (int i = 0; i < codes.length; i++) {
                 String code = codes[i];
                 double n = 0.0D;
@@ -273,6 +279,8 @@ public class NumFmt implements Cloneable, Comparable<NumFmt> {
             }
             return wc;
         });
+        lastCodeWidth = new CodeWidth(font, fmt, width);
+        return width;
     }
 
     @Override
@@ -324,6 +332,21 @@ public class NumFmt implements Cloneable, Comparable<NumFmt> {
         return Integer.compare(id, o.id);
     }
 
+    /**
+     * 字体与格式化串宽度的预计算结果
+     */
+    protected static final class CodeWidth {
+        final Font font;
+        final String code;
+        final int width;
+
+        CodeWidth(Font font, String code, int width) {
+            this.font = font;
+            this.code = code;
+            this.width = width;
+        }
+    }
+
     @Override
     public NumFmt clone() {
         NumFmt other;
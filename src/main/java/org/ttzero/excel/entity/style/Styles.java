@@ -22,6 +22,7 @@ import org.ttzero.excel.manager.TopNS;
 import org.ttzero.excel.entity.Storable;
 import org.ttzero.excel.manager.Const;
 import org.ttzero.excel.util.FileUtil;
+import org.ttzero.excel.util.IntIntHashMap;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.DocumentFactory;
@@ -37,11 +38,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -80,7 +79,7 @@ public class Styles implements Storable {
      * LOGGER
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(Styles.class);
-    private final Map<Integer, Integer> map;
+    private final IntIntHashMap map;
     private final AtomicInteger counter;
     private int[] styleIndex;
     private Document document;
@@ -96,8 +95,13 @@ public class Styles implements Storable {
      */
     private Set<Integer> dateFmtCache;
 
+    /**
+     * 并发模式，开启后所有查找和添加都在锁内执行，仅在并行输出时开启
+     */
+    private volatile boolean concurrent;
+
     private Styles() {
-        map = new HashMap<>();
+        map = new IntIntHashMap(64, -1);
         counter = new AtomicInteger();
         styleIndex = new int[10];
     }
@@ -110,7 +114,14 @@ public class Styles implements Storable {
      * @return 样式索引
      */
     public int of(int s) {
-        int n = map.getOrDefault(s, -1);
+        if (!concurrent) return of0(s);
+        synchronized (this) {
+            return of0(s);
+        }
+    }
+
+    private int of0(int s) {
+        int n = map.get(s);
         if (n == -1) {
             n = counter.getAndIncrement();
             map.put(s, n);
@@ -129,6 +140,13 @@ public class Styles implements Storable {
      * @return 样式值，查找失败时返回{@code -1}
      */
     public int getStyleByIndex(int styleIndex) {
+        if (!concurrent) return getStyleByIndex0(styleIndex);
+        synchronized (this) {
+            return getStyleByIndex0(styleIndex);
+        }
+    }
+
+    private int getStyleByIndex0(int styleIndex) {
         if (styleIndex >= counter.get()) {
             return -1;
         }
@@ -141,7 +159,31 @@ public class Styles implements Storable {
      * @return the total styles
      */
     public int size() {
-        return map.size();
+        if (!concurrent) return map.size();
+        synchronized (this) {
+            return map.size();
+        }
+    }
+
+    /**
+     * 开启或关闭并发模式，并发模式下所有查找和添加都在锁内执行以便多个线程共享样式，
+     * 非并发模式不加锁，只能在单个线程中使用
+     *
+     * @param concurrent {@code true}多个线程同时使用
+     * @return 当前样式
+     */
+    public Styles setConcurrent(boolean concurrent) {
+        this.concurrent = concurrent;
+        return this;
+    }
+
+    /**
+     * 是否为并发模式
+     *
+     * @return {@code true}并发模式
+     */
+    public boolean isConcurrent() {
+        return concurrent;
     }
 
     public static final int INDEX_NUMBER_FORMAT = 24;
@@ -391,8 +433,8 @@ public class Styles implements Storable {
         }
         self.counter.set(i);
         // Test number format
-        for (Integer styleIndex : self.map.values()) {
-            self.isDate(styleIndex);
+        for (int j = 0; j < i; j++) {
+            self.isDate(j);
         }
 
         return self;
@@ -407,6 +449,13 @@ public class Styles implements Storable {
      * @return 样式值中“格式化”部分的2进制值
      */
     public final int addNumFmt(NumFmt numFmt) {
+        if (!concurrent) return addNumFmt0(numFmt);
+        synchronized (this) {
+            return addNumFmt0(numFmt);
+        }
+    }
+
+    private int addNumFmt0(NumFmt numFmt) {
         if (numFmt.getId() < 0 || numFmt.getId() > 58) {
             if (isEmpty(numFmt.getCode())) {
                 throw new NullPointerException("NumFmt code");
@@ -443,6 +492,13 @@ public class Styles implements Storable {
      * @return 样式值中“字体”部分的2进制值
      */
     public final int addFont(Font font) {
+        if (!concurrent) return addFont0(font);
+        synchronized (this) {
+            return addFont0(font);
+        }
+    }
+
+    private int addFont0(Font font) {
         if (isEmpty(font.getName())) {
             throw new IllegalArgumentException("Font name not support.");
         }
@@ -463,6 +519,13 @@ public class Styles implements Storable {
      * @return 样式值中“填充”部分的2进制值
      */
     public final int addFill(Fill fill) {
+        if (!concurrent) return addFill0(fill);
+        synchronized (this) {
+            return addFill0(fill);
+        }
+    }
+
+    private int addFill0(Fill fill) {
         int i = fills.indexOf(fill);
         if (i <= -1) {
             i = fills.size();
@@ -480,6 +543,13 @@ public class Styles implements Storable {
      * @return 样式值中“边框”部分的2进制值
      */
     public final int addBorder(Border border) {
+        if (!concurrent) return addBorder0(border);
+        synchronized (this) {
+            return addBorder0(border);
+        }
+    }
+
+    private int addBorder0(Border border) {
         int i = borders.indexOf(border);
         if (i <= -1) {
             i = borders.size();
@@ -533,7 +603,7 @@ public class Styles implements Storable {
      * @throws IOException if I/O error occur
      */
     @Override
-    public void writeTo(Path styleFile) throws IOException {
+    public synchronized void writeTo(Path styleFile) throws IOException {
         if (document == null) document = createDocument();
         Element root = document.getRootElement();
 
@@ -831,6 +901,13 @@ public class Styles implements Storable {
      * @return 格式化或 {@code null}
      */
     public NumFmt getNumFmt(int style) {
+        if (!concurrent) return getNumFmt0(style);
+        synchronized (this) {
+            return getNumFmt0(style);
+        }
+    }
+
+    private NumFmt getNumFmt0(int style) {
         int n = style >>> INDEX_NUMBER_FORMAT;
         if (n <= 0) return null;
         NumFmt fmt = null;
@@ -857,7 +934,10 @@ public class Styles implements Storable {
      * @return 当前样式包含的格式化，不含格式化时返回{@code null}
      */
     public Fill getFill(int style) {
-        return fills.get(style << 14 >>> (INDEX_FILL + 14));
+        if (!concurrent) return fills.get(style << 14 >>> (INDEX_FILL + 14));
+        synchronized (this) {
+            return fills.get(style << 14 >>> (INDEX_FILL + 14));
+        }
     }
 
     /**
@@ -867,7 +947,10 @@ public class Styles implements Storable {
      * @return 当前样式包含的字体，样式一定包含字体
      */
     public Font getFont(int style) {
-        return fonts.get(Math.max(0, style << 8 >>> (INDEX_FONT + 8)));
+        if (!concurrent) return fonts.get(Math.max(0, style << 8 >>> (INDEX_FONT + 8)));
+        synchronized (this) {
+            return fonts.get(Math.max(0, style << 8 >>> (INDEX_FONT + 8)));
+        }
     }
 
     /**
@@ -877,7 +960,10 @@ public class Styles implements Storable {
      * @return 当前样式包含的边框，不含边框时返回{@code null}
      */
     public Border getBorder(int style) {
-        return borders.get(style << 20 >>> (INDEX_BORDER + 20));
+        if (!concurrent) return borders.get(style << 20 >>> (INDEX_BORDER + 20));
+        synchronized (this) {
+            return borders.get(style << 20 >>> (INDEX_BORDER + 20));
+        }
     }
 
     /**
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.hash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 内容摘要，使用128位{@code Murmur3}计算字节内容的摘要，用于识别内容相同的多媒体文件。
+ * 摘要不具备抗碰撞的安全性，仅用于去重，非线程安全
+ *
+ * @author guanquan.wang at 2024-12-05 10:12
+ */
+public final class ContentDigest {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private final Murmur3_128Hasher hasher = new Murmur3_128Hasher(0);
+    private long length;
+
+    /**
+     * 追加内容
+     *
+     * @param bytes 字节数组
+     * @param off   起始位置
+     * @param len   长度
+     * @return 当前摘要
+     */
+    public ContentDigest update(byte[] bytes, int off, int len) {
+        hasher.putBytes(bytes, off, len);
+        length += len;
+        return this;
+    }
+
+    /**
+     * 计算摘要并重置，摘要为32位十六进制字符加内容长度
+     *
+     * @return 摘要
+     */
+    public String digest() {
+        byte[] hash = hasher.hash();
+        char[] chars = new char[hash.length << 1];
+        for (int i = 0; i < hash.length; i++) {
+            chars[i << 1] = HEX[(hash[i] >>> 4) & 0xF];
+            chars[(i << 1) + 1] = HEX[hash[i] & 0xF];
+        }
+        String digest = new String(chars) + ':' + length;
+        hasher.clear();
+        length = 0L;
+        return digest;
+    }
+
+    /**
+     * 计算字节数组的摘要
+     *
+     * @param bytes 字节数组
+     * @return 摘要
+     */
+    public static String of(byte[] bytes) {
+        return new ContentDigest().update(bytes, 0, bytes.length).digest();
+    }
+
+    /**
+     * 计算{@code ByteBuffer}剩余内容的摘要，不改变{@code position}
+     *
+     * @param buffer 字节缓冲
+     * @return 摘要
+     */
+    public static String of(ByteBuffer buffer) {
+        ContentDigest digest = new ContentDigest();
+        if (buffer.hasArray()) {
+            digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            ByteBuffer dup = buffer.duplicate();
+            byte[] bytes = new byte[Math.min(dup.remaining(), 1 << 13)];
+            while (dup.hasRemaining()) {
+                int n = Math.min(dup.remaining(), bytes.length);
+                dup.get(bytes, 0, n);
+                digest.update(bytes, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * 计算文件内容的摘要
+     *
+     * @param path 文件路径
+     * @return 摘要
+     * @throws IOException if I/O error occur.
+     */
+    public static String of(Path path) throws IOException {
+        ContentDigest digest = new ContentDigest();
+        byte[] bytes = new byte[1 << 13];
+        try (InputStream is = Files.newInputStream(path)) {
+            for (int n; (n = is.read(bytes)) > 0; ) digest.update(bytes, 0, n);
+        }
+        return digest.digest();
+    }
+}
@@ -60,6 +60,42 @@ public final class StringBloomFilter implements Predicate<String>, Serializable
     static class Strategy {
         // Hasher Functions
         private final Murmur3_128Hasher hasher = new Murmur3_128Hasher(0);
+        // Reusable UTF-8 encoding buffer
+        private byte[] encoded = new byte[64];
+
+        /**
+         * Hash the string bytes. UTF-8 is encoded into a reusable buffer instead of
+         * {@link String#getBytes(Charset)}, so lookups do not allocate.
+         */
+        private byte[] hash(String object, Charset charset) {
+            hasher.clear();
+            if (charset != StandardCharsets.UTF_8) return hasher.putBytes(object.getBytes(charset)).hash();
+            int len = object.length(), n = 0;
+            if (encoded.length < len * 3) encoded = new byte[Math.max(len * 3, encoded.length << 1)];
+            byte[] b = encoded;
+            for (int i = 0; i < len; i++) {
+                char c = object.charAt(i);
+                if (c < 0x80) b[n++] = (byte) c;
+                else if (c < 0x800) {
+                    b[n++] = (byte) (0xC0 | (c >> 6));
+                    b[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(object.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, object.charAt(++i));
+                    b[n++] = (byte) (0xF0 | (cp >> 18));
+                    b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    b[n++] = (byte) (0x80 | (cp & 0x3F));
+                }
+                // Malformed surrogate, same as String#getBytes
+                else if (Character.isSurrogate(c)) b[n++] = '?';
+                else {
+                    b[n++] = (byte) (0xE0 | (c >> 12));
+                    b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return hasher.putBytes(b, 0, n).hash();
+        }
         /**
          * Sets {@code numHashFunctions} bits of the given bit array, by hashing a user element.
          *
@@ -67,7 +103,7 @@ public final class StringBloomFilter implements Predicate<String>, Serializable
          */
         public boolean put(String object, Charset charset, int numHashFunctions, LockFreeBitArray bits) {
             long bitSize = bits.bitSize();
-            byte[] bytes = hasher.clear().putBytes(object.getBytes(charset)).hash();
+            byte[] bytes = hash(object, charset);
             long hash1 = fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
             long hash2 = fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
 
@@ -87,7 +123,7 @@ public final class StringBloomFilter implements Predicate<String>, Serializable
          */
         public boolean mightContain(String object, Charset charset, int numHashFunctions, LockFreeBitArray bits) {
             long bitSize = bits.bitSize();
-            byte[] bytes = hasher.clear().putBytes(object.getBytes(charset)).hash();
+            byte[] bytes = hash(object, charset);
             long hash1 = fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
             long hash2 = fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
 
@@ -42,6 +42,7 @@ import org.ttzero.excel.util.FileUtil;
 import org.ttzero.excel.util.StringUtil;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -65,6 +66,7 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import java.util.zip.ZipEntry;
@@ -145,6 +147,14 @@ public class ExcelReader implements Closeable {
      * Excel原始文件
      */
     protected ZipFile zipFile;
+    /**
+     * 导入指标监听器
+     */
+    protected Consumer<ImportMetrics> metricsConsumer;
+    /**
+     * 打开时间和初始化耗时（纳秒）
+     */
+    protected long startNanos, initNanos;
 
     /**
      * 以只读"值"的方式读取Excel文件，如果文件为{@code xls}格式则需要将{@code eec-e3-support}添加进classpath，未识别到文件类型则抛{@link ExcelReadException}
@@ -317,6 +327,51 @@ public class ExcelReader implements Closeable {
         return sheets != null ? sheets.length : 0;
     }
 
+    /**
+     * 添加一个导入指标监听器，读取器关闭时回调解析行数、耗时、文件大小和共享字符区命中率
+     *
+     * <pre>
+     * try (ExcelReader reader = ExcelReader.read(path).onMetrics(System.out::println)) {
+     *     reader.sheet(0).rows().forEach(...);
+     * }</pre>
+     *
+     * @param metricsConsumer 指标监听器
+     * @return 当前读取器
+     */
+    public ExcelReader onMetrics(Consumer<ImportMetrics> metricsConsumer) {
+        this.metricsConsumer = metricsConsumer;
+        return this;
+    }
+
+    /**
+     * 汇总当前读取器的导入指标
+     *
+     * @return 导入指标
+     */
+    protected ImportMetrics collectMetrics() {
+        ImportMetrics metrics = new ImportMetrics();
+        long rows = 0L;
+        if (sheets != null) {
+            for (Sheet st : sheets) {
+                if (st instanceof XMLSheet) rows += ((XMLSheet) st).getParsedRows();
+            }
+        }
+        long fileBytes = 0L, bytesIn = 0L;
+        if (zipFile != null) {
+            fileBytes = new File(zipFile.getName()).length();
+            for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); ) {
+                long size = entries.nextElement().getSize();
+                if (size > 0L) bytesIn += size;
+            }
+        }
+        if (sharedStringTable != null) sharedStringTable.collect(metrics);
+        return metrics.setRows(rows)
+            .setFileBytes(fileBytes)
+            .setBytesIn(bytesIn)
+            .setInitNanos(initNanos)
+            .setElapsedNanos(startNanos > 0L ? System.nanoTime() - startNanos : 0L);
+    }
+
     /**
      * 关闭流并删除临时文件
      *
@@ -324,6 +379,13 @@ public class ExcelReader implements Closeable {
      */
     @Override
     public void close() throws IOException {
+        // Fire metrics before the counters are released
+        if (metricsConsumer != null) {
+            Consumer<ImportMetrics> consumer = metricsConsumer;
+            metricsConsumer = null;
+            consumer.accept(collectMetrics());
+        }
+
         // Close all opened sheet
         if (sheets != null) {
             for (Sheet st : sheets) st.close();
@@ -446,6 +508,7 @@ public class ExcelReader implements Closeable {
      * @throws IOException 读取异常
      */
     protected ExcelReader init(Path path) throws IOException {
+        startNanos = System.nanoTime();
         this.zipFile = new ZipFile(path.toFile());
         LOGGER.debug("Check file integrity.");
 
@@ -555,6 +618,7 @@ public class ExcelReader implements Closeable {
         sheets.toArray(sheets1);
 
         this.sheets = sheets1;
+        initNanos = System.nanoTime() - startNanos;
 
         return this;
     }
@@ -20,6 +20,7 @@ import org.ttzero.excel.annotation.ExcelColumn;
 import org.ttzero.excel.annotation.ExcelColumns;
 import org.ttzero.excel.annotation.IgnoreImport;
 import org.ttzero.excel.annotation.RowNum;
+import org.ttzero.excel.entity.AccessorFactory;
 import org.ttzero.excel.entity.Column;
 import org.ttzero.excel.entity.ListSheet;
 import org.ttzero.excel.manager.Const;
@@ -44,6 +45,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.ttzero.excel.entity.IWorksheetWriter.isBool;
@@ -87,6 +94,10 @@ public class HeaderRow extends Row {
     protected Map<String, Integer> mapping;
     /* Storage header column */
     protected ListSheet.EntryColumn[] columns;
+    /* Column binders compiled by setClass, null if fieldPut or methodPut is overridden */
+    protected Binder[] binders;
+    /* No-arg constructor compiled by setClass, null if the class is not accessible */
+    protected Supplier<Object> constructor;
 
     // Specify total rows of header
     protected int headRows;
@@ -321,6 +332,9 @@ public class HeaderRow extends Row {
                 .map(e -> (e instanceof ListSheet.EntryColumn) ? (ListSheet.EntryColumn) e : new ListSheet.EntryColumn(e))
                 .toArray(ListSheet.EntryColumn[]::new);
 
+        this.constructor = AccessorFactory.constructor(clazz);
+        this.binders = isPutOverridden() ? null : compileBinders();
+
         return this;
     }
 
@@ -350,10 +364,21 @@ public class HeaderRow extends Row {
      */
     protected HeaderRow setClassOnce(Class<?> clazz) throws IllegalAccessException, InstantiationException {
         setClass(clazz);
-        this.t = clazz.newInstance();
+        this.t = newInstance();
         return this;
     }
 
+    /**
+     * 创建绑定类型的实例，优先使用{@link #setClass}中编译的构造器
+     *
+     * @return 绑定类型的实例
+     * @throws IllegalAccessException -
+     * @throws InstantiationException -
+     */
+    protected Object newInstance() throws IllegalAccessException, InstantiationException {
+        return constructor != null ? constructor.get() : clazz.newInstance();
+    }
+
     protected ListSheet.EntryColumn[] getColumns() {
         return columns;
     }
@@ -462,11 +487,15 @@ public class HeaderRow extends Row {
     void put(Row row, Object t) throws IllegalAccessException, InvocationTargetException {
         int i = 0;
         try {
-            for (; i < columns.length; i++) {
-                if (columns[i].method != null)
-                    methodPut(i, row, t);
-                else
-                    fieldPut(i, row, t);
+            if (binders != null) {
+                for (Binder[] bs = binders; i < bs.length; i++) bs[i].bind(row, t);
+            } else {
+                for (; i < columns.length; i++) {
+                    if (columns[i].method != null)
+                        methodPut(i, row, t);
+                    else
+                        fieldPut(i, row, t);
+                }
             }
         }
         catch (IllegalAccessException | InvocationTargetException ex) {
@@ -668,6 +697,209 @@ public class HeaderRow extends Row {
         }
     }
 
+    /**
+     * 编译列绑定器，每列的取值方式和设值方式在此确定，后续每行转对象时只需依次调用绑定器，
+     * 不再逐单元格判断字段类型
+     *
+     * @return 列绑定器，与{@link #columns}一一对应
+     */
+    protected Binder[] compileBinders() {
+        Binder[] binders = new Binder[columns.length];
+        for (int i = 0; i < columns.length; i++) binders[i] = createBinder(i);
+        return binders;
+    }
+
+    /**
+     * 创建列绑定器，公开类的公开set方法通过{@link AccessorFactory}编译为函数接口，
+     * {@code int}、{@code long}和{@code double}直接从{@link Cell}取值不装箱，其余情况使用反射设值。
+     * 编译后的set方法抛出的异常与反射调用一样包装为{@link InvocationTargetException}
+     *
+     * @param i 列下标
+     * @return 列绑定器
+     */
+    protected Binder createBinder(int i) {
+        ListSheet.EntryColumn ec = columns[i];
+        final int c = ec.colIndex;
+        final Method method = ec.method;
+        final Field field = method == null ? ec.field : null;
+        // 与fieldPut保持一致
+        if (method == null && field == null) return (row, t) -> fieldPut(i, row, t);
+
+        // Primitive
+        if (ec.converter == null) {
+            if (ec.clazz == int.class) {
+                ObjIntConsumer<Object> s = method != null ? AccessorFactory.intSetter(method) : null;
+                if (s != null) return (row, t) -> {
+                    int v = intValue(row, c);
+                    try {
+                        s.accept(t, v);
+                    } catch (Throwable e) {
+                        throw new InvocationTargetException(e);
+                    }
+                };
+                if (field != null && field.getType() == int.class) return (row, t) -> field.setInt(t, intValue(row, c));
+            } else if (ec.clazz == long.class) {
+                ObjLongConsumer<Object> s = method != null ? AccessorFactory.longSetter(method) : null;
+                if (s != null) return (row, t) -> {
+                    long v = longValue(row, c);
+                    try {
+                        s.accept(t, v);
+                    } catch (Throwable e) {
+                        throw new InvocationTargetException(e);
+                    }
+                };
+                if (field != null && field.getType() == long.class) return (row, t) -> field.setLong(t, longValue(row, c));
+            } else if (ec.clazz == double.class) {
+                ObjDoubleConsumer<Object> s = method != null ? AccessorFactory.doubleSetter(method) : null;
+                if (s != null) return (row, t) -> {
+                    double v = doubleValue(row, c);
+                    try {
+                        s.accept(t, v);
+                    } catch (Throwable e) {
+                        throw new InvocationTargetException(e);
+                    }
+                };
+                if (field != null && field.getType() == double.class) return (row, t) -> field.setDouble(t, doubleValue(row, c));
+            }
+        }
+
+        Function<Row, Object> reader = valueReader(ec);
+        // 不支持的类型
+        if (reader == null) return (row, t) -> { };
+
+        ObjectSetter setter;
+        if (method != null) {
+            BiConsumer<Object, Object> s = AccessorFactory.setter(method);
+            setter = s != null ? (t, v) -> {
+                try {
+                    s.accept(t, v);
+                } catch (Throwable e) {
+                    throw new InvocationTargetException(e);
+                }
+            } : method::invoke;
+        } else setter = field::set;
+        return (row, t) -> setter.set(t, reader.apply(row));
+    }
+
+    /**
+     * 获取列的取值方式，与{@link #fieldPut}的类型判断保持一致
+     *
+     * @param ec 列
+     * @return 取值函数，不支持的类型返回{@code null}
+     */
+    protected static Function<Row, Object> valueReader(ListSheet.EntryColumn ec) {
+        final int c = ec.colIndex;
+        final Class<?> fieldClazz = ec.clazz;
+        if (ec.converter != null) {
+            final org.ttzero.excel.processor.Converter<?> converter = ec.converter;
+            return row -> converter.reversion(row.getString(c), fieldClazz);
+        }
+        if (fieldClazz == String.class) return row -> row.getString(c);
+        if (fieldClazz == Integer.class) return row -> row.getInt(c);
+        if (fieldClazz == Long.class) return row -> row.getLong(c);
+        if (fieldClazz == java.util.Date.class || fieldClazz == java.sql.Date.class) return row -> row.getDate(c);
+        if (fieldClazz == java.sql.Timestamp.class) return row -> row.getTimestamp(c);
+        if (fieldClazz == Double.class) return row -> row.getDouble(c);
+        if (fieldClazz == Float.class) return row -> row.getFloat(c);
+        if (fieldClazz == Boolean.class) return row -> row.getBoolean(c);
+        if (fieldClazz == BigDecimal.class) return row -> row.getDecimal(c);
+        if (fieldClazz == int.class) return row -> intValue(row, c);
+        if (fieldClazz == long.class) return row -> longValue(row, c);
+        if (fieldClazz == double.class) return row -> doubleValue(row, c);
+        if (fieldClazz == float.class) return row -> { Float v = row.getFloat(c); return v != null ? v : 0.0F; };
+        if (fieldClazz == boolean.class) return row -> { Boolean v = row.getBoolean(c); return v != null ? v : Boolean.FALSE; };
+        if (fieldClazz == java.sql.Time.class) return row -> row.getTime(c);
+        if (fieldClazz == LocalDateTime.class) return row -> row.getLocalDateTime(c);
+        if (fieldClazz == LocalDate.class) return row -> row.getLocalDate(c);
+        if (fieldClazz == LocalTime.class) return row -> row.getLocalTime(c);
+        if (fieldClazz == Character.class) return row -> row.getChar(c);
+        if (fieldClazz == Byte.class) return row -> row.getByte(c);
+        if (fieldClazz == Short.class) return row -> row.getShort(c);
+        if (fieldClazz == char.class) return row -> { Character v = row.getChar(c); return v != null ? v : Character.valueOf('\0'); };
+        if (fieldClazz == byte.class) return row -> { Byte v = row.getByte(c); return v != null ? v : Byte.valueOf((byte) 0); };
+        if (fieldClazz == short.class) return row -> { Short v = row.getShort(c); return v != null ? v : Short.valueOf((short) 0); };
+        if (fieldClazz == RowNum.class) return Row::getRowNum;
+        return null;
+    }
+
+    /**
+     * 数值类型单元格直接取值，其余类型与{@link Row#getInt(Cell)}一致
+     */
+    static int intValue(Row row, int columnIndex) {
+        Cell c = row.getCell(columnIndex);
+        switch (c.t) {
+            case Cell.NUMERIC: return c.intVal;
+            case Cell.LONG   : return (int) c.longVal;
+            case Cell.DOUBLE : return (int) c.doubleVal;
+            default:
+                Integer v = row.getInt(c);
+                return v != null ? v : 0;
+        }
+    }
+
+    /**
+     * 数值类型单元格直接取值，其余类型与{@link Row#getLong(Cell)}一致
+     */
+    static long longValue(Row row, int columnIndex) {
+        Cell c = row.getCell(columnIndex);
+        switch (c.t) {
+            case Cell.LONG   : return c.longVal;
+            case Cell.NUMERIC: return c.intVal;
+            case Cell.DOUBLE : return (long) c.doubleVal;
+            default:
+                Long v = row.getLong(c);
+                return v != null ? v : 0L;
+        }
+    }
+
+    /**
+     * 数值类型单元格直接取值，其余类型与{@link Row#getDouble(Cell)}一致
+     */
+    static double doubleValue(Row row, int columnIndex) {
+        Cell c = row.getCell(columnIndex);
+        switch (c.t) {
+            case Cell.DOUBLE : return c.doubleVal;
+            case Cell.NUMERIC: return c.intVal;
+            case Cell.LONG   : return c.longVal;
+            default:
+                Double v = row.getDouble(c);
+                return v != null ? v : 0.0D;
+        }
+    }
+
+    /**
+     * 子类覆写了{@link #fieldPut}或{@link #methodPut}时不使用列绑定器
+     */
+    private boolean isPutOverridden() {
+        for (Class<?> c = getClass(); c != HeaderRow.class; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                if ((m.getName().equals("fieldPut") || m.getName().equals("methodPut")) && m.getParameterCount() == 3) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 列绑定器，将行中对应单元格的值设置到对象
+     */
+    @FunctionalInterface
+    public interface Binder {
+        /**
+         * 绑定
+         *
+         * @param row 行
+         * @param t 绑定对象
+         * @throws IllegalAccessException -
+         * @throws InvocationTargetException -
+         */
+        void bind(Row row, Object t) throws IllegalAccessException, InvocationTargetException;
+    }
+
+    @FunctionalInterface
+    private interface ObjectSetter {
+        void set(Object t, Object v) throws IllegalAccessException, InvocationTargetException;
+    }
+
     /**
      * Ignore some columns, override this method to add custom filtering
      *
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.reader;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导入指标，{@link ExcelReader}关闭时通过{@link ExcelReader#onMetrics}回调，
+ * 包含初始化耗时、解析行数、文件大小以及共享字符区各级缓存的命中情况。
+ *
+ * <p>工作表是按需解析的，解析耗时与调用方处理数据的耗时交织在一起无法拆分，
+ * 所以吞吐量按读取器从打开到关闭的总耗时计算</p>
+ *
+ * @author guanquan.wang at 2024-12-06 14:35
+ */
+public class ImportMetrics {
+    private long elapsedNanos, initNanos, rows, fileBytes, bytesIn;
+    private int sstCount, sstUnique, sstForward, sstBackward, sstHot, sstDisk, testerResizes;
+
+    /**
+     * 每秒解析行数
+     *
+     * @return 按总耗时计算的每秒行数
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0L ? rows * 1_000_000_000D / elapsedNanos : 0D;
+    }
+
+    /**
+     * 共享字符区的内存命中率，即未回源到磁盘或原始文件的查找比例
+     *
+     * @return {@code 0-1}之间的命中率，没有查找时返回0
+     */
+    public double getSstHitRatio() {
+        return sstCount > 0 ? (double) (sstCount - sstDisk) / sstCount : 0D;
+    }
+
+    /**
+     * 获取读取器从打开到关闭的总耗时
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public ImportMetrics setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+        return this;
+    }
+
+    /**
+     * 获取初始化耗时，包含解析workbook、样式和加载共享字符区
+     *
+     * @return 耗时（纳秒）
+     */
+    public long getInitNanos() {
+        return initNanos;
+    }
+
+    public ImportMetrics setInitNanos(long initNanos) {
+        this.initNanos = initNanos;
+        return this;
+    }
+
+    /**
+     * 获取所有工作表已解析的行数
+     *
+     * @return 行数
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public ImportMetrics setRows(long rows) {
+        this.rows = rows;
+        return this;
+    }
+
+    /**
+     * 获取源文件字节数
+     *
+     * @return 字节数
+     */
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    public ImportMetrics setFileBytes(long fileBytes) {
+        this.fileBytes = fileBytes;
+        return this;
+    }
+
+    /**
+     * 获取所有条目解压后的字节数
+     *
+     * @return 字节数
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public ImportMetrics setBytesIn(long bytesIn) {
+        this.bytesIn = bytesIn;
+        return this;
+    }
+
+    /**
+     * 获取共享字符区的查找总数
+     *
+     * @return 查找次数
+     */
+    public int getSstCount() {
+        return sstCount;
+    }
+
+    public ImportMetrics setSstCount(int sstCount) {
+        this.sstCount = sstCount;
+        return this;
+    }
+
+    /**
+     * 获取共享字符区的唯一字符串个数，未知时为-1
+     *
+     * @return 唯一字符串个数
+     */
+    public int getSstUnique() {
+        return sstUnique;
+    }
+
+    public ImportMetrics setSstUnique(int sstUnique) {
+        this.sstUnique = sstUnique;
+        return this;
+    }
+
+    /**
+     * 获取前向缓冲区命中次数
+     *
+     * @return 命中次数
+     */
+    public int getSstForward() {
+        return sstForward;
+    }
+
+    public ImportMetrics setSstForward(int sstForward) {
+        this.sstForward = sstForward;
+        return this;
+    }
+
+    /**
+     * 获取后向缓冲区命中次数
+     *
+     * @return 命中次数
+     */
+    public int getSstBackward() {
+        return sstBackward;
+    }
+
+    public ImportMetrics setSstBackward(int sstBackward) {
+        this.sstBackward = sstBackward;
+        return this;
+    }
+
+    /**
+     * 获取热区命中次数
+     *
+     * @return 命中次数
+     */
+    public int getSstHot() {
+        return sstHot;
+    }
+
+    public ImportMetrics setSstHot(int sstHot) {
+        this.sstHot = sstHot;
+        return this;
+    }
+
+    /**
+     * 获取从磁盘索引表加载的次数
+     *
+     * @return 加载次数
+     */
+    public int getSstDisk() {
+        return sstDisk;
+    }
+
+    public ImportMetrics setSstDisk(int sstDisk) {
+        this.sstDisk = sstDisk;
+        return this;
+    }
+
+    /**
+     * 获取热区测试器的扩容次数
+     *
+     * @return 扩容次数
+     */
+    public int getTesterResizes() {
+        return testerResizes;
+    }
+
+    public ImportMetrics setTesterResizes(int testerResizes) {
+        this.testerResizes = testerResizes;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "Rows: " + rows
+            + ", Elapsed: " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms"
+            + ", Init: " + TimeUnit.NANOSECONDS.toMillis(initNanos) + "ms"
+            + ", Bytes: " + fileBytes + " -> " + bytesIn
+            + ", SST: {Count: " + sstCount + ", Unique: " + sstUnique + ", Forward: " + sstForward
+            + ", Backward: " + sstBackward + ", Hot: " + sstHot + ", Disk: " + sstDisk
+            + ", Tester Resize: " + testerResizes + "}";
+    }
+}
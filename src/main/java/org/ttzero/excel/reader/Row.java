@@ -1194,7 +1194,7 @@ public class Row {
         if (hr != null && hr.getClazz() != null) {
             T t;
             try {
-                t = (T) hr.getClazz().newInstance();
+                t = (T) hr.newInstance();
                 hr.put(this, t);
             } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
                 throw new UncheckedTypeException(hr.getClazz() + " new instance error.", e);
@@ -1249,7 +1249,7 @@ public class Row {
         }
         T t;
         try {
-            t = clazz.newInstance();
+            t = clazz.cast(hr.newInstance());
             hr.put(this, t);
         } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
             throw new UncheckedTypeException(clazz + " new instance error.", e);
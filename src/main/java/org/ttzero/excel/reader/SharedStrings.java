@@ -693,6 +693,21 @@ public class SharedStrings implements Closeable {
         return n;
     }
 
+    /**
+     * Collect the lookup and cache hit counters into the import metrics
+     *
+     * @param metrics the import metrics
+     */
+    public void collect(ImportMetrics metrics) {
+        metrics.setSstCount(total)
+            .setSstUnique(max)
+            .setSstForward(total_forward)
+            .setSstBackward(total_backward)
+            .setSstHot(total_hot)
+            .setSstDisk(total_sst)
+            .setTesterResizes(tester != null ? tester.analysis() : 0);
+    }
+
     /**
      * close stream and free space
      */
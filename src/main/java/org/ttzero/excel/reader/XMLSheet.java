@@ -38,6 +38,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -76,6 +77,7 @@ public class XMLSheet implements Sheet {
         this.mark = sheet.mark;
         this.sRow = (sheet.sRow == null || sheet.sRow.getClass() != XMLRow.class) && !eof ? createRow().init(sst, styles, startRow) : sheet.sRow;
         this.lastRowMark = sheet.lastRowMark;
+        this.parsedRows = sheet.parsedRows;
         this.hrf = sheet.hrf;
         this.hrl = sheet.hrl;
         this.zipFile = sheet.zipFile;
@@ -426,6 +428,10 @@ public class XMLSheet implements Sheet {
     // Shared row data, Record the current row
     protected XMLRow sRow;
     protected long lastRowMark;
+    /**
+     * 已解析的行数，重置游标后重复解析的行也会计入，转换后的工作表（如{@link #asMergeSheet()}）共用同一个计数器
+     */
+    protected LongAdder parsedRows = new LongAdder();
 
     /**
      * 加载sheet.xml并解析头信息，如果已加载则直接跳到标记位
@@ -532,6 +538,7 @@ public class XMLSheet implements Sheet {
         for (; ++nChar < length && cb[nChar] != '>'; ) ;
         // Empty Row
         if (nChar < length && cb[nChar - 1] == '/') {
+            parsedRows.increment();
             return sRow.empty(cb, start, nChar - start);
         }
         // Not empty
@@ -579,6 +586,7 @@ public class XMLSheet implements Sheet {
         }
 
         // share row
+        parsedRows.increment();
         return sRow.with(cb, start, nChar - start);
     }
 
@@ -656,6 +664,15 @@ public class XMLSheet implements Sheet {
      *
      * @throws IOException if io error occur
      */
+    /**
+     * 获取已解析的行数
+     *
+     * @return 行数
+     */
+    public long getParsedRows() {
+        return parsedRows.sum();
+    }
+
     @Override
     public void close() throws IOException {
         cb = null;
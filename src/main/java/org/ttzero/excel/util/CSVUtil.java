@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -953,6 +954,8 @@ public class CSVUtil {
         private int i;
         private char[] cb;
         private int offset;
+        // Scratch buffer of floating-point and decimal digits
+        private final byte[] decimalBuffer = new byte[DoubleToDecimal.MAX_CHARS];
         private final static int length = 8192;
 
         /**
@@ -979,7 +982,8 @@ public class CSVUtil {
          * @throws IOException If an I/O error occurs
          */
         private Writer(Path path, Charset charset) throws IOException {
-            this.writer = Files.newBufferedWriter(path, charset);
+            // UTF-8 is encoded straight into bytes
+            this.writer = StandardCharsets.UTF_8.equals(charset) ? ExtBufferedByteWriter.create(path) : Files.newBufferedWriter(path, charset);
             init();
         }
 
@@ -1091,11 +1095,8 @@ public class CSVUtil {
          */
         public void write(float f) throws IOException {
             test();
-            String fs = Float.toString(f);
-            int len = fs.length();
-            checkBound(len);
-            fs.getChars(0, len, cb, offset);
-            offset += len;
+            checkBound(DoubleToDecimal.MAX_CHARS);
+            writeAscii(DoubleToDecimal.toBytes(f, decimalBuffer, 0));
         }
 
         /**
@@ -1106,13 +1107,35 @@ public class CSVUtil {
          */
         public void write(double d) throws IOException {
             test();
-            String ds = Double.toString(d);
+            checkBound(DoubleToDecimal.MAX_CHARS);
+            writeAscii(DoubleToDecimal.toBytes(d, decimalBuffer, 0));
+        }
+
+        /**
+         * Writes a decimal value, same as {@link BigDecimal#toString()}
+         *
+         * @param d the decimal to be written
+         * @throws IOException If an I/O error occurs
+         */
+        public void write(BigDecimal d) throws IOException {
+            test();
+            checkBound(DoubleToDecimal.MAX_CHARS);
+            int n = DoubleToDecimal.toBytes(d, decimalBuffer, 0);
+            if (n >= 0) {
+                writeAscii(n);
+                return;
+            }
+            String ds = d.toString();
             int len = ds.length();
             checkBound(len);
             ds.getChars(0, len, cb, offset);
             offset += len;
         }
 
+        private void writeAscii(int n) {
+            for (int i = 0; i < n; i++) cb[offset++] = (char) decimalBuffer[i];
+        }
+
         /**
          * Compression and escape char sequence
          * - line-break, double-quote or commas should be quoted.
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 统计压缩前后字节数的ZIP输出流，压缩方式与{@link ZipOutputStream}完全相同，
+ * 仅在写入时累加原始字节数、在目标流上累加输出字节数，用于导出指标
+ *
+ * @author guanquan.wang at 2024-12-18 10:12
+ */
+public class CountingZipOutputStream extends ZipOutputStream {
+    private final CountingOutputStream counter;
+    private long bytesIn;
+
+    public CountingZipOutputStream(OutputStream os) {
+        this(new CountingOutputStream(os));
+    }
+
+    private CountingZipOutputStream(CountingOutputStream counter) {
+        super(counter);
+        this.counter = counter;
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        super.write(b, off, len);
+        bytesIn += len;
+    }
+
+    /**
+     * 获取已写入的原始（压缩前）字节数
+     *
+     * @return 字节数
+     */
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * 获取已输出到目标流的字节数，包含文件头和目录区
+     *
+     * @return 字节数
+     */
+    public long getBytesOut() {
+        return counter.count;
+    }
+
+    /**
+     * 统计输出字节数的输出流
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
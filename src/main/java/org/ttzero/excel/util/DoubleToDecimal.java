@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * 浮点数转最短十进制字符串，使用Raffaello Giulietti的Schubfach算法，
+ * 结果可以精确还原为原浮点数且位数最少，输出格式与{@link Double#toString(double)}相同，
+ * 数字直接写入调用方提供的字节数组，不产生任何对象。
+ *
+ * <p>算法所需的{@code 10^-k}近似值表在类加载时通过{@link BigInteger}计算</p>
+ *
+ * @author guanquan.wang at 2024-11-30 10:12
+ */
+public final class DoubleToDecimal {
+    private DoubleToDecimal() { }
+
+    /**
+     * 输出的最大长度，如{@code -2.2250738585072014E-308}
+     */
+    public static final int MAX_CHARS = 24;
+
+    // Double
+    private static final int P = 53, Q_MIN = -1074, BQ_MASK = 0x7FF;
+    private static final long T_MASK = (1L << (P - 1)) - 1, C_MIN = 1L << (P - 1), C_TINY = 3;
+    // Float
+    private static final int FP = 24, FQ_MIN = -149, FBQ_MASK = 0xFF, FT_MASK = (1 << (FP - 1)) - 1
+        , FC_MIN = 1 << (FP - 1), FC_TINY = 8;
+
+    private static final int K_MIN = -324, K_MAX = 292;
+    private static final long MASK_63 = (1L << 63) - 1, MASK_32 = 0xFFFFFFFFL;
+
+    /**
+     * {@code g = floor(10^-k * 2^-r) + 1}，{@code 2^125 <= 10^-k * 2^-r < 2^126}，
+     * 按{@code [g1, g0]}顺序保存，{@code g = g1 * 2^63 + g0}
+     */
+    private static final long[] G = new long[(K_MAX - K_MIN + 1) << 1];
+
+    static {
+        BigInteger mask = BigInteger.valueOf(MASK_63);
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            BigInteger g;
+            if (k <= 0) {
+                BigInteger n = BigInteger.TEN.pow(-k);
+                int r = n.bitLength() - 126;
+                g = (r >= 0 ? n.shiftRight(r) : n.shiftLeft(-r)).add(BigInteger.ONE);
+            } else {
+                BigInteger d = BigInteger.TEN.pow(k);
+                g = BigInteger.ONE.shiftLeft(d.bitLength() + 125).divide(d).add(BigInteger.ONE);
+            }
+            int i = (k - K_MIN) << 1;
+            G[i] = g.shiftRight(63).longValue();
+            G[i + 1] = g.and(mask).longValue();
+        }
+    }
+
+    /**
+     * 将双精度浮点数写入字节数组，需保证至少{@link #MAX_CHARS}个字节的空间
+     *
+     * @param v 双精度浮点数
+     * @param buf 目标数组
+     * @param off 起始下标
+     * @return 写入后的下标
+     */
+    public static int toBytes(double v, byte[] buf, int off) {
+        long bits = Double.doubleToRawLongBits(v);
+        long t = bits & T_MASK;
+        int bq = (int) (bits >>> (P - 1)) & BQ_MASK;
+        if (bq == BQ_MASK) return special(t != 0, bits < 0, buf, off);
+        if (bits < 0) buf[off++] = '-';
+        if (bq != 0) {
+            int mq = -Q_MIN + 1 - bq;
+            long c = C_MIN | t;
+            // Integer value
+            if (0 < mq & mq < P) {
+                long f = c >> mq;
+                if (f << mq == c) return toBytes(f, 0, buf, off);
+            }
+            return toDecimal(-mq, c, 0, buf, off);
+        }
+        if (t != 0) {
+            // Subnormal value
+            return t < C_TINY ? toDecimal(Q_MIN, 10 * t, -1, buf, off) : toDecimal(Q_MIN, t, 0, buf, off);
+        }
+        return zero(buf, off);
+    }
+
+    /**
+     * 将单精度浮点数写入字节数组，需保证至少{@link #MAX_CHARS}个字节的空间
+     *
+     * @param v 单精度浮点数
+     * @param buf 目标数组
+     * @param off 起始下标
+     * @return 写入后的下标
+     */
+    public static int toBytes(float v, byte[] buf, int off) {
+        int bits = Float.floatToRawIntBits(v);
+        int t = bits & FT_MASK;
+        int bq = (bits >>> (FP - 1)) & FBQ_MASK;
+        if (bq == FBQ_MASK) return special(t != 0, bits < 0, buf, off);
+        if (bits < 0) buf[off++] = '-';
+        if (bq != 0) {
+            int mq = -FQ_MIN + 1 - bq;
+            int c = FC_MIN | t;
+            if (0 < mq & mq < FP) {
+                int f = c >> mq;
+                if (f << mq == c) return toBytes(f, 0, buf, off);
+            }
+            return toDecimal(-mq, c, 0, buf, off);
+        }
+        if (t != 0) {
+            return t < FC_TINY ? toDecimal(FQ_MIN, 10 * t, -1, buf, off) : toDecimal(FQ_MIN, t, 0, buf, off);
+        }
+        return zero(buf, off);
+    }
+
+    /**
+     * 小数快速输出，仅处理精度和小数位都不超过15位且{@link BigDecimal#toString()}不使用科学计数法的值，
+     * 输出与{@link BigDecimal#toString()}相同，其余情况返回{@code -1}由调用方处理
+     *
+     * @param d 小数
+     * @param buf 目标数组
+     * @param off 起始下标
+     * @return 写入后的下标，不支持时返回{@code -1}
+     */
+    public static int toBytes(BigDecimal d, byte[] buf, int off) {
+        int scale = d.scale(), precision = d.precision();
+        if (scale < 0 || scale > 15 || precision > 15 || precision - scale < -5) return -1;
+        // precision() and doubleValue() do not allocate for the compact value,
+        // the unscaled value is less than 10^15 so it's exactly restored
+        long u = scale == 0 ? d.longValue() : Math.round(d.doubleValue() * POW10[scale]);
+        if (u < 0) {
+            buf[off++] = '-';
+            u = -u;
+        }
+        int n = digits(u);
+        if (scale == 0) return writeDigits(u, n, buf, off);
+        if (n <= scale) {
+            buf[off++] = '0';
+            buf[off++] = '.';
+            for (int i = n; i < scale; i++) buf[off++] = '0';
+            return writeDigits(u, n, buf, off);
+        }
+        int p = off + n - scale;
+        writeDigits(u, n, buf, off + 1);
+        System.arraycopy(buf, off + 1, buf, off, n - scale);
+        buf[p] = '.';
+        return off + n + 1;
+    }
+
+    private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15 };
+
+    private static int toDecimal(int q, long c, int dk, byte[] buf, int off) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // Regular spacing
+        if (c != C_MIN | q == Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 2;
+        int i = (k - K_MIN) << 1;
+        long g1 = G[i], g0 = G[i + 1];
+
+        long vb = rop(g1, g0, cb << h);
+        long vbl = rop(g1, g0, cbl << h);
+        long vbr = rop(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // s / 10 * 10
+            long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return toBytes(upin ? sp10 : tp10, k, buf, off);
+        }
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) return toBytes(uin ? s : t, k + dk, buf, off);
+        long cmp = vb - (s + t << 1);
+        return toBytes(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, off);
+    }
+
+    private static int toDecimal(int q, int c, int dk, byte[] buf, int off) {
+        int out = c & 0x1;
+        long cb = (long) c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FC_MIN | q == FQ_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        int h = q + flog2pow10(-k) + 33;
+        long g = G[(k - K_MIN) << 1] + 1;
+
+        int vb = rop(g, cb << h);
+        int vbl = rop(g, cbl << h);
+        int vbr = rop(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) return toBytes(upin ? sp10 : tp10, k, buf, off);
+        }
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) return toBytes(uin ? s : t, k + dk, buf, off);
+        int cmp = vb - (s + t << 1);
+        return toBytes(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buf, off);
+    }
+
+    private static long rop(long g1, long g0, long cp) {
+        long x1 = multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int rop(long g, long cp) {
+        long x1 = multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /**
+     * 按{@link Double#toString(double)}的格式输出{@code f * 10^e}，
+     * {@code 10^-3 <= v < 10^7}时使用普通格式，否则使用科学计数法
+     */
+    private static int toBytes(long f, int e, byte[] buf, int off) {
+        // Remove the trailing zeros
+        for (long q; f >= 10 && f - (q = f / 10) * 10 == 0; f = q, e++) ;
+        int n = digits(f);
+        // The exponent of scientific notation
+        int x = e + n - 1;
+        if (0 <= x && x < 7) {
+            if (n <= x + 1) {
+                off = writeDigits(f, n, buf, off);
+                for (int i = n; i <= x; i++) buf[off++] = '0';
+                buf[off++] = '.';
+                buf[off++] = '0';
+            } else {
+                // Leave a place for the point
+                int p = off + x + 1;
+                writeDigits(f, n, buf, off + 1);
+                System.arraycopy(buf, off + 1, buf, off, x + 1);
+                buf[p] = '.';
+                off += n + 1;
+            }
+        } else if (-3 <= x && x < 0) {
+            buf[off++] = '0';
+            buf[off++] = '.';
+            for (int i = -1; i > x; i--) buf[off++] = '0';
+            off = writeDigits(f, n, buf, off);
+        } else {
+            writeDigits(f, n, buf, off + 1);
+            buf[off] = buf[off + 1];
+            buf[off + 1] = '.';
+            if (n == 1) {
+                buf[off + 2] = '0';
+                off += 3;
+            } else off += n + 1;
+            buf[off++] = 'E';
+            if (x < 0) {
+                buf[off++] = '-';
+                x = -x;
+            }
+            off = writeDigits(x, digits(x), buf, off);
+        }
+        return off;
+    }
+
+    private static int writeDigits(long f, int n, byte[] buf, int off) {
+        int i = off + n;
+        do {
+            long q = f / 10;
+            buf[--i] = (byte) ('0' + (f - q * 10));
+            f = q;
+        } while (f > 0);
+        return off + n;
+    }
+
+    private static int digits(long f) {
+        int n = 1;
+        for (long p = 10; n < 19 && f >= p; p *= 10) n++;
+        return n;
+    }
+
+    private static int special(boolean nan, boolean negative, byte[] buf, int off) {
+        if (nan) {
+            buf[off++] = 'N'; buf[off++] = 'a'; buf[off++] = 'N';
+            return off;
+        }
+        if (negative) buf[off++] = '-';
+        for (byte b : INFINITY) buf[off++] = b;
+        return off;
+    }
+
+    private static final byte[] INFINITY = { 'I', 'n', 'f', 'i', 'n', 'i', 't', 'y' };
+
+    private static int zero(byte[] buf, int off) {
+        buf[off++] = '0';
+        buf[off++] = '.';
+        buf[off++] = '0';
+        return off;
+    }
+
+    // floor(e * log10(2))
+    static int flog10pow2(int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    // floor(e * log10(2) + log10(3/4))
+    static int flog10threeQuartersPow2(int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    // floor(e * log2(10))
+    static int flog2pow10(int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * Java 8没有{@code Math.multiplyHigh}，参考Hacker's Delight 8-2实现
+     */
+    static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32, x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32, y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+}
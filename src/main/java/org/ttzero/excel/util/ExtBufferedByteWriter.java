@@ -0,0 +1,435 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.Character.isHighSurrogate;
+import static java.lang.Character.isLowSurrogate;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * 字节输出流，字符在写入时直接按UTF-8编码到可复用的{@link ByteBuffer}中，不经过字符缓冲区和
+ * JDK的字符集编码器，转义和编码在一次遍历中完成，常量标签可以预先编码后通过{@link #writeBytes}写入。
+ *
+ * <p>输出到{@link OutputStream}或{@link WritableByteChannel}，只支持UTF-8编码，
+ * 无法配对的代理字符替换为{@link #MALFORMED_CHAR}。单线程使用</p>
+ *
+ * @author guanquan.wang at 2024-11-29 09:36
+ */
+public class ExtBufferedByteWriter extends ExtBufferedWriter {
+    private static final int defaultByteBufferSize = 1 << 16;
+    private static final byte[][] ESCAPE_BYTES = new byte[63][];
+
+    static {
+        ESCAPE_BYTES['<'] = "&lt;".getBytes(US_ASCII);
+        ESCAPE_BYTES['>'] = "&gt;".getBytes(US_ASCII);
+        ESCAPE_BYTES['&'] = "&amp;".getBytes(US_ASCII);
+        ESCAPE_BYTES['"'] = "&quot;".getBytes(US_ASCII);
+    }
+
+    private OutputStream os;
+    private WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    /**
+     * 缓冲区底层数组和当前写位置
+     */
+    private final byte[] buf;
+    private int pos;
+    /**
+     * 上一次写入末尾未配对的高代理字符
+     */
+    private char highSurrogate;
+
+    public ExtBufferedByteWriter(OutputStream os) {
+        this(os, defaultByteBufferSize);
+    }
+
+    public ExtBufferedByteWriter(OutputStream os, int sz) {
+        this(sz);
+        this.os = os;
+    }
+
+    public ExtBufferedByteWriter(WritableByteChannel channel) {
+        this(channel, defaultByteBufferSize);
+    }
+
+    public ExtBufferedByteWriter(WritableByteChannel channel, int sz) {
+        this(sz);
+        this.channel = channel;
+    }
+
+    private ExtBufferedByteWriter(int sz) {
+        // The char buffer is never used
+        super(new NullWriter(), 1);
+        if (sz < 16) throw new IllegalArgumentException("Buffer size < 16");
+        buffer = ByteBuffer.allocate(sz);
+        buf = buffer.array();
+    }
+
+    /**
+     * 创建文件输出流，文件已存在时覆盖
+     *
+     * @param path 文件路径
+     * @return ExtBufferedByteWriter
+     * @throws IOException if I/O error occur
+     */
+    public static ExtBufferedByteWriter create(Path path) throws IOException {
+        return new ExtBufferedByteWriter(FileChannel.open(path, StandardOpenOption.CREATE
+            , StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (c < 0x80 && highSurrogate == 0) {
+            if (pos == buf.length) flushBuffer();
+            buf[pos++] = (byte) c;
+        } else {
+            ensureCapacity(6);
+            encode((char) c);
+        }
+    }
+
+    @Override
+    public void write(char[] cb, int off, int len) throws IOException {
+        for (int end = off + len; off < end; ) {
+            // Keep room for the pending surrogate
+            int n = (buf.length - pos) / 3 - 1;
+            if (n <= 0) {
+                flushBuffer();
+                continue;
+            }
+            int i = off, limit = off + Math.min(end - off, n);
+            if (highSurrogate == 0) {
+                // ASCII fast path
+                for (char c; i < limit && (c = cb[i]) < 0x80; buf[pos++] = (byte) c, i++) ;
+            }
+            for (; i < limit; i++) encode(cb[i]);
+            off = limit;
+        }
+    }
+
+    @Override
+    public void write(String s, int off, int len) throws IOException {
+        for (int end = off + len; off < end; ) {
+            int n = (buf.length - pos) / 3 - 1;
+            if (n <= 0) {
+                flushBuffer();
+                continue;
+            }
+            int i = off, limit = off + Math.min(end - off, n);
+            if (highSurrogate == 0) {
+                for (char c; i < limit && (c = s.charAt(i)) < 0x80; buf[pos++] = (byte) c, i++) ;
+            }
+            for (; i < limit; i++) encode(s.charAt(i));
+            off = limit;
+        }
+    }
+
+    @Override
+    public void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    @Override
+    public void writeUTF8(char[] cb, int off, int len) throws IOException {
+        write(cb, off, len);
+    }
+
+    /**
+     * 写入预先编码的字节
+     *
+     * @param bytes UTF-8字节
+     * @throws IOException if I/O error occur
+     */
+    @Override
+    public void writeBytes(byte[] bytes) throws IOException {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 写入预先编码的字节
+     *
+     * @param bytes UTF-8字节
+     * @param off 起始下标
+     * @param len 长度
+     * @throws IOException if I/O error occur
+     */
+    @Override
+    public void writeBytes(byte[] bytes, int off, int len) throws IOException {
+        if (highSurrogate != 0) {
+            ensureCapacity(3);
+            malformed();
+        }
+        if (len > buf.length - pos) {
+            flushBuffer();
+            if (len > buf.length) {
+                writeTarget(ByteBuffer.wrap(bytes, off, len));
+                return;
+            }
+        }
+        System.arraycopy(bytes, off, buf, pos, len);
+        pos += len;
+    }
+
+    @Override
+    public void writeInt(int n) throws IOException {
+        ensureCapacity(14);
+        if (highSurrogate != 0) malformed();
+        if (n == Integer.MIN_VALUE) {
+            for (char c : MIN_INTEGER_CHARS) buf[pos++] = (byte) c;
+            return;
+        }
+        int size = stringSize(n), i = pos + size;
+        pos = i;
+        if (n < 0) {
+            buf[i - size] = '-';
+            n = -n;
+        }
+        do {
+            int q = n / 10;
+            buf[--i] = (byte) ('0' + n - q * 10);
+            n = q;
+        } while (n > 0);
+    }
+
+    @Override
+    public void write(long l) throws IOException {
+        ensureCapacity(23);
+        if (highSurrogate != 0) malformed();
+        if (l == Long.MIN_VALUE) {
+            for (char c : MIN_LONG_CHARS) buf[pos++] = (byte) c;
+            return;
+        }
+        int size = stringSize(l), i = pos + size;
+        pos = i;
+        if (l < 0) {
+            buf[i - size] = '-';
+            l = -l;
+        }
+        do {
+            long q = l / 10;
+            buf[--i] = (byte) ('0' + l - q * 10);
+            l = q;
+        } while (l > 0);
+    }
+
+    @Override
+    public void write(double d) throws IOException {
+        ensureCapacity(DoubleToDecimal.MAX_CHARS + 3);
+        if (highSurrogate != 0) malformed();
+        pos = DoubleToDecimal.toBytes(d, buf, pos);
+    }
+
+    @Override
+    public void write(float f) throws IOException {
+        ensureCapacity(DoubleToDecimal.MAX_CHARS + 3);
+        if (highSurrogate != 0) malformed();
+        pos = DoubleToDecimal.toBytes(f, buf, pos);
+    }
+
+    @Override
+    public void write(BigDecimal d) throws IOException {
+        ensureCapacity(DoubleToDecimal.MAX_CHARS + 3);
+        if (highSurrogate != 0) malformed();
+        int n = DoubleToDecimal.toBytes(d, buf, pos);
+        if (n >= 0) pos = n;
+        else write(d.toString());
+    }
+
+    @Override
+    public void escapeWrite(char c) throws IOException {
+        ensureCapacity(9);
+        if (highSurrogate != 0) malformed();
+        escape(c);
+    }
+
+    @Override
+    public void escapeWrite(String text) throws IOException {
+        if (highSurrogate != 0) {
+            ensureCapacity(3);
+            malformed();
+        }
+        for (int i = 0, size = text.length(); i < size; ) {
+            // Each char takes at most 6 bytes('&quot;')
+            int limit = Math.min(size, i + (buf.length - pos) / 6);
+            if (limit == i) {
+                flushBuffer();
+                continue;
+            }
+            for (char c; i < limit; i++) {
+                c = text.charAt(i);
+                if (c < 0x80) {
+                    if (c > 62) buf[pos++] = (byte) c;
+                    else escape(c);
+                }
+                else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+                else if (isHighSurrogate(c)) {
+                    char d;
+                    // A surrogate pair, the low surrogate may be outside the limit
+                    if (i + 1 < size && isLowSurrogate(d = text.charAt(i + 1))) {
+                        put4(Character.toCodePoint(c, d));
+                        i++;
+                    } else malformed();
+                }
+                else if (isLowSurrogate(c)) malformed();
+                else put3(c);
+            }
+        }
+    }
+
+    /**
+     * 转义单个字符并编码，调用前需保证至少6个字节的空间
+     */
+    private void escape(char c) {
+        if (c > 62) {
+            if (c < 0x80) buf[pos++] = (byte) c;
+            else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) malformed();
+            else put3(c);
+        }
+        // Display char
+        else if (c >= 32) {
+            byte[] ec = ESCAPE_BYTES[c];
+            if (ec != null) {
+                System.arraycopy(ec, 0, buf, pos, ec.length);
+                pos += ec.length;
+            } else buf[pos++] = (byte) c;
+        }
+        else if (c == 9 || c == 10 || c == 13) buf[pos++] = (byte) c;
+        else malformed();
+    }
+
+    /**
+     * 编码单个字符，调用前需保证至少6个字节的空间
+     */
+    private void encode(char c) {
+        if (highSurrogate != 0) {
+            if (isLowSurrogate(c)) {
+                put4(Character.toCodePoint(highSurrogate, c));
+                highSurrogate = 0;
+                return;
+            }
+            malformed();
+        }
+        if (c < 0x80) buf[pos++] = (byte) c;
+        else if (c < 0x800) {
+            buf[pos++] = (byte) (0xC0 | (c >> 6));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if (isHighSurrogate(c)) highSurrogate = c;
+        else if (isLowSurrogate(c)) malformed();
+        else put3(c);
+    }
+
+    private void put3(char c) {
+        buf[pos++] = (byte) (0xE0 | (c >> 12));
+        buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (c & 0x3F));
+    }
+
+    private void put4(int cp) {
+        buf[pos++] = (byte) (0xF0 | (cp >> 18));
+        buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+        buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+        buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+    }
+
+    /**
+     * 写入替换字符并丢弃未配对的高代理字符
+     */
+    private void malformed() {
+        highSurrogate = 0;
+        put3(MALFORMED_CHAR);
+    }
+
+    private void ensureCapacity(int n) throws IOException {
+        if (buf.length - pos < n) flushBuffer();
+    }
+
+    /**
+     * 将缓冲区数据写到目标流
+     *
+     * @throws IOException if I/O error occur
+     */
+    protected void flushBuffer() throws IOException {
+        if (pos > 0) {
+            buffer.clear().limit(pos);
+            writeTarget(buffer);
+            pos = 0;
+        }
+    }
+
+    private void writeTarget(ByteBuffer src) throws IOException {
+        if (os != null) {
+            os.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+        } else if (channel != null) {
+            while (src.hasRemaining()) channel.write(src);
+        } else throw new IOException("Stream closed");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        if (os != null) os.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (os == null && channel == null) return;
+        try {
+            if (highSurrogate != 0) {
+                ensureCapacity(3);
+                malformed();
+            }
+            flushBuffer();
+        } finally {
+            if (os != null) os.close();
+            if (channel != null) channel.close();
+            os = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * 占位，所有写操作都被覆写不会调用父类的字符缓冲区
+     */
+    private static class NullWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) { }
+
+        @Override
+        public void flush() { }
+
+        @Override
+        public void close() { }
+    }
+}
@@ -19,6 +19,7 @@ package org.ttzero.excel.util;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.Writer;
+import java.math.BigDecimal;
 
 import static java.lang.Character.isHighSurrogate;
 import static java.lang.Character.isLowSurrogate;
@@ -38,13 +39,30 @@ public class ExtBufferedWriter extends BufferedWriter {
 
     public ExtBufferedWriter(Writer out, int sz) {
         super(out, sz);
-
-        for (int i = 0; i < CACHE_CHAR_ARRAY.length; i++) {
-            CACHE_CHAR_ARRAY[i] = new char[i + 1];
-        }
     }
 
-    private final static char[][] CACHE_CHAR_ARRAY = new char[25][];
+    /**
+     * 数字转字符的缓存，每个线程独立一份，多个工作表并行输出时互不干扰
+     */
+    private final static ThreadLocal<char[][]> CACHE_CHAR_ARRAY = ThreadLocal.withInitial(() -> {
+        char[][] cache = new char[25][];
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new char[i + 1];
+        }
+        return cache;
+    });
+    /**
+     * 当前输出流的数字转字符缓冲区
+     */
+    private final char[] numberBuffer = new char[DoubleToDecimal.MAX_CHARS];
+    /**
+     * 浮点数和小数转字节的缓冲区
+     */
+    private final byte[] decimalBuffer = new byte[DoubleToDecimal.MAX_CHARS];
+    /**
+     * 转义输出时复用的字符缓冲区，按需扩容
+     */
+    private char[] escapeBuffer = new char[128];
     static final char[] MIN_INTEGER_CHARS = {'-', '2', '1', '4', '7', '4', '8', '3', '6', '4', '8'};
     static final char[] MIN_LONG_CHARS = "-9223372036854775808".toCharArray();
     private static final char[][] ESCAPE_CHARS = new char[63][];
@@ -69,8 +87,13 @@ public class ExtBufferedWriter extends BufferedWriter {
      * @throws IOException if I/O error occur
      */
     public void writeInt(int n) throws IOException {
-        char[] temp = toChars(n);
-        write(temp);
+        if (n == Integer.MIN_VALUE) {
+            write(MIN_INTEGER_CHARS);
+            return;
+        }
+        int size = stringSize(n);
+        getChars(n, size, numberBuffer);
+        write(numberBuffer, 0, size);
     }
 
     /**
@@ -80,8 +103,35 @@ public class ExtBufferedWriter extends BufferedWriter {
      * @throws IOException if I/O error occur
      */
     public void write(long l) throws IOException {
-        char[] temp = toChars(l);
-        write(temp);
+        if (l == Long.MIN_VALUE) {
+            write(MIN_LONG_CHARS);
+            return;
+        }
+        int size = stringSize(l);
+        getChars(l, size, numberBuffer);
+        write(numberBuffer, 0, size);
+    }
+
+    /**
+     * Write pre-encoded constant bytes, the bytes must be ASCII
+     *
+     * @param bytes the ASCII bytes
+     * @throws IOException if I/O error occur
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write pre-encoded constant bytes, the bytes must be ASCII
+     *
+     * @param bytes the ASCII bytes
+     * @param off the start offset
+     * @param len the number of bytes to write
+     * @throws IOException if I/O error occur
+     */
+    public void writeBytes(byte[] bytes, int off, int len) throws IOException {
+        for (int i = off, end = off + len; i < end; i++) write(bytes[i]);
     }
 
     /**
@@ -91,7 +141,24 @@ public class ExtBufferedWriter extends BufferedWriter {
      * @throws IOException if I/O error occur
      */
     public void write(float f) throws IOException {
-        write(Float.toString(f));
+        writeAscii(DoubleToDecimal.toBytes(f, decimalBuffer, 0));
+    }
+
+    /**
+     * Write decimal value, same as {@link BigDecimal#toString()}
+     *
+     * @param d the decimal value
+     * @throws IOException if I/O error occur
+     */
+    public void write(BigDecimal d) throws IOException {
+        int n = DoubleToDecimal.toBytes(d, decimalBuffer, 0);
+        if (n >= 0) writeAscii(n);
+        else write(d.toString());
+    }
+
+    private void writeAscii(int n) throws IOException {
+        for (int i = 0; i < n; i++) numberBuffer[i] = (char) decimalBuffer[i];
+        write(numberBuffer, 0, n);
     }
 
     /**
@@ -121,8 +188,10 @@ public class ExtBufferedWriter extends BufferedWriter {
      * @throws IOException if I/O error occur
      */
     public void escapeWrite(String text) throws IOException {
-        char[] block = text.toCharArray(), ec;
         int i, last = 0, size = text.length();
+        if (escapeBuffer.length < size) escapeBuffer = new char[Math.max(size, escapeBuffer.length << 1)];
+        char[] block = escapeBuffer, ec;
+        text.getChars(0, size, block, 0);
 
         for (i = 0; i < size; i++) {
             char c = block[i];
@@ -151,7 +220,7 @@ public class ExtBufferedWriter extends BufferedWriter {
      * @throws IOException if I/O error occur
      */
     public void write(double d) throws IOException {
-        write(Double.toString(d));
+        writeAscii(DoubleToDecimal.toBytes(d, decimalBuffer, 0));
     }
 
     /**
@@ -176,8 +245,9 @@ public class ExtBufferedWriter extends BufferedWriter {
         if (i == Integer.MIN_VALUE)
             return MIN_INTEGER_CHARS;
         int size = stringSize(i);
-        getChars(i, size, CACHE_CHAR_ARRAY[size - 1]);
-        return CACHE_CHAR_ARRAY[size - 1];
+        char[] cache = CACHE_CHAR_ARRAY.get()[size - 1];
+        getChars(i, size, cache);
+        return cache;
     }
 
 
@@ -212,8 +282,9 @@ public class ExtBufferedWriter extends BufferedWriter {
         if (i == Long.MIN_VALUE)
             return MIN_LONG_CHARS;
         int size = stringSize(i);
-        getChars(i, size, CACHE_CHAR_ARRAY[size - 1]);
-        return CACHE_CHAR_ARRAY[size - 1];
+        char[] cache = CACHE_CHAR_ARRAY.get()[size - 1];
+        getChars(i, size, cache);
+        return cache;
     }
 
     // Requires positive x
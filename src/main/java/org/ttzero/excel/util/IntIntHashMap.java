@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import java.util.Arrays;
+
+/**
+ * 基础类型{@code int -> int}哈希表，开放寻址（线性探测），键和值保存在同一个{@code int}数组中，
+ * 查询和写入不产生装箱对象，只在扩容时分配内存。
+ *
+ * <p>不支持删除，非线程安全</p>
+ *
+ * @author guanquan.wang at 2024-11-28 15:12
+ */
+public final class IntIntHashMap {
+    /**
+     * 键值交替存放{@code [key0, value0, key1, value1, ...]}
+     */
+    private int[] table;
+    /**
+     * 空槽标记，键等于此值时单独保存
+     */
+    private static final int FREE = 0;
+    private boolean hasFreeKey;
+    private int freeValue;
+    private int size, mask, threshold;
+    /**
+     * 查找失败时返回的值
+     */
+    private final int missingValue;
+
+    public IntIntHashMap() {
+        this(16, -1);
+    }
+
+    /**
+     * 创建哈希表
+     *
+     * @param initialCapacity 初始容量
+     * @param missingValue 查找失败时返回的值
+     */
+    public IntIntHashMap(int initialCapacity, int missingValue) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 4) - 1) << 2;
+        table = new int[capacity << 1];
+        mask = capacity - 1;
+        threshold = capacity >> 1;
+        this.missingValue = missingValue;
+    }
+
+    /**
+     * 获取键对应的值
+     *
+     * @param key 键
+     * @return 值，不存在时返回{@code missingValue}
+     */
+    public int get(int key) {
+        if (key == FREE) return hasFreeKey ? freeValue : missingValue;
+        int[] t = table;
+        for (int i = (mix(key) & mask) << 1; ; i = (i + 2) & (t.length - 1)) {
+            int k = t[i];
+            if (k == key) return t[i + 1];
+            if (k == FREE) return missingValue;
+        }
+    }
+
+    /**
+     * 添加或替换键值
+     *
+     * @param key 键
+     * @param value 值
+     * @return 旧值，不存在时返回{@code missingValue}
+     */
+    public int put(int key, int value) {
+        if (key == FREE) {
+            int old = hasFreeKey ? freeValue : missingValue;
+            if (!hasFreeKey) size++;
+            hasFreeKey = true;
+            freeValue = value;
+            return old;
+        }
+        int[] t = table;
+        int i = (mix(key) & mask) << 1;
+        for (; ; i = (i + 2) & (t.length - 1)) {
+            int k = t[i];
+            if (k == key) {
+                int old = t[i + 1];
+                t[i + 1] = value;
+                return old;
+            }
+            if (k == FREE) break;
+        }
+        t[i] = key;
+        t[i + 1] = value;
+        if (++size >= threshold) rehash();
+        return missingValue;
+    }
+
+    /**
+     * 键值对数量
+     *
+     * @return 数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 清空
+     */
+    public void clear() {
+        Arrays.fill(table, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+
+    private void rehash() {
+        int[] old = table;
+        int capacity = (mask + 1) << 1;
+        table = new int[capacity << 1];
+        mask = capacity - 1;
+        threshold = capacity >> 1;
+        for (int j = 0; j < old.length; j += 2) {
+            int k = old[j];
+            if (k == FREE) continue;
+            int i = (mix(k) & mask) << 1;
+            for (; table[i] != FREE; i = (i + 2) & (table.length - 1)) ;
+            table[i] = k;
+            table[i + 1] = old[j + 1];
+        }
+    }
+
+    private static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
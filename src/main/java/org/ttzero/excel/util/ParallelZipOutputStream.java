@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 分块并行压缩的ZIP输出流，参考pigz的实现将较大的条目按{@link #blockSize}切分为多个块，
+ * 每个块使用前一个块末尾32K数据作为字典并行deflate，压缩结果按顺序拼接为一个完整的deflate流，
+ * CRC由写入线程顺序计算。
+ *
+ * <p>每个条目的压缩级别由{@link CompressionPolicy}决定，压缩级别为{@link #STORED}时条目以STORED方式
+ * 直接存储不进行压缩，适用于内网等带宽充足的场景</p>
+ *
+ * <p>该类继承{@link ZipOutputStream}仅为方便替换，所有写入方法均已重写，自行输出本地文件头、
+ * 数据描述符和中央目录，超过4G时自动使用ZIP64格式</p>
+ *
+ * @author guanquan.wang at 2024-11-25 14:06
+ */
+public class ParallelZipOutputStream extends ZipOutputStream {
+    /**
+     * 以STORED方式存储不压缩
+     */
+    public static final int STORED = Deflater.NO_COMPRESSION;
+    /**
+     * 默认块大小128K
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 17;
+    /**
+     * deflate字典大小
+     */
+    static final int DICTIONARY_SIZE = 1 << 15;
+
+    static final long LOCSIG = 0x04034b50L, EXTSIG = 0x08074b50L, CENSIG = 0x02014b50L, ENDSIG = 0x06054b50L
+        , ZIP64_ENDSIG = 0x06064b50L, ZIP64_LOCSIG = 0x07064b50L;
+    static final long ZIP64_MAGICVAL = 0xFFFFFFFFL;
+    static final int ZIP64_MAGICCOUNT = 0xFFFF, ZIP64_EXTID = 0x0001;
+    static final int FLAG_DATA_DESCRIPTOR = 1 << 3, FLAG_UTF8 = 1 << 11;
+
+    /**
+     * 条目压缩策略，根据条目名返回压缩级别
+     */
+    @FunctionalInterface
+    public interface CompressionPolicy {
+        /**
+         * 获取条目的压缩级别
+         *
+         * @param name 条目名，如{@code xl/worksheets/sheet1.xml}
+         * @return 压缩级别{@code -1-9}，返回{@link #STORED}时不压缩
+         */
+        int levelOf(String name);
+    }
+
+    private final OutputStream out;
+    private final Executor executor;
+    private final int blockSize, maxPending;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final CRC32 crc = new CRC32();
+    private CompressionPolicy policy;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+    private long written, totalIn;
+    private byte[] comment;
+    private boolean finished, closed;
+
+    // Current entry
+    private Entry current;
+    private int currentLevel;
+    private byte[] block, dictionary;
+    private int blockPos;
+    private ArrayDeque<CompletableFuture<byte[]>> pending;
+    private StoredBuffer stored;
+
+    /**
+     * 创建一个在当前线程压缩的ZIP输出流
+     *
+     * @param out 目标输出流
+     */
+    public ParallelZipOutputStream(OutputStream out) {
+        this(out, null, 1);
+    }
+
+    /**
+     * 创建一个分块并行压缩的ZIP输出流
+     *
+     * @param out         目标输出流
+     * @param executor    压缩线程池，为{@code null}时在当前线程压缩
+     * @param parallelism 并行度，决定同时压缩的最大块数
+     */
+    public ParallelZipOutputStream(OutputStream out, Executor executor, int parallelism) {
+        this(out, executor, parallelism, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * 创建一个分块并行压缩的ZIP输出流
+     *
+     * @param out         目标输出流
+     * @param executor    压缩线程池，为{@code null}时在当前线程压缩
+     * @param parallelism 并行度，决定同时压缩的最大块数
+     * @param blockSize   块大小，不能小于字典大小32K
+     */
+    public ParallelZipOutputStream(OutputStream out, Executor executor, int parallelism, int blockSize) {
+        super(out);
+        if (blockSize < DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("Block size must be greater than or equal to " + DICTIONARY_SIZE);
+        }
+        this.out = out;
+        this.executor = executor;
+        this.blockSize = blockSize;
+        this.maxPending = Math.max(parallelism, 1) << 1;
+    }
+
+    /**
+     * 设置条目压缩策略，未设置时所有条目使用{@link #setLevel(int)}指定的压缩级别
+     *
+     * @param policy 压缩策略
+     * @return 当前输出流
+     */
+    public ParallelZipOutputStream setCompressionPolicy(CompressionPolicy policy) {
+        this.policy = policy;
+        return this;
+    }
+
+    /**
+     * 获取已写入的原始（压缩前）字节数
+     *
+     * @return 字节数
+     */
+    public long getBytesIn() {
+        return totalIn;
+    }
+
+    /**
+     * 获取已输出到目标流的字节数，包含文件头和目录区
+     *
+     * @return 字节数
+     */
+    public long getBytesOut() {
+        return written;
+    }
+
+    @Override
+    public void setLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        this.level = level;
+    }
+
+    @Override
+    public void setComment(String comment) {
+        this.comment = comment != null ? comment.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public void putNextEntry(ZipEntry e) throws IOException {
+        ensureOpen();
+        if (current != null) closeEntry();
+        if (!names.add(e.getName())) {
+            throw new ZipException("duplicate entry: " + e.getName());
+        }
+        current = new Entry(e.getName(), e.getTime() != -1 ? e.getTime() : System.currentTimeMillis());
+        currentLevel = policy != null ? policy.levelOf(e.getName()) : level;
+        if (e.getMethod() == ZipEntry.STORED && e.getSize() >= 0 && e.getCrc() >= 0) {
+            // CRC和大小已知，直接写本地文件头，内容无需缓存
+            current.method = ZipEntry.STORED;
+            current.crc = e.getCrc();
+            current.size = current.csize = e.getSize();
+            current.offset = written;
+            writeLocalHeader(current);
+            current.size = 0L;
+        } else if (e.getMethod() == ZipEntry.STORED || currentLevel == STORED) {
+            current.method = ZipEntry.STORED;
+            stored = new StoredBuffer(blockSize);
+        } else {
+            current.method = ZipEntry.DEFLATED;
+            current.offset = written;
+            writeLocalHeader(current);
+            block = new byte[blockSize];
+            blockPos = 0;
+            dictionary = null;
+            pending = new ArrayDeque<>();
+        }
+        crc.reset();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        byte[] buf = { (byte) b };
+        write(buf, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (current == null) throw new ZipException("no current ZIP entry");
+        if (off < 0 || len < 0 || off > b.length - len) throw new IndexOutOfBoundsException();
+        if (len == 0) return;
+        crc.update(b, off, len);
+        current.size += len;
+        totalIn += len;
+        if (current.method == ZipEntry.STORED) {
+            if (stored != null) stored.write(b, off, len);
+            else writeRaw(b, off, len);
+            return;
+        }
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockPos);
+            System.arraycopy(b, off, block, blockPos, n);
+            blockPos += n;
+            off += n;
+            len -= n;
+            // 块已满提交压缩
+            if (blockPos == blockSize) submitBlock(false);
+        }
+    }
+
+    @Override
+    public void closeEntry() throws IOException {
+        ensureOpen();
+        if (current == null) return;
+        Entry e = current;
+        if (e.method == ZipEntry.STORED && stored == null) {
+            if (e.crc != crc.getValue() || e.csize != e.size) {
+                throw new ZipException("invalid entry crc-32 or size: " + e.name);
+            }
+        } else if (e.method == ZipEntry.STORED) {
+            e.crc = crc.getValue();
+            e.csize = e.size;
+            e.offset = written;
+            writeLocalHeader(e);
+            try {
+                stored.transferTo(this::writeRaw);
+            } finally {
+                stored.close();
+                stored = null;
+            }
+        } else {
+            e.crc = crc.getValue();
+            submitBlock(true);
+            while (!pending.isEmpty()) writeBlock(pending.poll());
+            block = dictionary = null;
+            pending = null;
+            writeDataDescriptor(e);
+        }
+        entries.add(e);
+        current = null;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (finished) return;
+        if (current != null) closeEntry();
+
+        long cdOffset = written;
+        for (Entry e : entries) writeCentralHeader(e);
+        long cdSize = written - cdOffset;
+        int count = entries.size();
+        boolean zip64 = count >= ZIP64_MAGICCOUNT || cdOffset >= ZIP64_MAGICVAL || cdSize >= ZIP64_MAGICVAL;
+        if (zip64) {
+            long zip64EndOffset = written;
+            writeInt(ZIP64_ENDSIG);
+            writeLong(44L);
+            writeShort(45);
+            writeShort(45);
+            writeInt(0);
+            writeInt(0);
+            writeLong(count);
+            writeLong(count);
+            writeLong(cdSize);
+            writeLong(cdOffset);
+            // locator
+            writeInt(ZIP64_LOCSIG);
+            writeInt(0);
+            writeLong(zip64EndOffset);
+            writeInt(1);
+        }
+        writeInt(ENDSIG);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+        writeShort(Math.min(count, ZIP64_MAGICCOUNT));
+        writeInt(Math.min(cdSize, ZIP64_MAGICVAL));
+        writeInt(Math.min(cdOffset, ZIP64_MAGICVAL));
+        if (comment != null) {
+            writeShort(comment.length);
+            writeRaw(comment, 0, comment.length);
+        } else writeShort(0);
+        out.flush();
+        finished = true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        try {
+            finish();
+        } finally {
+            closed = true;
+            for (Deflater d; (d = deflaters.poll()) != null; d.end());
+            // The default deflater created by ZipOutputStream
+            def.end();
+            if (stored != null) stored.close();
+            out.close();
+        }
+    }
+
+    /**
+     * 提交当前块压缩，最后一个块结束deflate流
+     *
+     * @param last 是否为最后一个块
+     * @throws IOException if I/O error occur
+     */
+    protected void submitBlock(boolean last) throws IOException {
+        final byte[] data = block, dict = dictionary;
+        final int len = blockPos, lv = currentLevel;
+        // 小条目或未设置线程池时直接压缩
+        if (executor == null || last && pending.isEmpty()) {
+            writeBlock(CompletableFuture.completedFuture(deflate(data, len, dict, lv, last)));
+        } else {
+            // 控制内存占用，等待最早的块完成
+            while (pending.size() >= maxPending) writeBlock(pending.poll());
+            pending.add(CompletableFuture.supplyAsync(() -> deflate(data, len, dict, lv, last), executor));
+        }
+        if (!last) {
+            // 当前块的末尾作为下一个块的字典
+            dictionary = Arrays.copyOfRange(data, len - DICTIONARY_SIZE, len);
+            block = new byte[blockSize];
+            blockPos = 0;
+        }
+    }
+
+    /**
+     * 压缩一个块，非最后一个块使用SYNC_FLUSH保证字节对齐以便拼接
+     */
+    byte[] deflate(byte[] data, int len, byte[] dict, int lv, boolean last) {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) deflater = new Deflater(lv, true);
+        else deflater.setLevel(lv);
+        try {
+            if (dict != null) deflater.setDictionary(dict);
+            deflater.setInput(data, 0, len);
+            byte[] buf = new byte[Math.max(len + (len >> 4) + 64, 256)];
+            int n = 0;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (n == buf.length) buf = Arrays.copyOf(buf, buf.length << 1);
+                    n += deflater.deflate(buf, n, buf.length - n);
+                }
+            } else {
+                for (; ; ) {
+                    if (n == buf.length) buf = Arrays.copyOf(buf, buf.length << 1);
+                    int i = deflater.deflate(buf, n, buf.length - n, Deflater.SYNC_FLUSH);
+                    n += i;
+                    if (n < buf.length) break;
+                }
+            }
+            return n == buf.length ? buf : Arrays.copyOf(buf, n);
+        } finally {
+            deflater.reset();
+            deflaters.offer(deflater);
+        }
+    }
+
+    private void writeBlock(CompletableFuture<byte[]> future) throws IOException {
+        byte[] data;
+        try {
+            data = future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+        current.csize += data.length;
+        writeRaw(data, 0, data.length);
+    }
+
+    private void writeLocalHeader(Entry e) throws IOException {
+        byte[] name = e.name.getBytes(StandardCharsets.UTF_8);
+        boolean stored = e.method == ZipEntry.STORED, zip64 = stored && e.size >= ZIP64_MAGICVAL;
+        writeInt(LOCSIG);
+        writeShort(zip64 ? 45 : 20);
+        writeShort(stored ? FLAG_UTF8 : FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        writeShort(e.method);
+        writeInt(e.dosTime);
+        if (stored) {
+            writeInt(e.crc);
+            writeInt(zip64 ? ZIP64_MAGICVAL : e.csize);
+            writeInt(zip64 ? ZIP64_MAGICVAL : e.size);
+        } else {
+            // CRC and sizes are in the data descriptor
+            writeInt(0);
+            writeInt(0);
+            writeInt(0);
+        }
+        writeShort(name.length);
+        writeShort(zip64 ? 20 : 0);
+        writeRaw(name, 0, name.length);
+        if (zip64) {
+            writeShort(ZIP64_EXTID);
+            writeShort(16);
+            writeLong(e.size);
+            writeLong(e.csize);
+        }
+    }
+
+    private void writeDataDescriptor(Entry e) throws IOException {
+        writeInt(EXTSIG);
+        writeInt(e.crc);
+        if (e.csize >= ZIP64_MAGICVAL || e.size >= ZIP64_MAGICVAL) {
+            writeLong(e.csize);
+            writeLong(e.size);
+        } else {
+            writeInt(e.csize);
+            writeInt(e.size);
+        }
+    }
+
+    private void writeCentralHeader(Entry e) throws IOException {
+        byte[] name = e.name.getBytes(StandardCharsets.UTF_8);
+        boolean hasSize = e.size >= ZIP64_MAGICVAL, hasCsize = e.csize >= ZIP64_MAGICVAL, hasOffset = e.offset >= ZIP64_MAGICVAL;
+        int extLen = (hasSize ? 8 : 0) + (hasCsize ? 8 : 0) + (hasOffset ? 8 : 0);
+        int version = extLen > 0 ? 45 : 20;
+        writeInt(CENSIG);
+        writeShort(version);
+        writeShort(version);
+        writeShort(e.method == ZipEntry.STORED ? FLAG_UTF8 : FLAG_UTF8 | FLAG_DATA_DESCRIPTOR);
+        writeShort(e.method);
+        writeInt(e.dosTime);
+        writeInt(e.crc);
+        writeInt(hasCsize ? ZIP64_MAGICVAL : e.csize);
+        writeInt(hasSize ? ZIP64_MAGICVAL : e.size);
+        writeShort(name.length);
+        writeShort(extLen > 0 ? extLen + 4 : 0);
+        writeShort(0); // comment
+        writeShort(0); // disk number
+        writeShort(0); // internal attributes
+        writeInt(0);   // external attributes
+        writeInt(hasOffset ? ZIP64_MAGICVAL : e.offset);
+        writeRaw(name, 0, name.length);
+        if (extLen > 0) {
+            writeShort(ZIP64_EXTID);
+            writeShort(extLen);
+            if (hasSize) writeLong(e.size);
+            if (hasCsize) writeLong(e.csize);
+            if (hasOffset) writeLong(e.offset);
+        }
+    }
+
+    private final byte[] scratch = new byte[8];
+
+    private void writeShort(int v) throws IOException {
+        scratch[0] = (byte) v;
+        scratch[1] = (byte) (v >>> 8);
+        writeRaw(scratch, 0, 2);
+    }
+
+    private void writeInt(long v) throws IOException {
+        scratch[0] = (byte) v;
+        scratch[1] = (byte) (v >>> 8);
+        scratch[2] = (byte) (v >>> 16);
+        scratch[3] = (byte) (v >>> 24);
+        writeRaw(scratch, 0, 4);
+    }
+
+    private void writeLong(long v) throws IOException {
+        for (int i = 0; i < 8; i++) scratch[i] = (byte) (v >>> (i << 3));
+        writeRaw(scratch, 0, 8);
+    }
+
+    private void writeRaw(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        written += len;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (finished) throw new ZipException("ZIP stream already finished");
+    }
+
+    /**
+     * 转为DOS时间
+     *
+     * @param time 毫秒时间戳
+     * @return DOS时间
+     */
+    static long dosTime(long time) {
+        LocalDateTime d = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        int year = d.getYear() - 1980;
+        if (year < 0) return (1 << 21) | (1 << 16);
+        return ((long) year << 25 | d.getMonthValue() << 21 | d.getDayOfMonth() << 16
+            | d.getHour() << 11 | d.getMinute() << 5 | d.getSecond() >> 1) & 0xFFFFFFFFL;
+    }
+
+    static class Entry {
+        final String name;
+        final long dosTime;
+        int method;
+        long crc, size, csize, offset;
+
+        Entry(String name, long time) {
+            this.name = name;
+            this.dosTime = dosTime(time);
+        }
+    }
+
+    @FunctionalInterface
+    interface RawWriter {
+        void write(byte[] b, int off, int len) throws IOException;
+    }
+
+    /**
+     * STORED条目需要在本地文件头中写入CRC和大小，所以先缓存数据，超过阈值后转存到临时文件
+     */
+    static class StoredBuffer {
+        final int threshold;
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        Path temp;
+        OutputStream os;
+
+        StoredBuffer(int threshold) {
+            this.threshold = threshold;
+        }
+
+        void write(byte[] b, int off, int len) throws IOException {
+            if (os == null && buf.size() + len > threshold) {
+                temp = Files.createTempFile("~", ".stored");
+                os = Files.newOutputStream(temp);
+                buf.writeTo(os);
+                buf = null;
+            }
+            if (os != null) os.write(b, off, len);
+            else buf.write(b, off, len);
+        }
+
+        void transferTo(RawWriter writer) throws IOException {
+            if (os == null) {
+                byte[] data = buf.toByteArray();
+                writer.write(data, 0, data.length);
+                return;
+            }
+            os.close();
+            os = null;
+            byte[] data = new byte[1 << 13];
+            try (InputStream is = Files.newInputStream(temp)) {
+                for (int n; (n = is.read(data)) > 0; ) writer.write(data, 0, n);
+            }
+        }
+
+        void close() {
+            FileUtil.close(os);
+            if (temp != null) FileUtil.rm(temp);
+        }
+    }
+}
@@ -141,6 +141,33 @@ public class ZipUtil {
         return destPath;
     }
 
+    /**
+     * Append all files in the root path to an opened zip stream, the entry name
+     * is the relative path of root and the stream will not be closed
+     *
+     * @param zos  the opened zip output stream
+     * @param root the root path
+     * @throws IOException if error occur.
+     */
+    public static void zipExcludeRoot(ZipOutputStream zos, Path root) throws IOException {
+        List<Path> paths = new ArrayList<>(subPath(root));
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            if (Files.isDirectory(path)) {
+                paths.addAll(subPath(path));
+                continue;
+            }
+            StringBuilder name = new StringBuilder();
+            for (Path p : root.relativize(path)) {
+                if (name.length() > 0) name.append('/');
+                name.append(p);
+            }
+            zos.putNextEntry(new ZipEntry(name.toString()));
+            Files.copy(path, zos);
+            zos.closeEntry();
+        }
+    }
+
     private static List<Path> subPath(Path path) throws IOException {
         try (Stream<Path> fileStream = Files.list(path)) {
             return fileStream.collect(Collectors.toList());
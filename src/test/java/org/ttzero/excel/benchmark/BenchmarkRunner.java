@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * 运行所有基准测试，结果以JSON格式输出到{@code target/jmh-result.json}方便与上一次提交的结果对比，
+ * 可以通过第一个参数指定需要运行的基准测试（正则表达式）
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.BenchmarkRunner XMLRow"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 16:05
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName() + ".*Benchmark";
+        new File("target").mkdirs();
+        new Runner(new OptionsBuilder()
+            .include(include)
+            .addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result("target/jmh-result.json")
+            .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.util.CSVUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CSVUtil}解析基准测试，{@link CSVUtil}只接受文件路径，所以数据在{@code Setup}阶段生成到临时文件，
+ * {@code plain}为普通字段，{@code quoted}为包含引号、逗号和换行的转义字段
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.CSVUtilBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 15:00
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CSVUtilBenchmark {
+    private static final int ROWS = 10_000, COLUMNS = 10;
+
+    @Param({"plain", "quoted"})
+    public String content;
+
+    private Path path;
+
+    @Setup public void setup() throws IOException {
+        path = Files.createTempFile("eec-bench-", ".csv");
+        boolean quoted = "quoted".equals(content);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < ROWS; i++) {
+                for (int j = 0; j < COLUMNS; j++) {
+                    if (j > 0) writer.write(',');
+                    if (quoted) writer.write("\"say \"\"hi\"\", " + i + "\nline " + j + "\"");
+                    else writer.write("value" + i + '_' + j);
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    @TearDown public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Benchmark public long sharedStream() throws IOException {
+        try (CSVUtil.Reader reader = CSVUtil.newReader(path)) {
+            return reader.sharedStream().mapToInt(a -> a[a.length - 1].length()).sum();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CSVUtilBenchmark.class.getSimpleName()).build()).run();
+    }
+}
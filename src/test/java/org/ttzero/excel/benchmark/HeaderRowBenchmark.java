@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.annotation.ExcelColumn;
+import org.ttzero.excel.entity.ListSheet;
+import org.ttzero.excel.entity.Workbook;
+import org.ttzero.excel.reader.ExcelReader;
+import org.ttzero.excel.reader.HeaderRow;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HeaderRow}对象绑定基准测试，工作簿在内存中生成，{@code bind}将每行转为Java Bean，
+ * {@code strings}为逐个单元格取字符串作为对照，两者的差值即为绑定的开销
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.HeaderRowBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 15:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderRowBenchmark {
+    private static final int ROWS = 10_000;
+
+    private byte[] bytes;
+
+    @Setup public void setup() throws IOException {
+        List<Item> list = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Item e = new Item();
+            e.id = i;
+            e.code = 100_000L + i;
+            e.name = "name" + (i % 100);
+            e.price = BigDecimal.valueOf(i, 2);
+            e.rate = i / 7D;
+            e.enabled = (i & 1) == 0;
+            list.add(e);
+        }
+        ByteArrayOutputStream os = new ByteArrayOutputStream(1 << 20);
+        new Workbook().addSheet(new ListSheet<>(list)).writeTo(os);
+        bytes = os.toByteArray();
+    }
+
+    @Benchmark public long bind() throws IOException {
+        try (ExcelReader reader = ExcelReader.read(new ByteArrayInputStream(bytes))) {
+            return reader.sheet(0).dataRows().map(row -> row.to(Item.class)).mapToLong(e -> e.code).sum();
+        }
+    }
+
+    @Benchmark public long strings() throws IOException {
+        try (ExcelReader reader = ExcelReader.read(new ByteArrayInputStream(bytes))) {
+            return reader.sheet(0).dataRows().mapToLong(row -> {
+                long n = 0L;
+                for (int i = row.getFirstColumnIndex(), end = row.getLastColumnIndex(); i < end; i++) {
+                    String s = row.getString(i);
+                    if (s != null) n += s.length();
+                }
+                return n;
+            }).sum();
+        }
+    }
+
+    public static class Item {
+        @ExcelColumn
+        private int id;
+        @ExcelColumn
+        private long code;
+        @ExcelColumn
+        private String name;
+        @ExcelColumn
+        private BigDecimal price;
+        @ExcelColumn
+        private double rate;
+        @ExcelColumn
+        private boolean enabled;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HeaderRowBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.entity.ExcelWriteException;
+import org.ttzero.excel.entity.ListSheet;
+import org.ttzero.excel.entity.Row;
+import org.ttzero.excel.entity.RowBlock;
+import org.ttzero.excel.entity.Workbook;
+import org.ttzero.excel.entity.e7.XMLCellValueAndStyle;
+import org.ttzero.excel.entity.e7.XMLWorksheetWriter;
+import org.ttzero.excel.reader.Cell;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ListSheet}装填行块基准测试，50列的Java Bean（int、long、double、String混合），
+ * {@code reflect}为原来逐个单元格{@code Method.invoke}的方式，{@code compiled}为预编译取值器
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.ListSheetBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-03 15:20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListSheetBenchmark {
+    private static final int ROWS = 1 << 12;
+
+    @Param({"reflect", "compiled"})
+    public String accessor;
+
+    private List<Bean50> data;
+
+    @Setup public void setup() {
+        Random random = new Random(0);
+        data = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            Bean50 e = new Bean50();
+            e.c00 = random.nextInt();
+            e.c01 = random.nextLong();
+            e.c02 = random.nextDouble();
+            e.c03 = "s" + random.nextInt(1000);
+            e.c04 = random.nextInt();
+            e.c05 = random.nextInt();
+            e.c06 = random.nextLong();
+            e.c07 = random.nextDouble();
+            e.c08 = "s" + random.nextInt(1000);
+            e.c09 = random.nextInt();
+            e.c10 = random.nextInt();
+            e.c11 = random.nextLong();
+            e.c12 = random.nextDouble();
+            e.c13 = "s" + random.nextInt(1000);
+            e.c14 = random.nextInt();
+            e.c15 = random.nextInt();
+            e.c16 = random.nextLong();
+            e.c17 = random.nextDouble();
+            e.c18 = "s" + random.nextInt(1000);
+            e.c19 = random.nextInt();
+            e.c20 = random.nextInt();
+            e.c21 = random.nextLong();
+            e.c22 = random.nextDouble();
+            e.c23 = "s" + random.nextInt(1000);
+            e.c24 = random.nextInt();
+            e.c25 = random.nextInt();
+            e.c26 = random.nextLong();
+            e.c27 = random.nextDouble();
+            e.c28 = "s" + random.nextInt(1000);
+            e.c29 = random.nextInt();
+            e.c30 = random.nextInt();
+            e.c31 = random.nextLong();
+            e.c32 = random.nextDouble();
+            e.c33 = "s" + random.nextInt(1000);
+            e.c34 = random.nextInt();
+            e.c35 = random.nextInt();
+            e.c36 = random.nextLong();
+            e.c37 = random.nextDouble();
+            e.c38 = "s" + random.nextInt(1000);
+            e.c39 = random.nextInt();
+            e.c40 = random.nextInt();
+            e.c41 = random.nextLong();
+            e.c42 = random.nextDouble();
+            e.c43 = "s" + random.nextInt(1000);
+            e.c44 = random.nextInt();
+            e.c45 = random.nextInt();
+            e.c46 = random.nextLong();
+            e.c47 = random.nextDouble();
+            e.c48 = "s" + random.nextInt(1000);
+            e.c49 = random.nextInt();
+            data.add(e);
+        }
+    }
+
+    /**
+     * 装填{@value #ROWS}行数据
+     */
+    @Benchmark public int fill() {
+        BenchListSheet sheet = "reflect".equals(accessor) ? new ReflectListSheet(data) : new BenchListSheet(data);
+        new Workbook().addSheet(sheet);
+        sheet.prepare();
+        int n = 0;
+        for (RowBlock block = sheet.nextBlock(); ; block = sheet.nextBlock()) {
+            n += block.limit();
+            if (block.isEOF()) break;
+        }
+        return n;
+    }
+
+    public static class BenchListSheet extends ListSheet<Bean50> {
+        BenchListSheet(List<Bean50> data) {
+            super(new ArrayList<>(data));
+        }
+
+        void prepare() {
+            forceExport();
+            setSheetWriter(new XMLWorksheetWriter(this));
+            setCellValueAndStyle(new XMLCellValueAndStyle());
+            rowBlock = new RowBlock(getRowBlockSize());
+            getAndSortHeaderColumns();
+            paging();
+        }
+    }
+
+    /**
+     * 原有实现，每个单元格通过反射取值
+     */
+    public static class ReflectListSheet extends BenchListSheet {
+        ReflectListSheet(List<Bean50> data) {
+            super(data);
+        }
+
+        @Override
+        protected void resetBlockData() {
+            if (!eof && left() < rowBlock.capacity()) append();
+            int end = getEndIndex(), len = columns.length;
+            try {
+                for (; start < end; rows++, start++) {
+                    Row row = rowBlock.next();
+                    Cell[] cells = row.realloc(len);
+                    Bean50 o = data.get(start);
+                    for (int i = 0; i < len; i++) {
+                        Cell cell = cells[i];
+                        cell.clear();
+                        EntryColumn column = (EntryColumn) columns[i];
+                        cellValueAndStyle.reset(row, cell, column.getMethod().invoke(o), column);
+                    }
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new ExcelWriteException(e);
+            }
+        }
+    }
+
+    public static class Bean50 {
+        private int c00;
+        private long c01;
+        private double c02;
+        private String c03;
+        private int c04;
+        private int c05;
+        private long c06;
+        private double c07;
+        private String c08;
+        private int c09;
+        private int c10;
+        private long c11;
+        private double c12;
+        private String c13;
+        private int c14;
+        private int c15;
+        private long c16;
+        private double c17;
+        private String c18;
+        private int c19;
+        private int c20;
+        private long c21;
+        private double c22;
+        private String c23;
+        private int c24;
+        private int c25;
+        private long c26;
+        private double c27;
+        private String c28;
+        private int c29;
+        private int c30;
+        private long c31;
+        private double c32;
+        private String c33;
+        private int c34;
+        private int c35;
+        private long c36;
+        private double c37;
+        private String c38;
+        private int c39;
+        private int c40;
+        private long c41;
+        private double c42;
+        private String c43;
+        private int c44;
+        private int c45;
+        private long c46;
+        private double c47;
+        private String c48;
+        private int c49;
+
+        public int getC00() { return c00; }
+        public long getC01() { return c01; }
+        public double getC02() { return c02; }
+        public String getC03() { return c03; }
+        public int getC04() { return c04; }
+        public int getC05() { return c05; }
+        public long getC06() { return c06; }
+        public double getC07() { return c07; }
+        public String getC08() { return c08; }
+        public int getC09() { return c09; }
+        public int getC10() { return c10; }
+        public long getC11() { return c11; }
+        public double getC12() { return c12; }
+        public String getC13() { return c13; }
+        public int getC14() { return c14; }
+        public int getC15() { return c15; }
+        public long getC16() { return c16; }
+        public double getC17() { return c17; }
+        public String getC18() { return c18; }
+        public int getC19() { return c19; }
+        public int getC20() { return c20; }
+        public long getC21() { return c21; }
+        public double getC22() { return c22; }
+        public String getC23() { return c23; }
+        public int getC24() { return c24; }
+        public int getC25() { return c25; }
+        public long getC26() { return c26; }
+        public double getC27() { return c27; }
+        public String getC28() { return c28; }
+        public int getC29() { return c29; }
+        public int getC30() { return c30; }
+        public long getC31() { return c31; }
+        public double getC32() { return c32; }
+        public String getC33() { return c33; }
+        public int getC34() { return c34; }
+        public int getC35() { return c35; }
+        public long getC36() { return c36; }
+        public double getC37() { return c37; }
+        public String getC38() { return c38; }
+        public int getC39() { return c39; }
+        public int getC40() { return c40; }
+        public long getC41() { return c41; }
+        public double getC42() { return c42; }
+        public String getC43() { return c43; }
+        public int getC44() { return c44; }
+        public int getC45() { return c45; }
+        public long getC46() { return c46; }
+        public double getC47() { return c47; }
+        public String getC48() { return c48; }
+        public int getC49() { return c49; }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ListSheetBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.benchmark;
+
+import org.ttzero.excel.entity.CSVSheet;
+import org.ttzero.excel.entity.Column;
+import org.ttzero.excel.entity.ExportMetrics;
+import org.ttzero.excel.entity.ListMapSheet;
+import org.ttzero.excel.entity.ListSheet;
+import org.ttzero.excel.entity.ResultSetSheet;
+import org.ttzero.excel.entity.Sheet;
+import org.ttzero.excel.entity.SimpleSheet;
+import org.ttzero.excel.entity.StatementSheet;
+import org.ttzero.excel.entity.TemplateSheet;
+import org.ttzero.excel.entity.Workbook;
+import org.ttzero.excel.reader.ExcelReader;
+import org.ttzero.excel.reader.Row;
+import org.ttzero.excel.util.CSVUtil;
+import org.ttzero.excel.util.FileUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 端到端导出/导入基准测试，按行数×列数生成数据集，依次使用{@code ListSheet}、{@code ListMapSheet}、
+ * {@code ResultSetSheet}、{@code StatementSheet}（sqlite）、{@code CSVSheet}和{@code TemplateSheet}导出，
+ * 再使用{@code ExcelReader}以value、merge、calc和full四种模式读取导出结果。
+ *
+ * <p>每次运行记录总耗时、堆内存峰值、分配字节数、GC次数和停顿时间、临时文件字节数以及文件大小，
+ * 结果以JSON格式输出，可以直接比较两个版本的差异。数据按行号和列号计算得出，
+ * 所以每个数据源每次运行的数据都完全相同，准备数据源（写sqlite和CSV文件）的耗时不计入结果。</p>
+ *
+ * <p>分配字节数为所有存活线程的{@code getThreadAllocatedBytes}之差，运行期间结束的线程无法统计，
+ * 堆内存峰值为各个堆内存池峰值之和，它们都是近似值，只适合同一环境下纵向比较。
+ * 导入时临时文件字节数未知，输出{@code -1}</p>
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-Xmx2g -Deec.bench.rows=1000000 -cp %classpath org.ttzero.excel.benchmark.MacroBenchmark"
+ * </pre>
+ *
+ * <p>可选参数（系统属性）：</p>
+ * <ul>
+ *     <li>{@code eec.bench.rows} 行数，多个值以逗号分隔，默认{@code 1000000,10000000}</li>
+ *     <li>{@code eec.bench.columns} 列数，默认{@code 10,50,200}</li>
+ *     <li>{@code eec.bench.sources} 数据源，默认{@code list,map,resultSet,statement,csv,template}</li>
+ *     <li>{@code eec.bench.modes} 读取模式，默认{@code value,merge,calc,full}</li>
+ *     <li>{@code eec.bench.pictures} 是否添加图片列（仅list和map），默认{@code true}</li>
+ *     <li>{@code eec.bench.label} 报告中的版本标签</li>
+ *     <li>{@code eec.bench.report} 报告路径，默认{@code target/macro-benchmark.json}</li>
+ * </ul>
+ *
+ * @author guanquan.wang at 2024-12-10 10:15
+ */
+public class MacroBenchmark {
+    private static final int BATCH = 10_000, KINDS = 8;
+    private static final long BASE_TIME = 1704038400000L, YEAR_MILLIS = 365L * 24 * 3600 * 1000;
+
+    private final long rows;
+    private final int columns;
+    private final boolean pictures;
+    private final Path root;
+    private final byte[] picture;
+    private final List<Result> results;
+
+    MacroBenchmark(long rows, int columns, boolean pictures, Path root, byte[] picture, List<Result> results) {
+        this.rows = rows;
+        this.columns = columns;
+        this.pictures = pictures;
+        this.root = root;
+        this.picture = picture;
+        this.results = results;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long[] rowsArray = Arrays.stream(prop("eec.bench.rows", "1000000,10000000")).mapToLong(Long::parseLong).toArray();
+        int[] columnsArray = Arrays.stream(prop("eec.bench.columns", "10,50,200")).mapToInt(Integer::parseInt).toArray();
+        String[] sources = prop("eec.bench.sources", "list,map,resultSet,statement,csv,template");
+        String[] modes = prop("eec.bench.modes", "value,merge,calc,full");
+        boolean pictures = Boolean.parseBoolean(System.getProperty("eec.bench.pictures", "true"));
+        Path report = Paths.get(System.getProperty("eec.bench.report", "target/macro-benchmark.json"));
+
+        byte[] picture;
+        try (InputStream is = MacroBenchmark.class.getClassLoader().getResourceAsStream("mark.png")) {
+            picture = is != null ? readAll(is) : null;
+        }
+
+        List<Result> results = new ArrayList<>();
+        Path root = Files.createTempDirectory("eec-macro-");
+        try {
+            for (long rows : rowsArray) {
+                for (int columns : columnsArray) {
+                    MacroBenchmark bench = new MacroBenchmark(rows, columns, pictures && picture != null, root, picture, results);
+                    for (String source : sources) {
+                        Path path = bench.export(source);
+                        for (String mode : modes) bench.read(source, mode, path);
+                        if (!Boolean.getBoolean("eec.bench.keep")) Files.deleteIfExists(path);
+                    }
+                    bench.cleanup();
+                }
+            }
+        } finally {
+            if (!Boolean.getBoolean("eec.bench.keep")) FileUtil.rm_rf(root);
+        }
+
+        writeReport(report, results);
+        System.out.println("Report: " + report.toAbsolutePath());
+    }
+
+    /**
+     * 使用指定数据源导出
+     *
+     * @param source 数据源
+     * @return 导出文件路径
+     */
+    Path export(String source) throws Exception {
+        Path path = root.resolve(source + "-" + rows + "x" + columns + ".xlsx");
+        Connection con = null;
+        Statement st = null;
+        try {
+            Sheet sheet;
+            switch (source) {
+                case "list"      : sheet = listSheet();                                break;
+                case "map"       : sheet = mapSheet();                                 break;
+                case "csv"       : sheet = new CSVSheet(csvFile());                    break;
+                case "template"  : sheet = templateSheet();                            break;
+                case "statement" :
+                    con = connection();
+                    sheet = new StatementSheet(con, "select * from t");
+                    break;
+                case "resultSet" :
+                    con = connection();
+                    st = con.createStatement();
+                    sheet = new ResultSetSheet(st.executeQuery("select * from t"));
+                    break;
+                default: throw new IllegalArgumentException("Unknown source " + source);
+            }
+
+            AtomicReference<ExportMetrics> ref = new AtomicReference<>();
+            Probe probe = Probe.start();
+            new Workbook().onMetrics(ref::set).addSheet(sheet).writeTo(path);
+            Result result = probe.stop("export", source, null, rows, columns);
+
+            ExportMetrics metrics = ref.get();
+            result.tempDiskBytes = metrics != null ? metrics.getSstTempBytes() + metrics.getMediaBytes() : -1L;
+            result.fileBytes = Files.size(path);
+            add(result);
+        } finally {
+            if (st != null) st.close();
+            if (con != null) con.close();
+        }
+        return path;
+    }
+
+    /**
+     * 以指定模式读取导出结果
+     *
+     * @param source 数据源
+     * @param mode   读取模式
+     * @param path   文件路径
+     */
+    void read(String source, String mode, Path path) throws IOException {
+        Probe probe = Probe.start();
+        long n = 0L;
+        try (ExcelReader reader = ExcelReader.read(path)) {
+            for (int k = 0, count = reader.getSheetCount(); k < count; k++) {
+                org.ttzero.excel.reader.Sheet sheet = reader.sheet(k);
+                switch (mode) {
+                    case "merge" : sheet = sheet.asMergeSheet(); break;
+                    case "calc"  : sheet = sheet.asCalcSheet();  break;
+                    case "full"  : sheet = sheet.asFullSheet();  break;
+                    default:
+                }
+                for (Iterator<Row> iter = sheet.iterator(); iter.hasNext(); ) {
+                    Row row = iter.next();
+                    for (int i = row.getFirstColumnIndex(), end = row.getLastColumnIndex(); i < end; i++) {
+                        String s = row.getString(i);
+                        if (s != null) n += s.length();
+                    }
+                }
+            }
+        }
+        Result result = probe.stop("import", source, mode, rows, columns);
+        result.tempDiskBytes = -1L;
+        result.fileBytes = Files.size(path);
+        add(result);
+    }
+
+    void cleanup() throws IOException {
+        Files.deleteIfExists(root.resolve("data.csv"));
+        Files.deleteIfExists(root.resolve("data.db"));
+        Files.deleteIfExists(root.resolve("template.xlsx"));
+    }
+
+    private void add(Result result) {
+        results.add(result);
+        System.out.println(result);
+    }
+
+    /**
+     * 根据行号和列号计算单元格的值，列的类型按列号依次循环
+     */
+    static Object value(long row, int col) {
+        long x = mix(row * 1_000_003L + col);
+        switch (col % KINDS) {
+            case 0 : return (int) row;
+            case 1 : return x;
+            case 2 : return (x & 0xFFFFFFL) / 100D;
+            case 3 : return BigDecimal.valueOf(x & 0xFFFFFFFL, 2);
+            case 4 : return new Timestamp(BASE_TIME + Math.floorMod(x, YEAR_MILLIS));
+            case 5 : return (x & 1) == 0;
+            // 低基数字符串
+            case 6 : return "city-" + (x & 63);
+            // 高基数字符串
+            default: return "u" + Long.toHexString(x);
+        }
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    Sheet listSheet() {
+        List<Column> list = new ArrayList<>(columns + 1);
+        for (int i = 0; i < columns; i++) list.add(new Column("c" + i, "f" + (i % KINDS)));
+        if (pictures) list.add(new Column("pic", "pic").writeAsMedia().setWidth(10));
+        return new ListSheet<Rec>(list.toArray(new Column[0])) {
+            private long next;
+            @Override
+            protected List<Rec> more() {
+                int size = (int) Math.min(BATCH, MacroBenchmark.this.rows - next);
+                if (size <= 0) return null;
+                List<Rec> sub = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) sub.add(new Rec(next++, pictures ? picture : null));
+                return sub;
+            }
+        };
+    }
+
+    Sheet mapSheet() {
+        List<Column> list = new ArrayList<>(columns + 1);
+        for (int i = 0; i < columns; i++) list.add(new Column("c" + i, "c" + i));
+        if (pictures) list.add(new Column("pic", "pic").writeAsMedia().setWidth(10));
+        return new ListMapSheet<Object>(list.toArray(new Column[0])) {
+            private long next;
+            @Override
+            protected List<Map<String, Object>> more() {
+                int size = (int) Math.min(BATCH, MacroBenchmark.this.rows - next);
+                if (size <= 0) return null;
+                List<Map<String, Object>> sub = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    Map<String, Object> map = toMap(next++);
+                    if (pictures) map.put("pic", picture);
+                    sub.add(map);
+                }
+                return sub;
+            }
+        };
+    }
+
+    Sheet templateSheet() throws IOException {
+        Path template = root.resolve("template.xlsx");
+        if (!Files.exists(template)) {
+            Column[] header = new Column[columns];
+            List<Object> placeholders = new ArrayList<>(columns);
+            for (int i = 0; i < columns; i++) {
+                header[i] = new Column("c" + i);
+                placeholders.add("${c" + i + "}");
+            }
+            new Workbook().addSheet(new SimpleSheet<>(Collections.singletonList(placeholders), header)).writeTo(template);
+        }
+        long[] next = { 0L };
+        return new TemplateSheet(template).setData((i, o) -> {
+            int size = (int) Math.min(BATCH, rows - next[0]);
+            if (size <= 0) return null;
+            List<Map<String, Object>> sub = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) sub.add(toMap(next[0]++));
+            return sub;
+        });
+    }
+
+    Map<String, Object> toMap(long row) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < columns; i++) map.put("c" + i, value(row, i));
+        return map;
+    }
+
+    /**
+     * 生成CSV文件，第一行为表头
+     */
+    Path csvFile() throws IOException {
+        Path path = root.resolve("data.csv");
+        if (Files.exists(path)) return path;
+        try (CSVUtil.Writer writer = CSVUtil.newWriter(path)) {
+            for (int i = 0; i < columns; i++) writer.write("c" + i);
+            writer.newLine();
+            for (long r = 0; r < rows; r++) {
+                for (int i = 0; i < columns; i++) writer.write(value(r, i).toString());
+                writer.newLine();
+            }
+        }
+        return path;
+    }
+
+    /**
+     * 获取sqlite连接，首次调用时建表并写入数据
+     */
+    Connection connection() throws SQLException {
+        Path path = root.resolve("data.db");
+        boolean exists = Files.exists(path);
+        Connection con = DriverManager.getConnection("jdbc:sqlite:" + path);
+        if (exists) return con;
+        StringBuilder create = new StringBuilder("create table t("), insert = new StringBuilder("insert into t values(");
+        for (int i = 0; i < columns; i++) {
+            if (i > 0) {
+                create.append(',');
+                insert.append(',');
+            }
+            create.append('c').append(i).append(' ').append(sqlType(i));
+            insert.append('?');
+        }
+        try (Statement st = con.createStatement()) {
+            st.executeUpdate(create.append(')').toString());
+        }
+        con.setAutoCommit(false);
+        try (PreparedStatement ps = con.prepareStatement(insert.append(')').toString())) {
+            for (long r = 0; r < rows; r++) {
+                for (int i = 0; i < columns; i++) ps.setObject(i + 1, value(r, i));
+                ps.addBatch();
+                if ((r + 1) % BATCH == 0) {
+                    ps.executeBatch();
+                    con.commit();
+                }
+            }
+            ps.executeBatch();
+            con.commit();
+        }
+        con.setAutoCommit(true);
+        return con;
+    }
+
+    static String sqlType(int col) {
+        switch (col % KINDS) {
+            case 0: case 1: case 5: return "integer";
+            case 2: return "real";
+            case 3: return "decimal";
+            case 4: return "timestamp";
+            default: return "text";
+        }
+    }
+
+    static String[] prop(String key, String def) {
+        String value = System.getProperty(key, def);
+        return value.isEmpty() ? new String[0] : value.split(",");
+    }
+
+    static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = is.read(buf)) > 0; ) os.write(buf, 0, n);
+        return os.toByteArray();
+    }
+
+    static void writeReport(Path path, List<Result> results) throws IOException {
+        Runtime rt = Runtime.getRuntime();
+        StringBuilder buf = new StringBuilder("{\n");
+        buf.append("  \"label\": \"").append(System.getProperty("eec.bench.label", "dev")).append("\",\n");
+        buf.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        buf.append("  \"os\": \"").append(System.getProperty("os.name")).append(' ').append(System.getProperty("os.arch")).append("\",\n");
+        buf.append("  \"processors\": ").append(rt.availableProcessors()).append(",\n");
+        buf.append("  \"maxHeapBytes\": ").append(rt.maxMemory()).append(",\n");
+        buf.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+        buf.append("  \"runs\": [");
+        for (int i = 0; i < results.size(); i++) {
+            buf.append(i > 0 ? ",\n    " : "\n    ");
+            results.get(i).toJson(buf);
+        }
+        buf.append("\n  ]\n}\n");
+        if (path.getParent() != null) FileUtil.mkdir(path.getParent());
+        try (OutputStream os = Files.newOutputStream(path)) {
+            os.write(buf.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 测试对象，{@code f0-f7}与{@link #value}的8种类型一一对应
+     */
+    public static class Rec {
+        private final Integer f0;
+        private final Long f1;
+        private final Double f2;
+        private final BigDecimal f3;
+        private final Timestamp f4;
+        private final Boolean f5;
+        private final String f6, f7;
+        private final byte[] pic;
+
+        Rec(long row, byte[] pic) {
+            f0 = (Integer) value(row, 0);
+            f1 = (Long) value(row, 1);
+            f2 = (Double) value(row, 2);
+            f3 = (BigDecimal) value(row, 3);
+            f4 = (Timestamp) value(row, 4);
+            f5 = (Boolean) value(row, 5);
+            f6 = (String) value(row, 6);
+            f7 = (String) value(row, 7);
+            this.pic = pic;
+        }
+    }
+
+    /**
+     * 运行期间的JVM指标采样
+     */
+    static class Probe {
+        private long startNanos, allocated, gcCount, gcMillis;
+
+        static Probe start() {
+            System.gc();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+            }
+            Probe probe = new Probe();
+            probe.allocated = allocatedBytes();
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                probe.gcCount += Math.max(gc.getCollectionCount(), 0L);
+                probe.gcMillis += Math.max(gc.getCollectionTime(), 0L);
+            }
+            probe.startNanos = System.nanoTime();
+            return probe;
+        }
+
+        Result stop(String phase, String source, String mode, long rows, int columns) {
+            Result result = new Result();
+            result.wallMillis = (System.nanoTime() - startNanos) / 1_000_000L;
+            result.phase = phase;
+            result.source = source;
+            result.mode = mode;
+            result.rows = rows;
+            result.columns = columns;
+            long allocatedEnd = allocatedBytes();
+            result.allocatedBytes = allocated >= 0L && allocatedEnd >= 0L ? allocatedEnd - allocated : -1L;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                result.gcCount += Math.max(gc.getCollectionCount(), 0L);
+                result.gcMillis += Math.max(gc.getCollectionTime(), 0L);
+            }
+            result.gcCount -= gcCount;
+            result.gcMillis -= gcMillis;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) result.peakHeapBytes += pool.getPeakUsage().getUsed();
+            }
+            return result;
+        }
+
+        static long allocatedBytes() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) return -1L;
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+            if (!threadBean.isThreadAllocatedMemorySupported() || !threadBean.isThreadAllocatedMemoryEnabled()) return -1L;
+            long n = 0L;
+            for (long a : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+                if (a > 0L) n += a;
+            }
+            return n;
+        }
+    }
+
+    /**
+     * 单次运行结果
+     */
+    static class Result {
+        String phase, source, mode;
+        long rows, wallMillis, peakHeapBytes, allocatedBytes, gcCount, gcMillis, tempDiskBytes, fileBytes;
+        int columns;
+
+        void toJson(StringBuilder buf) {
+            buf.append("{\"phase\": \"").append(phase).append("\", \"source\": \"").append(source).append('"');
+            if (mode != null) buf.append(", \"mode\": \"").append(mode).append('"');
+            buf.append(", \"rows\": ").append(rows)
+                .append(", \"columns\": ").append(columns)
+                .append(", \"wallMillis\": ").append(wallMillis)
+                .append(", \"peakHeapBytes\": ").append(peakHeapBytes)
+                .append(", \"allocatedBytes\": ").append(allocatedBytes)
+                .append(", \"gcCount\": ").append(gcCount)
+                .append(", \"gcMillis\": ").append(gcMillis)
+                .append(", \"tempDiskBytes\": ").append(tempDiskBytes)
+                .append(", \"fileBytes\": ").append(fileBytes)
+                .append('}');
+        }
+
+        @Override
+        public String toString() {
+            return phase + " " + source + (mode != null ? "(" + mode + ")" : "") + " " + rows + "x" + columns
+                + ": " + wallMillis + "ms, peak heap " + (peakHeapBytes >> 20) + "MB, allocated " + (allocatedBytes >> 20)
+                + "MB, gc " + gcCount + "/" + gcMillis + "ms, temp " + tempDiskBytes + ", file " + fileBytes;
+        }
+    }
+}
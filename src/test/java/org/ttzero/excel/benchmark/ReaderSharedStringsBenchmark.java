@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.reader.SharedStrings;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取共享字符区{@link SharedStrings#get(int)}基准测试，{@code sharedStrings.xml}在内存中生成，
+ * 超过{@code 16384}个字符串时会启用磁盘索引表，{@code access}分为顺序访问和随机访问
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.ReaderSharedStringsBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 11:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReaderSharedStringsBenchmark {
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"sequential", "random"})
+    public String access;
+
+    private SharedStrings sst;
+    private int[] indices;
+    private int i;
+
+    @Setup public void setup() throws IOException {
+        StringBuilder buf = new StringBuilder(size * 32);
+        buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>")
+            .append("<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" count=\"")
+            .append(size).append("\" uniqueCount=\"").append(size).append("\">");
+        for (int j = 0; j < size; j++) buf.append("<si><t>value-").append(j).append("</t></si>");
+        buf.append("</sst>");
+        sst = new SharedStrings(new ByteArrayInputStream(buf.toString().getBytes(StandardCharsets.UTF_8)), 0, 0).load();
+
+        indices = new int[1 << 16];
+        Random random = new Random(0);
+        boolean sequential = "sequential".equals(access);
+        for (int j = 0; j < indices.length; j++) indices[j] = sequential ? j % size : random.nextInt(size);
+    }
+
+    @TearDown public void tearDown() throws IOException {
+        sst.close();
+    }
+
+    @Benchmark public String get() {
+        return sst.get(indices[i++ & (indices.length - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReaderSharedStringsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.entity.SharedStrings;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出共享字符区{@link SharedStrings#get(String)}基准测试，{@code cardinality}为不重复字符串个数，
+ * 低基数主要命中热区，高基数会穿透到布隆过滤器和磁盘索引
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.SharedStringsBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 11:05
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharedStringsBenchmark {
+    private static final int SIZE = 1 << 16;
+
+    @Param({"64", "4096", "65536"})
+    public int cardinality;
+
+    private SharedStrings sst;
+    private String[] keys;
+    private int i;
+
+    @Setup public void setup() {
+        Random random = new Random(0);
+        String[] distinct = new String[cardinality];
+        for (int j = 0; j < cardinality; j++) distinct[j] = "user" + j + "@example.com";
+        keys = new String[SIZE];
+        // Zipf-like skew, the first strings are the most frequent
+        for (int j = 0; j < SIZE; j++) {
+            double d = random.nextDouble();
+            keys[j] = distinct[(int) (d * d * cardinality)];
+        }
+        sst = new SharedStrings().init();
+    }
+
+    @TearDown public void tearDown() throws IOException {
+        sst.close();
+    }
+
+    @Benchmark public int get() throws IOException {
+        return sst.get(keys[i++ & (SIZE - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SharedStringsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
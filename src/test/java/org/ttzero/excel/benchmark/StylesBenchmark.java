@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.entity.style.Styles;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.ttzero.excel.entity.style.Styles.INDEX_FILL;
+import static org.ttzero.excel.entity.style.Styles.INDEX_FONT;
+import static org.ttzero.excel.entity.style.Styles.INDEX_NUMBER_FORMAT;
+
+/**
+ * {@link Styles#of}基准测试，使用GC profiler运行时{@code gc.alloc.rate.norm}应接近0
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.StylesBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-11-28 16:40
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StylesBenchmark {
+    private Styles styles;
+    private int[] values;
+    private int i;
+
+    @Setup public void setup() {
+        styles = Styles.create();
+        Random random = new Random(0);
+        values = new int[1 << 10];
+        for (int j = 0; j < values.length; j++) {
+            values[j] = random.nextInt(50) << INDEX_NUMBER_FORMAT | random.nextInt(4) << INDEX_FONT | random.nextInt(4) << INDEX_FILL;
+            styles.of(values[j]);
+        }
+    }
+
+    @Benchmark public int of() {
+        return styles.of(values[i++ & (values.length - 1)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StylesBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.entity.Column;
+import org.ttzero.excel.entity.ListMapSheet;
+import org.ttzero.excel.entity.Row;
+import org.ttzero.excel.entity.RowBlock;
+import org.ttzero.excel.entity.Sheet;
+import org.ttzero.excel.entity.Workbook;
+import org.ttzero.excel.entity.e7.XMLCellValueAndStyle;
+import org.ttzero.excel.entity.e7.XMLWorksheetWriter;
+import org.ttzero.excel.manager.Const;
+import org.ttzero.excel.util.FileUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link XMLWorksheetWriter#writeRow}按单元格类型的基准测试，每行10列同一类型，
+ * 行块只装填一次，每次调用输出其中一行到空输出流
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.WorksheetWriterBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 10:30
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorksheetWriterBenchmark {
+    private static final int COLUMNS = 10;
+
+    @Param({"int", "long", "double", "decimal", "timestamp", "bool", "sst", "inlineStr"})
+    public String type;
+
+    private Path root;
+    private Workbook workbook;
+    private BenchWriter writer;
+    private Row[] rows;
+    private int i;
+
+    @Setup public void setup() throws IOException {
+        Random random = new Random(0);
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int r = 0; r < 32; r++) {
+            Map<String, Object> map = new HashMap<>();
+            for (int c = 0; c < COLUMNS; c++) map.put("c" + c, value(random));
+            data.add(map);
+        }
+        Column[] columns = new Column[COLUMNS];
+        for (int c = 0; c < COLUMNS; c++) columns[c] = new Column("c" + c, "c" + c).setShare("sst".equals(type));
+
+        BenchSheet sheet = new BenchSheet(data, columns);
+        workbook = new Workbook().addSheet(sheet);
+        writer = new BenchWriter(sheet);
+        RowBlock block = sheet.prepare(writer);
+        rows = new Row[block.limit()];
+        for (int r = 0; block.hasNext(); rows[r++] = block.next()) ;
+
+        root = FileUtil.mktmp(Const.EEC_PREFIX);
+        writer.prepare(root);
+    }
+
+    @TearDown public void tearDown() throws IOException {
+        writer.close();
+        workbook.getSharedStrings().close();
+        FileUtil.rm_rf(root);
+    }
+
+    private Object value(Random random) {
+        switch (type) {
+            case "int"      : return random.nextInt();
+            case "long"     : return random.nextLong();
+            case "double"   : return random.nextDouble() * 1000000;
+            case "decimal"  : return BigDecimal.valueOf(random.nextInt(100000000), 2);
+            case "timestamp": return new Timestamp(1700000000000L + random.nextInt());
+            case "bool"     : return random.nextBoolean();
+            case "sst"      : return "dict-" + random.nextInt(50);
+            default         : return "Customer <" + random.nextInt(100000) + "> & co.";
+        }
+    }
+
+    @Benchmark public void writeRow() throws IOException {
+        writer.write(rows[i++ & (rows.length - 1)]);
+    }
+
+    public static class BenchSheet extends ListMapSheet<Object> {
+        BenchSheet(List<Map<String, Object>> data, Column... columns) {
+            super(data, columns);
+        }
+
+        RowBlock prepare(XMLWorksheetWriter writer) {
+            setSheetWriter(writer);
+            setCellValueAndStyle(new XMLCellValueAndStyle());
+            rowBlock = new RowBlock(getRowBlockSize());
+            getAndSortHeaderColumns();
+            paging();
+            return nextBlock();
+        }
+    }
+
+    public static class BenchWriter extends XMLWorksheetWriter {
+        BenchWriter(Sheet sheet) {
+            super(sheet);
+        }
+
+        void prepare(Path root) throws IOException {
+            setOutputStream(new OutputStream() {
+                @Override public void write(int b) { }
+                @Override public void write(byte[] b, int off, int len) { }
+            });
+            initWriter(root);
+            writeBefore();
+        }
+
+        void write(Row row) throws IOException {
+            writeRow(row);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WorksheetWriterBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.entity.style.Styles;
+import org.ttzero.excel.reader.SharedStrings;
+import org.ttzero.excel.reader.XMLRow;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读取行解析基准测试，{@code parse}只解析单元格（{@code parseCells/nextCell}），
+ * {@code parseAndGet}解析后再逐个取值，{@code type}为单元格类型，{@code mixed}为各类型混合
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.XMLRowBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-12-09 14:10
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLRowBenchmark {
+    private static final int COLUMNS = 20;
+
+    @Param({"numeric", "sst", "inlineStr", "mixed"})
+    public String type;
+
+    private BenchRow row;
+    private char[] cb;
+
+    @Setup public void setup() {
+        String[] strings = new String[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) strings[i] = "shared value " + i;
+        row = new BenchRow(new SharedStrings(strings), Styles.forReader());
+
+        StringBuilder buf = new StringBuilder("<row r=\"2\" spans=\"1:").append(COLUMNS).append("\">");
+        for (int i = 0; i < COLUMNS; i++) {
+            String t = "mixed".equals(type) ? new String[] { "numeric", "sst", "inlineStr" }[i % 3] : type;
+            char col = (char) ('A' + i);
+            switch (t) {
+                case "numeric"  : buf.append("<c r=\"").append(col).append("2\"><v>").append(1234567 + i).append("</v></c>"); break;
+                case "sst"      : buf.append("<c r=\"").append(col).append("2\" t=\"s\"><v>").append(i).append("</v></c>"); break;
+                default         : buf.append("<c r=\"").append(col).append("2\" t=\"inlineStr\"><is><t>inline &amp; value ").append(i).append("</t></is></c>");
+            }
+        }
+        buf.append("</row>");
+        cb = buf.toString().toCharArray();
+    }
+
+    @Benchmark public XMLRow parse() {
+        return row.parse(cb);
+    }
+
+    @Benchmark public int parseAndGet() {
+        XMLRow r = row.parse(cb);
+        int n = 0;
+        for (int i = r.getFirstColumnIndex(), end = r.getLastColumnIndex(); i < end; i++) {
+            n += r.getString(i).length();
+        }
+        return n;
+    }
+
+    public static class BenchRow extends XMLRow {
+        BenchRow(SharedStrings sst, Styles styles) {
+            super(sst, styles, 1);
+        }
+
+        XMLRow parse(char[] cb) {
+            return with(cb, 0, cb.length);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(XMLRowBenchmark.class.getSimpleName()).build()).run();
+    }
+}
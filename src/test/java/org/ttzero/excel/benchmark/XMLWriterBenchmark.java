@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ttzero.excel.util.ExtBufferedByteWriter;
+import org.ttzero.excel.util.ExtBufferedWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 字符输出流{@link ExtBufferedWriter}和字节输出流{@link ExtBufferedByteWriter}写单元格的吞吐量对比，
+ * 每个方法模拟输出一个完整的单元格
+ *
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.ttzero.excel.benchmark.XMLWriterBenchmark"
+ * </pre>
+ *
+ * @author guanquan.wang at 2024-11-29 15:20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLWriterBenchmark {
+    private static final String[] TAGS = { "<c r=\"", "\" t=\"s\"><v>", "\" t=\"inlineStr\"><is><t>", "</t></is></c>", "\"><v>", "</v></c>" };
+    private static final byte[][] TAG_BYTES = new byte[TAGS.length][];
+    private static final int CELL_START = 0, SST_VALUE_START = 1, INLINE_STR_START = 2, INLINE_STR_END = 3, TAG_CLOSE = 4, VALUE_CELL_END = 5;
+    static {
+        for (int i = 0; i < TAGS.length; i++) TAG_BYTES[i] = TAGS[i].getBytes(StandardCharsets.US_ASCII);
+    }
+    private static final char[] COL = { 'A', 'B' };
+    private static final BigDecimal DECIMAL = new BigDecimal("12345.67");
+
+    @Param({"char", "byte"})
+    public String writer;
+
+    private ExtBufferedWriter bw;
+    private boolean bytes;
+    private int row;
+
+    @Setup public void setup() {
+        OutputStream sink = new OutputStream() {
+            @Override public void write(int b) { }
+            @Override public void write(byte[] b, int off, int len) { }
+        };
+        bytes = "byte".equals(writer);
+        bw = bytes ? new ExtBufferedByteWriter(sink)
+            : new ExtBufferedWriter(new OutputStreamWriter(sink, StandardCharsets.UTF_8));
+    }
+
+    @TearDown public void tearDown() throws IOException {
+        bw.close();
+    }
+
+    /**
+     * 字符输出流按原有方式写字符串，字节输出流写预编码的字节
+     */
+    private void tag(int i) throws IOException {
+        if (bytes) bw.writeBytes(TAG_BYTES[i]);
+        else bw.write(TAGS[i]);
+    }
+
+    private void startCell() throws IOException {
+        tag(CELL_START);
+        bw.write(COL);
+        bw.writeInt(++row);
+    }
+
+    @Benchmark public void sstCell() throws IOException {
+        startCell();
+        tag(SST_VALUE_START);
+        bw.writeInt(row & 0xFFFF);
+        tag(VALUE_CELL_END);
+    }
+
+    @Benchmark public void inlineAsciiCell() throws IOException {
+        startCell();
+        tag(INLINE_STR_START);
+        bw.escapeWrite("Customer name & <address> 0123456789");
+        tag(INLINE_STR_END);
+    }
+
+    @Benchmark public void inlineCjkCell() throws IOException {
+        startCell();
+        tag(INLINE_STR_START);
+        bw.escapeWrite("中文客户名称和地址信息，测试宽字符编码");
+        tag(INLINE_STR_END);
+    }
+
+    @Benchmark public void intCell() throws IOException {
+        startCell();
+        tag(TAG_CLOSE);
+        bw.writeInt(row * 31);
+        tag(VALUE_CELL_END);
+    }
+
+    @Benchmark public void longCell() throws IOException {
+        startCell();
+        tag(TAG_CLOSE);
+        bw.write(row * 1_000_000_007L);
+        tag(VALUE_CELL_END);
+    }
+
+    @Benchmark public void doubleCell() throws IOException {
+        startCell();
+        tag(TAG_CLOSE);
+        bw.write(row * 1.25D);
+        tag(VALUE_CELL_END);
+    }
+
+    @Benchmark public void decimalCell() throws IOException {
+        startCell();
+        tag(TAG_CLOSE);
+        bw.write(DECIMAL);
+        tag(VALUE_CELL_END);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(XMLWriterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.annotation.ExcelColumn;
+import org.ttzero.excel.reader.ExcelReader;
+import org.ttzero.excel.reader.UncheckedTypeException;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.ttzero.excel.entity.WorkbookTest.defaultTestPath;
+
+/**
+ * @author guanquan.wang at 2024-12-03 16:05
+ */
+public class AccessorFactoryTest {
+
+    @Test public void testCompiled() throws NoSuchMethodException {
+        Method method = PublicBean.class.getMethod("getName");
+        assertTrue(AccessorFactory.isCompilable(method));
+        Function<Object, Object> getter = AccessorFactory.getter(method);
+        assertEquals("abc", getter.apply(new PublicBean()));
+        assertSame(getter, AccessorFactory.getter(method));
+    }
+
+    @Test public void testPrimitive() throws NoSuchMethodException {
+        PublicBean bean = new PublicBean();
+        assertEquals(7, AccessorFactory.intGetter(PublicBean.class.getMethod("getAge")).applyAsInt(bean));
+        assertEquals(1L << 40, AccessorFactory.longGetter(PublicBean.class.getMethod("getId")).applyAsLong(bean));
+        assertEquals(1.5D, AccessorFactory.doubleGetter(PublicBean.class.getMethod("getScore")).applyAsDouble(bean), 0D);
+        assertNull(AccessorFactory.intGetter(PublicBean.class.getMethod("getName")));
+        assertNull(AccessorFactory.longGetter(PublicBean.class.getMethod("getAge")));
+    }
+
+    @Test public void testFallback() throws NoSuchMethodException {
+        Method method = HiddenBean.class.getMethod("getName");
+        assertFalse(AccessorFactory.isCompilable(method));
+        assertNull(AccessorFactory.intGetter(HiddenBean.class.getMethod("getAge")));
+        Function<Object, Object> getter = AccessorFactory.getter(method);
+        assertNotNull(getter);
+        assertEquals("hidden", getter.apply(new HiddenBean()));
+    }
+
+    @Test public void testSetter() throws NoSuchMethodException {
+        MutableBean bean = (MutableBean) AccessorFactory.constructor(MutableBean.class).get();
+        AccessorFactory.setter(MutableBean.class.getMethod("setName", String.class)).accept(bean, "abc");
+        AccessorFactory.setter(MutableBean.class.getMethod("setFlag", boolean.class)).accept(bean, Boolean.TRUE);
+        AccessorFactory.intSetter(MutableBean.class.getMethod("setAge", int.class)).accept(bean, 7);
+        AccessorFactory.longSetter(MutableBean.class.getMethod("setId", long.class)).accept(bean, 1L << 40);
+        AccessorFactory.doubleSetter(MutableBean.class.getMethod("setScore", double.class)).accept(bean, 1.5D);
+        assertEquals("abc", bean.name);
+        assertTrue(bean.flag);
+        assertEquals(7, bean.age);
+        assertEquals(1L << 40, bean.id);
+        assertEquals(1.5D, bean.score, 0D);
+
+        assertNull(AccessorFactory.intSetter(MutableBean.class.getMethod("setId", long.class)));
+        assertNull(AccessorFactory.setter(MutableBean.class.getMethod("getName")));
+        assertNull(AccessorFactory.constructor(HiddenBean.class));
+    }
+
+    @Test public void testSetterThrows() throws IOException {
+        Path path = defaultTestPath.resolve("compiled setter throws.xlsx");
+        new Workbook().addSheet(new SimpleSheet<>(Collections.singletonList(Arrays.asList("abc", -1))).setHeader("name", "age")).writeTo(path);
+
+        // set方法抛出的异常与反射调用一样包装为InvocationTargetException，不会被当作类型转换异常
+        try (ExcelReader reader = ExcelReader.read(path)) {
+            reader.sheet(0).header(1).dataRows().map(row -> row.to(ThrowingNameBean.class)).forEach(e -> fail());
+            fail();
+        } catch (UncheckedTypeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertEquals("Illegal name", e.getCause().getCause().getMessage());
+        }
+        try (ExcelReader reader = ExcelReader.read(path)) {
+            reader.sheet(0).header(1).dataRows().map(row -> row.to(ThrowingAgeBean.class)).forEach(e -> fail());
+            fail();
+        } catch (UncheckedTypeException e) {
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertEquals("Illegal age", e.getCause().getCause().getMessage());
+        }
+    }
+
+    public static class ThrowingNameBean {
+        @ExcelColumn("name")
+        private String name;
+
+        public void setName(String name) { throw new IllegalArgumentException("Illegal name"); }
+    }
+
+    public static class ThrowingAgeBean {
+        @ExcelColumn("age")
+        private int age;
+
+        public void setAge(int age) {
+            if (age < 0) throw new IllegalArgumentException("Illegal age");
+            this.age = age;
+        }
+    }
+
+    public static class MutableBean {
+        String name;
+        boolean flag;
+        int age;
+        long id;
+        double score;
+
+        public String getName() { return name; }
+        // 链式set方法
+        public MutableBean setName(String name) { this.name = name; return this; }
+        public void setFlag(boolean flag) { this.flag = flag; }
+        public void setAge(int age) { this.age = age; }
+        public void setId(long id) { this.id = id; }
+        public void setScore(double score) { this.score = score; }
+    }
+
+    public static class PublicBean {
+        public String getName() { return "abc"; }
+        public int getAge() { return 7; }
+        public long getId() { return 1L << 40; }
+        public double getScore() { return 1.5D; }
+    }
+
+    static class HiddenBean {
+        public String getName() { return "hidden"; }
+        public int getAge() { return 3; }
+    }
+}
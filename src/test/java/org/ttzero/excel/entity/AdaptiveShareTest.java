@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 自适应共享字符串测试
+ *
+ * @author guanquan.wang at 2024-12-16 09:40
+ */
+public class AdaptiveShareTest extends WorkbookTest {
+    private static final String[] STATUS = { "新建", "处理中", "已完成", "已关闭", "已取消" };
+
+    @Test public void testColumnFlag() {
+        Column column = new Column("ID").adaptiveShare();
+        assertTrue(column.isShare());
+        assertTrue(column.isAdaptiveShare());
+        assertEquals(0.5D, column.getMaxDistinctRatio(), 0D);
+
+        Column copy = new Column().from(column);
+        assertTrue(copy.isAdaptiveShare());
+        assertEquals(0.5D, copy.getMaxDistinctRatio(), 0D);
+
+        // 明确指定后不再自适应
+        column.setShare(true);
+        assertTrue(column.isShare());
+        assertFalse(column.isAdaptiveShare());
+        column.adaptiveShare(0.2D).setShare(false);
+        assertFalse(column.isShare());
+        assertFalse(column.isAdaptiveShare());
+
+        try {
+            column.adaptiveShare(0D);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // Ignore
+        }
+    }
+
+    @Test public void testAdaptive() throws IOException {
+        assertAdaptive("adaptive share.xlsx", 0);
+    }
+
+    @Test public void testAdaptiveParallel() throws IOException {
+        assertAdaptive("adaptive share parallel.xlsx", 4);
+    }
+
+    private static void assertAdaptive(String fileName, int parallelism) throws IOException {
+        int n = 5000;
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) rows.add(new Object[] { "ID-" + i, STATUS[i % STATUS.length] });
+        new Workbook().addSheet(new SimpleSheet<>(rows, new Column("ID").adaptiveShare(), new Column("STATUS").adaptiveShare())
+            .setParallelism(parallelism)).writeTo(defaultTestPath.resolve(fileName));
+
+        Path path = defaultTestPath.resolve(fileName);
+        String xml = entry(path, "xl/worksheets/sheet1.xml");
+        // 高基数列超过上限后改为内嵌，低基数列完全共享
+        int idShared = count(xml, "<c r=\"A\\d+\"[^>]* t=\"s\""), idInline = count(xml, "<c r=\"A\\d+\"[^>]* t=\"inlineStr\"");
+        assertEquals(n + 1, idShared + idInline);
+        assertTrue("shared: " + idShared, idShared <= 1 + 513 + 32 * parallelism);
+        assertEquals(0, count(xml, "<c r=\"B\\d+\"[^>]* t=\"inlineStr\""));
+        assertEquals(n + 1, count(xml, "<c r=\"B\\d+\"[^>]* t=\"s\""));
+
+        try (ExcelReader reader = ExcelReader.read(path)) {
+            int[] i = { 0 };
+            reader.sheet(0).header(1).rows().forEach(row -> {
+                assertEquals("ID-" + i[0], row.getString(0));
+                assertEquals(STATUS[i[0]++ % STATUS.length], row.getString(1));
+            });
+            assertEquals(n, i[0]);
+        }
+    }
+
+    private static int count(String text, String regex) {
+        Matcher matcher = Pattern.compile(regex).matcher(text);
+        int n = 0;
+        while (matcher.find()) n++;
+        return n;
+    }
+
+    private static String entry(Path path, String name) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(path))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (!name.equals(entry.getName())) continue;
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                byte[] buf = new byte[8192];
+                for (int n; (n = zis.read(buf)) > 0; bos.write(buf, 0, n)) ;
+                return bos.toString("UTF-8");
+            }
+        }
+        throw new IOException("Entry " + name + " not found in " + path);
+    }
+}
@@ -20,12 +20,15 @@ package org.ttzero.excel.entity;
 import org.junit.Test;
 import org.ttzero.excel.annotation.ExcelColumn;
 import org.ttzero.excel.annotation.FreezePanes;
+import org.ttzero.excel.entity.e7.XMLWorkbookWriter;
 import org.ttzero.excel.manager.Const;
+import org.ttzero.excel.reader.Col;
 import org.ttzero.excel.reader.ExcelReader;
 import org.ttzero.excel.reader.Row;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -162,6 +165,62 @@ public class AutoSizeTest extends WorkbookTest {
         }
     }
 
+    @Test public void testAutoSizeSampleCoversAllRows() throws IOException {
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(100);
+        new Workbook()
+            .addSheet(new ListSheet<>(expectList).autoSize())
+            .writeTo(defaultTestPath.resolve("auto-size full scan.xlsx"));
+        new Workbook()
+            .setWorkbookWriter(new XMLWorkbookWriter().setStreaming(true))
+            .addSheet(new ListSheet<>(expectList).autoSize(1000))
+            .writeTo(defaultTestPath.resolve("auto-size sample all.xlsx"));
+
+        List<Col> expectCols = readCols("auto-size full scan.xlsx"), cols = readCols("auto-size sample all.xlsx");
+        assertEquals(expectCols.size(), cols.size());
+        for (int i = 0; i < cols.size(); i++) assertEquals(expectCols.get(i).width, cols.get(i).width, 0.000001D);
+    }
+
+    @Test public void testAutoSizeSample() throws IOException {
+        String fileName = "auto-size sample.xlsx";
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(300);
+        for (ListObjectSheetTest.Item e : expectList) e.setName("abc");
+        // Longer than the sampled rows
+        expectList.get(expectList.size() - 1).setName("The name in the last row is much longer than the sampled rows");
+        List<ExportMetrics> metrics = new ArrayList<>();
+        new Workbook()
+            .setWorkbookWriter(new XMLWorkbookWriter().setStreaming(true))
+            .onMetrics(metrics::add)
+            .addSheet(new ListSheet<>(expectList).autoSize(32, 5.0D))
+            .writeTo(defaultTestPath.resolve(fileName));
+        new Workbook()
+            .onMetrics(metrics::add)
+            .addSheet(new ListSheet<>(expectList).autoSize())
+            .writeTo(defaultTestPath.resolve("auto-size sample full scan.xlsx"));
+        // 抽样误差通过导出指标获取，全量扫描没有误差
+        assertEquals(2, metrics.size());
+        assertTrue(metrics.get(0).getSheets().get(0).getSampleError() > 5.0D);
+        assertEquals(0.0D, metrics.get(1).getSheets().get(0).getSampleError(), 0.000001D);
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheet(0).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+        List<Col> expectCols = readCols("auto-size sample full scan.xlsx"), cols = readCols(fileName);
+        assertEquals(expectCols.size(), cols.size());
+        // The id column is the same and the name column is narrower
+        assertEquals(expectCols.get(0).width, cols.get(0).width, 0.000001D);
+        assertTrue(cols.get(1).width < expectCols.get(1).width);
+        assertEquals(expectCols.get(1).width - cols.get(1).width, metrics.get(0).getSheets().get(0).getSampleError(), 0.01D);
+    }
+
+    private static List<Col> readCols(String fileName) throws IOException {
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<Col> cols = reader.sheet(0).asFullSheet().getCols();
+            cols.sort(Comparator.comparingInt(a -> a.min));
+            return cols;
+        }
+    }
+
     @FreezePanes(topRow = 1)
     public static class ServerReport {
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.entity.e7.XMLCellValueAndStyle;
+import org.ttzero.excel.reader.Cell;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author guanquan.wang at 2024-12-04 11:20
+ */
+public class CellValueWriterTest {
+
+    @Test public void testResolveOnce() {
+        ICellValueAndStyle cvs = new XMLCellValueAndStyle();
+        Column hc = new Column("id", Integer.class);
+        Cell cell = new Cell();
+        cvs.setCellValue(new Row(), cell, 1, hc, hc.getClazz(), false);
+        assertEquals(Cell.NUMERIC, cell.t);
+        assertEquals(1, cell.intVal);
+        CellValueWriter writer = hc.valueWriter.writer;
+        cvs.setCellValue(new Row(), cell, 2, hc, hc.getClazz(), false);
+        assertEquals(2, cell.intVal);
+        assertSame(writer, hc.valueWriter.writer);
+
+        // 数据类型变化时重新解析
+        cvs.setCellValue(new Row(), cell, "abc", hc, String.class, false);
+        assertEquals(Cell.INLINESTR, cell.t);
+        assertEquals("abc", cell.stringVal);
+        assertNotSame(writer, hc.valueWriter.writer);
+
+        // 类型交替出现时各类型只解析一次
+        CellValueWriter stringWriter = hc.valueWriter.writer;
+        cvs.setCellValue(new Row(), cell, 3, hc, Integer.class, false);
+        assertEquals(3, cell.intVal);
+        cvs.setCellValue(new Row(), cell, "def", hc, String.class, false);
+        assertEquals("def", cell.stringVal);
+        assertSame(writer, hc.getValueWriter(cvs, Integer.class));
+        assertSame(stringWriter, hc.getValueWriter(cvs, String.class));
+        assertEquals(2, hc.valueWriter.size);
+    }
+
+    @Test public void testResolvedLimit() {
+        ICellValueAndStyle cvs = new XMLCellValueAndStyle();
+        Column hc = new Column("mixed");
+        Cell cell = new Cell();
+        Object[] values = { 1, 2L, 1.5D, 1.5F, (short) 1, 'a', true, "abc", new java.math.BigDecimal("1.25"), java.time.LocalDate.now() };
+        for (int i = 0; i < 3; i++) {
+            for (Object o : values) cvs.setCellValue(new Row(), cell, o, hc, o.getClass(), false);
+        }
+        // 超过上限的类型不再缓存，但仍然正确写入
+        assertEquals(Column.ResolvedValueWriter.LIMIT, hc.valueWriter.size);
+        assertEquals(Cell.DATETIME, cell.t);
+    }
+
+    @Test public void testSniffClass() {
+        ICellValueAndStyle cvs = new XMLCellValueAndStyle();
+        Column hc = new Column("score");
+        Cell cell = new Cell();
+        cvs.setCellValue(new Row(), cell, 1.5D, hc, hc.getClazz(), false);
+        assertSame(Double.class, hc.getClazz());
+        assertEquals(Cell.DOUBLE, cell.t);
+    }
+
+    @Test public void testUnknownType() {
+        ICellValueAndStyle cvs = new XMLCellValueAndStyle() {
+            @Override
+            public void unknownType(Row row, Cell cell, Object e, Column hc, Class<?> clazz) {
+                cell.setString("unknown:" + e);
+            }
+        };
+        Column hc = new Column("obj", StringBuilder.class);
+        Cell cell = new Cell();
+        cvs.setCellValue(new Row(), cell, new StringBuilder("x"), hc, hc.getClazz(), false);
+        assertEquals("unknown:x", cell.stringVal);
+    }
+}
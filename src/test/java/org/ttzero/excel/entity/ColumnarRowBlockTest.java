@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.reader.Cell;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 列式行块测试，相同数据使用列式行块与普通行块输出的工作表必须完全一致
+ *
+ * @author guanquan.wang at 2024-12-12 16:05
+ */
+public class ColumnarRowBlockTest extends WorkbookTest {
+
+    @Test public void testBlockView() {
+        ColumnarRowBlock block = new ColumnarRowBlock(4);
+        block.clear();
+        for (int i = 0; i < 3; i++) {
+            Row row = block.next();
+            row.index = i;
+            Cell[] cells = row.realloc(5 - i);
+            for (Cell cell : cells) cell.clear();
+            cells[0].setInt(i);
+            cells[0].xf = 1;
+            if (cells.length > 1) cells[1].setDouble(i + 0.5D);
+            if (cells.length > 2) cells[2].setString("s" + i);
+            if (cells.length > 3) cells[3].setDecimal(BigDecimal.valueOf(i, 2));
+            if (cells.length > 4) cells[4].setFormula("A1+B1");
+            if (i == 1) row.height = 20D;
+        }
+        block.flip();
+
+        assertTrue(block.isEOF());
+        assertEquals(3, block.limit());
+        assertEquals(5, block.getColumns());
+        assertEquals(ColumnarRowBlock.SPILL, block.getType(0, 4));
+        assertEquals(Cell.INLINESTR, block.getType(2, 2));
+        assertEquals(1, block.getStyle(1, 0));
+        assertEquals(2L, block.getLong(2, 0));
+        assertEquals(1.5D, block.getDouble(1, 1), 0D);
+        assertEquals("s0", block.getString(0, 2));
+        assertEquals(BigDecimal.valueOf(1, 2), block.getDecimal(1, 3));
+
+        Row first = block.next();
+        assertEquals(0, first.getIndex());
+        assertEquals(5, first.getLc());
+        assertNull(first.getHeight());
+        assertEquals("A1+B1", first.getCells()[4].formula);
+        assertTrue(first.getCells()[4].f);
+
+        Row second = block.next();
+        // 共享视图行
+        assertSame(first, second);
+        assertEquals(1, second.getIndex());
+        assertEquals(4, second.getLc());
+        assertEquals(20D, second.getHeight(), 0D);
+        assertEquals(1, second.getCells()[0].intVal);
+        assertEquals(1, second.getCells()[0].xf);
+        assertEquals("s1", second.getCells()[2].stringVal);
+
+        Row third = block.next();
+        assertEquals(3, third.getLc());
+        assertFalse(block.hasNext());
+        assertEquals(2, block.lastRow().getIndex());
+    }
+
+    @Test public void testAllType() throws IOException {
+        List<ListObjectSheetTest.AllType> list = ListObjectSheetTest.AllType.randomTestData(1000, ListObjectSheetTest.AllType::new);
+        assertSameAsRowBlock("columnar all type", columnar -> new ListSheet<>(list).setColumnar(columnar));
+    }
+
+    @Test public void testAutoSize() throws IOException {
+        List<ListObjectSheetTest.AllType> list = ListObjectSheetTest.AllType.randomTestData(100, ListObjectSheetTest.AllType::new);
+        assertSameAsRowBlock("columnar auto size", columnar -> new ListSheet<>(list).autoSize().setColumnar(columnar));
+    }
+
+    @Test public void testSharedString() throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 500; i++) rows.add(new Object[] { i, "dict-" + (i % 7), i % 3 == 0 ? null : "<" + i + ">" });
+        assertSameAsRowBlock("columnar shared string", columnar -> new SimpleSheet<>(rows,
+            new Column("ID"), new Column("DICT").setShare(true), new Column("TEXT")).setColumnar(columnar));
+    }
+
+    @Test public void testHyperlink() throws IOException {
+        List<ListObjectSheetTest2.Item> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) list.add(new ListObjectSheetTest2.Item("site" + i, "https://www.example.com/" + i));
+        assertSameAsRowBlock("columnar hyperlink", columnar -> new ListSheet<>(list).setColumnar(columnar));
+    }
+
+    @Test public void testUnevenRows() throws IOException {
+        String fileName = "columnar uneven rows.xlsx";
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            List<Object> row = new ArrayList<>();
+            for (int j = 0, n = i % 5 + 1; j < n; j++) row.add(i * 10 + j);
+            rows.add(row);
+        }
+        new Workbook().addSheet(new SimpleSheet<>(rows).setColumnar(true)).writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            Iterator<org.ttzero.excel.reader.Row> iter = reader.sheet(0).iterator();
+            for (int i = 0; i < rows.size(); i++) {
+                assertTrue(iter.hasNext());
+                org.ttzero.excel.reader.Row row = iter.next();
+                List<Object> expect = rows.get(i);
+                assertEquals(expect.size(), row.getLastColumnIndex());
+                for (int j = 0; j < expect.size(); j++) assertEquals(expect.get(j), row.getInt(j));
+            }
+            assertFalse(iter.hasNext());
+        }
+    }
+
+    @Test public void testPrefetchPaging() throws IOException {
+        String fileName = "columnar prefetch paging.xlsx";
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(1024);
+        new Workbook()
+            .addSheet(new ListSheet<>(expectList).setColumnar(true).setPrefetch(2))
+            .setWorkbookWriter(new ReLimitXMLWorkbookWriter())
+            .writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheets().flatMap(sheet -> sheet.header(1).dataRows())
+                .map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+    }
+
+    private static void assertSameAsRowBlock(String name, Function<Boolean, Sheet> sheetSupplier) throws IOException {
+        Path rowPath = defaultTestPath.resolve(name + " row.xlsx"), columnarPath = defaultTestPath.resolve(name + ".xlsx");
+        new Workbook().addSheet(sheetSupplier.apply(false)).writeTo(rowPath);
+        new Workbook().addSheet(sheetSupplier.apply(true)).writeTo(columnarPath);
+        assertArrayEquals(entry(rowPath, "xl/worksheets/sheet1.xml"), entry(columnarPath, "xl/worksheets/sheet1.xml"));
+        assertArrayEquals(entry(rowPath, "xl/sharedStrings.xml"), entry(columnarPath, "xl/sharedStrings.xml"));
+    }
+
+    private static byte[] entry(Path path, String name) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(path))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (name.equals(entry.getName())) return readAll(zis);
+            }
+        }
+        throw new IOException("Entry " + name + " not found in " + path);
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = is.read(buf)) > 0; bos.write(buf, 0, n)) ;
+        return bos.toByteArray();
+    }
+}
@@ -37,6 +37,10 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static org.junit.Assert.assertEquals;
@@ -269,6 +273,38 @@ public class CustomerNumFmtTest extends WorkbookTest {
         assertTrue(width >= 26.D && width <= 30.63D);
     }
 
+    @Test public void testNumFmtWidthConcurrent() throws Exception {
+        NumFmt fmt = new NumFmt("yyyy-mm-dd hh:mm:ss");
+        Font[] fonts = new Font[16];
+        for (int i = 0; i < fonts.length; i++) fonts[i] = new Font(i % 2 == 0 ? "宋体" : "Consolas", 9 + i);
+        double[] expect = new double[fonts.length];
+        for (int i = 0; i < fonts.length; i++) expect[i] = new NumFmt(fmt.getCode()).calcNumWidth(0, fonts[i]);
+
+        // 多个线程交替使用不同字体计算同一个格式化的宽度
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        int k = (i + offset) % fonts.length;
+                        assertEquals(expect[k], fmt.calcNumWidth(0, fonts[k]), 0.0D);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) future.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        // 克隆后修改格式化串不能使用原格式化的宽度
+        NumFmt other = fmt.clone();
+        other.setCode("yyyy-mm-dd");
+        assertEquals(new NumFmt("yyyy-mm-dd").calcNumWidth(0, fonts[0]), other.calcNumWidth(0, fonts[0]), 0.0D);
+        assertEquals(expect[0], fmt.calcNumWidth(0, fonts[0]), 0.0D);
+    }
+
     @Test public void testAutoWidth() throws IOException {
         String fileName = "Auto Width Test.xlsx";
         List<WidthTestItem> expectList = WidthTestItem.randomTestData();
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.ttzero.excel.entity;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ttzero.excel.hash.ContentDigest;
+import org.ttzero.excel.reader.Drawings;
+import org.ttzero.excel.reader.ExcelReader;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.ttzero.excel.entity.WorkbookTest.defaultTestPath;
+
+/**
+ * 相同内容的图片只保存一份
+ *
+ * @author guanquan.wang at 2024-12-05 10:20
+ */
+public class MediaDedupTest {
+    private static byte[] red, blue;
+
+    @BeforeClass public static void init() throws IOException {
+        red = png(0xFF0000);
+        blue = png(0x0000FF);
+    }
+
+    @Test public void testDigest() throws IOException {
+        String digest = ContentDigest.of(red);
+        assertEquals(digest, ContentDigest.of(ByteBuffer.wrap(red)));
+        ByteBuffer direct = ByteBuffer.allocateDirect(red.length);
+        direct.put(red).flip();
+        assertEquals(digest, ContentDigest.of(direct));
+        assertEquals(0, direct.position());
+        assertEquals(digest, new ContentDigest().update(red, 0, 10).update(red, 10, red.length - 10).digest());
+        assertNotEquals(digest, ContentDigest.of(blue));
+
+        Path path = defaultTestPath.resolve("digest.png");
+        Files.write(path, red);
+        assertEquals(digest, ContentDigest.of(path));
+    }
+
+    @Test public void testDedupBytes() throws IOException {
+        List<byte[]> list = new ArrayList<>();
+        for (int i = 0; i < 30; i++) list.add(i % 2 == 0 ? red.clone() : blue.clone());
+        Path path = defaultTestPath.resolve("dedup bytes.xlsx");
+        new Workbook()
+            .addSheet(new ListSheet<>(list).setColumns(new Column().writeAsMedia()))
+            .addSheet(new ListSheet<>(list).setColumns(new Column().writeAsMedia()))
+            .writeTo(path);
+        assertDedup(path, 60);
+    }
+
+    @Test public void testDedupMixed() throws IOException {
+        Path redPath = defaultTestPath.resolve("dedup red.png");
+        Files.write(redPath, red);
+        List<byte[]> bytes = new ArrayList<>();
+        List<ByteBuffer> buffers = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        List<InputStream> streams = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bytes.add(red.clone());
+            buffers.add(ByteBuffer.wrap(blue.clone()));
+            files.add(redPath.toFile());
+            streams.add(new ByteArrayInputStream(i % 2 == 0 ? red : blue));
+        }
+        Path path = defaultTestPath.resolve("dedup mixed.xlsx");
+        // 不同工作表、不同数据源共享图片
+        new Workbook()
+            .addSheet(new ListSheet<>(bytes).setColumns(new Column().writeAsMedia()))
+            .addSheet(new ListSheet<>(buffers).setColumns(new Column().writeAsMedia()))
+            .addSheet(new ListSheet<>(files).setColumns(new Column().writeAsMedia()))
+            .addSheet(new ListSheet<>(streams).setColumns(new Column().writeAsMedia()))
+            .writeTo(path);
+        assertDedup(path, 40);
+    }
+
+    @Test public void testRegisterAfterStored() throws IOException {
+        try (MediaStore store = new MediaStore()) {
+            String digest = ContentDigest.of(red);
+            assertNull(store.get(digest));
+            assertNull(store.putIfAbsent("image1.png", ByteBuffer.wrap(red), digest));
+            assertEquals("image1.png", store.get(digest));
+            // 相同内容不再追加
+            assertEquals("image1.png", store.putIfAbsent("image2.png", ByteBuffer.wrap(red), digest));
+            assertEquals(1, store.size());
+            assertEquals(red.length, store.bytes());
+        }
+    }
+
+    @Test public void testDiscardDuplicateStream() throws IOException {
+        Path redPath = defaultTestPath.resolve("dedup red.png");
+        Files.write(redPath, red);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (MediaStore store = new MediaStore()) {
+            assertNull(store.putIfAbsent("image1.png", red, 10, new ByteArrayInputStream(red, 10, red.length - 10)));
+            // 重复的输入流追加后丢弃，文件路径提前计算摘要不再复制
+            assertEquals("image1.png", store.putIfAbsent("image2.png", red, 10, new ByteArrayInputStream(red, 10, red.length - 10)));
+            assertEquals("image1.png", store.putIfAbsent("image3.png", redPath, ContentDigest.of(redPath)));
+            // 读取失败的输入流不登记摘要
+            try {
+                store.putIfAbsent("image4.png", blue, 10, new InputStream() {
+                    @Override public int read() throws IOException {
+                        throw new IOException("Broken stream");
+                    }
+                });
+                fail();
+            } catch (IOException e) {
+                assertNull(store.get(ContentDigest.of(blue)));
+            }
+            assertNull(store.putIfAbsent("image5.png", blue, 10, new ByteArrayInputStream(blue, 10, blue.length - 10)));
+            assertEquals(2, store.size());
+            assertEquals(red.length + blue.length, store.bytes());
+
+            try (ZipOutputStream zos = new ZipOutputStream(bos)) {
+                store.writeTo(zos, "xl/media/");
+            }
+        }
+        // 丢弃的内容被回收，后续文件内容正确
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            assertEquals("xl/media/image1.png", zis.getNextEntry().getName());
+            assertArrayEquals(red, readAll(zis));
+            assertEquals("xl/media/image5.png", zis.getNextEntry().getName());
+            assertArrayEquals(blue, readAll(zis));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test public void testSpoolOutsideLock() throws Exception {
+        byte[] large = new byte[MediaStore.SPOOL_THRESHOLD + 4096];
+        for (int i = 0; i < large.length; i++) large[i] = (byte) (i * 31);
+        CountDownLatch reading = new CountDownLatch(1), stored = new CountDownLatch(1);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (MediaStore store = new MediaStore()) {
+            // 缓慢的输入流读取时不持有锁，其它线程可以同时追加文件
+            InputStream slow = new ByteArrayInputStream(large) {
+                @Override public synchronized int read(byte[] b, int off, int len) {
+                    if (pos > 0 && reading.getCount() > 0) {
+                        reading.countDown();
+                        try {
+                            if (!stored.await(10, TimeUnit.SECONDS)) throw new IllegalStateException("Blocked by slow stream");
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                    return super.read(b, off, len);
+                }
+            };
+            Thread t = new Thread(() -> {
+                try {
+                    reading.await();
+                    store.putIfAbsent("image1.png", ByteBuffer.wrap(red), ContentDigest.of(red));
+                    stored.countDown();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            t.start();
+            assertNull(store.putIfAbsent("image2.bin", null, 0, slow));
+            t.join();
+            // 超过内存缓存上限的输入流转存到临时文件
+            assertEquals("image2.bin", store.putIfAbsent("image3.bin", large, 10, new ByteArrayInputStream(large, 10, large.length - 10)));
+            assertEquals(2, store.size());
+            assertEquals(red.length + large.length, store.bytes());
+
+            try (ZipOutputStream zos = new ZipOutputStream(bos)) {
+                store.writeTo(zos, "xl/media/");
+            }
+        }
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            assertEquals("xl/media/image1.png", zis.getNextEntry().getName());
+            assertArrayEquals(red, readAll(zis));
+            assertEquals("xl/media/image2.bin", zis.getNextEntry().getName());
+            assertArrayEquals(large, readAll(zis));
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        for (int n; (n = is.read(buf)) > 0; bos.write(buf, 0, n)) ;
+        return bos.toByteArray();
+    }
+
+    private static void assertDedup(Path path, int expectSize) throws IOException {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            assertEquals(2, zip.stream().filter(e -> e.getName().startsWith("xl/media/")).count());
+        }
+
+        try (ExcelReader reader = ExcelReader.read(path)) {
+            List<Drawings.Picture> pictures = reader.listPictures();
+            assertEquals(expectSize, pictures.size());
+            assertEquals(2, pictures.stream().map(p -> p.getLocalPath().getFileName().toString()).collect(Collectors.toSet()).size());
+        }
+    }
+
+    static byte[] png(int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 8; x++) for (int y = 0; y < 8; y++) image.setRGB(x, y, rgb);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bos);
+        return bos.toByteArray();
+    }
+}
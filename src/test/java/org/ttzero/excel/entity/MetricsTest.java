@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.entity.e7.XMLWorkbookWriter;
+import org.ttzero.excel.reader.ExcelReader;
+import org.ttzero.excel.reader.ImportMetrics;
+import org.ttzero.excel.util.CountingZipOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author guanquan.wang at 2024-12-06 15:10
+ */
+public class MetricsTest extends WorkbookTest {
+
+    @Test public void testExportMetrics() throws IOException {
+        testExportMetrics(new XMLWorkbookWriter(), "export metrics.xlsx");
+    }
+
+    @Test public void testStreamingExportMetrics() throws IOException {
+        testExportMetrics(new XMLWorkbookWriter().setStreaming(true), "streaming export metrics.xlsx");
+    }
+
+    @Test public void testMetricsKeepZipEngine() throws IOException {
+        AtomicReference<Class<?>> zipClass = new AtomicReference<>();
+        testExportMetrics(new XMLWorkbookWriter() {
+            @Override
+            protected ZipOutputStream createZipOutputStream(OutputStream os) {
+                ZipOutputStream zos = super.createZipOutputStream(os);
+                zipClass.set(zos.getClass());
+                return zos;
+            }
+        }, "export metrics zip engine.xlsx");
+        // 指标监听器只统计字节数，不切换并行压缩
+        assertEquals(CountingZipOutputStream.class, zipClass.get());
+    }
+
+    private void testExportMetrics(XMLWorkbookWriter workbookWriter, String fileName) throws IOException {
+        List<ListObjectSheetTest.Item> items = ListObjectSheetTest.Item.randomTestData(3000);
+        AtomicReference<ExportMetrics> ref = new AtomicReference<>();
+        Path path = defaultTestPath.resolve(fileName);
+        new Workbook()
+            .setWorkbookWriter(workbookWriter)
+            .onMetrics(ref::set)
+            .addSheet(new ListSheet<>("A", items, columns()))
+            .addSheet(new ListSheet<>("B", items, columns()))
+            .writeTo(path);
+
+        ExportMetrics metrics = ref.get();
+        assertNotNull(metrics);
+        assertEquals(2, metrics.getSheets().size());
+        assertEquals("A", metrics.getSheets().get(0).getName());
+        assertEquals(items.size() * 2, metrics.getRows());
+        assertEquals(items.size() * 4, metrics.getCells());
+        assertTrue(metrics.getSerializeNanos() > 0L);
+        assertTrue(metrics.getElapsedNanos() >= metrics.getZipNanos());
+        assertTrue(metrics.getRowsPerSecond() > 0D);
+        assertTrue(metrics.getBytesIn() > metrics.getBytesOut());
+        assertEquals(Files.size(path), metrics.getBytesOut());
+        // Every row has one shared string
+        assertTrue(metrics.getSstCount() >= items.size() * 2);
+        assertTrue(metrics.getSstUnique() > 0 && metrics.getSstUnique() <= items.size());
+        assertTrue(metrics.getSstTempBytes() > 0L);
+    }
+
+    @Test public void testImportMetrics() throws IOException {
+        List<ListObjectSheetTest.Item> items = ListObjectSheetTest.Item.randomTestData(3000);
+        Path path = defaultTestPath.resolve("import metrics.xlsx");
+        new Workbook().addSheet(new ListSheet<>(items, columns())).writeTo(path);
+
+        AtomicReference<ImportMetrics> ref = new AtomicReference<>();
+        try (ExcelReader reader = ExcelReader.read(path).onMetrics(ref::set)) {
+            List<String> names = reader.sheet(0).asMergeSheet().dataRows().map(row -> row.getString("name")).collect(Collectors.toList());
+            assertEquals(items.size(), names.size());
+        }
+
+        ImportMetrics metrics = ref.get();
+        assertNotNull(metrics);
+        // Header row included
+        assertEquals(items.size() + 1, metrics.getRows());
+        assertEquals(Files.size(path), metrics.getFileBytes());
+        assertTrue(metrics.getBytesIn() > metrics.getFileBytes());
+        assertTrue(metrics.getElapsedNanos() >= metrics.getInitNanos());
+        assertTrue(metrics.getSstCount() >= items.size());
+    }
+
+    private static Column[] columns() {
+        return new Column[] { new Column("id", "id"), new Column("name", "name").setShare(true) };
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.reader.Drawings;
+import org.ttzero.excel.reader.ExcelReader;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 行块并行序列化测试，不含共享字符串时输出的工作表必须与顺序输出完全一致
+ *
+ * @author guanquan.wang at 2024-12-13 11:10
+ */
+public class ParallelSerializeTest extends WorkbookTest {
+
+    @Test public void testAllType() throws IOException {
+        List<ListObjectSheetTest.AllType> list = ListObjectSheetTest.AllType.randomTestData(5000, ListObjectSheetTest.AllType::new);
+        assertSameAsSequential("parallel all type", parallelism -> new ListSheet<>(list).setParallelism(parallelism));
+    }
+
+    @Test public void testColumnarAutoSize() throws IOException {
+        List<ListObjectSheetTest.AllType> list = ListObjectSheetTest.AllType.randomTestData(2000, ListObjectSheetTest.AllType::new);
+        assertSameAsSequential("parallel columnar auto size", parallelism -> new ListSheet<>(list).setColumnar(true).autoSize().setParallelism(parallelism));
+    }
+
+    @Test public void testUnallocatedColumns() throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            // 每行的列数不同，超出的列没有列属性
+            Object[] row = new Object[1 + i % 30];
+            for (int j = 0; j < row.length; j++) row[j] = i * 31 + j;
+            rows.add(row);
+        }
+        assertSameAsSequential("parallel unallocated columns", parallelism -> new SimpleSheet<>(rows, new Column("A"), new Column("B"))
+            .setParallelism(parallelism));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve("parallel unallocated columns.xlsx"))) {
+            List<Object[]> list = reader.sheet(0).header(1).rows().map(row -> {
+                // 表头有2列，不足2列的行读取时补空
+                int len = row.getLastColumnIndex();
+                while (len > 1 && row.isBlank(len - 1)) len--;
+                Object[] values = new Object[len];
+                for (int j = 0; j < len; j++) values[j] = row.getInt(j);
+                return values;
+            }).collect(Collectors.toList());
+            assertEquals(rows.size(), list.size());
+            for (int i = 0; i < rows.size(); i++) assertArrayEquals(rows.get(i), list.get(i));
+        }
+    }
+
+    @Test public void testSharedString() throws IOException {
+        String fileName = "parallel shared string.xlsx";
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) rows.add(new Object[] { i, "dict-" + (i % 97) });
+        new Workbook().addSheet(new SimpleSheet<>(rows, new Column("ID"), new Column("DICT").setShare(true))
+            .setParallelism(4)).writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<String> list = reader.sheet(0).header(1).rows().map(row -> row.getInt(0) + ":" + row.getString(1)).collect(Collectors.toList());
+            assertEquals(rows.size(), list.size());
+            for (int i = 0; i < rows.size(); i++) assertEquals(i + ":dict-" + (i % 97), list.get(i));
+        }
+    }
+
+    @Test public void testHyperlink() throws IOException {
+        String fileName = "parallel hyperlink.xlsx";
+        List<ListObjectSheetTest2.Item> list = new ArrayList<>();
+        for (int i = 0; i < 500; i++) list.add(new ListObjectSheetTest2.Item("site" + i, "https://www.example.com/" + i));
+        new Workbook().addSheet(new ListSheet<>(list).setParallelism(3)).writeTo(defaultTestPath.resolve(fileName));
+        // 超链接按行顺序登记，与顺序输出一致
+        assertSameAsSequential("parallel hyperlink order", parallelism -> new ListSheet<>(list).setParallelism(parallelism),
+            "xl/worksheets/sheet1.xml", "xl/worksheets/_rels/sheet1.xml.rels");
+
+        String rels = new String(entry(defaultTestPath.resolve(fileName), "xl/worksheets/_rels/sheet1.xml.rels"));
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(rels.indexOf("https://www.example.com/" + i + "\""), rels.lastIndexOf("https://www.example.com/" + i + "\""));
+        }
+        assertEquals(list.size(), rels.split("TargetMode=\"External\"", -1).length - 1);
+    }
+
+    @Test public void testMedia() throws IOException {
+        String fileName = "parallel media.xlsx";
+        byte[] red = png(0xFF0000), blue = png(0x0000FF);
+        List<byte[]> list = new ArrayList<>();
+        for (int i = 0; i < 200; i++) list.add(i % 2 == 0 ? red.clone() : blue.clone());
+        new Workbook().addSheet(new ListSheet<>(list).setColumns(new Column().writeAsMedia()).setParallelism(4))
+            .writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<Drawings.Picture> pictures = reader.listPictures();
+            assertEquals(list.size(), pictures.size());
+            assertEquals(list.size(), pictures.stream().map(p -> p.getDimension().firstRow).distinct().count());
+        }
+        // 图片按行顺序输出，与顺序输出一致
+        assertSameAsSequential("parallel media order", parallelism -> new ListSheet<>(list).setColumns(new Column().writeAsMedia()).setParallelism(parallelism),
+            "xl/drawings/drawing1.xml", "xl/drawings/_rels/drawing1.xml.rels");
+    }
+
+    @Test public void testPagingMore() throws IOException {
+        String fileName = "parallel paging more.xlsx";
+        List<ListObjectSheetTest.Item> expectList = new ArrayList<>();
+        new Workbook().addSheet(new ListSheet<ListObjectSheetTest.Item>() {
+            private int i;
+            @Override
+            protected List<ListObjectSheetTest.Item> more() {
+                List<ListObjectSheetTest.Item> list = i++ < 30 ? ListObjectSheetTest.Item.randomTestData(37 + i) : null;
+                if (list != null) expectList.addAll(list);
+                return list;
+            }
+        }.setColumnar(true).setParallelism(2)).setWorkbookWriter(new ReLimitXMLWorkbookWriter()).writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheets().flatMap(sheet -> sheet.header(1).dataRows())
+                .map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+    }
+
+    @Test public void testProgress() throws IOException {
+        List<ListObjectSheetTest.Item> list = ListObjectSheetTest.Item.randomTestData(1000);
+        List<Integer> progress = new ArrayList<>();
+        new Workbook().addSheet(new ListSheet<>(list).setParallelism(2).onProgress((sheet, row) -> progress.add(row)))
+            .writeTo(defaultTestPath.resolve("parallel progress.xlsx"));
+
+        // 按行号顺序通知
+        for (int i = 1; i < progress.size(); i++) assertTrue(progress.get(i) >= progress.get(i - 1));
+        assertEquals(list.size() - 1, (int) progress.get(progress.size() - 1));
+    }
+
+    @Test public void testError() throws IOException {
+        try {
+            new Workbook().addSheet(new ListSheet<ListObjectSheetTest.Item>() {
+                private int i;
+                @Override
+                protected List<ListObjectSheetTest.Item> more() {
+                    if (i++ == 3) throw new IllegalStateException("Query timeout");
+                    return ListObjectSheetTest.Item.randomTestData(100);
+                }
+            }.setParallelism(2)).writeTo(defaultTestPath.resolve("parallel error.xlsx"));
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Query timeout", e.getMessage());
+        }
+    }
+
+    private static void assertSameAsSequential(String name, Function<Integer, Sheet> sheetSupplier) throws IOException {
+        assertSameAsSequential(name, sheetSupplier, "xl/worksheets/sheet1.xml");
+    }
+
+    private static void assertSameAsSequential(String name, Function<Integer, Sheet> sheetSupplier, String ... entries) throws IOException {
+        Path sequentialPath = defaultTestPath.resolve(name + " sequential.xlsx"), parallelPath = defaultTestPath.resolve(name + ".xlsx");
+        new Workbook().addSheet(sheetSupplier.apply(0)).writeTo(sequentialPath);
+        new Workbook().addSheet(sheetSupplier.apply(4)).writeTo(parallelPath);
+        for (String entry : entries) assertArrayEquals(entry, entry(sequentialPath, entry), entry(parallelPath, entry));
+    }
+
+    private static byte[] entry(Path path, String name) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(path))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (name.equals(entry.getName())) return readAll(zis);
+            }
+        }
+        throw new IOException("Entry " + name + " not found in " + path);
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = is.read(buf)) > 0; bos.write(buf, 0, n)) ;
+        return bos.toByteArray();
+    }
+
+    private static byte[] png(int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 8; x++) for (int y = 0; y < 8; y++) image.setRGB(x, y, rgb);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bos);
+        return bos.toByteArray();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ttzero.excel.entity.e7.XMLWorkbookWriter;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 并行输出工作表测试
+ *
+ * @author guanquan.wang at 2024-11-22 09:35
+ */
+public class ParallelWorkbookTest extends WorkbookTest {
+    private static ExecutorService executor;
+
+    @BeforeClass public static void init() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass public static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test public void testParallelWrite() throws IOException {
+        String fileName = "parallel write.xlsx";
+        List<List<ListObjectSheetTest.AllType>> expectLists = new ArrayList<>();
+        Workbook workbook = new Workbook().setWorkbookWriter(new XMLWorkbookWriter().setExecutor(executor));
+        for (int i = 0; i < 8; i++) {
+            List<ListObjectSheetTest.AllType> expectList = ListObjectSheetTest.AllType.randomTestData();
+            expectLists.add(expectList);
+            workbook.addSheet(new ListSheet<>(expectList));
+        }
+        workbook.writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            assertEquals(expectLists.size(), reader.getSheetCount());
+            for (int i = 0; i < expectLists.size(); i++) {
+                List<ListObjectSheetTest.AllType> list = reader.sheet(i).dataRows().map(row -> row.to(ListObjectSheetTest.AllType.class)).collect(Collectors.toList());
+                assertEquals(expectLists.get(i), list);
+            }
+        }
+    }
+
+    @Test public void testParallelStreamingPaging() throws IOException {
+        String fileName = "parallel streaming paging.xlsx";
+        List<ListObjectSheetTest.Item> first = ListObjectSheetTest.Item.randomTestData(), last = ListObjectSheetTest.Item.randomTestData(1024);
+        Workbook workbook = new Workbook()
+            .addSheet(new ListSheet<>(first))
+            .addSheet(new ListSheet<>(last))
+            .setWorkbookWriter(new ReLimitXMLWorkbookWriter().setExecutor(executor).setStreaming(true));
+        workbook.writeTo(defaultTestPath.resolve(fileName));
+
+        int rowLimit = workbook.getSheetAt(0).getSheetWriter().getRowLimit() - 1; // 1 header row
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            assertEquals(1 + (last.size() + rowLimit - 1) / rowLimit, reader.getSheetCount());
+            List<ListObjectSheetTest.Item> list = reader.sheet(0).header(1).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(first, list);
+            list = reader.sheets().skip(1).flatMap(sheet -> sheet.header(1).dataRows())
+                .map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(last, list);
+        }
+    }
+
+    @Test public void testParallelPagingNotLast() throws IOException {
+        String fileName = "parallel paging not last.xlsx";
+        List<ListObjectSheetTest.Item> first = ListObjectSheetTest.Item.randomTestData(1024), last = ListObjectSheetTest.Item.randomTestData();
+        Workbook workbook = new Workbook()
+            .addSheet(new ListSheet<>(first))
+            .addSheet(new ListSheet<>(last))
+            .setWorkbookWriter(new ReLimitXMLWorkbookWriter().setExecutor(executor));
+        workbook.writeTo(defaultTestPath.resolve(fileName));
+
+        int rowLimit = workbook.getSheetAt(0).getSheetWriter().getRowLimit() - 1, pages = (first.size() + rowLimit - 1) / rowLimit;
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            assertEquals(pages + 1, reader.getSheetCount());
+            List<ListObjectSheetTest.Item> list = reader.sheets().limit(pages).flatMap(sheet -> sheet.header(1).dataRows())
+                .map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(first, list);
+            list = reader.sheet(pages).header(1).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(last, list);
+        }
+    }
+
+    @Test(expected = ExcelWriteException.class) public void testParallelStreamPagingNotLast() throws IOException {
+        new Workbook()
+            .addSheet(new ListSheet<ListObjectSheetTest.Item>().setData((i, lastOne) -> i < 1024 ? ListObjectSheetTest.Item.randomTestData(100) : null))
+            .addSheet(new ListSheet<>(ListObjectSheetTest.Item.randomTestData()))
+            .setWorkbookWriter(new ReLimitXMLWorkbookWriter().setExecutor(executor))
+            .writeTo(defaultTestPath.resolve("parallel stream paging not last.xlsx"));
+    }
+
+    @Test public void testParallelMediaNames() throws IOException {
+        byte[] red = MediaDedupTest.png(0xFF0000), blue = MediaDedupTest.png(0x0000FF);
+        Set<String> expect = null;
+        for (int n = 0; n < 5; n++) {
+            Path path = defaultTestPath.resolve("parallel media names.xlsx");
+            Workbook workbook = new Workbook().setWorkbookWriter(new XMLWorkbookWriter().setExecutor(executor));
+            for (int i = 0; i < 4; i++) {
+                List<byte[]> list = new ArrayList<>();
+                for (int j = 0; j < 20; j++) list.add(j % 2 == i % 2 ? red : blue);
+                workbook.addSheet(new ListSheet<>(list).setColumns(new Column().writeAsMedia()));
+            }
+            workbook.writeTo(path);
+
+            Set<String> names;
+            try (ZipFile zip = new ZipFile(path.toFile())) {
+                names = zip.stream().map(ZipEntry::getName).filter(e -> e.startsWith("xl/media/") || e.startsWith("xl/drawings/"))
+                    .collect(Collectors.toCollection(TreeSet::new));
+            }
+            // 文件名与各工作表的完成顺序无关
+            if (expect == null) {
+                expect = names;
+                assertTrue(names.contains("xl/media/image1_1.png"));
+                assertTrue(names.contains("xl/media/image4_2.png"));
+                assertTrue(names.contains("xl/drawings/drawing4.xml"));
+            } else assertEquals(expect, names);
+
+            try (ExcelReader reader = ExcelReader.read(path)) {
+                assertEquals(80, reader.listPictures().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * 行块预取测试
+ *
+ * @author guanquan.wang at 2024-11-27 14:40
+ */
+public class PrefetchSheetTest extends WorkbookTest {
+
+    @Test public void testPrefetchMore() throws IOException {
+        String fileName = "prefetch more.xlsx";
+        List<ListObjectSheetTest.Item> expectList = new ArrayList<>();
+        new Workbook().addSheet(new ListSheet<ListObjectSheetTest.Item>() {
+            private int i;
+            @Override
+            protected List<ListObjectSheetTest.Item> more() {
+                // Uneven pages to leave some rows in the window
+                List<ListObjectSheetTest.Item> list = i++ < 20 ? ListObjectSheetTest.Item.randomTestData(37 + i) : null;
+                if (list != null) expectList.addAll(list);
+                return list;
+            }
+        }.setPrefetch(2)).writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheet(0).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+            assertEquals(expectList.size() + 1, reader.sheet(0).getDimension().lastRow);
+        }
+    }
+
+    @Test public void testPrefetchDataSupplier() throws IOException {
+        String fileName = "prefetch data supplier.xlsx";
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(1000);
+        new Workbook().addSheet(new ListSheet<ListObjectSheetTest.Item>()
+            .setData((i, lastOne) -> i < expectList.size() ? expectList.subList(i, Math.min(i + 100, expectList.size())) : null)
+            .setPrefetch(4)).writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheet(0).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+    }
+
+    @Test public void testPrefetchPaging() throws IOException {
+        String fileName = "prefetch paging.xlsx";
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(1024);
+        Workbook workbook = new Workbook()
+            .addSheet(new ListSheet<>(expectList).setPrefetch(1))
+            .setWorkbookWriter(new ReLimitXMLWorkbookWriter());
+        workbook.writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheets().flatMap(sheet -> sheet.header(1).dataRows())
+                .map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+    }
+
+    @Test public void testPrefetchError() throws IOException {
+        try {
+            new Workbook().addSheet(new ListSheet<ListObjectSheetTest.Item>() {
+                private int i;
+                @Override
+                protected List<ListObjectSheetTest.Item> more() {
+                    if (i++ == 3) throw new IllegalStateException("Query timeout");
+                    return ListObjectSheetTest.Item.randomTestData(100);
+                }
+            }.setPrefetch(2)).writeTo(defaultTestPath.resolve("prefetch error.xlsx"));
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Query timeout", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ttzero.excel.entity.e7.XMLDrawingsWriter;
+import org.ttzero.excel.entity.e7.XMLWorksheetWriter;
+import org.ttzero.excel.reader.Drawings;
+import org.ttzero.excel.reader.ExcelReader;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.ttzero.excel.entity.WorkbookTest.defaultTestPath;
+
+/**
+ * 使用本地{@code HttpServer}测试远程图片下载
+ *
+ * @author guanquan.wang at 2024-12-04 15:30
+ */
+public class RemoteMediaFetcherTest {
+    private static HttpServer server;
+    private static String base;
+    private static byte[] png;
+    private static final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private static final AtomicInteger concurrent = new AtomicInteger(), maxConcurrent = new AtomicInteger();
+
+    @BeforeClass public static void start() throws IOException {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bos);
+        png = bos.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            hits.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+            int n = concurrent.incrementAndGet();
+            maxConcurrent.accumulateAndGet(n, Math::max);
+            try {
+                Thread.sleep(20L);
+                if (path.startsWith("/lying")) {
+                    // 声明的长度远大于实际内容
+                    exchange.sendResponseHeaders(200, 1L << 30);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(png);
+                    }
+                } else if (path.startsWith("/chunked")) {
+                    // 没有声明长度，实际内容超过上限
+                    exchange.sendResponseHeaders(200, 0);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        for (int i = 0; i < 8; i++) os.write(png);
+                    }
+                } else if (path.endsWith(".png")) {
+                    exchange.sendResponseHeaders(200, png.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(png);
+                    }
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(8));
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterClass public static void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    @Test public void testFetch() {
+        HttpRemoteMediaFetcher fetcher = new HttpRemoteMediaFetcher(2);
+        assertArrayEquals(png, fetcher.fetch(base + "/fetch.png").join());
+        assertNull(fetcher.fetch(base + "/missing").join());
+        assertNull(fetcher.fetch("ftp://127.0.0.1/a.png").join());
+    }
+
+    @Test public void testMaxBytes() {
+        HttpRemoteMediaFetcher fetcher = new HttpRemoteMediaFetcher(2).setMaxBytes(png.length * 4);
+        assertArrayEquals(png, fetcher.fetch(base + "/limit.png").join());
+        assertNull(fetcher.fetch(base + "/lying.png").join());
+        assertNull(fetcher.fetch(base + "/chunked.png").join());
+        // 默认上限内正常读取
+        assertEquals(png.length * 8, new HttpRemoteMediaFetcher(2).fetch(base + "/chunked-all").join().length);
+    }
+
+    @Test public void testMergeInflight() {
+        HttpRemoteMediaFetcher fetcher = new HttpRemoteMediaFetcher(2);
+        CompletableFuture<byte[]> a = fetcher.fetch(base + "/inflight.png"), b = fetcher.fetch(base + "/inflight.png");
+        assertSame(a, b);
+        assertArrayEquals(png, b.join());
+        assertEquals(1, hits.get("/inflight.png").get());
+    }
+
+    @Test public void testDedupRemoteImages() throws IOException {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 100; i++) urls.add(base + (i % 3 == 0 ? "/b.png" : "/a.png"));
+        for (int i = 0; i < 20; i++) urls.add(base + "/img" + i + ".png");
+        urls.add(base + "/missing");
+
+        maxConcurrent.set(0);
+        new Workbook().addSheet(new ListSheet<>(urls)
+            .setColumns(new Column().setWidth(20).writeAsMedia())
+            .setSheetWriter(new XMLWorksheetWriter().setRemoteMediaFetcher(new HttpRemoteMediaFetcher(4))))
+            .writeTo(defaultTestPath.resolve("dedup remote image.xlsx"));
+
+        assertEquals(1, hits.get("/a.png").get());
+        assertEquals(1, hits.get("/b.png").get());
+        assertTrue(maxConcurrent.get() <= 4);
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve("dedup remote image.xlsx"))) {
+            List<Drawings.Picture> list = reader.sheet(0).listPictures();
+            assertEquals(120, list.size());
+            // 按行顺序输出
+            for (int i = 0; i < list.size(); i++) assertEquals(i, list.get(i).getDimension().firstRow - 1);
+            // 图片内容相同，共享同一个图片文件
+            assertEquals(1, list.stream().map(p -> p.getLocalPath().getFileName().toString()).collect(Collectors.toSet()).size());
+        }
+    }
+
+    @Test public void testDropLateCompletion() throws IOException {
+        CompletableFuture<byte[]> late = new CompletableFuture<>();
+        AtomicInteger completed = new AtomicInteger();
+        Workbook workbook = new Workbook();
+        workbook.addSheet(new ListSheet<>(Arrays.asList(base + "/late.png", base + "/late.png"))
+            .setColumns(new Column().writeAsMedia())
+            .setSheetWriter(new XMLWorksheetWriter() {
+                @Override
+                protected IDrawingsWriter createDrawingsWriter() throws IOException {
+                    IDrawingsWriter writer = super.createDrawingsWriter();
+                    ((XMLDrawingsWriter) writer).setAsyncTimeout(100L);
+                    return writer;
+                }
+
+                @Override
+                public void downloadCompleted(Picture picture, byte[] body) throws IOException {
+                    completed.incrementAndGet();
+                    super.downloadCompleted(picture, body);
+                }
+            }.setRemoteMediaFetcher(url -> late)))
+            .writeTo(defaultTestPath.resolve("late remote image.xlsx"));
+
+        // 超时后才完成的下载被丢弃，不再重新创建暂存文件
+        late.complete(png);
+        assertEquals(0, completed.get());
+        MediaStore mediaStore = workbook.getMediaStore();
+        assertTrue(mediaStore.isClosed());
+        assertEquals(0, mediaStore.size());
+        try {
+            mediaStore.put("image1.png", png, 0, png.length);
+            fail();
+        } catch (IOException e) {
+            assertEquals(0, mediaStore.bytes());
+        }
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve("late remote image.xlsx"))) {
+            assertTrue(reader.sheet(0).listPictures() == null || reader.sheet(0).listPictures().isEmpty());
+        }
+    }
+}
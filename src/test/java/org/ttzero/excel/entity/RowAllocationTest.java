@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ttzero.excel.entity.e7.XMLCellValueAndStyle;
+import org.ttzero.excel.entity.e7.XMLWorksheetWriter;
+import org.ttzero.excel.manager.Const;
+import org.ttzero.excel.util.FileUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 行输出的内存分配预算测试，行块装填完成后反复输出同一批行，
+ * 稳态下{@link XMLWorksheetWriter#writeRow}每行的分配字节数不能超过预算
+ *
+ * @author guanquan.wang at 2024-12-10 15:20
+ */
+public class RowAllocationTest {
+    /**
+     * 每行允许的分配字节数，稳态下应为0，留少量余量给JIT和采样误差
+     */
+    private static final long BUDGET_PER_ROW = 8L;
+    private static final int COLUMNS = 10, WARMUP = 20_000, ROWS = 100_000;
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    @BeforeClass public static void setup() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test public void testInt() throws IOException {
+        assertBudget("int", Random::nextInt, false, false);
+    }
+
+    @Test public void testLong() throws IOException {
+        assertBudget("long", Random::nextLong, false, false);
+    }
+
+    @Test public void testDouble() throws IOException {
+        assertBudget("double", r -> r.nextDouble() * 1000000, false, false);
+    }
+
+    @Test public void testFloat() throws IOException {
+        assertBudget("float", r -> r.nextFloat() * 1000, false, false);
+    }
+
+    @Test public void testDecimal() throws IOException {
+        assertBudget("decimal", r -> BigDecimal.valueOf(r.nextInt(100000000), 2), false, false);
+    }
+
+    @Test public void testTimestamp() throws IOException {
+        assertBudget("timestamp", r -> new Timestamp(1700000000000L + r.nextInt()), false, false);
+    }
+
+    @Test public void testLocalDate() throws IOException {
+        assertBudget("localDate", r -> LocalDate.of(2024, 1, 1).plusDays(r.nextInt(1000)), false, false);
+    }
+
+    @Test public void testLocalDateTime() throws IOException {
+        assertBudget("localDateTime", r -> LocalDateTime.of(2024, 1, 1, 0, 0).plusSeconds(r.nextInt()), false, false);
+    }
+
+    @Test public void testLocalTime() throws IOException {
+        assertBudget("localTime", r -> LocalTime.ofSecondOfDay(r.nextInt(86400)), false, false);
+    }
+
+    @Test public void testBool() throws IOException {
+        assertBudget("bool", Random::nextBoolean, false, false);
+    }
+
+    @Test public void testChar() throws IOException {
+        assertBudget("char", r -> (char) ('A' + r.nextInt(26)), false, false);
+    }
+
+    @Test public void testInlineStr() throws IOException {
+        assertBudget("inlineStr", r -> "Customer " + r.nextInt(100000), false, false);
+    }
+
+    @Test public void testEscapedInlineStr() throws IOException {
+        assertBudget("escaped", r -> "Customer <" + r.nextInt(100000) + "> & co.", false, false);
+    }
+
+    @Test public void testLongInlineStr() throws IOException {
+        assertBudget("long inlineStr", r -> {
+            StringBuilder buf = new StringBuilder();
+            for (int i = 0; i < 50; i++) buf.append("text & ").append(r.nextInt(1000)).append(' ');
+            return buf.toString();
+        }, false, false);
+    }
+
+    @Test public void testSharedString() throws IOException {
+        assertBudget("sst", r -> "dict-" + r.nextInt(50), true, false);
+    }
+
+    @Test public void testNull() throws IOException {
+        assertBudget("null", r -> null, false, false);
+    }
+
+    @Test public void testAutoSizeNumeric() throws IOException {
+        assertBudget("autoSize int", Random::nextInt, false, true);
+        assertBudget("autoSize long", Random::nextLong, false, true);
+        assertBudget("autoSize double", r -> r.nextDouble() * 1000000, false, true);
+        assertBudget("autoSize decimal", r -> BigDecimal.valueOf(r.nextInt(100000000), 2), false, true);
+        assertBudget("autoSize timestamp", r -> new Timestamp(1700000000000L + r.nextInt()), false, true);
+    }
+
+    @Test public void testAutoSizeString() throws IOException {
+        assertBudget("autoSize inlineStr", r -> "Customer " + r.nextInt(100000), false, true);
+        assertBudget("autoSize bool", Random::nextBoolean, false, true);
+    }
+
+    private static void assertBudget(String type, Function<Random, Object> generator, boolean share, boolean autoSize) throws IOException {
+        Random random = new Random(0);
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int r = 0; r < 32; r++) {
+            Map<String, Object> map = new HashMap<>();
+            for (int c = 0; c < COLUMNS; c++) map.put("c" + c, generator.apply(random));
+            data.add(map);
+        }
+        Column[] columns = new Column[COLUMNS];
+        for (int c = 0; c < COLUMNS; c++) {
+            columns[c] = new Column("c" + c, "c" + c).setShare(share);
+            if (autoSize) columns[c].autoSize();
+        }
+
+        BudgetSheet sheet = new BudgetSheet(data, columns);
+        Workbook workbook = new Workbook().addSheet(sheet);
+        BudgetWriter writer = new BudgetWriter(sheet);
+        RowBlock block = sheet.prepare(writer);
+        Row[] rows = new Row[block.limit()];
+        for (int r = 0; block.hasNext(); rows[r++] = block.next()) ;
+
+        Path root = FileUtil.mktmp(Const.EEC_PREFIX);
+        try {
+            writer.prepare(root);
+            for (int i = 0; i < WARMUP; i++) writer.write(rows[i % rows.length]);
+
+            long tid = Thread.currentThread().getId();
+            long before = threadBean.getThreadAllocatedBytes(tid);
+            for (int i = 0; i < ROWS; i++) writer.write(rows[i % rows.length]);
+            long allocated = threadBean.getThreadAllocatedBytes(tid) - before;
+
+            assertTrue(type + ": allocated " + allocated + " bytes for " + ROWS + " rows", allocated <= BUDGET_PER_ROW * ROWS);
+        } finally {
+            writer.close();
+            workbook.getSharedStrings().close();
+            FileUtil.rm_rf(root);
+        }
+    }
+
+    public static class BudgetSheet extends ListMapSheet<Object> {
+        BudgetSheet(List<Map<String, Object>> data, Column... columns) {
+            super(data, columns);
+        }
+
+        RowBlock prepare(XMLWorksheetWriter writer) {
+            setSheetWriter(writer);
+            setCellValueAndStyle(new XMLCellValueAndStyle());
+            rowBlock = new RowBlock(getRowBlockSize());
+            getAndSortHeaderColumns();
+            paging();
+            return nextBlock();
+        }
+    }
+
+    public static class BudgetWriter extends XMLWorksheetWriter {
+        BudgetWriter(Sheet sheet) {
+            super(sheet);
+        }
+
+        void prepare(Path root) throws IOException {
+            setOutputStream(new OutputStream() {
+                @Override public void write(int b) { }
+                @Override public void write(byte[] b, int off, int len) { }
+            });
+            initWriter(root);
+            writeBefore();
+        }
+
+        void write(Row row) throws IOException {
+            writeRow(row);
+        }
+    }
+}
@@ -19,10 +19,21 @@ package org.ttzero.excel.entity;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 import static org.ttzero.excel.entity.WorkbookTest.author;
 import static org.ttzero.excel.entity.WorkbookTest.getRandomString;
 
@@ -83,4 +94,110 @@ public class SharedStringsTest {
             }
         }
     }
+
+    @Test public void testFindBeyondExpectedInsertions() throws IOException {
+        try (SharedStrings sst = new SharedStrings().init()) {
+            int size = 300_000;
+            for (int i = 0; i < size; i++) {
+                assertEquals(i, sst.get("customer-" + i));
+            }
+            // Reverse order to miss the hot cache
+            for (int i = size - 1; i >= 0; i--) {
+                assertEquals(i, sst.get("customer-" + i));
+            }
+            assertEquals(size, sst.get("new customer"));
+            assertEquals(size + 1, sst.get("\u4e2d"));
+            assertEquals(size + 1, sst.get('\u4e2d'));
+            assertEquals(size + 2, sst.get(""));
+            assertEquals(size + 2, sst.get((String) null));
+        }
+    }
+
+    @Test public void testSequentialLockFree() throws Exception {
+        try (SharedStrings sst = new SharedStrings().init()) {
+            assertFalse(sst.isConcurrent());
+            // 单线程模式下查找不能获取锁，持有锁时依然可以完成
+            assertEquals(1000, lookupWhileLocked(sst, () -> {
+                for (int i = 0; i < 1000; i++) {
+                    sst.get((char) (i & 0x7F));
+                    sst.get("key" + (i & 0xFF));
+                }
+                return 1000;
+            }).get(5, TimeUnit.SECONDS).intValue());
+        }
+    }
+
+    @Test public void testConcurrentLocked() throws Exception {
+        try (SharedStrings sst = new SharedStrings().init().setConcurrent(true)) {
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Integer> future = lookupWhileLocked(sst, release, () -> sst.get("abc"));
+            try {
+                future.get(200, TimeUnit.MILLISECONDS);
+                fail("Lookup must wait for the lock in concurrent mode");
+            } catch (TimeoutException e) {
+                // Expected
+            }
+            release.countDown();
+            assertEquals(0, future.get(5, TimeUnit.SECONDS).intValue());
+
+            // 多线程查找得到一致的下标
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<int[]>> futures = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    futures.add(executor.submit(() -> {
+                        int[] indices = new int[1000];
+                        for (int i = 0; i < indices.length; i++) indices[i] = sst.get("key" + i);
+                        return indices;
+                    }));
+                }
+                int[] expect = futures.get(0).get();
+                for (Future<int[]> f : futures) {
+                    int[] indices = f.get();
+                    for (int i = 0; i < expect.length; i++) assertEquals(expect[i], indices[i]);
+                }
+                assertEquals(1000, Arrays.stream(expect).distinct().count());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    public interface Lookup {
+        int get() throws IOException;
+    }
+
+    public static Future<Integer> lookupWhileLocked(Object lock, Lookup lookup) throws InterruptedException {
+        return lookupWhileLocked(lock, null, lookup);
+    }
+
+    /**
+     * 其它线程持有锁期间执行查找，{@code release}为{@code null}时直到查找完成才释放锁
+     */
+    public static Future<Integer> lookupWhileLocked(Object lock, CountDownLatch release, Lookup lookup) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(() -> {
+            synchronized (lock) {
+                locked.countDown();
+                try {
+                    if (release != null) release.await();
+                    else done.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        locked.await();
+        Future<Integer> future = executor.submit(() -> {
+            try {
+                return lookup.get();
+            } finally {
+                done.countDown();
+            }
+        });
+        executor.shutdown();
+        return future;
+    }
 }
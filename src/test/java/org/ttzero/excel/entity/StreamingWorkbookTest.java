@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.entity.e7.XMLWorkbookWriter;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 流式输出测试
+ *
+ * @author guanquan.wang at 2024-11-20 10:12
+ */
+public class StreamingWorkbookTest extends WorkbookTest {
+
+    @Test public void testStreamingToOutputStream() throws IOException {
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        new Workbook()
+            .setWorkbookWriter(new XMLWorkbookWriter().setStreaming(true))
+            .addSheet(new ListSheet<>(expectList))
+            .addSheet(new ListSheet<>("second", expectList))
+            .writeTo(os);
+
+        try (ExcelReader reader = ExcelReader.read(new ByteArrayInputStream(os.toByteArray()))) {
+            assertEquals(2, reader.getSheetCount());
+            for (int i = 0; i < 2; i++) {
+                List<ListObjectSheetTest.Item> list = reader.sheet(i).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+                assertEquals(expectList, list);
+            }
+        }
+    }
+
+    @Test public void testStreamingAutoSize() throws IOException {
+        String fileName = "streaming auto-size.xlsx";
+        List<ListObjectSheetTest.Student> expectList = ListObjectSheetTest.Student.randomTestData();
+        new Workbook()
+            .setWorkbookWriter(new XMLWorkbookWriter().setStreaming(true))
+            .setAutoSize(true)
+            .addSheet(new ListSheet<>(expectList))
+            .writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Student> list = reader.sheet(0).dataRows().map(row -> row.to(ListObjectSheetTest.Student.class)).collect(Collectors.toList());
+            assertEquals(expectList.size(), list.size());
+            for (int i = 0, len = expectList.size(); i < len; i++) {
+                ListObjectSheetTest.Student expect = expectList.get(i), e = list.get(i);
+                expect.setId(0); // ID not exported
+                assertEquals(expect, e);
+            }
+        }
+    }
+
+    @Test public void testStreamingPaging() throws IOException {
+        String fileName = "streaming paging.xlsx";
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(1024);
+        Workbook workbook = new Workbook()
+            .addSheet(new ListSheet<>(expectList))
+            .setWorkbookWriter(new ReLimitXMLWorkbookWriter().setStreaming(true));
+        workbook.writeTo(defaultTestPath.resolve(fileName));
+
+        int count = expectList.size(), rowLimit = workbook.getSheetAt(0).getSheetWriter().getRowLimit() - 1; // 1 header row
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            assertEquals(reader.getSheetCount(), (count % rowLimit > 0 ? count / rowLimit + 1 : count / rowLimit));
+            List<ListObjectSheetTest.Item> list = reader.sheets().flatMap(sheet -> sheet.header(1).dataRows())
+                .map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+    }
+
+    @Test public void testStreamingAbort() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            new Workbook()
+                .setWorkbookWriter(new XMLWorkbookWriter().setStreaming(true))
+                .addSheet(new ListSheet<>(ListObjectSheetTest.Item.randomTestData()))
+                .addSheet(new ListSheet<ListObjectSheetTest.Item>() {
+                    @Override
+                    protected List<ListObjectSheetTest.Item> more() {
+                        throw new IllegalStateException("Query failed");
+                    }
+                })
+                .writeTo(os);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("Query failed", e.getMessage());
+        }
+        // 异常时关闭压缩流但不向目标流追加目录区
+        byte[] bytes = os.toByteArray();
+        assertTrue(bytes.length > 0);
+        for (int i = 0; i < bytes.length - 3; i++) {
+            assertFalse(bytes[i] == 'P' && bytes[i + 1] == 'K' && bytes[i + 2] == 5 && bytes[i + 3] == 6);
+        }
+    }
+}
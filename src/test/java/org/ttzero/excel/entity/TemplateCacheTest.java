@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity;
+
+import org.junit.Test;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.ttzero.excel.reader.ExcelReaderTest.testResourceRoot;
+
+/**
+ * 编译模板缓存测试，使用缓存导出的结果必须与不使用缓存完全一致
+ *
+ * @author guanquan.wang at 2024-12-17 15:30
+ */
+public class TemplateCacheTest extends WorkbookTest {
+
+    @Test public void testSimpleTemplate() throws IOException {
+        List<TemplateSheetTest.GameEntry> list = TemplateSheetTest.GameEntry.random();
+        assertSameAsUncached("cache simple template", cache -> new TemplateSheet(testResourceRoot().resolve("template2.xlsx"), "简单模板")
+            .setTemplateCache(cache).setData(list));
+    }
+
+    @Test public void testFillListObject() throws IOException {
+        TemplateSheetTest.YzEntity yzEntity = TemplateSheetTest.YzEntity.mock();
+        List<TemplateSheetTest.YzOrderEntity> list = TemplateSheetTest.YzOrderEntity.randomData();
+        TemplateSheetTest.YzSummary summary = TemplateSheetTest.YzSummary.mock();
+        assertSameAsUncached("cache fill list object", cache -> new TemplateSheet(testResourceRoot().resolve("template2.xlsx"), "混合命名空间")
+            .setTemplateCache(cache).setData(yzEntity).setData("YzEntity", list).setData("summary", summary));
+    }
+
+    @Test public void testInnerFormula() throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", "name" + i);
+            row.put("age", i);
+            row.put("sex", i % 2 == 0 ? "男" : "女");
+            row.put("jumpUrl", "https://jianli.com/" + i);
+            list.add(row);
+        }
+        assertSameAsUncached("cache inner formula", cache -> new TemplateSheet(testResourceRoot().resolve("template2.xlsx"), "内置函数")
+            .setTemplateCache(cache).setData(list).setData("@list:sex", Arrays.asList("未知", "男", "女")));
+    }
+
+    @Test public void testStreamTemplate() throws IOException {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", author);
+        map.put("score", 90);
+        map.put("date", "2024-12-17");
+        map.put("desc", "暑假");
+        assertSameAsUncached("cache stream template", cache -> {
+            try {
+                return new TemplateSheet(Files.newInputStream(testResourceRoot().resolve("template.xlsx"))).setTemplateCache(cache).setData(map);
+            } catch (IOException e) {
+                throw new ExcelWriteException(e);
+            }
+        });
+    }
+
+    @Test public void testPictures() throws IOException {
+        try (TemplateCache cache = new TemplateCache()) {
+            assertSameAsUncached("cache pictures", cache, c -> new TemplateSheet(testResourceRoot().resolve("drawing.xlsx")).setTemplateCache(c));
+            int expect;
+            try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve("cache pictures uncached.xlsx"))) {
+                expect = reader.listPictures().size();
+            }
+            try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve("cache pictures.xlsx"))) {
+                assertEquals(expect, reader.listPictures().size());
+            }
+
+            // 淘汰后删除图片临时目录
+            TemplateSheet.CompiledTemplate template = cache.get(new TemplateSheet(testResourceRoot().resolve("drawing.xlsx")));
+            cache.release(template);
+            Path dir = template.tempDir;
+            if (dir != null) {
+                assertTrue(Files.exists(dir));
+                cache.clear();
+                assertFalse(Files.exists(dir));
+            }
+
+            // 使用中被淘汰时由最后一个释放的导出删除
+            template = cache.get(new TemplateSheet(testResourceRoot().resolve("drawing.xlsx")));
+            dir = template.tempDir;
+            if (dir != null) {
+                cache.clear();
+                assertTrue(template.evicted);
+                assertTrue(Files.exists(dir));
+                cache.release(template);
+                assertFalse(Files.exists(dir));
+            }
+        }
+    }
+
+    @Test public void testReuseAndModify() throws IOException {
+        Path path = getOutputTestPath().resolve("cache modify template.xlsx");
+        Files.copy(testResourceRoot().resolve("template2.xlsx"), path, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        try (TemplateCache cache = new TemplateCache(1)) {
+            TemplateSheet.CompiledTemplate t1 = cache.get(new TemplateSheet(path, "简单模板"));
+            TemplateSheet.CompiledTemplate t2 = cache.get(new TemplateSheet(path, "简单模板"));
+            assertSame(t1, t2);
+            cache.release(t1);
+            cache.release(t2);
+
+            // 修改模板后重新编译
+            Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 60000L));
+            TemplateSheet.CompiledTemplate t3 = cache.get(new TemplateSheet(path, "简单模板"));
+            assertNotSame(t1, t3);
+            assertTrue(t1.evicted);
+            cache.release(t3);
+
+            // 超过容量上限淘汰最久未使用
+            TemplateSheet.CompiledTemplate t4 = cache.get(new TemplateSheet(path, "混合命名空间"));
+            cache.release(t4);
+            assertEquals(1, cache.size());
+            assertTrue(t3.evicted);
+
+            cache.invalidate(path);
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test public void testConcurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (TemplateCache cache = new TemplateCache()) {
+            List<Future<List<TemplateSheetTest.YzOrderEntity>>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                Path path = defaultTestPath.resolve("cache concurrent " + i + ".xlsx");
+                futures.add(executor.submit(() -> {
+                    List<TemplateSheetTest.YzOrderEntity> list = TemplateSheetTest.YzOrderEntity.randomData();
+                    new Workbook().addSheet(new TemplateSheet(testResourceRoot().resolve("template2.xlsx"), "混合命名空间")
+                        .setTemplateCache(cache).setData(TemplateSheetTest.YzEntity.mock()).setData("YzEntity", list)
+                        .setData("summary", TemplateSheetTest.YzSummary.mock())).writeTo(path);
+                    try (ExcelReader reader = ExcelReader.read(path)) {
+                        TemplateSheetTest.assertListObject(reader.sheet(0).asFullSheet(), list);
+                    }
+                    return list;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+            assertEquals(1, cache.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertSameAsUncached(String name, Function<TemplateCache, TemplateSheet> sheetSupplier) throws IOException {
+        try (TemplateCache cache = new TemplateCache()) {
+            assertSameAsUncached(name, cache, sheetSupplier);
+        }
+    }
+
+    private static void assertSameAsUncached(String name, TemplateCache cache, Function<TemplateCache, TemplateSheet> sheetSupplier) throws IOException {
+        Path uncachedPath = defaultTestPath.resolve(name + " uncached.xlsx"), cachedPath = defaultTestPath.resolve(name + ".xlsx");
+        new Workbook().addSheet(sheetSupplier.apply(null)).writeTo(uncachedPath);
+        // 第一次编译，第二次使用缓存
+        for (int i = 0; i < 2; i++) {
+            new Workbook().addSheet(sheetSupplier.apply(cache)).writeTo(cachedPath);
+            for (String entry : Arrays.asList("xl/worksheets/sheet1.xml", "xl/styles.xml", "xl/sharedStrings.xml")) {
+                assertArrayEquals(entry, entry(uncachedPath, entry), entry(cachedPath, entry));
+            }
+        }
+        assertEquals(1, cache.size());
+    }
+
+    private static byte[] entry(Path path, String name) throws IOException {
+        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(path))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                if (name.equals(entry.getName())) return readAll(zis);
+            }
+        }
+        return new byte[0];
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = is.read(buf)) > 0; bos.write(buf, 0, n)) ;
+        return bos.toByteArray();
+    }
+}
@@ -22,11 +22,15 @@ import org.ttzero.excel.entity.e7.XMLCellValueAndStyle;
 import org.ttzero.excel.entity.e7.XMLZebraLineCellValueAndStyle;
 import org.ttzero.excel.entity.style.Fill;
 import org.ttzero.excel.entity.style.PatternType;
+import org.ttzero.excel.reader.Cell;
 import org.ttzero.excel.reader.ExcelReader;
 
 import java.awt.Color;
 import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertEquals;
 import static org.ttzero.excel.entity.ZebraLineTest.assertNonZebraLine;
 import static org.ttzero.excel.entity.ZebraLineTest.assertZebraLineEquals;
 
@@ -143,4 +147,27 @@ public class XMLCellValueAndStyleTest extends WorkbookTest {
             assertNonZebraLine(reader.sheet(0).header(1).rows());
         }
     }
+
+    @Test public void testOverrideResetWithPrimitiveGetter() throws IOException {
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData();
+        // 覆写reset方法时基本类型的get方法不走直接写入，覆写的方法必须被调用
+        new Workbook()
+            .addSheet(new ListSheet<>(expectList).setCellValueAndStyle(new XMLCellValueAndStyle() {
+                @Override
+                public void reset(Row row, Cell cell, Object e, Column hc) {
+                    super.reset(row, cell, e instanceof Integer ? (Integer) e * 10 : e, hc);
+                }
+            }))
+            .writeTo(defaultTestPath.resolve("test override reset CellValueAndStyle.xlsx"));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve("test override reset CellValueAndStyle.xlsx"))) {
+            List<ListObjectSheetTest.Item> list = reader.sheet(0).header(1).bind(ListObjectSheetTest.Item.class).rows()
+                .map(row -> (ListObjectSheetTest.Item) row.get()).collect(Collectors.toList());
+            assertEquals(expectList.size(), list.size());
+            for (int i = 0; i < list.size(); i++) {
+                assertEquals(expectList.get(i).getId() * 10, list.get(i).getId());
+                assertEquals(expectList.get(i).getName(), list.get(i).getName());
+            }
+        }
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.entity.style;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author guanquan.wang at 2024-12-02 16:40
+ */
+public class FontWidthTableTest {
+
+    @Test public void testCache() {
+        FontWidthTable table = FontWidthTable.of(new Font("Arial", 11));
+        assertSame(table, FontWidthTable.of(new Font("Arial", 11)));
+        assertNotSame(table, FontWidthTable.of(new Font("Arial", 12)));
+        assertNotSame(table, FontWidthTable.of(new Font("Arial", 11, Font.Style.BOLD, null)));
+    }
+
+    @Test public void testBuiltin() {
+        FontWidthTable arial = FontWidthTable.of(new Font("Arial", 10));
+        assertEquals(6, arial.charWidth('0'));
+        assertEquals(2, arial.charWidth('i'));
+        assertEquals(9, arial.charWidth('W'));
+        assertEquals(60, arial.stringWidth("1234567890"));
+
+        FontWidthTable bold = FontWidthTable.of(new Font("Arial", 10, Font.Style.BOLD, null));
+        assertTrue(bold.stringWidth("abcdefg") > arial.stringWidth("abcdefg"));
+
+        FontWidthTable calibri = FontWidthTable.of(new Font("Calibri", 11));
+        assertEquals(6, calibri.charWidth('0'));
+        assertTrue(calibri.charWidth('m') > calibri.charWidth('l'));
+
+        FontWidthTable simsun = FontWidthTable.of(new Font("宋体", 12));
+        assertEquals(6, simsun.charWidth('i'));
+        assertEquals(6, simsun.charWidth('W'));
+        assertEquals(12, simsun.charWidth('，'));
+    }
+
+    @Test public void testCjk() {
+        FontWidthTable table = FontWidthTable.of(new Font("Calibri", 14));
+        assertEquals(14, table.charWidth('中'));
+        assertEquals(14 * 4, table.stringWidth("中文字体"));
+    }
+}
@@ -23,10 +23,16 @@ import java.awt.Color;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.ttzero.excel.entity.SharedStringsTest.lookupWhileLocked;
 import static org.ttzero.excel.entity.WorkbookTest.getOutputTestPath;
 import static org.ttzero.excel.entity.style.Styles.INDEX_BORDER;
 import static org.ttzero.excel.entity.style.Styles.INDEX_FILL;
@@ -243,4 +249,35 @@ public class StylesTest {
         awtFont2 = font.toAwtFont();
         assertEquals(awtFont, awtFont2);
     }
+
+    @Test public void testSequentialLockFree() throws Exception {
+        assertFalse(styles.isConcurrent());
+        // 单线程模式下不能获取锁，持有锁时依然可以完成
+        Font font = new Font("Consolas", 11);
+        int style = styles.addFont(font) | styles.addFill(new Fill(Color.YELLOW)) | Horizontals.CENTER;
+        int index = lookupWhileLocked(styles, () -> {
+            int n = 0;
+            for (int i = 0; i < 1000; i++) {
+                n = styles.of(style);
+                styles.getFont(style);
+                styles.getNumFmt(style);
+            }
+            return n;
+        }).get(5, TimeUnit.SECONDS);
+        assertEquals(style, styles.getStyleByIndex(index));
+    }
+
+    @Test public void testConcurrentLocked() throws Exception {
+        styles.setConcurrent(true);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Integer> future = lookupWhileLocked(styles, release, () -> styles.of(Horizontals.RIGHT));
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            fail("Lookup must wait for the lock in concurrent mode");
+        } catch (TimeoutException e) {
+            // Expected
+        }
+        release.countDown();
+        assertEquals(Horizontals.RIGHT, styles.getStyleByIndex(future.get(5, TimeUnit.SECONDS)));
+    }
 }
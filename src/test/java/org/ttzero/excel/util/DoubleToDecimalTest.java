@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author guanquan.wang at 2024-11-30 15:02
+ */
+public class DoubleToDecimalTest {
+    private final byte[] buf = new byte[DoubleToDecimal.MAX_CHARS];
+
+    private String toString(double d) {
+        return new String(buf, 0, DoubleToDecimal.toBytes(d, buf, 0), StandardCharsets.US_ASCII);
+    }
+
+    private String toString(float f) {
+        return new String(buf, 0, DoubleToDecimal.toBytes(f, buf, 0), StandardCharsets.US_ASCII);
+    }
+
+    @Test public void testFormat() {
+        assertEquals("0.0", toString(0D));
+        assertEquals("-0.0", toString(-0D));
+        assertEquals("NaN", toString(Double.NaN));
+        assertEquals("-Infinity", toString(Double.NEGATIVE_INFINITY));
+        assertEquals("1.0", toString(1D));
+        assertEquals("0.1", toString(0.1D));
+        assertEquals("0.001", toString(0.001D));
+        assertEquals("1.0E-4", toString(0.0001D));
+        assertEquals("123.456", toString(123.456D));
+        assertEquals("1234567.0", toString(1234567D));
+        assertEquals("1.0E7", toString(1.0E7D));
+        assertEquals("1.2345678E7", toString(12345678D));
+        assertEquals("-45352.5625", toString(-45352.5625D));
+        assertEquals("1.7976931348623157E308", toString(Double.MAX_VALUE));
+        assertEquals("4.9E-324", toString(Double.MIN_VALUE));
+        assertEquals("2.2250738585072014E-308", toString(Double.MIN_NORMAL));
+        assertEquals("0.3", toString(0.3F));
+        assertEquals("3.4028235E38", toString(Float.MAX_VALUE));
+        assertEquals("1.4E-45", toString(Float.MIN_VALUE));
+        assertEquals("100.0", toString(100F));
+    }
+
+    @Test public void testRoundTripDouble() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000_000; i++) {
+            double d = i % 2 == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextDouble() * Math.pow(10, random.nextInt(30) - 10);
+            if (Double.isNaN(d)) continue;
+            String s = toString(d), expect = Double.toString(d);
+            assertEquals(s, d, Double.parseDouble(s), 0D);
+            // Shortest digits
+            assertTrue(s + " vs " + expect, significand(s).length() <= significand(expect).length());
+            // Same digits must be the same format
+            if (s.length() == expect.length() && new BigDecimal(s).compareTo(new BigDecimal(expect)) == 0) assertEquals(expect, s);
+        }
+    }
+
+    @Test public void testRoundTripFloat() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000_000; i++) {
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (Float.isNaN(f)) continue;
+            String s = toString(f), expect = Float.toString(f);
+            assertEquals(s, f, Float.parseFloat(s), 0F);
+            assertTrue(s + " vs " + expect, significand(s).length() <= significand(expect).length());
+        }
+    }
+
+    @Test public void testDecimal() {
+        Random random = new Random(3);
+        for (int i = 0; i < 1_000_000; i++) {
+            BigDecimal d = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64), random.nextInt(24) - 4);
+            int n = DoubleToDecimal.toBytes(d, buf, 0);
+            if (n >= 0) assertEquals(d.toString(), new String(buf, 0, n, StandardCharsets.US_ASCII));
+        }
+        assertEquals("0.00", toString(new BigDecimal("0.00")));
+        assertEquals("-0.0005", toString(new BigDecimal("-0.0005")));
+        assertEquals("123456789012345", toString(new BigDecimal("123456789012345")));
+        assertEquals("-12.340", toString(new BigDecimal("-12.340")));
+        assertEquals(-1, DoubleToDecimal.toBytes(new BigDecimal("1E+3"), buf, 0));
+    }
+
+    private String toString(BigDecimal d) {
+        return new String(buf, 0, DoubleToDecimal.toBytes(d, buf, 0), StandardCharsets.US_ASCII);
+    }
+
+    private static String significand(String s) {
+        int i = s.indexOf('E');
+        String t = (i > 0 ? s.substring(0, i) : s).replace("-", "").replace(".", "");
+        // Strip leading and trailing zeros
+        t = t.replaceAll("^0+", "").replaceAll("0+$", "");
+        return t;
+    }
+}
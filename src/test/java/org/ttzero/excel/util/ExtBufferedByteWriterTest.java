@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author guanquan.wang at 2024-11-29 14:05
+ */
+public class ExtBufferedByteWriterTest {
+
+    @Test public void testSameAsCharWriter() throws IOException {
+        Random random = new Random(7);
+        ByteArrayOutputStream expect = new ByteArrayOutputStream(), actual = new ByteArrayOutputStream();
+        // Small buffer to cross the boundary frequently
+        try (ExtBufferedWriter a = new ExtBufferedWriter(new OutputStreamWriter(expect, StandardCharsets.UTF_8));
+             ExtBufferedWriter b = new ExtBufferedByteWriter(actual, 32)) {
+            for (int i = 0; i < 20_000; i++) {
+                String s = randomString(random);
+                switch (random.nextInt(9)) {
+                    case 0: a.escapeWrite(s); b.escapeWrite(s); break;
+                    case 1: a.write(s); b.write(s); break;
+                    case 2: char c = s.isEmpty() ? 'x' : s.charAt(0); a.escapeWrite(c); b.escapeWrite(c); break;
+                    case 3: int n = random.nextInt(); a.writeInt(n); b.writeInt(n); break;
+                    case 4: long l = random.nextLong() >> random.nextInt(64); a.write(l); b.write(l); break;
+                    case 5: double d = random.nextDouble() * 1e6; a.write(d); b.write(d); break;
+                    case 6: a.writeBytes("<c r=\"".getBytes(StandardCharsets.US_ASCII)); b.writeBytes("<c r=\"".getBytes(StandardCharsets.US_ASCII)); break;
+                    case 7: char[] cs = s.toCharArray(); a.writeUTF8(cs, 0, cs.length); b.writeUTF8(s.toCharArray(), 0, cs.length); break;
+                    default: a.write('>'); b.write('>');
+                }
+            }
+            a.writeInt(Integer.MIN_VALUE); b.writeInt(Integer.MIN_VALUE);
+            a.write(Long.MIN_VALUE); b.write(Long.MIN_VALUE);
+        }
+        assertEquals(new String(expect.toByteArray(), StandardCharsets.UTF_8), new String(actual.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test public void testSurrogatePair() throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ExtBufferedByteWriter writer = new ExtBufferedByteWriter(os, 16)) {
+            // A pair split into two writes
+            writer.write('\uD83D');
+            writer.write('\uDE00');
+            writer.escapeWrite("a😀<\uDE00\uD83D");
+            writer.write("\uD83D");
+        }
+        assertEquals("😀a😀&lt;���", new String(os.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    static String randomString(Random random) {
+        char[] cs = new char[random.nextInt(80)];
+        for (int i = 0; i < cs.length; i++) {
+            switch (random.nextInt(6)) {
+                case 0: cs[i] = (char) random.nextInt(0x80); break;
+                case 1: cs[i] = (char) (0x80 + random.nextInt(0x780)); break;
+                case 2: cs[i] = (char) (0x4E00 + random.nextInt(0x5000)); break;
+                case 3:
+                    if (i + 1 < cs.length) {
+                        int cp = 0x10000 + random.nextInt(0x10000);
+                        cs[i++] = Character.highSurrogate(cp);
+                        cs[i] = Character.lowSurrogate(cp);
+                    } else cs[i] = 'z';
+                    break;
+                default: cs[i] = (char) ('a' + random.nextInt(26));
+            }
+        }
+        return new String(cs);
+    }
+}
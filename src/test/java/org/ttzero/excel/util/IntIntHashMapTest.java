@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.ttzero.excel.entity.style.Styles;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author guanquan.wang at 2024-11-28 16:20
+ */
+public class IntIntHashMapTest {
+    @Test public void testPutGet() {
+        IntIntHashMap map = new IntIntHashMap(4, -1);
+        Map<Integer, Integer> expect = new HashMap<>();
+        Random random = new Random(0);
+        for (int i = 0; i < 100_000; i++) {
+            int k = random.nextInt(50_000) - 25_000, v = random.nextInt();
+            assertEquals((int) expect.getOrDefault(k, -1), map.put(k, v));
+            expect.put(k, v);
+        }
+        assertEquals(expect.size(), map.size());
+        for (Map.Entry<Integer, Integer> e : expect.entrySet()) {
+            assertEquals((int) e.getValue(), map.get(e.getKey()));
+        }
+        assertEquals(-1, map.get(100_000));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(0));
+    }
+
+    @Test public void testStylesOfNoAllocation() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+
+        Styles styles = Styles.create();
+        int[] values = new int[256];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (i + 1) << Styles.INDEX_NUMBER_FORMAT;
+            styles.of(values[i]);
+        }
+        long tid = Thread.currentThread().getId(), n = 0;
+        long before = threadBean.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 1_000_000; i++) {
+            n += styles.of(values[i & 0xFF]);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(tid) - before;
+        assertTrue(n > 0);
+        // Boxing would take about 16M
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1 << 16);
+    }
+}
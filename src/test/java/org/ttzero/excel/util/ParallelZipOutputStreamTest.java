@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017-2024, guanquan.wang@yandex.com All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.ttzero.excel.util;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ttzero.excel.entity.ListObjectSheetTest;
+import org.ttzero.excel.entity.ListSheet;
+import org.ttzero.excel.entity.Workbook;
+import org.ttzero.excel.entity.e7.XMLWorkbookWriter;
+import org.ttzero.excel.reader.ExcelReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.ttzero.excel.entity.WorkbookTest.defaultTestPath;
+
+/**
+ * @author guanquan.wang at 2024-11-25 16:20
+ */
+public class ParallelZipOutputStreamTest {
+    private static ExecutorService executor;
+
+    @BeforeClass public static void init() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass public static void shutdown() {
+        executor.shutdown();
+    }
+
+    @Test public void testMultiBlockEntry() throws IOException {
+        byte[] data = randomText(1 << 20), small = "<small/>".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ParallelZipOutputStream zos = new ParallelZipOutputStream(os, executor, 4, 1 << 15)) {
+            zos.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            // Uneven writes across block boundaries
+            for (int i = 0, n; i < data.length; i += n) {
+                n = Math.min(data.length - i, 1000 + i % 7919);
+                zos.write(data, i, n);
+            }
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("xl/empty.xml"));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry("xl/small.xml"));
+            zos.write(small);
+        }
+        assertTrue(os.size() < data.length / 2);
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(os.toByteArray()))) {
+            assertEquals("xl/worksheets/sheet1.xml", zis.getNextEntry().getName());
+            assertArrayEquals(data, readAll(zis));
+            assertEquals("xl/empty.xml", zis.getNextEntry().getName());
+            assertEquals(0, readAll(zis).length);
+            assertEquals("xl/small.xml", zis.getNextEntry().getName());
+            assertArrayEquals(small, readAll(zis));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test public void testStoredPolicy() throws IOException {
+        byte[] data = randomText(100_000), deflated = randomText(50_000);
+        Path path = defaultTestPath.resolve("parallel-zip-stored.zip");
+        try (ParallelZipOutputStream zos = new ParallelZipOutputStream(Files.newOutputStream(path), executor, 4, 1 << 15)
+            .setCompressionPolicy(name -> name.endsWith(".bin") ? ParallelZipOutputStream.STORED : 9)) {
+            zos.putNextEntry(new ZipEntry("data.bin"));
+            zos.write(data);
+            zos.putNextEntry(new ZipEntry("data.xml"));
+            zos.write(deflated);
+        }
+
+        try (ZipFile zipFile = new ZipFile(path.toFile())) {
+            ZipEntry entry = zipFile.getEntry("data.bin");
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            assertEquals(data.length, entry.getCompressedSize());
+            assertArrayEquals(data, readAll(zipFile.getInputStream(entry)));
+            entry = zipFile.getEntry("data.xml");
+            assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+            assertArrayEquals(deflated, readAll(zipFile.getInputStream(entry)));
+        }
+    }
+
+    @Test public void testStoredWithKnownCrc() throws IOException {
+        byte[] data = randomText(200_000);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (ParallelZipOutputStream zos = new ParallelZipOutputStream(os, executor, 4, 1 << 15)) {
+            ZipEntry entry = new ZipEntry("xl/media/image1.png");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+            zos.putNextEntry(entry);
+            zos.write(data);
+            zos.closeEntry();
+        }
+
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(os.toByteArray()))) {
+            ZipEntry entry = zis.getNextEntry();
+            assertEquals("xl/media/image1.png", entry.getName());
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            assertArrayEquals(data, readAll(zis));
+            assertNull(zis.getNextEntry());
+        }
+    }
+
+    @Test(expected = ZipException.class) public void testStoredCrcMismatch() throws IOException {
+        try (ParallelZipOutputStream zos = new ParallelZipOutputStream(new ByteArrayOutputStream(), executor, 4, 1 << 15)) {
+            ZipEntry entry = new ZipEntry("xl/media/image1.png");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(4);
+            entry.setCompressedSize(4);
+            entry.setCrc(0);
+            zos.putNextEntry(entry);
+            zos.write(new byte[] { 1, 2, 3, 4 });
+            zos.closeEntry();
+        }
+    }
+
+    @Test public void testWorkbookParallelCompression() throws IOException {
+        String fileName = "parallel compression.xlsx";
+        List<ListObjectSheetTest.Item> expectList = ListObjectSheetTest.Item.randomTestData(10000);
+        new Workbook()
+            .setWorkbookWriter(new XMLWorkbookWriter().setCompressionExecutor(executor)
+                .setCompressionPolicy(name -> name.startsWith("xl/worksheets/") ? ParallelZipOutputStream.STORED : ZipUtil.MIDDLE_COMPRESSION))
+            .addSheet(new ListSheet<>(expectList))
+            .writeTo(defaultTestPath.resolve(fileName));
+
+        try (ExcelReader reader = ExcelReader.read(defaultTestPath.resolve(fileName))) {
+            List<ListObjectSheetTest.Item> list = reader.sheet(0).dataRows().map(row -> row.to(ListObjectSheetTest.Item.class)).collect(Collectors.toList());
+            assertEquals(expectList, list);
+        }
+    }
+
+    static byte[] randomText(int size) {
+        Random random = new Random(size);
+        byte[] data = new byte[size];
+        String[] words = { "<row r=\"", "<c r=\"A", "\" t=\"s\"><v>", "</v></c>", "</row>", "hello", "world", "excel" };
+        for (int i = 0; i < size; ) {
+            byte[] w = random.nextInt(5) == 0 ? Integer.toString(random.nextInt(100000)).getBytes(StandardCharsets.US_ASCII)
+                : words[random.nextInt(words.length)].getBytes(StandardCharsets.US_ASCII);
+            int n = Math.min(w.length, size - i);
+            System.arraycopy(w, 0, data, i, n);
+            i += n;
+        }
+        return data;
+    }
+
+    static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        for (int n; (n = is.read(buf)) > 0; ) os.write(buf, 0, n);
+        return os.toByteArray();
+    }
+}